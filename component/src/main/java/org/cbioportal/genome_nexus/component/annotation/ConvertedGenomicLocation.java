@@ -0,0 +1,45 @@
+package org.cbioportal.genome_nexus.component.annotation;
+
+import org.cbioportal.genome_nexus.model.GenomicLocation;
+
+/**
+ * Genomic location converted by NotationConverter.convertGenomicLocations,
+ * the location is only normalized once for both the variant notation and the explanation.
+ */
+public class ConvertedGenomicLocation
+{
+    private final String originalInput;
+    private final GenomicLocation genomicLocation;
+    private final String variant;
+    private final String explanation;
+
+    public ConvertedGenomicLocation(String originalInput,
+                                    GenomicLocation genomicLocation,
+                                    String variant,
+                                    String explanation)
+    {
+        this.originalInput = originalInput;
+        this.genomicLocation = genomicLocation;
+        this.variant = variant;
+        this.explanation = explanation;
+    }
+
+    public String getOriginalInput() {
+        return originalInput;
+    }
+
+    public GenomicLocation getGenomicLocation() {
+        return genomicLocation;
+    }
+
+    /**
+     * HGVS or Ensembl REST region notation, null if the location cannot be converted.
+     */
+    public String getVariant() {
+        return variant;
+    }
+
+    public String getExplanation() {
+        return explanation;
+    }
+}
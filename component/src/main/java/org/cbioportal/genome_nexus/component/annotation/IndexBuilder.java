@@ -1,4 +1,6 @@
 package org.cbioportal.genome_nexus.component.annotation;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
 import com.mongodb.lang.Nullable;
 import org.cbioportal.genome_nexus.model.Index;
 import org.cbioportal.genome_nexus.model.VariantAnnotation;
@@ -31,6 +33,32 @@ public class IndexBuilder {
         return index;
     }
 
+    /**
+     * Builds the index document stored in the index collection, without a JSON round trip.
+     * Null fields are omitted, same as the JSON serialization of the Index.
+     */
+    @NotNull
+    public DBObject buildIndexDocument(Index index)
+    {
+        BasicDBObject document = new BasicDBObject();
+        putIfNotNull(document, "variant", index.getvariant());
+        putIfNotNull(document, "hugoSymbol", index.getHugoSymbol());
+        putIfNotNull(document, "hgvspShort", index.getHgvspShort());
+        putIfNotNull(document, "hgvsp", index.getHgvsp());
+        putIfNotNull(document, "cdna", index.getCdna());
+        putIfNotNull(document, "hgvsc", index.getHgvsc());
+        putIfNotNull(document, "rsid", index.getRsid());
+
+        return document;
+    }
+
+    private static void putIfNotNull(BasicDBObject document, String key, Object value)
+    {
+        if (value != null) {
+            document.put(key, value);
+        }
+    }
+
     @Nullable
     private String resolveVariant(VariantAnnotation variantAnnotation)
     {
@@ -9,6 +9,7 @@ import org.jetbrains.annotations.Nullable;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -18,6 +19,11 @@ import java.util.Map;
 public class NotationConverter {
     public static final String DEFAULT_DELIMITER = ",";
 
+    public enum VariantNotation {
+        HGVS,
+        ENSEMBL_REST_REGION
+    }
+
     public String hgvsNormalizer(String hgvs) {
         return hgvs.replace("chr","").replace("23:g.","X:g.").replace("24:g.","Y:g.");
     }
@@ -56,7 +62,9 @@ public class NotationConverter {
         if (genomicLocation == null) {
             return null;
         }
-        String[] parts = genomicLocation.split(delimiter);
+        // regex meta characters still go through String.split
+        String[] parts = delimiter.length() == 1 && ".$|()[{^?*+\\".indexOf(delimiter.charAt(0)) < 0 ?
+            splitLocationFields(genomicLocation, delimiter.charAt(0)) : genomicLocation.split(delimiter);
         GenomicLocation location = null;
         if (parts.length >= 5) {
             // trim all parts
@@ -75,6 +83,37 @@ public class NotationConverter {
         return location;
     }
 
+    /**
+     * Same result as String.split for a single character delimiter as far as the first 5 fields
+     * are concerned, without scanning or copying the remaining fields.
+     */
+    private String[] splitLocationFields(String genomicLocation, char delimiter) {
+        String[] fields = new String[5];
+        int from = 0;
+        for (int i = 0; i < fields.length; i++) {
+            if (from > genomicLocation.length()) {
+                // less than 5 fields
+                return new String[0];
+            }
+            int to = genomicLocation.indexOf(delimiter, from);
+            if (to < 0) {
+                to = genomicLocation.length();
+            }
+            fields[i] = genomicLocation.substring(from, to);
+            from = to + 1;
+        }
+        // String.split drops trailing empty fields
+        if (fields[4].isEmpty()) {
+            for (int i = from; i < genomicLocation.length(); i++) {
+                if (genomicLocation.charAt(i) != delimiter) {
+                    return fields;
+                }
+            }
+            return new String[0];
+        }
+        return fields;
+    }
+
     @Nullable
     public String genomicToHgvs(String genomicLocation) {
         return genomicToHgvs(parseGenomicLocation(genomicLocation));
@@ -163,7 +202,11 @@ public GenomicLocation normalizeGenomicLocation(GenomicLocation genomicLocation)
         if (genomicLocation == null) {
             return null;
         }
-        GenomicLocation normalizedGenomicLocation = normalizeGenomicLocation(genomicLocation);
+        return normalizedToHgvs(normalizeGenomicLocation(genomicLocation), new StringBuilder());
+    }
+
+    @Nullable
+    private String normalizedToHgvs(GenomicLocation normalizedGenomicLocation, StringBuilder buffer) {
         String chr = normalizedGenomicLocation.getChromosome();
         Integer start = normalizedGenomicLocation.getStart();
         Integer end = normalizedGenomicLocation.getEnd();
@@ -180,11 +223,7 @@ public GenomicLocation normalizeGenomicLocation(GenomicLocation genomicLocation)
             Example insertion: 17 36002277 36002278 - A
             Example output: 17:g.36002277_36002278insA
             */
-            try {
-                hgvs = chr + ":g." + start + "_" + String.valueOf(start + 1) + "ins" + var;
-            } catch (NumberFormatException e) {
-                return null;
-            }
+            hgvs = hgvsPrefix(buffer, chr, start).append("_").append(start + 1).append("ins").append(var).toString();
         } else if (var.equals("-") || var.length() == 0 || var.equals("NA") || var.contains("--")) {
             if (ref.length() == 1) {
                 /*
@@ -192,7 +231,7 @@ public GenomicLocation normalizeGenomicLocation(GenomicLocation genomicLocation)
                 Example deletion: 13 32914438 32914438 T -
                 Example output:   13:g.32914438del
                 */
-                hgvs = chr + ":g." + start + "del";
+                hgvs = hgvsPrefix(buffer, chr, start).append("del").toString();
             }
             else {
                 /*
@@ -200,7 +239,7 @@ public GenomicLocation normalizeGenomicLocation(GenomicLocation genomicLocation)
                 Example deletion: 1 206811015 206811016  AC -
                 Example output:   1:g.206811015_206811016del
                 */
-                hgvs = chr + ":g." + start + "_" + end + "del";
+                hgvs = hgvsPrefix(buffer, chr, start).append("_").append(end).append("del").toString();
             } 
         } else if (ref.length() > 1 && var.length() >= 1) {
             /*
@@ -208,31 +247,40 @@ public GenomicLocation normalizeGenomicLocation(GenomicLocation genomicLocation)
             Example INDEL   : 2 216809708 216809709 CA T
             Example output: 2:g.216809708_216809709delinsT
             */
-            hgvs = chr + ":g." + start + "_" + end + "delins" + var;
+            hgvs = hgvsPrefix(buffer, chr, start).append("_").append(end).append("delins").append(var).toString();
         } else if (ref.length() == 1 && var.length() > 1) {
             /*
             Process ONP (single deletion insertion)
             Example INDEL   : 17 7579363 7579363 A TTT
             Example output: 17:g.7579363delinsTTT
             */
-            hgvs = chr + ":g." + start + "delins" + var;
+            hgvs = hgvsPrefix(buffer, chr, start).append("delins").append(var).toString();
         } else {
             /*
             Process SNV
             Example SNP   : 2 216809708 216809708 C T
             Example output: 2:g.216809708C>T
             */
-            hgvs = chr + ":g." + start + ref + ">" + var;
+            hgvs = hgvsPrefix(buffer, chr, start).append(ref).append(">").append(var).toString();
         }
         return hgvs;
     }
 
+    private StringBuilder hgvsPrefix(StringBuilder buffer, String chr, Integer start) {
+        buffer.setLength(0);
+        return buffer.append(chr).append(":g.").append(start.intValue());
+    }
+
     @Nullable
     public String genomicToEnsemblRestRegion(GenomicLocation genomicLocation) {
         if (genomicLocation == null) {
             return null;
         }
-        GenomicLocation normalizedGenomicLocation = normalizeGenomicLocation(genomicLocation);
+        return normalizedToEnsemblRestRegion(normalizeGenomicLocation(genomicLocation), new StringBuilder());
+    }
+
+    @Nullable
+    private String normalizedToEnsemblRestRegion(GenomicLocation normalizedGenomicLocation, StringBuilder buffer) {
         String chr = normalizedGenomicLocation.getChromosome();
         Integer start = normalizedGenomicLocation.getStart();
         Integer end = normalizedGenomicLocation.getEnd();
@@ -254,39 +302,67 @@ public GenomicLocation normalizeGenomicLocation(GenomicLocation genomicLocation)
             Example deletion: 11 2133018 2133018 - -
             Example output: 11:2133018-2133018:1/-
             */
-            region = chr + ":" + start + "-" + end + ":1/-";
+            region = regionPrefix(buffer, chr, start, end).append(":1/-").toString();
         } else if (ref.equals("-") || ref.length() == 0 || ref.equals("NA") || ref.contains("--")) {
             /*
             Process Insertion
             Example insertion: 17 36002277 36002278 - A
             Example output: 17:36002278-36002277:1/A
             */
-            try {
-                // We follow the rule for insertions described here: https://useast.ensembl.org/info/docs/tools/vep/vep_formats.html#default
-                // The VEP differentiates between ins and delins by swapping the start and end positions for insertions.
-                region = chr + ":" + String.valueOf(start + 1) + "-" + start  + ":1/" + var;
-            }
-            catch (NumberFormatException e) {
-                return null;
-            }
+            // We follow the rule for insertions described here: https://useast.ensembl.org/info/docs/tools/vep/vep_formats.html#default
+            // The VEP differentiates between ins and delins by swapping the start and end positions for insertions.
+            region = regionPrefix(buffer, chr, start + 1, start).append(":1/").append(var).toString();
         } else if (ref.length() > 1 || var.length() > 1) {
             /*
             Process ONP
             Example SNP   : 2 216809708 216809709 CA T
             Example output: 2:216809708-216809709:1/T
             */
-            region = chr + ":" + start + "-" + end + ":1/" + var;
+            region = regionPrefix(buffer, chr, start, end).append(":1/").append(var).toString();
         } else {
             /*
             Process SNV
             Example SNP   : 2 216809708 216809708 C T
             Example output: 2:216809708-216809708:1/T
             */
-            region = chr + ":" + start + "-" + start + ":1/" + var;
+            region = regionPrefix(buffer, chr, start, start).append(":1/").append(var).toString();
         }
         return region;
     }
 
+    private StringBuilder regionPrefix(StringBuilder buffer, String chr, Integer start, Integer end) {
+        buffer.setLength(0);
+        return buffer.append(chr).append(":").append(start.intValue()).append("-").append(end);
+    }
+
+    /**
+     * Converts the given locations to the given notation in a single pass. Every location is parsed and
+     * normalized only once, and identical locations within the batch are only converted once:
+     * the returned list contains the same ConvertedGenomicLocation instance for them.
+     */
+    @NotNull
+    public List<ConvertedGenomicLocation> convertGenomicLocations(List<GenomicLocation> genomicLocations,
+                                                                  VariantNotation notation) {
+        List<ConvertedGenomicLocation> conversions = new ArrayList<>(genomicLocations.size());
+        Map<String, ConvertedGenomicLocation> convertedByInput = new HashMap<>();
+        StringBuilder buffer = new StringBuilder();
+        for (GenomicLocation location : genomicLocations) {
+            String originalInput = location.toString();
+            ConvertedGenomicLocation conversion = convertedByInput.get(originalInput);
+            if (conversion == null) {
+                GenomicLocation normalizedGenomicLocation = normalizeGenomicLocation(location);
+                String variant = notation == VariantNotation.ENSEMBL_REST_REGION ?
+                    normalizedToEnsemblRestRegion(normalizedGenomicLocation, buffer) :
+                    normalizedToHgvs(normalizedGenomicLocation, buffer);
+                conversion = new ConvertedGenomicLocation(originalInput, location, variant,
+                    getGenomicLocationExplanation(location, normalizedGenomicLocation));
+                convertedByInput.put(originalInput, conversion);
+            }
+            conversions.add(conversion);
+        }
+        return conversions;
+    }
+
     @NotNull
     public Map<String, GenomicLocation> genomicToHgvsMap(List<GenomicLocation> genomicLocations) {
         Map<String, GenomicLocation> variantToGenomicLocation = new LinkedHashMap<>();
@@ -302,8 +378,9 @@ public GenomicLocation normalizeGenomicLocation(GenomicLocation genomicLocation)
 
     public List<String> genomicToHgvs(List<GenomicLocation> genomicLocations) {
         List<String> hgvsList = new ArrayList<>();
+        StringBuilder buffer = new StringBuilder();
         for (GenomicLocation location : genomicLocations) {
-            String hgvs = genomicToHgvs(location);
+            String hgvs = location == null ? null : normalizedToHgvs(normalizeGenomicLocation(location), buffer);
             if (hgvs != null) {
                 hgvsList.add(hgvs);
             }
@@ -326,8 +403,10 @@ public GenomicLocation normalizeGenomicLocation(GenomicLocation genomicLocation)
 
     public List<String> genomicToEnsemblRestRegion(List<GenomicLocation> genomicLocations) {
         List<String> ensemblRestRegionsList = new ArrayList<>();
+        StringBuilder buffer = new StringBuilder();
         for (GenomicLocation location : genomicLocations) {
-            String ensemblRestRegion = genomicToEnsemblRestRegion(location);
+            String ensemblRestRegion = location == null ? null :
+                normalizedToEnsemblRestRegion(normalizeGenomicLocation(location), buffer);
             if (ensemblRestRegion != null) {
                 ensemblRestRegionsList.add(ensemblRestRegion);
             }
@@ -356,9 +435,12 @@ public GenomicLocation normalizeGenomicLocation(GenomicLocation genomicLocation)
         if (genomicLocation == null) {
             return null;
         }
+        return getGenomicLocationExplanation(genomicLocation, normalizeGenomicLocation(genomicLocation));
+    }
 
+    @Nullable
+    private String getGenomicLocationExplanation(GenomicLocation genomicLocation, GenomicLocation normalizedGenomicLocation) {
         StringBuilder explanation = new StringBuilder(); 
-        GenomicLocation normalizedGenomicLocation = normalizeGenomicLocation(genomicLocation);
 
         Integer start = genomicLocation.getStart();
         Integer end = genomicLocation.getEnd();
@@ -10,8 +10,6 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 @Component
@@ -24,13 +22,24 @@ public class ProteinChangeResolver
         {"Thr", "T"}, {"Trp", "W"}, {"Tyr", "Y"}, {"Val", "V"}, {"Xxx", "X"}, {"Ter", "*"}
     };
 
+    // AA3TO1 indexed by the first letter of the 3 letter code, see translateAminoAcidCodes
+    private static final String[][][] AA3TO1_BY_FIRST_LETTER = new String[26][][];
+
+    static {
+        for (char first = 'A'; first <= 'Z'; first++) {
+            final char letter = first;
+            AA3TO1_BY_FIRST_LETTER[first - 'A'] = Arrays.stream(AA3TO1)
+                .filter(aa -> aa[0].charAt(0) == letter)
+                .toArray(String[][]::new);
+        }
+    }
+
     public static final Set<String> SPLICE_SITE_VARIANTS = new HashSet<>(
         Arrays.asList("splice_acceptor_variant", "splice_donor_variant", "splice_region_variant")
     );
 
     private final CanonicalTranscriptResolver canonicalTranscriptResolver;
     private final VariantClassificationResolver variantClassificationResolver;
-    private final Pattern cDnaExtractor;
 
     @Autowired
     public ProteinChangeResolver(CanonicalTranscriptResolver canonicalTranscriptResolver,
@@ -38,7 +47,6 @@ public class ProteinChangeResolver
     {
         this.canonicalTranscriptResolver = canonicalTranscriptResolver;
         this.variantClassificationResolver = variantClassificationResolver;
-        this.cDnaExtractor = Pattern.compile(".*[cn].-?\\*?(\\d+).*");
     }
 
     /**
@@ -98,15 +106,7 @@ public class ProteinChangeResolver
             return null;
         }
 
-        String hgvspShort = hgvsp;
-
-        for (int i = 0; i < 24; i++) {
-            if (hgvsp.contains(AA3TO1[i][0])) {
-                hgvspShort = hgvspShort.replaceAll(AA3TO1[i][0], AA3TO1[i][1]);
-            }
-        }
-
-        return hgvspShort;
+        return translateAminoAcidCodes(hgvsp);
     }
 
     @Nullable
@@ -119,16 +119,16 @@ public class ProteinChangeResolver
         Integer cPos = 0;
         Integer pPos = 0;
 
-        Matcher m = this.cDnaExtractor.matcher(hgvsc);
+        String cDnaPosition = extractCdnaPosition(hgvsc);
 
-        if (m.matches())
+        if (cDnaPosition != null)
         {
             // "c.*" represents for UTR
             if (hgvsc.contains("c.*")) {
                 return null;
             }
 
-            cPos = Integer.parseInt(m.group(1));
+            cPos = Integer.parseInt(cDnaPosition);
             cPos = cPos < 1 ? 1 : cPos;
             pPos = (cPos + 2) / 3;
 
@@ -155,6 +155,132 @@ public class ProteinChangeResolver
         return hgvspShort;
     }
 
+    /**
+     * Replaces every 3 letter amino acid code with the corresponding 1 letter code in a single scan,
+     * e.g. p.Val600Glu -> p.V600E. Returns the given string itself if it contains no 3 letter code.
+     *
+     * This used to be done by replacing each code of AA3TO1 in turn. In the unusual case where
+     * a replacement forms a new 3 letter code together with the next characters (e.g. "Leuys")
+     * the result depends on that order, so those strings are still translated code by code.
+     */
+    static String translateAminoAcidCodes(String hgvsp)
+    {
+        StringBuilder translated = null;
+        int copied = 0;
+
+        for (int i = 0; i + 2 < hgvsp.length(); i++)
+        {
+            String[] code = findAminoAcidCode(hgvsp, i);
+
+            if (code == null) {
+                continue;
+            }
+
+            if (i + 4 < hgvsp.length() &&
+                findAminoAcidCode(code[1] + hgvsp.charAt(i + 3) + hgvsp.charAt(i + 4), 0) != null)
+            {
+                return translateAminoAcidCodesInOrder(hgvsp);
+            }
+
+            if (translated == null) {
+                translated = new StringBuilder(hgvsp.length());
+            }
+
+            translated.append(hgvsp, copied, i).append(code[1]);
+            copied = i + 3;
+            i += 2;
+        }
+
+        if (translated == null) {
+            return hgvsp;
+        }
+
+        return translated.append(hgvsp, copied, hgvsp.length()).toString();
+    }
+
+    @Nullable
+    private static String[] findAminoAcidCode(String value, int index)
+    {
+        char first = value.charAt(index);
+
+        if (first < 'A' || first > 'Z') {
+            return null;
+        }
+
+        for (String[] code : AA3TO1_BY_FIRST_LETTER[first - 'A']) {
+            if (value.regionMatches(index, code[0], 0, 3)) {
+                return code;
+            }
+        }
+
+        return null;
+    }
+
+    private static String translateAminoAcidCodesInOrder(String hgvsp)
+    {
+        String hgvspShort = hgvsp;
+
+        for (String[] code : AA3TO1) {
+            if (hgvsp.contains(code[0])) {
+                hgvspShort = hgvspShort.replace(code[0], code[1]);
+            }
+        }
+
+        return hgvspShort;
+    }
+
+    /**
+     * Extracts the cDNA position of the given HGVSc, e.g. ENST00000288602.6:c.1799T>A -> 1799.
+     * Same result as the first group of ".*[cn].-?\\*?(\\d+).*" when the whole string matches:
+     * the last "c" or "n" followed by any character, an optional "-", an optional "*" and digits.
+     *
+     * @return the digits of the position, or null if there is no position
+     */
+    @Nullable
+    static String extractCdnaPosition(String hgvsc)
+    {
+        int length = hgvsc.length();
+
+        // "." does not match line terminators
+        for (int i = 0; i < length; i++) {
+            char c = hgvsc.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return null;
+            }
+        }
+
+        for (int i = length - 3; i >= 0; i--)
+        {
+            char c = hgvsc.charAt(i);
+
+            if (c != 'c' && c != 'n') {
+                continue;
+            }
+
+            int start = i + 2;
+
+            if (start < length && hgvsc.charAt(start) == '-') {
+                start++;
+            }
+
+            if (start < length && hgvsc.charAt(start) == '*') {
+                start++;
+            }
+
+            int end = start;
+
+            while (end < length && hgvsc.charAt(end) >= '0' && hgvsc.charAt(end) <= '9') {
+                end++;
+            }
+
+            if (end > start) {
+                return hgvsc.substring(start, end);
+            }
+        }
+
+        return null;
+    }
+
     @Nullable
     private String resolveHgvspShortFromAAs(TranscriptConsequence transcriptConsequence)
     {
@@ -0,0 +1,393 @@
+package org.cbioportal.genome_nexus.component.search;
+
+import org.cbioportal.genome_nexus.model.Index;
+import org.cbioportal.genome_nexus.model.IndexSearch;
+import org.cbioportal.genome_nexus.model.IndexSearchType;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * In memory search engine over Index documents.
+ *
+ * Every searchable field is kept in a case folded prefix index. Protein and cDNA changes
+ * are additionally scoped by gene (gene + separator + term) so that a "GENE p.X" query
+ * only scans the postings of that gene. Exact matches rank before prefix matches,
+ * and prefix matches rank before typo tolerant (single edit) matches.
+ */
+@Component
+public class IndexSearchEngine
+{
+    public static final int MAX_CANDIDATE_TERMS = 1000;
+    public static final int MAX_FUZZY_TERMS = 5000;
+    public static final int MAX_EDITS = 1;
+
+    private static final String GENE_SEPARATOR = "\u0000";
+
+    private enum MatchRank {
+        EXACT,
+        PREFIX,
+        FUZZY
+    }
+
+    private static final class Candidate
+    {
+        private final String key;
+        private final String term;
+        private final MatchRank rank;
+
+        private Candidate(String key, String term, MatchRank rank)
+        {
+            this.key = key;
+            this.term = term;
+            this.rank = rank;
+        }
+    }
+
+    private static final Comparator<Candidate> CANDIDATE_COMPARATOR = Comparator
+        .comparing((Candidate c) -> c.rank)
+        .thenComparingInt(c -> c.term.length())
+        .thenComparing(c -> c.term);
+
+    // variant key -> last indexed document
+    private final Map<String, Index> documents = new ConcurrentHashMap<>();
+
+    private final PrefixIndex variantIndex = new PrefixIndex();
+    private final PrefixIndex hgvscIndex = new PrefixIndex();
+    private final PrefixIndex hgvspIndex = new PrefixIndex();
+    private final PrefixIndex geneIndex = new PrefixIndex();
+
+    // gene scoped postings
+    private final PrefixIndex geneHgvspShortIndex = new PrefixIndex();
+    private final PrefixIndex geneHgvspIndex = new PrefixIndex();
+    private final PrefixIndex geneCdnaIndex = new PrefixIndex();
+
+    /**
+     * Adds the given document, replacing any document previously indexed with the same key.
+     */
+    public synchronized void index(String key, Index index)
+    {
+        if (key == null || index == null) {
+            return;
+        }
+
+        Index previous = this.documents.put(key, index);
+
+        if (previous != null) {
+            this.forEachTerm(previous, (prefixIndex, term) -> prefixIndex.remove(term, key));
+        }
+
+        this.forEachTerm(index, (prefixIndex, term) -> prefixIndex.add(term, key));
+    }
+
+    /**
+     * Adds the given document only if no document is indexed with the same key yet, so that a bulk load
+     * does not replace a document indexed while it was running.
+     *
+     * @return true if the document was added
+     */
+    public synchronized boolean indexIfAbsent(String key, Index index)
+    {
+        if (key == null || index == null || this.documents.containsKey(key)) {
+            return false;
+        }
+
+        this.index(key, index);
+
+        return true;
+    }
+
+    /**
+     * Removes the document indexed with the given key, if any.
+     */
+    public synchronized void remove(String key)
+    {
+        Index previous = key == null ? null : this.documents.remove(key);
+
+        if (previous != null) {
+            this.forEachTerm(previous, (prefixIndex, term) -> prefixIndex.remove(term, key));
+        }
+    }
+
+    public int size()
+    {
+        return this.documents.size();
+    }
+
+    public List<IndexSearch> search(String queryString, int limit)
+    {
+        List<IndexSearch> queries = new ArrayList<>();
+        String[] parts = queryString.trim().split("\\s+");
+
+        if (parts.length > 1)
+        {
+            // in case of multiple keywords assume that first one is hugo symbol
+            Map<String, MatchRank> genes = this.matchGenes(fold(parts[0]));
+            String term = fold(parts[1]);
+
+            if (term.startsWith("c.")) {
+                this.addQuery(queries, IndexSearchType.GENE_CDNA,
+                    this.searchByGene(this.geneCdnaIndex, genes, term), limit);
+            }
+            else {
+                // allow protein changes without the "p." prefix, e.g. "BRAF V600E"
+                String proteinChange = term.startsWith("p.") ? term : "p." + term;
+
+                this.addQuery(queries, IndexSearchType.GENE_HGVSPSHORT,
+                    this.searchByGene(this.geneHgvspShortIndex, genes, proteinChange), limit);
+                this.addQuery(queries, IndexSearchType.GENE_HGVSP,
+                    this.searchByGene(this.geneHgvspIndex, genes, proteinChange), limit);
+            }
+        }
+        else
+        {
+            String term = fold(parts[0]);
+
+            if (term.contains("c.")) {
+                this.addQuery(queries, IndexSearchType.HGVSC,
+                    this.search(this.hgvscIndex, "", term, MatchRank.EXACT), limit);
+            }
+            else if (term.contains("g.")) {
+                this.addQuery(queries, IndexSearchType.HGVSG,
+                    this.search(this.variantIndex, "", term, MatchRank.EXACT), limit);
+            }
+            else if (term.contains("p.")) {
+                this.addQuery(queries, IndexSearchType.GENE_HGVSP,
+                    this.search(this.hgvspIndex, "", term, MatchRank.EXACT), limit);
+            }
+        }
+
+        return queries;
+    }
+
+    private void addQuery(List<IndexSearch> queries,
+                          IndexSearchType queryType,
+                          Map<String, Candidate> candidates,
+                          int limit)
+    {
+        if (candidates.isEmpty()) {
+            return;
+        }
+
+        List<Index> results = candidates.values()
+            .stream()
+            .sorted(CANDIDATE_COMPARATOR)
+            .map(c -> this.documents.get(c.key))
+            .filter(Objects::nonNull)
+            .limit(limit)
+            .collect(Collectors.toList());
+
+        IndexSearch query = new IndexSearch();
+        query.setQueryType(queryType);
+        query.setResults(results);
+
+        queries.add(query);
+    }
+
+    private Map<String, Candidate> searchByGene(PrefixIndex prefixIndex,
+                                                Map<String, MatchRank> genes,
+                                                String term)
+    {
+        Map<String, Candidate> candidates = new HashMap<>();
+
+        for (Map.Entry<String, MatchRank> gene: genes.entrySet()) {
+            this.search(prefixIndex, gene.getKey() + GENE_SEPARATOR, term, gene.getValue())
+                .forEach((key, candidate) -> addCandidate(candidates, candidate));
+        }
+
+        return candidates;
+    }
+
+    private Map<String, Candidate> search(PrefixIndex prefixIndex,
+                                          String scope,
+                                          String term,
+                                          MatchRank floor)
+    {
+        Map<String, Candidate> candidates = new HashMap<>();
+
+        for (Map.Entry<String, Set<String>> entry: prefixIndex.prefix(scope + term, MAX_CANDIDATE_TERMS)) {
+            String indexedTerm = entry.getKey().substring(scope.length());
+            MatchRank rank = worst(indexedTerm.equals(term) ? MatchRank.EXACT : MatchRank.PREFIX, floor);
+
+            for (String key: entry.getValue()) {
+                addCandidate(candidates, new Candidate(key, indexedTerm, rank));
+            }
+        }
+
+        if (candidates.isEmpty()) {
+            this.fuzzySearch(prefixIndex, scope, term, candidates);
+        }
+
+        return candidates;
+    }
+
+    /**
+     * Finds the terms within MAX_EDITS of a prefix of the query. Only the terms sharing
+     * the longest available prefix with the query are scanned, which is where the first
+     * typo must be located.
+     */
+    private void fuzzySearch(PrefixIndex prefixIndex,
+                             String scope,
+                             String term,
+                             Map<String, Candidate> candidates)
+    {
+        for (int length = term.length() - 1; length > 0; length--)
+        {
+            NavigableMap<String, Set<String>> range = prefixIndex.prefix(scope + term.substring(0, length));
+
+            if (range.isEmpty()) {
+                continue;
+            }
+
+            int scanned = 0;
+
+            for (Map.Entry<String, Set<String>> entry: range.entrySet())
+            {
+                if (scanned++ >= MAX_FUZZY_TERMS) {
+                    break;
+                }
+
+                String indexedTerm = entry.getKey().substring(scope.length());
+
+                if (editDistance(term, indexedTerm, MAX_EDITS, true) <= MAX_EDITS) {
+                    for (String key: entry.getValue()) {
+                        addCandidate(candidates, new Candidate(key, indexedTerm, MatchRank.FUZZY));
+                    }
+                }
+            }
+
+            break;
+        }
+    }
+
+    private Map<String, MatchRank> matchGenes(String gene)
+    {
+        Map<String, MatchRank> genes = new HashMap<>();
+
+        if (!this.geneIndex.exact(gene).isEmpty()) {
+            genes.put(gene, MatchRank.EXACT);
+        }
+        else {
+            for (String indexedGene: this.geneIndex.terms()) {
+                if (Math.abs(indexedGene.length() - gene.length()) <= MAX_EDITS &&
+                    editDistance(gene, indexedGene, MAX_EDITS, false) <= MAX_EDITS)
+                {
+                    genes.put(indexedGene, MatchRank.FUZZY);
+                }
+            }
+        }
+
+        return genes;
+    }
+
+    private void forEachTerm(Index index, BiConsumer<PrefixIndex, String> consumer)
+    {
+        if (index.getvariant() != null) {
+            consumer.accept(this.variantIndex, fold(index.getvariant()));
+        }
+
+        if (index.getHgvsc() != null) {
+            index.getHgvsc().forEach(hgvsc -> consumer.accept(this.hgvscIndex, fold(hgvsc)));
+        }
+
+        if (index.getHgvsp() != null) {
+            index.getHgvsp().forEach(hgvsp -> consumer.accept(this.hgvspIndex, fold(hgvsp)));
+        }
+
+        if (index.getHugoSymbol() != null)
+        {
+            for (String hugoSymbol: index.getHugoSymbol())
+            {
+                String gene = fold(hugoSymbol);
+                String scope = gene + GENE_SEPARATOR;
+
+                consumer.accept(this.geneIndex, gene);
+
+                if (index.getHgvspShort() != null) {
+                    index.getHgvspShort().forEach(p -> consumer.accept(this.geneHgvspShortIndex, scope + fold(p)));
+                }
+
+                if (index.getHgvsp() != null) {
+                    // drop the protein id, e.g. ENSP00000288602.6:p.Val600Glu -> p.val600glu
+                    index.getHgvsp().forEach(p -> consumer.accept(
+                        this.geneHgvspIndex, scope + fold(p.substring(p.indexOf(':') + 1))));
+                }
+
+                if (index.getCdna() != null) {
+                    index.getCdna().forEach(c -> consumer.accept(this.geneCdnaIndex, scope + fold(c)));
+                }
+            }
+        }
+    }
+
+    private static void addCandidate(Map<String, Candidate> candidates, Candidate candidate)
+    {
+        candidates.merge(candidate.key, candidate,
+            (c1, c2) -> CANDIDATE_COMPARATOR.compare(c1, c2) <= 0 ? c1 : c2);
+    }
+
+    private static MatchRank worst(MatchRank r1, MatchRank r2)
+    {
+        return r1.compareTo(r2) >= 0 ? r1 : r2;
+    }
+
+    private static String fold(String value)
+    {
+        return value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Levenshtein distance between the query and the term, or between the query and the closest
+     * prefix of the term when prefix is true. Gives up early (returning maxEdits + 1) once
+     * every alignment exceeds maxEdits.
+     */
+    static int editDistance(String query, String term, int maxEdits, boolean prefix)
+    {
+        int n = query.length();
+        int[] previous = new int[n + 1];
+        int[] current = new int[n + 1];
+
+        for (int i = 0; i <= n; i++) {
+            previous[i] = i;
+        }
+
+        int best = previous[n];
+        int columns = prefix ? Math.min(term.length(), n + maxEdits) : term.length();
+
+        for (int j = 1; j <= columns; j++)
+        {
+            char c = term.charAt(j - 1);
+            current[0] = j;
+            int rowMin = current[0];
+
+            for (int i = 1; i <= n; i++) {
+                int cost = query.charAt(i - 1) == c ? 0 : 1;
+                current[i] = Math.min(Math.min(previous[i] + 1, current[i - 1] + 1), previous[i - 1] + cost);
+                rowMin = Math.min(rowMin, current[i]);
+            }
+
+            best = prefix ? Math.min(best, current[n]) : current[n];
+
+            if (rowMin > maxEdits) {
+                return prefix ? Math.min(best, maxEdits + 1) : maxEdits + 1;
+            }
+
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+
+        return best;
+    }
+}
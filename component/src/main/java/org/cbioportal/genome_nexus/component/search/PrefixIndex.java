@@ -0,0 +1,78 @@
+package org.cbioportal.genome_nexus.component.search;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Sorted term -> posting set map. Terms are expected to be already case folded.
+ * Prefix lookups are answered with a range scan over the sorted keys,
+ * so the cost only depends on the number of matching terms.
+ *
+ * Readers never block, writers are expected to be serialized by the owner.
+ */
+class PrefixIndex
+{
+    private final ConcurrentSkipListMap<String, Set<String>> postings = new ConcurrentSkipListMap<>();
+
+    void add(String term, String key)
+    {
+        this.postings.computeIfAbsent(term, t -> ConcurrentHashMap.newKeySet()).add(key);
+    }
+
+    void remove(String term, String key)
+    {
+        Set<String> keys = this.postings.get(term);
+
+        if (keys != null) {
+            keys.remove(key);
+
+            if (keys.isEmpty()) {
+                this.postings.remove(term, keys);
+            }
+        }
+    }
+
+    Set<String> exact(String term)
+    {
+        Set<String> keys = this.postings.get(term);
+        return keys == null ? Collections.emptySet() : keys;
+    }
+
+    NavigableMap<String, Set<String>> prefix(String prefix)
+    {
+        return this.postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+    }
+
+    /**
+     * Returns up to maxTerms terms starting with the given prefix, in lexicographic order.
+     */
+    List<Map.Entry<String, Set<String>>> prefix(String prefix, int maxTerms)
+    {
+        List<Map.Entry<String, Set<String>>> terms = new ArrayList<>();
+
+        for (Map.Entry<String, Set<String>> entry: this.prefix(prefix).entrySet()) {
+            if (terms.size() >= maxTerms) {
+                break;
+            }
+            terms.add(entry);
+        }
+
+        return terms;
+    }
+
+    Set<String> terms()
+    {
+        return this.postings.keySet();
+    }
+
+    int size()
+    {
+        return this.postings.size();
+    }
+}
@@ -0,0 +1,157 @@
+package org.cbioportal.genome_nexus.util;
+
+import org.cbioportal.genome_nexus.model.GenomicLocation;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * Reads the genomic locations of a MAF or VCF file one record at a time, so that files
+ * of any size can be processed without loading them into memory.
+ *
+ * The format is detected from the file itself: VCF files start with a "##fileformat=VCF" line
+ * or have a "#CHROM" header, anything else is read as a tab separated MAF with a header row.
+ */
+public class GenomicLocationFileReader implements Closeable
+{
+    public enum Format { MAF, VCF }
+
+    private static final String VCF_FORMAT_LINE = "##fileformat=VCF";
+    private static final String VCF_HEADER_PREFIX = "#CHROM";
+
+    private final BufferedReader reader;
+    // locations of the current line not returned yet (multi allelic VCF records)
+    private final Deque<GenomicLocation> pending = new ArrayDeque<>();
+
+    private Format format;
+    private MafColumnMapping mafColumns;
+    private long lineNumber;
+
+    public GenomicLocationFileReader(BufferedReader reader)
+    {
+        this.reader = reader;
+    }
+
+    /**
+     * @return the detected file format, null until the header has been read
+     */
+    public Format getFormat()
+    {
+        return this.format;
+    }
+
+    /**
+     * @return the next genomic location, or null at the end of the file
+     * @throws IllegalArgumentException if the file is neither a valid MAF nor a valid VCF
+     */
+    public GenomicLocation next() throws IOException
+    {
+        while (this.pending.isEmpty())
+        {
+            String line = this.reader.readLine();
+
+            if (line == null) {
+                return null;
+            }
+
+            this.lineNumber++;
+            this.readLine(line);
+        }
+
+        return this.pending.poll();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        this.reader.close();
+    }
+
+    private void readLine(String line)
+    {
+        if (line.trim().isEmpty()) {
+            return;
+        }
+
+        if (this.format == null) {
+            this.readHeader(line);
+        }
+        else if (line.startsWith("#")) {
+            // comment lines
+            return;
+        }
+        else if (this.format == Format.VCF) {
+            this.readVcfRecord(line);
+        }
+        else {
+            this.readMafRecord(line);
+        }
+    }
+
+    private void readHeader(String line)
+    {
+        if (line.startsWith(VCF_FORMAT_LINE) || line.startsWith(VCF_HEADER_PREFIX)) {
+            this.format = Format.VCF;
+        }
+        else if (!line.startsWith("#")) {
+            this.mafColumns = MafColumnMapping.fromHeader(line);
+            this.format = Format.MAF;
+        }
+    }
+
+    private void readMafRecord(String line)
+    {
+        try {
+            this.pending.add(this.mafColumns.toGenomicLocation(line.split("\t", -1)));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(e.getMessage() + " at line " + this.lineNumber);
+        }
+    }
+
+    private void readVcfRecord(String line)
+    {
+        // CHROM POS ID REF ALT ...
+        String[] values = line.split("\t", 6);
+
+        if (values.length < 5) {
+            throw new IllegalArgumentException("Invalid VCF record at line " + this.lineNumber);
+        }
+
+        String chromosome = values[0].trim();
+        int start = this.parsePosition(values[1].trim());
+        String reference = values[3].trim();
+        int end = start + Math.max(reference.length(), 1) - 1;
+
+        for (String variant: values[4].split(","))
+        {
+            variant = variant.trim();
+
+            // skip missing, spanning deletion and symbolic alleles, they cannot be annotated
+            if (variant.isEmpty() || variant.equals(".") || variant.equals("*") ||
+                variant.indexOf('<') >= 0 || variant.indexOf('[') >= 0 || variant.indexOf(']') >= 0) {
+                continue;
+            }
+
+            GenomicLocation location = new GenomicLocation();
+            location.setChromosome(chromosome);
+            location.setStart(start);
+            location.setEnd(end);
+            location.setReferenceAllele(reference);
+            location.setVariantAllele(variant);
+
+            this.pending.add(location);
+        }
+    }
+
+    private int parsePosition(String value)
+    {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid position '" + value + "' at line " + this.lineNumber);
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package org.cbioportal.genome_nexus.util;
+
+import java.util.Arrays;
+
+/**
+ * Single pass tokenizer for the canonical genomic HGVS and VEP region notations.
+ *
+ * The parse methods only accept the strict forms below and return null for anything else,
+ * in which case the caller falls back to the pattern based parsing in GenomicVariantUtil.
+ * For every accepted input the result is identical to the pattern based result.
+ *
+ *   hgvs:   CHR:g.START(A>T|del[ACGT]*|delins[ACGT]*) or CHR:g.START_END(del[ACGT]*|ins[ACGT]*|delins[ACGT]*)
+ *   region: CHR:START-END:(1|-1)/([ACGT]+|-)
+ *
+ * Substrings are only created for the values that end up in the GenomicVariant.
+ */
+final class GenomicVariantParser
+{
+    // positions with more digits may not fit into an Integer, left to the pattern based parsing
+    private static final int MAX_POSITION_DIGITS = 9;
+
+    private GenomicVariantParser() {}
+
+    static GenomicVariant parseHgvs(String hgvs)
+    {
+        int length = hgvs.length();
+        int colon = hgvs.indexOf(':');
+
+        if (colon <= 0 || !isChromosome(hgvs, colon)) {
+            return null;
+        }
+
+        int i = colon + 1;
+
+        if (i + 1 >= length || hgvs.charAt(i) != 'g' || hgvs.charAt(i + 1) != '.') {
+            return null;
+        }
+
+        i += 2;
+        int startEnd = skipDigits(hgvs, i);
+
+        if (!isPosition(i, startEnd)) {
+            return null;
+        }
+
+        int start = parsePosition(hgvs, i, startEnd);
+        int end = start;
+        i = startEnd;
+
+        if (i < length && hgvs.charAt(i) == '_')
+        {
+            int endEnd = skipDigits(hgvs, i + 1);
+
+            // ranges must be followed by a lower case keyword, e.g. 123_124del
+            if (!isPosition(i + 1, endEnd) || endEnd >= length || !isLowerCase(hgvs.charAt(endEnd))) {
+                return null;
+            }
+
+            end = parsePosition(hgvs, i + 1, endEnd);
+            i = endEnd;
+        }
+        else if (i + 2 < length && isNucleotide(hgvs.charAt(i)) && hgvs.charAt(i + 1) == '>')
+        {
+            // single nucleotide substitution, e.g. 123A>T
+            int altEnd = skipNucleotides(hgvs, i + 2);
+
+            if (altEnd == i + 2 || altEnd != length) {
+                return null;
+            }
+
+            return new GenomicVariant(hgvs.substring(0, colon), GenomicVariant.RefType.GENOMIC,
+                start, end, GenomicVariant.Type.SUBSTITUTION,
+                hgvs.substring(i, i + 1), hgvs.substring(i + 2));
+        }
+
+        GenomicVariant.Type type;
+
+        if (hgvs.startsWith("delins", i)) {
+            type = GenomicVariant.Type.INDEL;
+            i += 6;
+        }
+        else if (hgvs.startsWith("del", i)) {
+            type = GenomicVariant.Type.DELETION;
+            i += 3;
+        }
+        else if (hgvs.startsWith("ins", i) && end != start) {
+            type = GenomicVariant.Type.INSERTION;
+            i += 3;
+        }
+        else {
+            return null;
+        }
+
+        // invalid insertions are reported by the pattern based parsing
+        if (type == GenomicVariant.Type.INSERTION && end != start + 1) {
+            return null;
+        }
+
+        int allelesEnd = skipNucleotides(hgvs, i);
+
+        if (allelesEnd != length) {
+            return null;
+        }
+
+        String alleles = i == length ? null : hgvs.substring(i);
+        String ref;
+        String alt;
+
+        switch (type) {
+            case DELETION:
+                ref = alleles == null ? "-" : alleles;
+                alt = "-";
+                break;
+            case INSERTION:
+                ref = "-";
+                alt = alleles == null ? "-" : alleles;
+                break;
+            default:
+                // same as GenomicVariantUtil: unknown reference of the same length as the alt allele
+                ref = alleles == null ? "" : repeat('X', alleles.length());
+                alt = alleles == null ? "-" : alleles;
+                break;
+        }
+
+        return new GenomicVariant(hgvs.substring(0, colon), GenomicVariant.RefType.GENOMIC,
+            start, end, type, ref, alt);
+    }
+
+    static GenomicVariant parseRegion(String region)
+    {
+        int length = region.length();
+        int chrEnd = skipDigits(region, 0);
+
+        if (chrEnd == 0 || chrEnd > 2 || chrEnd >= length || region.charAt(chrEnd) != ':') {
+            return null;
+        }
+
+        int i = chrEnd + 1;
+        int startEnd = skipDigits(region, i);
+
+        if (!isPosition(i, startEnd) || startEnd >= length || region.charAt(startEnd) != '-') {
+            return null;
+        }
+
+        int endEnd = skipDigits(region, startEnd + 1);
+
+        if (!isPosition(startEnd + 1, endEnd) || endEnd >= length || region.charAt(endEnd) != ':') {
+            return null;
+        }
+
+        i = endEnd + 1;
+
+        if (i < length && region.charAt(i) == '-') {
+            i++;
+        }
+
+        if (i + 1 >= length || region.charAt(i) != '1' || region.charAt(i + 1) != '/') {
+            return null;
+        }
+
+        i += 2;
+        String alt;
+
+        if (i == length - 1 && region.charAt(i) == '-') {
+            alt = "-";
+        }
+        else if (i < length && skipNucleotides(region, i) == length) {
+            alt = region.substring(i);
+        }
+        else {
+            return null;
+        }
+
+        return new GenomicVariant(region.substring(0, chrEnd), null,
+            parsePosition(region, chrEnd + 1, startEnd),
+            parsePosition(region, startEnd + 1, endEnd),
+            null, null, alt);
+    }
+
+    /**
+     * Same result as matching "(?<=[^ATGC])[ATGC]>", "del[ATGC]*ins" and "del[ATGC]*" in this order.
+     */
+    static String providedReferenceAllele(String hgvs)
+    {
+        int length = hgvs.length();
+
+        for (int i = 1; i + 1 < length; i++) {
+            if (hgvs.charAt(i + 1) == '>' && isNucleotide(hgvs.charAt(i)) && !isNucleotide(hgvs.charAt(i - 1))) {
+                return hgvs.substring(i, i + 1);
+            }
+        }
+
+        for (int del = hgvs.indexOf("del"); del >= 0; del = hgvs.indexOf("del", del + 1)) {
+            int deletedEnd = skipNucleotides(hgvs, del + 3);
+
+            if (hgvs.startsWith("ins", deletedEnd)) {
+                return hgvs.substring(del + 3, deletedEnd);
+            }
+        }
+
+        int del = hgvs.indexOf("del");
+
+        if (del >= 0) {
+            return hgvs.substring(del + 3, skipNucleotides(hgvs, del + 3));
+        }
+
+        return "";
+    }
+
+    private static boolean isChromosome(String value, int end)
+    {
+        if (end == 1) {
+            char c = value.charAt(0);
+
+            if (c == 'X' || c == 'Y' || c == 'x' || c == 'y') {
+                return true;
+            }
+        }
+
+        // positive integer, zero is rejected by the pattern based parsing
+        return skipDigits(value, 0) == end && isPosition(0, end) && parsePosition(value, 0, end) > 0;
+    }
+
+    private static boolean isPosition(int start, int end)
+    {
+        return end > start && end - start <= MAX_POSITION_DIGITS;
+    }
+
+    private static int parsePosition(String value, int start, int end)
+    {
+        int position = 0;
+
+        for (int i = start; i < end; i++) {
+            position = position * 10 + (value.charAt(i) - '0');
+        }
+
+        return position;
+    }
+
+    private static int skipDigits(String value, int from)
+    {
+        int i = from;
+
+        while (i < value.length() && value.charAt(i) >= '0' && value.charAt(i) <= '9') {
+            i++;
+        }
+
+        return i;
+    }
+
+    private static int skipNucleotides(String value, int from)
+    {
+        int i = from;
+
+        while (i < value.length() && isNucleotide(value.charAt(i))) {
+            i++;
+        }
+
+        return i;
+    }
+
+    private static boolean isNucleotide(char c)
+    {
+        return c == 'A' || c == 'C' || c == 'G' || c == 'T';
+    }
+
+    private static boolean isLowerCase(char c)
+    {
+        return c >= 'a' && c <= 'z';
+    }
+
+    private static String repeat(char c, int count)
+    {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+}
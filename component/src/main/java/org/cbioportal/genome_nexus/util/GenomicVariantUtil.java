@@ -11,7 +11,27 @@ import org.cbioportal.genome_nexus.util.exception.TypeNotSupportedException;
 
 public class GenomicVariantUtil {
 
+    private static final Pattern REGION_CHR_PATTERN = Pattern.compile("^\\d{1,2}(?=:)");
+    private static final Pattern REGION_START_PATTERN = Pattern.compile("(?<=:)\\d+(?=-)");
+    private static final Pattern REGION_END_PATTERN = Pattern.compile("(?<=-)\\d+(?=:)");
+    private static final Pattern REGION_ALT_PATTERN = Pattern.compile("(?<=:-?1/)[ATCG]+|-$");
+    private static final Pattern MAF_FILE_PATTERN = Pattern.compile("^[\\w\\-\\./]+(\\.maf)|^[\\w\\-\\./]+(\\.tsv)|^[\\w\\-\\./]+(\\.txt)$$");
+    private static final Pattern REF_TYPE_PATTERN = Pattern.compile("(?<=:)[cgmnopr](?=.)");
+    private static final Pattern CHR_PATTERN = Pattern.compile("^.+(?=:)");
+    private static final Pattern START_PATTERN = Pattern.compile("(?<=\\.)\\d+(?=[_ATGC]|del)");
+    private static final Pattern END_PATTERN = Pattern.compile("(?<=_)\\d+(?=[a-z]+)");
+    private static final Pattern TYPE_PATTERN = Pattern.compile("(?<=\\d+[ATGC]?)[a-z>]+(?=[ATCG]*)");
+    private static final Pattern SUBSTITUTION_REF_PATTERN = Pattern.compile("(?<=\\d+)[ATCG]+(?=>)");
+    private static final Pattern DELETION_REF_PATTERN = Pattern.compile("(?<=[a-z+>])[ATCG]*$");
+    private static final Pattern ALT_PATTERN = Pattern.compile("(?<=[a-z+>])[ATCG]+$");
+
     public static GenomicVariant fromHgvs(String hgvs) {
+        // canonical notations are tokenized in a single pass, anything else is parsed with patterns
+        GenomicVariant variant = GenomicVariantParser.parseHgvs(hgvs);
+        return variant != null ? variant : fromHgvsPatterns(hgvs);
+    }
+
+    static GenomicVariant fromHgvsPatterns(String hgvs) {
         GenomicVariant.RefType refType = getRefTypeFromHgvs(hgvs);
         String chr = getChrFromHgvs(hgvs);
         Integer start = getStartFromHgvs(hgvs);
@@ -44,13 +64,18 @@ public class GenomicVariantUtil {
         if (!isRegion(region)) {
             throw new IllegalArgumentException("region is invalid");
         }
+        GenomicVariant variant = GenomicVariantParser.parseRegion(region);
+        return variant != null ? variant : fromRegionPatterns(region);
+    }
+
+    static GenomicVariant fromRegionPatterns(String region) {
         GenomicVariant.RefType refType = null; // WARNING : refType must be determined in order for other utility functions to work correctly - perhaps this should alwyas be GENOMIC unless "M" is a valid chromosome
-        String chr = getPattern("^\\d{1,2}(?=:)", region);
-        Integer start = Integer.parseInt(getPattern("(?<=:)\\d+(?=-)", region));
-        Integer end = Integer.parseInt(getPattern("(?<=-)\\d+(?=:)", region));
+        String chr = getPattern(REGION_CHR_PATTERN, region);
+        Integer start = Integer.parseInt(getPattern(REGION_START_PATTERN, region));
+        Integer end = Integer.parseInt(getPattern(REGION_END_PATTERN, region));
         GenomicVariant.Type type = null; // WARNING : type must be determined in order for other utility functions to work correctly
         String ref = null;
-        String alt = getPattern("(?<=:-?1/)[ATCG]+|-$", region);
+        String alt = getPattern(REGION_ALT_PATTERN, region);
         return new GenomicVariant(chr, refType, start, end, type, ref, alt);
     }
 
@@ -135,7 +160,7 @@ public class GenomicVariantUtil {
     }
 
     public static boolean isMafFile(String file) {
-        return Pattern.matches("^[\\w\\-\\./]+(\\.maf)|^[\\w\\-\\./]+(\\.tsv)|^[\\w\\-\\./]+(\\.txt)$$", file);
+        return MAF_FILE_PATTERN.matcher(file).matches();
     }
 
     // Hgvs formatted variants of several types are parsed for provided Reference Alleles
@@ -144,38 +169,28 @@ public class GenomicVariantUtil {
         // Substitutions require a single nucleotide reference sequence:
         // 1g.123456A>G  (chromosome 1, genomic position 123456, reference sequence A, substituted with G)
         // ref: http://varnomen.hgvs.org/recommendations/DNA/variant/substitution/
-        String match = getPattern("(?<=[^ATGC])[ATGC]>", hgvs);
-        if (match != null && match.trim().length() > 0) {
-            return match.substring(0, 1);
-        }
+        //
         // Deletion-Insertions are recommended to *not* include specified deleted seqeunce/Reference Allele, but it is not prohibited.
         // Examples showing specified deleted sequence/ReferenceAllele are mentioned here : http://varnomen.hgvs.org/recommendations/DNA/variant/delins/
         // 1g.123456_123457delAAinsTT (chromosome 1, genomic positions 123456-123457, reference sequence AA deleted, sequence TT inserted in place)
         // recommended representation omits the deleted nucleotides "1g.123456_123457delinsTT"
-        match = getPattern("del[ATGC]*ins", hgvs);
-        if (match != null && match.trim().length() > 0) {
-            return match.trim().substring(3, match.trim().length() - 3);
-        }
+        //
         // Deletions are recommended to *not* include specified deleted seqeunce/Reference Allele, but it is not prohibited.
         // An example showing a specified deletion is mentioned here : http://varnomen.hgvs.org/recommendations/DNA/variant/alleles/
         // 1g.123456_123457delAA (chromosome 1, genomic positions 123456-123457, reference sequence AA deleted)
         // recommended representation omits the deleted nucleotides "1g.123456_123457del"
-        match = getPattern("del[ATGC]*", hgvs);
-        if (match != null && match.trim().length() > 0) {
-            return match.trim().substring(3);
-        }
+        //
         // Duplications are not supported by this system, but would be handled with logic similar to deletions
         // Examples showing specified deleted sequence/ReferenceAllele are mentioned here : http://varnomen.hgvs.org/recommendations/DNA/variant/duplication/
         // 1g.123456_123457dupAA (chromosome 1, genomic positions 123456-123457, reference sequence AA duplicated)
         // Hgvs repeats and inversions are not supported by this system and this method does not attempt to parse these formats
         //
-        // no reference allele was found
-        return "";
+        // empty string is returned if no reference allele was found
+        return GenomicVariantParser.providedReferenceAllele(hgvs);
     }
 
     // postcondition: returns a substring of hgvs that matched to the regex, or null if not matched
-    private static String getPattern(String regex, String hgvs) {
-        Pattern p = Pattern.compile(regex);
+    private static String getPattern(Pattern p, String hgvs) {
         Matcher m = p.matcher(hgvs);
         if (m.find()) {
             return hgvs.substring(m.start(), m.end());
@@ -184,7 +199,7 @@ public class GenomicVariantUtil {
     }
 
     private static GenomicVariant.RefType getRefTypeFromHgvs(String hgvs) {
-        String refTypeString = getPattern("(?<=:)[cgmnopr](?=.)", hgvs);
+        String refTypeString = getPattern(REF_TYPE_PATTERN, hgvs);
         if (refTypeString == null || refTypeString.trim().length() == 0) {
             throw new InvalidHgvsException();
         }
@@ -205,7 +220,7 @@ public class GenomicVariantUtil {
     }
 
     private static String getChrFromHgvs(String hgvs) {
-        String chr = getPattern("^.+(?=:)", hgvs);
+        String chr = getPattern(CHR_PATTERN, hgvs);
         if (chr == null || chr.trim().length() == 0) {
             throw new InvalidHgvsException();
         }
@@ -223,7 +238,7 @@ public class GenomicVariantUtil {
     }
 
     private static Integer getStartFromHgvs(String hgvs) {
-        String startString = getPattern("(?<=\\.)\\d+(?=[_ATGC]|del)", hgvs);
+        String startString = getPattern(START_PATTERN, hgvs);
         if (startString == null || startString.trim().length() == 0) {
             throw new InvalidHgvsException("Start position could not be parsed");
         }
@@ -236,7 +251,7 @@ public class GenomicVariantUtil {
     }
 
     private static Integer getEndFromHgvs(String hgvs, Integer start) {
-        String endString = getPattern("(?<=_)\\d+(?=[a-z]+)", hgvs);
+        String endString = getPattern(END_PATTERN, hgvs);
         if (endString == null || endString.trim().length() == 0) {
             return start;
         }
@@ -249,7 +264,7 @@ public class GenomicVariantUtil {
     }
 
     private static GenomicVariant.Type getTypeFromHgvs(String hgvs) {
-        String type = getPattern("(?<=\\d+[ATGC]?)[a-z>]+(?=[ATCG]*)", hgvs);
+        String type = getPattern(TYPE_PATTERN, hgvs);
         if (type == null || type.trim().length() == 0) {
             throw new InvalidHgvsException("variant type could not be parsed");
         }
@@ -277,7 +292,7 @@ public class GenomicVariantUtil {
         String s;
         switch(type) {
             case SUBSTITUTION:
-                s = getPattern("(?<=\\d+)[ATCG]+(?=>)", hgvs);
+                s = getPattern(SUBSTITUTION_REF_PATTERN, hgvs);
                 if (s == null || s.trim().length() == 0) {
                     throw new InvalidHgvsException("reference allele in substitution could not be parsed");
                 }
@@ -285,7 +300,7 @@ public class GenomicVariantUtil {
             case INSERTION:
                 return "-";
             case DELETION:
-                s = getPattern("(?<=[a-z+>])[ATCG]*$", hgvs);
+                s = getPattern(DELETION_REF_PATTERN, hgvs);
                 if (s == null || s.trim().length() == 0) {
                     return "-";
                 }
@@ -293,7 +308,7 @@ public class GenomicVariantUtil {
             case INDEL:
                 // use a string of "X" equal to length of alt allele
                 // TODO : check if this is used anywhere and drop this if not .. also check if this is needed above for DELETION
-                s = getPattern("(?<=[a-z+>])[ATCG]+$", hgvs);
+                s = getPattern(ALT_PATTERN, hgvs);
                 return sameLengthUnknownNucleotideString(s);
             default:
                 throw new InvalidHgvsException(); // Never reached
@@ -306,7 +321,7 @@ public class GenomicVariantUtil {
             case SUBSTITUTION:
             case INSERTION:
             case INDEL:
-                s  = getPattern("(?<=[a-z+>])[ATCG]+$", hgvs);
+                s  = getPattern(ALT_PATTERN, hgvs);
                 if (s == null || s.trim().length() == 0) {
                     return "-";
                 }
@@ -0,0 +1,121 @@
+package org.cbioportal.genome_nexus.util;
+
+import org.cbioportal.genome_nexus.model.GenomicLocation;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Positions of the genomic location columns in the header of a tab separated MAF file.
+ */
+public class MafColumnMapping
+{
+    public static final String CHROMOSOME = "Chromosome";
+    public static final String START_POSITION = "Start_Position";
+    public static final String END_POSITION = "End_Position";
+    public static final String REFERENCE_ALLELE = "Reference_Allele";
+    public static final String TUMOR_SEQ_ALLELE_1 = "Tumor_Seq_Allele1";
+    public static final String TUMOR_SEQ_ALLELE_2 = "Tumor_Seq_Allele2";
+    // not a standard MAF column, but it is used by the minimal MAF examples
+    public static final String TUMOR_SEQ_ALLELE = "Tumor_Seq_Allele";
+
+    private static final List<String> VARIANT_ALLELE = Arrays.asList(TUMOR_SEQ_ALLELE_2, TUMOR_SEQ_ALLELE);
+
+    private final String[] header;
+    private final int chromosome;
+    private final int start;
+    private final int end;
+    private final int referenceAllele;
+    private final int variantAllele;
+    private final int fallbackVariantAllele;
+
+    /**
+     * @throws IllegalArgumentException if a required column is missing
+     */
+    public MafColumnMapping(String[] header)
+    {
+        this.header = header;
+        this.chromosome = this.findColumn(Arrays.asList(CHROMOSOME), true);
+        this.start = this.findColumn(Arrays.asList(START_POSITION), true);
+        this.end = this.findColumn(Arrays.asList(END_POSITION), true);
+        this.referenceAllele = this.findColumn(Arrays.asList(REFERENCE_ALLELE), true);
+        this.variantAllele = this.findColumn(VARIANT_ALLELE, true);
+        this.fallbackVariantAllele = this.findColumn(Arrays.asList(TUMOR_SEQ_ALLELE_1), false);
+    }
+
+    public static MafColumnMapping fromHeader(String headerLine)
+    {
+        return new MafColumnMapping(headerLine.split("\t", -1));
+    }
+
+    public String[] getHeader()
+    {
+        return this.header;
+    }
+
+    /**
+     * @return index of the given column (case insensitive), -1 if the column is missing
+     */
+    public int indexOf(String column)
+    {
+        return this.findColumn(Arrays.asList(column), false);
+    }
+
+    /**
+     * @throws IllegalArgumentException if a column is missing or a position is not a number
+     */
+    public GenomicLocation toGenomicLocation(String[] values)
+    {
+        String reference = value(values, this.referenceAllele);
+        String variant = value(values, this.variantAllele);
+
+        // same as the cBioPortal importer, Tumor_Seq_Allele1 is used when Tumor_Seq_Allele2 matches the reference
+        if ((variant.isEmpty() || variant.equals(reference)) && this.fallbackVariantAllele >= 0) {
+            variant = value(values, this.fallbackVariantAllele);
+        }
+
+        GenomicLocation location = new GenomicLocation();
+        location.setChromosome(value(values, this.chromosome));
+        location.setStart(parsePosition(value(values, this.start)));
+        location.setEnd(parsePosition(value(values, this.end)));
+        location.setReferenceAllele(reference);
+        location.setVariantAllele(variant);
+
+        return location;
+    }
+
+    private int findColumn(List<String> names, boolean required)
+    {
+        for (String name: names) {
+            for (int i = 0; i < this.header.length; i++) {
+                if (this.header[i].trim().equalsIgnoreCase(name)) {
+                    return i;
+                }
+            }
+        }
+
+        if (required) {
+            throw new IllegalArgumentException("Missing MAF column " + names.get(0));
+        }
+
+        return -1;
+    }
+
+    private static String value(String[] values, int index)
+    {
+        if (index >= values.length) {
+            throw new IllegalArgumentException("Missing MAF column value");
+        }
+
+        return values[index].trim();
+    }
+
+    private static int parsePosition(String value)
+    {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid position '" + value + "'");
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package org.cbioportal.genome_nexus.util;
+
+import org.cbioportal.genome_nexus.model.GenomicLocation;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class GenomicLocationFileReaderTest
+{
+    @Test
+    public void readMaf() throws IOException
+    {
+        String maf = String.join("\n",
+            "#version 2.4",
+            "Hugo_Symbol\tChromosome\tStart_Position\tEnd_Position\tReference_Allele\tTumor_Seq_Allele1\tTumor_Seq_Allele2",
+            "BRAF\t7\t140453136\t140453136\tA\tA\tT",
+            "",
+            "KRAS\t12\t25398285\t25398285\tC\tA\tC",
+            "BRCA1\t17\t41242962\t41242963\t-\t-\tGA"
+        );
+
+        GenomicLocationFileReader reader = new GenomicLocationFileReader(new BufferedReader(new StringReader(maf)));
+
+        assertEquals(Arrays.asList(
+            "7,140453136,140453136,A,T",
+            // Tumor_Seq_Allele1 is used when Tumor_Seq_Allele2 is the reference allele
+            "12,25398285,25398285,C,A",
+            "17,41242962,41242963,-,GA"
+        ), readAll(reader));
+        assertEquals(GenomicLocationFileReader.Format.MAF, reader.getFormat());
+    }
+
+    @Test
+    public void readVcf() throws IOException
+    {
+        String vcf = String.join("\n",
+            "##fileformat=VCFv4.2",
+            "##contig=<ID=7>",
+            "#CHROM\tPOS\tID\tREF\tALT\tQUAL\tFILTER\tINFO",
+            "7\t140453136\t.\tA\tT\t.\tPASS\t.",
+            "13\t32914437\trs80359550\tGT\tG,GTT\t.\tPASS\t.",
+            "1\t1000\t.\tN\t<DEL>\t.\tPASS\t."
+        );
+
+        GenomicLocationFileReader reader = new GenomicLocationFileReader(new BufferedReader(new StringReader(vcf)));
+
+        assertEquals(Arrays.asList(
+            "7,140453136,140453136,A,T",
+            // one location per alternate allele, symbolic alleles are skipped
+            "13,32914437,32914438,GT,G",
+            "13,32914437,32914438,GT,GTT"
+        ), readAll(reader));
+        assertEquals(GenomicLocationFileReader.Format.VCF, reader.getFormat());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void missingMafColumn() throws IOException
+    {
+        String maf = "Chromosome\tStart_Position\tReference_Allele\tTumor_Seq_Allele2\n7\t140453136\tA\tT";
+        readAll(new GenomicLocationFileReader(new BufferedReader(new StringReader(maf))));
+    }
+
+    private static List<String> readAll(GenomicLocationFileReader reader) throws IOException
+    {
+        List<String> locations = new ArrayList<>();
+        GenomicLocation location;
+
+        while ((location = reader.next()) != null) {
+            locations.add(location.toString());
+        }
+
+        return locations;
+    }
+}
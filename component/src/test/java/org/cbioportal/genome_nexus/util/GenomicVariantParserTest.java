@@ -0,0 +1,177 @@
+package org.cbioportal.genome_nexus.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Test;
+
+/**
+ * Differential tests of the single pass parser against the pattern based parsing.
+ */
+public class GenomicVariantParserTest {
+    private static final int FUZZ_ITERATIONS = 200000;
+
+    private static final String[] CHROMOSOMES = {"1", "7", "17", "23", "0", "01", "X", "Y", "x", "M", "chr7", "1234567890", ""};
+    private static final String[] REF_TYPES = {"g.", "g.", "g.", "c.", "p.", "g", "."};
+    private static final String[] HGVS_BODIES = {"A>T", "C>GT", "AT>G", "a>t", ">T", "A>", "del", "delAC", "delins",
+        "delinsTT", "ins", "insGA", "dup", "delAinsT", "delACinsGT", "insdel", "del ", "A>T\n", "N>A"};
+    private static final String[] STRANDS = {":1/", ":-1/", ":1/", ":+1/", ":2/", "/"};
+    private static final String[] REGION_ALLELES = {"C", "TAG", "-", "", "N", "-A", "c"};
+    private static final String NOISE = "0123456789ACGTNacgtdelinsup_:->.+/ X";
+
+    private final Random random = new Random(20190701);
+
+    @Test
+    public void parseCanonicalHgvs() {
+        assertNotNull(GenomicVariantParser.parseHgvs("7:g.140453136A>T"));
+        assertNotNull(GenomicVariantParser.parseHgvs("X:g.1000_1001insT"));
+        assertNotNull(GenomicVariantParser.parseHgvs("1:g.4849848_4849857del"));
+        assertNotNull(GenomicVariantParser.parseHgvs("10:g.89624230_89624231delAC"));
+        assertNotNull(GenomicVariantParser.parseHgvs("23:g.88778_88784delinsTAGATAG"));
+        assertNotNull(GenomicVariantParser.parseHgvs("11:g.2133018del"));
+
+        // left to the pattern based parsing
+        assertNull(GenomicVariantParser.parseHgvs("7:c.1799T>A"));
+        assertNull(GenomicVariantParser.parseHgvs("7:g.140453136_140453137dupAT"));
+        assertNull(GenomicVariantParser.parseHgvs("7:g.140453136A>T "));
+        assertNull(GenomicVariantParser.parseHgvs("7:g.1404531361234A>T"));
+    }
+
+    @Test
+    public void fuzzHgvs() {
+        int parsed = 0;
+
+        for (int i = 0; i < FUZZ_ITERATIONS; i++) {
+            String hgvs = this.mutate(this.pick(CHROMOSOMES) + ":" + this.pick(REF_TYPES) + this.position() +
+                (this.random.nextBoolean() ? "_" + this.position() : "") + this.pick(HGVS_BODIES));
+
+            GenomicVariant variant = GenomicVariantParser.parseHgvs(hgvs);
+
+            if (variant != null) {
+                assertSameVariant(hgvs, GenomicVariantUtil.fromHgvsPatterns(hgvs), variant);
+                parsed++;
+            }
+
+            assertEquals(hgvs, providedReferenceAlleleWithPatterns(hgvs), GenomicVariantParser.providedReferenceAllele(hgvs));
+        }
+
+        // make sure the generated input actually exercises the parser
+        assertTrue("parsed " + parsed, parsed > FUZZ_ITERATIONS / 50);
+    }
+
+    @Test
+    public void fuzzRegion() {
+        int parsed = 0;
+
+        for (int i = 0; i < FUZZ_ITERATIONS; i++) {
+            String region = this.mutate(this.pick(CHROMOSOMES) + ":" + this.position() + "-" + this.position() +
+                this.pick(STRANDS) + this.pick(REGION_ALLELES));
+
+            if (!GenomicVariantUtil.isRegion(region)) {
+                continue;
+            }
+
+            GenomicVariant variant = GenomicVariantParser.parseRegion(region);
+
+            if (variant != null) {
+                assertSameVariant(region, GenomicVariantUtil.fromRegionPatterns(region), variant);
+                parsed++;
+            }
+        }
+
+        assertTrue("parsed " + parsed, parsed > FUZZ_ITERATIONS / 50);
+    }
+
+    private static void assertSameVariant(String input, GenomicVariant expected, GenomicVariant actual) {
+        assertEquals(input, expected.getChromosome(), actual.getChromosome());
+        assertEquals(input, expected.getRefType(), actual.getRefType());
+        assertEquals(input, expected.getStart(), actual.getStart());
+        assertEquals(input, expected.getEnd(), actual.getEnd());
+        assertEquals(input, expected.getType(), actual.getType());
+        assertEquals(input, expected.getRef(), actual.getRef());
+        assertEquals(input, expected.getAlt(), actual.getAlt());
+    }
+
+    // the original implementation of GenomicVariantUtil.providedReferenceAlleleFromHgvs
+    private static String providedReferenceAlleleWithPatterns(String hgvs) {
+        String match = find("(?<=[^ATGC])[ATGC]>", hgvs);
+        if (match != null && match.trim().length() > 0) {
+            return match.substring(0, 1);
+        }
+        match = find("del[ATGC]*ins", hgvs);
+        if (match != null && match.trim().length() > 0) {
+            return match.trim().substring(3, match.trim().length() - 3);
+        }
+        match = find("del[ATGC]*", hgvs);
+        if (match != null && match.trim().length() > 0) {
+            return match.trim().substring(3);
+        }
+        return "";
+    }
+
+    private static String find(String regex, String value) {
+        Matcher m = Pattern.compile(regex).matcher(value);
+        return m.find() ? value.substring(m.start(), m.end()) : null;
+    }
+
+    private String position() {
+        // mostly realistic positions, sometimes empty, zero padded or too large for an Integer
+        int length = this.random.nextInt(10) == 0 ? this.random.nextInt(13) : 1 + this.random.nextInt(9);
+        StringBuilder position = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            position.append((char) ('0' + this.random.nextInt(10)));
+        }
+        return position.toString();
+    }
+
+    private String mutate(String value) {
+        // keep most of the inputs well formed
+        if (this.random.nextInt(3) != 0) {
+            return value;
+        }
+
+        List<Character> chars = new ArrayList<>();
+        for (char c : value.toCharArray()) {
+            chars.add(c);
+        }
+
+        int edits = 1 + this.random.nextInt(3);
+        for (int i = 0; i < edits; i++) {
+            int index = chars.isEmpty() ? 0 : this.random.nextInt(chars.size());
+            char c = NOISE.charAt(this.random.nextInt(NOISE.length()));
+            switch (this.random.nextInt(3)) {
+                case 0:
+                    chars.add(index, c);
+                    break;
+                case 1:
+                    if (!chars.isEmpty()) {
+                        chars.remove(index);
+                    }
+                    break;
+                default:
+                    if (!chars.isEmpty()) {
+                        chars.set(index, c);
+                    }
+                    break;
+            }
+        }
+
+        StringBuilder mutated = new StringBuilder();
+        for (Character c : chars) {
+            mutated.append(c);
+        }
+        return mutated.toString();
+    }
+
+    private String pick(String[] values) {
+        return values[this.random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,183 @@
+package org.cbioportal.genome_nexus.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * An asynchronous annotation of a large number of variants. The variants are stored in chunks,
+ * and the annotations of each chunk can be downloaded as soon as the chunk is processed.
+ */
+@Document(collection = "annotation.job")
+public class AnnotationJob
+{
+    @Id
+    private String id;
+    @Indexed
+    private AnnotationJobStatus status;
+    private String isoformOverrideSource;
+    private List<AnnotationField> fields;
+    private Long totalVariants;
+    private Long processedVariants;
+    private Long annotatedVariants;
+    private Integer chunkCount;
+    private Integer processedChunks;
+    private Date createdAt;
+    private Date startedAt;
+    private Date finishedAt;
+    private String error;
+    // instance running the job, and until when, see AnnotationJobRepository.claim
+    private String owner;
+    private Date leaseExpiresAt;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public AnnotationJobStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(AnnotationJobStatus status) {
+        this.status = status;
+    }
+
+    public String getIsoformOverrideSource() {
+        return isoformOverrideSource;
+    }
+
+    public void setIsoformOverrideSource(String isoformOverrideSource) {
+        this.isoformOverrideSource = isoformOverrideSource;
+    }
+
+    public List<AnnotationField> getFields() {
+        return fields;
+    }
+
+    public void setFields(List<AnnotationField> fields) {
+        this.fields = fields;
+    }
+
+    public Long getTotalVariants() {
+        return totalVariants;
+    }
+
+    public void setTotalVariants(Long totalVariants) {
+        this.totalVariants = totalVariants;
+    }
+
+    public Long getProcessedVariants() {
+        return processedVariants;
+    }
+
+    public void setProcessedVariants(Long processedVariants) {
+        this.processedVariants = processedVariants;
+    }
+
+    public Long getAnnotatedVariants() {
+        return annotatedVariants;
+    }
+
+    public void setAnnotatedVariants(Long annotatedVariants) {
+        this.annotatedVariants = annotatedVariants;
+    }
+
+    public Integer getChunkCount() {
+        return chunkCount;
+    }
+
+    public void setChunkCount(Integer chunkCount) {
+        this.chunkCount = chunkCount;
+    }
+
+    public Integer getProcessedChunks() {
+        return processedChunks;
+    }
+
+    public void setProcessedChunks(Integer processedChunks) {
+        this.processedChunks = processedChunks;
+    }
+
+    public Date getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(Date createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Date getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Date startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Date getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Date finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    @JsonIgnore
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    @JsonIgnore
+    public Date getLeaseExpiresAt() {
+        return leaseExpiresAt;
+    }
+
+    public void setLeaseExpiresAt(Date leaseExpiresAt) {
+        this.leaseExpiresAt = leaseExpiresAt;
+    }
+
+    /**
+     * @return average number of processed variants per second since the job started, null before any progress
+     */
+    @Transient
+    public Double getVariantsPerSecond() {
+        if (startedAt == null || processedVariants == null || processedVariants == 0) {
+            return null;
+        }
+        long end = finishedAt != null ? finishedAt.getTime() : System.currentTimeMillis();
+        return processedVariants * 1000.0 / Math.max(end - startedAt.getTime(), 1);
+    }
+
+    /**
+     * @return estimated number of seconds until the job completes, only available while the job is running
+     */
+    @Transient
+    public Long getEtaSeconds() {
+        Double variantsPerSecond = getVariantsPerSecond();
+        if (status != AnnotationJobStatus.RUNNING || variantsPerSecond == null || totalVariants == null) {
+            return null;
+        }
+        return Math.round((totalVariants - processedVariants) / variantsPerSecond);
+    }
+}
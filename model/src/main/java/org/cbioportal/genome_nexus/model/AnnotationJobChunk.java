@@ -0,0 +1,79 @@
+package org.cbioportal.genome_nexus.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.util.List;
+
+/**
+ * A window of the variants of an annotation job. The annotations of a processed window are stored
+ * as AnnotationJobResult documents.
+ */
+@Document(collection = "annotation.job.chunk")
+public class AnnotationJobChunk
+{
+    @Id
+    private String id;
+    @Indexed
+    private String jobId;
+    private Integer chunkIndex;
+    private List<String> variants;
+    // null until the chunk is annotated
+    private Boolean annotated;
+
+    public AnnotationJobChunk() {}
+
+    public AnnotationJobChunk(String jobId, Integer chunkIndex, List<String> variants)
+    {
+        this.id = chunkId(jobId, chunkIndex);
+        this.jobId = jobId;
+        this.chunkIndex = chunkIndex;
+        this.variants = variants;
+    }
+
+    public static String chunkId(String jobId, Integer chunkIndex)
+    {
+        return jobId + "_" + chunkIndex;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public Integer getChunkIndex() {
+        return chunkIndex;
+    }
+
+    public void setChunkIndex(Integer chunkIndex) {
+        this.chunkIndex = chunkIndex;
+    }
+
+    public List<String> getVariants() {
+        return variants;
+    }
+
+    public void setVariants(List<String> variants) {
+        this.variants = variants;
+    }
+
+    public Boolean getAnnotated() {
+        return annotated;
+    }
+
+    public void setAnnotated(Boolean annotated) {
+        this.annotated = annotated;
+    }
+}
@@ -0,0 +1,74 @@
+package org.cbioportal.genome_nexus.model;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+/**
+ * The annotation of a single variant of an annotation job chunk. Annotations are stored one per document,
+ * a chunk of transcript heavy annotations could exceed the maximum size of a document.
+ */
+@Document(collection = "annotation.job.result")
+@CompoundIndex(def = "{'jobId': 1, 'chunkIndex': 1, 'position': 1}")
+public class AnnotationJobResult
+{
+    @Id
+    private String id;
+    private String jobId;
+    private Integer chunkIndex;
+    // position of the variant in the chunk
+    private Integer position;
+    private VariantAnnotation annotation;
+
+    public AnnotationJobResult() {}
+
+    public AnnotationJobResult(String jobId, Integer chunkIndex, Integer position, VariantAnnotation annotation)
+    {
+        // the same id when a chunk is annotated again after a restart
+        this.id = AnnotationJobChunk.chunkId(jobId, chunkIndex) + "_" + position;
+        this.jobId = jobId;
+        this.chunkIndex = chunkIndex;
+        this.position = position;
+        this.annotation = annotation;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public Integer getChunkIndex() {
+        return chunkIndex;
+    }
+
+    public void setChunkIndex(Integer chunkIndex) {
+        this.chunkIndex = chunkIndex;
+    }
+
+    public Integer getPosition() {
+        return position;
+    }
+
+    public void setPosition(Integer position) {
+        this.position = position;
+    }
+
+    public VariantAnnotation getAnnotation() {
+        return annotation;
+    }
+
+    public void setAnnotation(VariantAnnotation annotation) {
+        this.annotation = annotation;
+    }
+}
@@ -0,0 +1,9 @@
+package org.cbioportal.genome_nexus.model;
+
+public enum AnnotationJobStatus
+{
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED
+}
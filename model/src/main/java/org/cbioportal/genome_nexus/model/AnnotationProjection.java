@@ -0,0 +1,128 @@
+package org.cbioportal.genome_nexus.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tree of the response fields requested by a client, parsed from a comma separated list of
+ * dot separated paths, for example "variant,annotation_summary.transcriptConsequenceSummary".
+ * Field names are the names of the serialized response properties, including a field includes
+ * all of its nested fields.
+ */
+public class AnnotationProjection
+{
+    private final Map<String, AnnotationProjection> children = new HashMap<>();
+    // true when all nested fields are included
+    private boolean all;
+
+    private AnnotationProjection() {}
+
+    /**
+     * @return the projection of the given paths, null if there is no path (all fields are included)
+     */
+    public static AnnotationProjection parse(String include)
+    {
+        if (include == null || include.trim().isEmpty()) {
+            return null;
+        }
+
+        AnnotationProjection root = new AnnotationProjection();
+
+        for (String path: include.split(","))
+        {
+            List<String> names = new ArrayList<>();
+
+            for (String name: path.split("\\.")) {
+                if (!name.trim().isEmpty()) {
+                    names.add(name.trim());
+                }
+            }
+
+            if (!names.isEmpty()) {
+                root.add(names);
+            }
+        }
+
+        return root.children.isEmpty() ? null : root;
+    }
+
+    private void add(List<String> names)
+    {
+        AnnotationProjection node = this;
+
+        for (String name: names)
+        {
+            if (node.all) {
+                // a parent field is already included with all of its nested fields
+                return;
+            }
+
+            node = node.children.computeIfAbsent(name, key -> new AnnotationProjection());
+        }
+
+        node.all = true;
+        node.children.clear();
+    }
+
+    /**
+     * @return true if the field at the given path is included, either entirely or because some of its
+     *         nested fields are included
+     */
+    public boolean includes(String... path)
+    {
+        return this.includes(Arrays.asList(path));
+    }
+
+    public boolean includes(List<String> path)
+    {
+        AnnotationProjection node = this;
+
+        for (String name: path)
+        {
+            if (node.all) {
+                return true;
+            }
+
+            node = node.children.get(name);
+
+            if (node == null) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return the given annotation fields without the fields that are not included,
+     *         so that they are not computed at all
+     */
+    public List<AnnotationField> restrictFields(List<AnnotationField> fields)
+    {
+        if (fields == null) {
+            return null;
+        }
+
+        List<AnnotationField> restricted = new ArrayList<>(fields.size());
+
+        for (AnnotationField field: fields) {
+            if (this.includes(responseFieldName(field))) {
+                restricted.add(field);
+            }
+        }
+
+        return restricted;
+    }
+
+    /**
+     * @return name of the VariantAnnotation response field filled in by the given annotation field
+     */
+    public static String responseFieldName(AnnotationField field)
+    {
+        // the signal annotation has no custom response field name
+        return field == AnnotationField.SIGNAL ? "signalAnnotation" : field.getValue();
+    }
+}
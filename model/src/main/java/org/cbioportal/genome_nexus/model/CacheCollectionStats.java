@@ -0,0 +1,123 @@
+package org.cbioportal.genome_nexus.model;
+
+import java.util.Date;
+import java.util.Map;
+
+public class CacheCollectionStats
+{
+    private String collection;
+    // false when the collection is not kept in Mongo
+    private Boolean evictable;
+    private Long documents;
+    private Long dataSizeBytes;
+
+    // cache hits since startup, and age (time since cached) of the hit documents by bucket
+    private Long hits;
+    private Map<String, Long> hitAges;
+
+    // documents evicted since startup by policy
+    private Long evictedExpired;
+    private Long evictedOverCapacity;
+    private Long evictedSourceVersion;
+
+    // version of the source new documents are fetched from
+    private String sourceVersion;
+    private Date lastEvictionAt;
+    private String error;
+
+    public String getCollection() {
+        return collection;
+    }
+
+    public void setCollection(String collection) {
+        this.collection = collection;
+    }
+
+    public Boolean getEvictable() {
+        return evictable;
+    }
+
+    public void setEvictable(Boolean evictable) {
+        this.evictable = evictable;
+    }
+
+    public Long getDocuments() {
+        return documents;
+    }
+
+    public void setDocuments(Long documents) {
+        this.documents = documents;
+    }
+
+    public Long getDataSizeBytes() {
+        return dataSizeBytes;
+    }
+
+    public void setDataSizeBytes(Long dataSizeBytes) {
+        this.dataSizeBytes = dataSizeBytes;
+    }
+
+    public Long getHits() {
+        return hits;
+    }
+
+    public void setHits(Long hits) {
+        this.hits = hits;
+    }
+
+    public Map<String, Long> getHitAges() {
+        return hitAges;
+    }
+
+    public void setHitAges(Map<String, Long> hitAges) {
+        this.hitAges = hitAges;
+    }
+
+    public Long getEvictedExpired() {
+        return evictedExpired;
+    }
+
+    public void setEvictedExpired(Long evictedExpired) {
+        this.evictedExpired = evictedExpired;
+    }
+
+    public Long getEvictedOverCapacity() {
+        return evictedOverCapacity;
+    }
+
+    public void setEvictedOverCapacity(Long evictedOverCapacity) {
+        this.evictedOverCapacity = evictedOverCapacity;
+    }
+
+    public Long getEvictedSourceVersion() {
+        return evictedSourceVersion;
+    }
+
+    public void setEvictedSourceVersion(Long evictedSourceVersion) {
+        this.evictedSourceVersion = evictedSourceVersion;
+    }
+
+    public String getSourceVersion() {
+        return sourceVersion;
+    }
+
+    public void setSourceVersion(String sourceVersion) {
+        this.sourceVersion = sourceVersion;
+    }
+
+    public Date getLastEvictionAt() {
+        return lastEvictionAt;
+    }
+
+    public void setLastEvictionAt(Date lastEvictionAt) {
+        this.lastEvictionAt = lastEvictionAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
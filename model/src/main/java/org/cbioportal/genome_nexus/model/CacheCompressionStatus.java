@@ -0,0 +1,135 @@
+package org.cbioportal.genome_nexus.model;
+
+import java.util.Date;
+
+public class CacheCompressionStatus
+{
+    public static final String RUNNING = "running";
+    public static final String COMPLETED = "completed";
+    public static final String FAILED = "failed";
+
+    private String collection;
+    private String state;
+    private Date startedAt;
+    private Date finishedAt;
+    private Long documentsCompressed;
+    // documents compressed meanwhile by the application
+    private Long documentsSkipped;
+
+    // BSON sizes of the compressed documents, before and after compression
+    private Long expandedBytes;
+    private Long compressedBytes;
+    private Double compressionRatio;
+
+    // average time per document to read the migrated documents by id before and after compression,
+    // including decompression, and to compress them
+    private Double expandedReadMicros;
+    private Double compressedReadMicros;
+    private Double compressMicros;
+
+    private String error;
+
+    public String getCollection() {
+        return collection;
+    }
+
+    public void setCollection(String collection) {
+        this.collection = collection;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public void setState(String state) {
+        this.state = state;
+    }
+
+    public Date getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Date startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Date getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Date finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public Long getDocumentsCompressed() {
+        return documentsCompressed;
+    }
+
+    public void setDocumentsCompressed(Long documentsCompressed) {
+        this.documentsCompressed = documentsCompressed;
+    }
+
+    public Long getDocumentsSkipped() {
+        return documentsSkipped;
+    }
+
+    public void setDocumentsSkipped(Long documentsSkipped) {
+        this.documentsSkipped = documentsSkipped;
+    }
+
+    public Long getExpandedBytes() {
+        return expandedBytes;
+    }
+
+    public void setExpandedBytes(Long expandedBytes) {
+        this.expandedBytes = expandedBytes;
+    }
+
+    public Long getCompressedBytes() {
+        return compressedBytes;
+    }
+
+    public void setCompressedBytes(Long compressedBytes) {
+        this.compressedBytes = compressedBytes;
+    }
+
+    public Double getCompressionRatio() {
+        return compressionRatio;
+    }
+
+    public void setCompressionRatio(Double compressionRatio) {
+        this.compressionRatio = compressionRatio;
+    }
+
+    public Double getExpandedReadMicros() {
+        return expandedReadMicros;
+    }
+
+    public void setExpandedReadMicros(Double expandedReadMicros) {
+        this.expandedReadMicros = expandedReadMicros;
+    }
+
+    public Double getCompressedReadMicros() {
+        return compressedReadMicros;
+    }
+
+    public void setCompressedReadMicros(Double compressedReadMicros) {
+        this.compressedReadMicros = compressedReadMicros;
+    }
+
+    public Double getCompressMicros() {
+        return compressMicros;
+    }
+
+    public void setCompressMicros(Double compressMicros) {
+        this.compressMicros = compressMicros;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
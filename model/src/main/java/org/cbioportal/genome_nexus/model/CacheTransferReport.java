@@ -0,0 +1,74 @@
+package org.cbioportal.genome_nexus.model;
+
+import java.util.Map;
+
+public class CacheTransferReport
+{
+    private String file;
+    // true when an interrupted transfer was continued
+    private Boolean resumed;
+
+    // documents exported or imported by collection, and documents excluded by the filters
+    private Map<String, Long> documents;
+    private Long documentsFiltered;
+
+    private Long blocks;
+    private Long compressedBytes;
+    private Long millis;
+
+    public String getFile() {
+        return file;
+    }
+
+    public void setFile(String file) {
+        this.file = file;
+    }
+
+    public Boolean getResumed() {
+        return resumed;
+    }
+
+    public void setResumed(Boolean resumed) {
+        this.resumed = resumed;
+    }
+
+    public Map<String, Long> getDocuments() {
+        return documents;
+    }
+
+    public void setDocuments(Map<String, Long> documents) {
+        this.documents = documents;
+    }
+
+    public Long getDocumentsFiltered() {
+        return documentsFiltered;
+    }
+
+    public void setDocumentsFiltered(Long documentsFiltered) {
+        this.documentsFiltered = documentsFiltered;
+    }
+
+    public Long getBlocks() {
+        return blocks;
+    }
+
+    public void setBlocks(Long blocks) {
+        this.blocks = blocks;
+    }
+
+    public Long getCompressedBytes() {
+        return compressedBytes;
+    }
+
+    public void setCompressedBytes(Long compressedBytes) {
+        this.compressedBytes = compressedBytes;
+    }
+
+    public Long getMillis() {
+        return millis;
+    }
+
+    public void setMillis(Long millis) {
+        this.millis = millis;
+    }
+}
@@ -0,0 +1,132 @@
+package org.cbioportal.genome_nexus.model;
+
+import java.util.Date;
+import java.util.Map;
+
+public class CacheWarmingStatus
+{
+    public static final String RUNNING = "running";
+    public static final String COMPLETED = "completed";
+    public static final String FAILED = "failed";
+
+    // what started the warming: manual, scheduled or vep_upgrade
+    public static final String MANUAL = "manual";
+    public static final String SCHEDULED = "scheduled";
+    public static final String VEP_UPGRADE = "vep_upgrade";
+
+    private String state;
+    private String trigger;
+    private Date startedAt;
+    private Date finishedAt;
+    // VEP version the variants are warmed with
+    private String sourceVersion;
+
+    // distinct variants selected from each source, in the order of the sources
+    private Map<String, Long> variantsBySource;
+    private Long variantsTotal;
+
+    // variants annotated so far, of which cached with another VEP version and fetched again,
+    // and variants in batches which failed
+    private Long variantsWarmed;
+    private Long variantsRefreshed;
+    private Long variantsFailed;
+    private Double variantsPerSecond;
+
+    private String error;
+
+    public String getState() {
+        return state;
+    }
+
+    public void setState(String state) {
+        this.state = state;
+    }
+
+    public String getTrigger() {
+        return trigger;
+    }
+
+    public void setTrigger(String trigger) {
+        this.trigger = trigger;
+    }
+
+    public Date getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Date startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Date getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Date finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public String getSourceVersion() {
+        return sourceVersion;
+    }
+
+    public void setSourceVersion(String sourceVersion) {
+        this.sourceVersion = sourceVersion;
+    }
+
+    public Map<String, Long> getVariantsBySource() {
+        return variantsBySource;
+    }
+
+    public void setVariantsBySource(Map<String, Long> variantsBySource) {
+        this.variantsBySource = variantsBySource;
+    }
+
+    public Long getVariantsTotal() {
+        return variantsTotal;
+    }
+
+    public void setVariantsTotal(Long variantsTotal) {
+        this.variantsTotal = variantsTotal;
+    }
+
+    public Long getVariantsWarmed() {
+        return variantsWarmed;
+    }
+
+    public void setVariantsWarmed(Long variantsWarmed) {
+        this.variantsWarmed = variantsWarmed;
+    }
+
+    public Long getVariantsRefreshed() {
+        return variantsRefreshed;
+    }
+
+    public void setVariantsRefreshed(Long variantsRefreshed) {
+        this.variantsRefreshed = variantsRefreshed;
+    }
+
+    public Long getVariantsFailed() {
+        return variantsFailed;
+    }
+
+    public void setVariantsFailed(Long variantsFailed) {
+        this.variantsFailed = variantsFailed;
+    }
+
+    public Double getVariantsPerSecond() {
+        return variantsPerSecond;
+    }
+
+    public void setVariantsPerSecond(Double variantsPerSecond) {
+        this.variantsPerSecond = variantsPerSecond;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
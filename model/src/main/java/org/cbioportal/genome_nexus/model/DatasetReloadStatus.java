@@ -0,0 +1,53 @@
+package org.cbioportal.genome_nexus.model;
+
+import java.util.Date;
+
+public class DatasetReloadStatus
+{
+    private String datasetName;
+    private Date reloadedAt;
+    private Long durationMillis;
+    // heap usage difference measured around the reload, only an approximation since GC may run meanwhile
+    private Long memoryDeltaBytes;
+    private String error;
+
+    public String getDatasetName() {
+        return datasetName;
+    }
+
+    public void setDatasetName(String datasetName) {
+        this.datasetName = datasetName;
+    }
+
+    public Date getReloadedAt() {
+        return reloadedAt;
+    }
+
+    public void setReloadedAt(Date reloadedAt) {
+        this.reloadedAt = reloadedAt;
+    }
+
+    public Long getDurationMillis() {
+        return durationMillis;
+    }
+
+    public void setDurationMillis(Long durationMillis) {
+        this.durationMillis = durationMillis;
+    }
+
+    public Long getMemoryDeltaBytes() {
+        return memoryDeltaBytes;
+    }
+
+    public void setMemoryDeltaBytes(Long memoryDeltaBytes) {
+        this.memoryDeltaBytes = memoryDeltaBytes;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
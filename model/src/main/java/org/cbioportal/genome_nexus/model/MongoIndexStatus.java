@@ -0,0 +1,124 @@
+package org.cbioportal.genome_nexus.model;
+
+import java.util.Date;
+import java.util.List;
+
+public class MongoIndexStatus
+{
+    public static final String PRESENT = "present";
+    public static final String CREATED = "created";
+    public static final String MISSING = "missing";
+    public static final String NO_COLLECTION = "no_collection";
+    public static final String FAILED = "failed";
+
+    private String repository;
+    private String collection;
+    private String name;
+    private List<String> keys;
+    private String status;
+    private Date checkedAt;
+    private String error;
+
+    // explain output of a query sampled from the collection
+    private String winningPlan;
+    private Boolean collectionScan;
+    private Long docsExamined;
+    private Long executionTimeMillis;
+    private Boolean slow;
+
+    public String getRepository() {
+        return repository;
+    }
+
+    public void setRepository(String repository) {
+        this.repository = repository;
+    }
+
+    public String getCollection() {
+        return collection;
+    }
+
+    public void setCollection(String collection) {
+        this.collection = collection;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public List<String> getKeys() {
+        return keys;
+    }
+
+    public void setKeys(List<String> keys) {
+        this.keys = keys;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public Date getCheckedAt() {
+        return checkedAt;
+    }
+
+    public void setCheckedAt(Date checkedAt) {
+        this.checkedAt = checkedAt;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public String getWinningPlan() {
+        return winningPlan;
+    }
+
+    public void setWinningPlan(String winningPlan) {
+        this.winningPlan = winningPlan;
+    }
+
+    public Boolean getCollectionScan() {
+        return collectionScan;
+    }
+
+    public void setCollectionScan(Boolean collectionScan) {
+        this.collectionScan = collectionScan;
+    }
+
+    public Long getDocsExamined() {
+        return docsExamined;
+    }
+
+    public void setDocsExamined(Long docsExamined) {
+        this.docsExamined = docsExamined;
+    }
+
+    public Long getExecutionTimeMillis() {
+        return executionTimeMillis;
+    }
+
+    public void setExecutionTimeMillis(Long executionTimeMillis) {
+        this.executionTimeMillis = executionTimeMillis;
+    }
+
+    public Boolean getSlow() {
+        return slow;
+    }
+
+    public void setSlow(Boolean slow) {
+        this.slow = slow;
+    }
+}
@@ -32,6 +32,7 @@
 
 package org.cbioportal.genome_nexus.model;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
@@ -78,6 +79,7 @@ public class VariantAnnotation
     private String originalVariantQuery;
     private Map<String, Object> dynamicProps;
     private String genomicLocationExplanation;
+    private List<String> skippedEnrichments; // enrichments not applied before the request deadline
 
     public VariantAnnotation()
     {
@@ -97,6 +99,42 @@ public class VariantAnnotation
         this.successfullyAnnotated = !(annotationJSON == null);
     }
 
+    /**
+     * Shallow copy sharing the nested annotations with the given instance,
+     * only the top level fields (e.g. the original variant query) can be changed independently.
+     */
+    public VariantAnnotation(VariantAnnotation other)
+    {
+        this.variant = other.variant;
+        this.annotationJSON = other.annotationJSON;
+        this.variantId = other.variantId;
+        this.assemblyName = other.assemblyName;
+        this.seqRegionName = other.seqRegionName;
+        this.start = other.start;
+        this.end = other.end;
+        this.alleleString = other.alleleString;
+        this.strand = other.strand;
+        this.mostSevereConsequence = other.mostSevereConsequence;
+        this.colocatedVariants = other.colocatedVariants;
+        this.intergenicConsequences = other.intergenicConsequences;
+        this.transcriptConsequences = other.transcriptConsequences;
+        this.successfullyAnnotated = other.successfullyAnnotated;
+        this.errorMessage = other.errorMessage;
+        this.mutationAssessor = other.mutationAssessor;
+        this.nucleotideContextAnnotation = other.nucleotideContextAnnotation;
+        this.myVariantInfoAnnotation = other.myVariantInfoAnnotation;
+        this.hotspotAnnotation = other.hotspotAnnotation;
+        this.ptmAnnotation = other.ptmAnnotation;
+        this.oncokbAnnotation = other.oncokbAnnotation;
+        this.clinvarAnnotation = other.clinvarAnnotation;
+        this.annotationSummary = other.annotationSummary;
+        this.signalAnnotation = other.signalAnnotation;
+        this.originalVariantQuery = other.originalVariantQuery;
+        this.dynamicProps = other.dynamicProps == null ? null : new LinkedHashMap<>(other.dynamicProps);
+        this.genomicLocationExplanation = other.genomicLocationExplanation;
+        this.skippedEnrichments = other.skippedEnrichments == null ? null : new ArrayList<>(other.skippedEnrichments);
+    }
+
     public String getVariant()
     {
         return variant;
@@ -372,4 +410,22 @@ public class VariantAnnotation
     public void setErrorMessage(String errorMessage) {
         this.errorMessage = errorMessage;
     }
+
+    public List<String> getSkippedEnrichments() {
+        return skippedEnrichments;
+    }
+
+    public void setSkippedEnrichments(List<String> skippedEnrichments) {
+        this.skippedEnrichments = skippedEnrichments;
+    }
+
+    public void addSkippedEnrichment(String enrichment) {
+        if (this.skippedEnrichments == null) {
+            this.skippedEnrichments = new ArrayList<>();
+        }
+
+        if (!this.skippedEnrichments.contains(enrichment)) {
+            this.skippedEnrichments.add(enrichment);
+        }
+    }
 }
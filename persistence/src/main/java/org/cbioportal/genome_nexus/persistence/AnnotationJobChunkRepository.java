@@ -0,0 +1,9 @@
+package org.cbioportal.genome_nexus.persistence;
+
+import org.cbioportal.genome_nexus.model.AnnotationJobChunk;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+public interface AnnotationJobChunkRepository extends MongoRepository<AnnotationJobChunk, String>
+{
+    void deleteByJobId(String jobId);
+}
@@ -0,0 +1,22 @@
+package org.cbioportal.genome_nexus.persistence;
+
+import org.cbioportal.genome_nexus.model.AnnotationJob;
+import org.cbioportal.genome_nexus.model.AnnotationJobStatus;
+import org.cbioportal.genome_nexus.persistence.internal.AnnotationJobRepositoryCustom;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+public interface AnnotationJobRepository extends MongoRepository<AnnotationJob, String>, AnnotationJobRepositoryCustom
+{
+    List<RequiredIndex> REQUIRED_INDEXES = Arrays.asList(
+        RequiredIndex.on(AnnotationJobRepository.class, "annotation.job", "finishedAt")
+    );
+
+    List<AnnotationJob> findByStatusInOrderByCreatedAtAsc(Collection<AnnotationJobStatus> statuses);
+
+    List<AnnotationJob> findByFinishedAtBefore(Date finishedAt);
+}
@@ -0,0 +1,18 @@
+package org.cbioportal.genome_nexus.persistence;
+
+import org.cbioportal.genome_nexus.model.AnnotationJobResult;
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import java.util.Arrays;
+import java.util.List;
+
+public interface AnnotationJobResultRepository extends MongoRepository<AnnotationJobResult, String>
+{
+    List<RequiredIndex> REQUIRED_INDEXES = Arrays.asList(
+        RequiredIndex.on(AnnotationJobResultRepository.class, "annotation.job.result", "jobId", "chunkIndex", "position")
+    );
+
+    List<AnnotationJobResult> findByJobIdAndChunkIndexOrderByPositionAsc(String jobId, Integer chunkIndex);
+
+    void deleteByJobId(String jobId);
+}
@@ -0,0 +1,40 @@
+package org.cbioportal.genome_nexus.persistence;
+
+import org.bson.Document;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Access to the cache collections as raw documents, for the documents not mapped to a model as they are stored.
+ */
+public interface CacheDocumentRepository
+{
+    Document findById(String collection, String id);
+    List<Document> findAllById(String collection, Collection<String> ids);
+    void save(String collection, Document document);
+
+    /**
+     * @return up to limit documents lacking the field with an id greater than afterId (if not null), in id order
+     */
+    List<Document> findWithoutField(String collection, String field, String afterId, int limit);
+
+    /**
+     * Replaces the document with the same id, unless it has the field already.
+     *
+     * @return true if the document was replaced
+     */
+    boolean replaceWithoutField(String collection, String field, Document document);
+
+    /**
+     * @return up to limit documents matching the query with an id greater than afterId (if not null), in id order
+     */
+    List<Document> findAfterId(String collection, Document query, String afterId, int limit);
+
+    /**
+     * Inserts or replaces the documents in a single unordered bulk write.
+     */
+    void upsertAll(String collection, List<Document> documents);
+
+    long count(String collection);
+}
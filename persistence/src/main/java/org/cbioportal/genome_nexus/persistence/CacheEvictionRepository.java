@@ -0,0 +1,66 @@
+package org.cbioportal.genome_nexus.persistence;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Access tracking and eviction of the documents of the cache collections. Cached documents carry the time they
+ * were cached, the last time they were accessed (updated in batches), and the version of the source they were fetched from.
+ */
+public interface CacheEvictionRepository
+{
+    String CACHED_AT_FIELD = "_cached_at";
+    String ACCESSED_AT_FIELD = "_accessed_at";
+    String SOURCE_VERSION_FIELD = "_source_version";
+
+    List<RequiredIndex> REQUIRED_INDEXES = Arrays.asList(
+        RequiredIndex.on(CacheEvictionRepository.class, "vep.annotation", ACCESSED_AT_FIELD),
+        RequiredIndex.on(CacheEvictionRepository.class, "vep.annotation", SOURCE_VERSION_FIELD),
+        RequiredIndex.on(CacheEvictionRepository.class, "my_variant_info.annotation", ACCESSED_AT_FIELD)
+    );
+
+    /**
+     * @return the time each document was cached, for the documents which have one
+     */
+    Map<String, Date> findCachedAt(String collection, Collection<String> ids);
+
+    /**
+     * @return the last time each document was accessed, for the documents which have one
+     */
+    Map<String, Date> findAccessedAt(String collection, Collection<String> ids);
+
+    void markAccessed(String collection, Collection<String> ids, Date accessedAt);
+
+    /**
+     * Sets the access time of up to limit documents cached before access tracking.
+     *
+     * @return number of documents updated
+     */
+    int markUntracked(String collection, Date accessedAt, int limit);
+
+    List<String> findIdsAccessedBefore(String collection, Date accessedAt, int limit);
+    List<String> findLeastRecentlyAccessedIds(String collection, int limit);
+    List<String> findMostRecentlyAccessedIds(String collection, int limit);
+
+    /**
+     * @return ids of documents fetched from another version of the source, documents without version are excluded
+     */
+    List<String> findIdsWithOtherSourceVersion(String collection, String sourceVersion, int limit);
+
+    /**
+     * @return the ids among the given ones of documents fetched from another version of the source
+     */
+    List<String> findIdsWithOtherSourceVersion(String collection, String sourceVersion, Collection<String> ids);
+
+    long deleteByIds(String collection, Collection<String> ids);
+
+    long count(String collection);
+
+    /**
+     * @return uncompressed size of the documents of the collection in bytes
+     */
+    long dataSize(String collection);
+}
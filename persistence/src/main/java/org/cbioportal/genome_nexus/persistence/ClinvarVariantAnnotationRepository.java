@@ -3,7 +3,15 @@ package org.cbioportal.genome_nexus.persistence;
 import org.cbioportal.genome_nexus.model.Clinvar;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Collections;
+import java.util.List;
+
 public interface ClinvarVariantAnnotationRepository extends MongoRepository<Clinvar, String> {
+    List<RequiredIndex> REQUIRED_INDEXES = Collections.singletonList(
+        RequiredIndex.on(ClinvarVariantAnnotationRepository.class, "clinvar.mutation",
+            "chromosome", "start_position", "end_position", "reference_allele", "alternate_allele")
+    );
+
     Clinvar findByChromosomeAndStartPositionAndEndPositionAndReferenceAlleleAndAlternateAllele(
         String chromosome,
         Integer startPosition,
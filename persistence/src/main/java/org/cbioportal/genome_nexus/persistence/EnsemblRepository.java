@@ -4,10 +4,18 @@ import org.cbioportal.genome_nexus.model.EnsemblTranscript;
 import org.cbioportal.genome_nexus.persistence.internal.EnsemblRepositoryCustom;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Arrays;
 import java.util.List;
 
 public interface EnsemblRepository extends MongoRepository<EnsemblTranscript, String>, EnsemblRepositoryCustom
 {
+    List<RequiredIndex> REQUIRED_INDEXES = Arrays.asList(
+        RequiredIndex.on(EnsemblRepository.class, "ensembl.biomart_transcripts", "transcript_stable_id"),
+        RequiredIndex.on(EnsemblRepository.class, "ensembl.biomart_transcripts", "gene_stable_id"),
+        RequiredIndex.on(EnsemblRepository.class, "ensembl.biomart_transcripts", "protein_stable_id"),
+        RequiredIndex.on(EnsemblRepository.class, "ensembl.biomart_transcripts", "hgnc_symbols")
+    );
+
     /*List<EnsemblTranscript> findAll();*/
     EnsemblTranscript findOneByTranscriptId(String transcriptId);
 
@@ -8,4 +8,9 @@ public interface GenericMongoRepository
 {
     void saveDBObject(String collection, String key, DBObject value);
     void saveDBObjects(String collection, List<DBObject> dbObjects);
+
+    /**
+     * @return the document saved by saveDBObject for the given key and raw value, or null if nothing is saved
+     */
+    DBObject toDBObject(String key, DBObject value);
 }
@@ -36,6 +36,7 @@ import org.cbioportal.genome_nexus.model.Hotspot;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -43,6 +44,11 @@ import java.util.List;
  */
 public interface HotspotRepository extends MongoRepository<Hotspot, String>
 {
+    List<RequiredIndex> REQUIRED_INDEXES = Arrays.asList(
+        RequiredIndex.on(HotspotRepository.class, "hotspot.mutation", "transcript_id"),
+        RequiredIndex.on(HotspotRepository.class, "hotspot.mutation", "hugo_symbol")
+    );
+
     @Cacheable("hotspotsByTranscriptId")
     List<Hotspot> findByTranscriptId(String transcriptId);
 }
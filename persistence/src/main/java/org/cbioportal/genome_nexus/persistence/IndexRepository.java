@@ -1,14 +1,32 @@
 package org.cbioportal.genome_nexus.persistence;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.cbioportal.genome_nexus.model.Index;
+import org.cbioportal.genome_nexus.persistence.internal.IndexRepositoryCustom;
 import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+
+public interface IndexRepository extends MongoRepository<Index, String>, GenericMongoRepository, IndexRepositoryCustom {
+    // the indexed fields are arrays, which cannot be combined in a compound index
+    List<RequiredIndex> REQUIRED_INDEXES = Arrays.asList(
+        RequiredIndex.on(IndexRepository.class, "index", "variant"),
+        RequiredIndex.on(IndexRepository.class, "index", "hugoSymbol"),
+        RequiredIndex.on(IndexRepository.class, "index", "hgvspShort"),
+        RequiredIndex.on(IndexRepository.class, "index", "hgvsp"),
+        RequiredIndex.on(IndexRepository.class, "index", "cdna"),
+        RequiredIndex.on(IndexRepository.class, "index", "hgvsc"),
+        RequiredIndex.on(IndexRepository.class, "index", "rsid")
+    );
 
-public interface IndexRepository extends MongoRepository<Index, String>, GenericMongoRepository {
     Index findByVariant(String Variant);
     List<Index> findByHugoSymbolAndHgvspShort(String hugoSymbol, String hgvspShort);
     List<Index> findByHugoSymbolAndHgvsp(String hugoSymbol, String hgvsp);
     List<Index> findByHugoSymbolAndCdna(String hugoSymbol, String cdna);
     List<Index> findByHgvsc(String hgvsc);
+    List<Index> findByHugoSymbolAndHgvspShortRegex(String hugoSymbol, String hgvspShortRegex);
+    @Query("{}")
+    Stream<Index> streamAll();
 }
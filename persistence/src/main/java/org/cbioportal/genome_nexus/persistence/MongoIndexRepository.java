@@ -0,0 +1,32 @@
+package org.cbioportal.genome_nexus.persistence;
+
+import org.bson.Document;
+
+import java.util.List;
+
+/**
+ * Inspection and creation of the indexes of arbitrary collections, including the collections which are
+ * loaded by the importer and not written by the application.
+ */
+public interface MongoIndexRepository
+{
+    boolean collectionExists(String collection);
+
+    /**
+     * @return the keys of every index of the collection, in index order
+     */
+    List<List<String>> findIndexKeys(String collection);
+
+    void createIndex(RequiredIndex index);
+
+    /**
+     * @return an equality query on the keys of the index built from a sampled document,
+     *         null if no document has the first key of the index
+     */
+    Document sampleQuery(RequiredIndex index);
+
+    /**
+     * @return the explain output of the query, with execution statistics
+     */
+    Document explain(String collection, Document query);
+}
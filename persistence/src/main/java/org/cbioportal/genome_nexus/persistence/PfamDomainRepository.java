@@ -3,6 +3,7 @@ package org.cbioportal.genome_nexus.persistence;
 import org.cbioportal.genome_nexus.model.PfamDomain;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -10,6 +11,10 @@ import java.util.List;
  */
 public interface PfamDomainRepository extends MongoRepository<PfamDomain, String>
 {
+    List<RequiredIndex> REQUIRED_INDEXES = Collections.singletonList(
+        RequiredIndex.on(PfamDomainRepository.class, "pfam.domain", "pfamA_acc")
+    );
+
     PfamDomain findOneByPfamAccession(String pfamDomainAccession);
     List<PfamDomain> findByPfamAccessionIn(List<String> pfamAccessions);
 }
@@ -3,11 +3,16 @@ package org.cbioportal.genome_nexus.persistence;
 import org.cbioportal.genome_nexus.model.PostTranslationalModification;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.regex.Pattern;
 
 public interface PostTranslationalModificationRepository
     extends MongoRepository<PostTranslationalModification, String>
 {
+    List<RequiredIndex> REQUIRED_INDEXES = Collections.singletonList(
+        RequiredIndex.on(PostTranslationalModificationRepository.class, "ptm.experimental", "ensembl_transcript_ids")
+    );
+
     List<PostTranslationalModification> findByEnsemblTranscriptIdsIn(List<Pattern> ensemblTranscriptIdsRegex);
 }
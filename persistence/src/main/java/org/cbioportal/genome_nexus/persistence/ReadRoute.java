@@ -0,0 +1,48 @@
+package org.cbioportal.genome_nexus.persistence;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Collections read by a repository, and whether they are reference collections which only change
+ * with an import, or cache collections which must read their own writes.
+ */
+public class ReadRoute
+{
+    private final String repository;
+    private final List<String> collections;
+    private final boolean reference;
+
+    private ReadRoute(String repository, List<String> collections, boolean reference)
+    {
+        this.repository = repository;
+        this.collections = collections;
+        this.reference = reference;
+    }
+
+    public static ReadRoute reference(Class<?> repository, String... collections)
+    {
+        return new ReadRoute(repository.getSimpleName(), Collections.unmodifiableList(Arrays.asList(collections)), true);
+    }
+
+    public static ReadRoute cache(Class<?> repository, String... collections)
+    {
+        return new ReadRoute(repository.getSimpleName(), Collections.unmodifiableList(Arrays.asList(collections)), false);
+    }
+
+    public String getRepository()
+    {
+        return repository;
+    }
+
+    public List<String> getCollections()
+    {
+        return collections;
+    }
+
+    public boolean isReference()
+    {
+        return reference;
+    }
+}
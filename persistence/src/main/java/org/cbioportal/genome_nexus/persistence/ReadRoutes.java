@@ -0,0 +1,41 @@
+package org.cbioportal.genome_nexus.persistence;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read routing of the repositories. Reference collections can be read from secondary or nearest
+ * replica set members, cache collections are always read from the primary.
+ */
+public final class ReadRoutes
+{
+    private static final List<ReadRoute> ALL = Collections.unmodifiableList(Arrays.asList(
+        ReadRoute.reference(EnsemblRepository.class, "ensembl.biomart_transcripts", "ensembl.canonical_transcript_per_hgnc"),
+        ReadRoute.reference(GeneXrefRepository.class, "ensembl.gene_xref"),
+        ReadRoute.reference(HotspotRepository.class, "hotspot.mutation"),
+        ReadRoute.reference(SignalMutationRepository.class, "signal.mutation"),
+        ReadRoute.reference(PostTranslationalModificationRepository.class, "ptm.experimental"),
+        ReadRoute.reference(MutationAssessorRepository.class, "mutation_assessor.annotation"),
+        ReadRoute.reference(ClinvarVariantAnnotationRepository.class, "clinvar.mutation"),
+        ReadRoute.reference(PfamDomainRepository.class, "pfam.domain"),
+        ReadRoute.reference(OncokbCancerGenesListRepository.class, "oncokb.gene"),
+        ReadRoute.cache(VariantAnnotationRepository.class, "vep.annotation"),
+        ReadRoute.cache(IndexRepository.class, "index"),
+        ReadRoute.cache(MyVariantInfoRepository.class, "my_variant_info.annotation"),
+        ReadRoute.cache(NucleotideContextRepository.class, "ensembl.nucleotide_context"),
+        ReadRoute.cache(PdbHeaderRepository.class, "pdb.header"),
+        ReadRoute.cache(AnnotationJobRepository.class, "annotation.job"),
+        ReadRoute.cache(AnnotationJobChunkRepository.class, "annotation.job.chunk"),
+        ReadRoute.cache(AnnotationJobResultRepository.class, "annotation.job.result"),
+        // compared with the reloaded datasets, a stale version would trigger reloads again
+        ReadRoute.cache(AnnotationVersionRepository.class, "version")
+    ));
+
+    private ReadRoutes() {}
+
+    public static List<ReadRoute> all()
+    {
+        return ALL;
+    }
+}
@@ -0,0 +1,65 @@
+package org.cbioportal.genome_nexus.persistence;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Ascending index which the queries of a repository depend on. Repositories declare their required
+ * indexes in a REQUIRED_INDEXES constant, collected by {@link RequiredIndexes}.
+ */
+public class RequiredIndex
+{
+    private final String repository;
+    private final String collection;
+    private final List<String> keys;
+
+    private RequiredIndex(String repository, String collection, List<String> keys)
+    {
+        this.repository = repository;
+        this.collection = collection;
+        this.keys = keys;
+    }
+
+    public static RequiredIndex on(Class<?> repository, String collection, String... keys)
+    {
+        return new RequiredIndex(repository.getSimpleName(), collection, Collections.unmodifiableList(Arrays.asList(keys)));
+    }
+
+    public String getRepository()
+    {
+        return repository;
+    }
+
+    public String getCollection()
+    {
+        return collection;
+    }
+
+    public List<String> getKeys()
+    {
+        return keys;
+    }
+
+    /**
+     * @return the default Mongo name of the index, for example chromosome_1_start_position_1
+     */
+    public String getName()
+    {
+        return String.join("_1_", this.keys) + "_1";
+    }
+
+    /**
+     * @return true if an index with the given keys can serve the queries of this index
+     */
+    public boolean isCoveredBy(List<String> indexKeys)
+    {
+        return indexKeys.size() >= this.keys.size() && indexKeys.subList(0, this.keys.size()).equals(this.keys);
+    }
+
+    @Override
+    public String toString()
+    {
+        return this.collection + "." + this.getName();
+    }
+}
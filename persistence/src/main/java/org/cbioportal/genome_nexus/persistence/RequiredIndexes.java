@@ -0,0 +1,37 @@
+package org.cbioportal.genome_nexus.persistence;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Registry of the indexes required by the repositories, see the REQUIRED_INDEXES constant of each repository.
+ */
+public final class RequiredIndexes
+{
+    private static final List<RequiredIndex> ALL;
+
+    static {
+        List<RequiredIndex> all = new ArrayList<>();
+
+        all.addAll(IndexRepository.REQUIRED_INDEXES);
+        all.addAll(SignalMutationRepository.REQUIRED_INDEXES);
+        all.addAll(ClinvarVariantAnnotationRepository.REQUIRED_INDEXES);
+        all.addAll(EnsemblRepository.REQUIRED_INDEXES);
+        all.addAll(HotspotRepository.REQUIRED_INDEXES);
+        all.addAll(PostTranslationalModificationRepository.REQUIRED_INDEXES);
+        all.addAll(PfamDomainRepository.REQUIRED_INDEXES);
+        all.addAll(CacheEvictionRepository.REQUIRED_INDEXES);
+        all.addAll(AnnotationJobRepository.REQUIRED_INDEXES);
+        all.addAll(AnnotationJobResultRepository.REQUIRED_INDEXES);
+
+        ALL = Collections.unmodifiableList(all);
+    }
+
+    private RequiredIndexes() {}
+
+    public static List<RequiredIndex> all()
+    {
+        return ALL;
+    }
+}
@@ -3,10 +3,17 @@ package org.cbioportal.genome_nexus.persistence;
 import org.cbioportal.genome_nexus.model.SignalMutation;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
+import java.util.Arrays;
 import java.util.List;
 
 public interface SignalMutationRepository extends MongoRepository<SignalMutation, String>
 {
+    List<RequiredIndex> REQUIRED_INDEXES = Arrays.asList(
+        RequiredIndex.on(SignalMutationRepository.class, "signal.mutation",
+            "chromosome", "start_position", "end_position", "variant_allele", "reference_allele"),
+        RequiredIndex.on(SignalMutationRepository.class, "signal.mutation", "hugo_gene_symbol")
+    );
+
     List<SignalMutation> findByHugoGeneSymbol(String hugoGeneSymbol);
     List<SignalMutation> findByHugoGeneSymbolIn(List<String> hugoGeneSymbol);
     List<SignalMutation> findByChromosomeAndStartPositionAndEndPositionAndReferenceAlleleAndVariantAllele(
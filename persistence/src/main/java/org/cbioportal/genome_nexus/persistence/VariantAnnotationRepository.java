@@ -33,6 +33,7 @@
 package org.cbioportal.genome_nexus.persistence;
 
 import org.cbioportal.genome_nexus.model.VariantAnnotation;
+import org.cbioportal.genome_nexus.persistence.internal.VariantAnnotationRepositoryCustom;
 import org.springframework.data.mongodb.repository.MongoRepository;
 
 import java.util.List;
@@ -41,6 +42,6 @@ import java.util.List;
  * @author Benjamin Gross
  */
 public interface VariantAnnotationRepository
-    extends MongoRepository<VariantAnnotation, String>, GenericMongoRepository {
+    extends MongoRepository<VariantAnnotation, String>, GenericMongoRepository, VariantAnnotationRepositoryCustom {
     List<VariantAnnotation> findByVariantIn(List<String> variants);
 }
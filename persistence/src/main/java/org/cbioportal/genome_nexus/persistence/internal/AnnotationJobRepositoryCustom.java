@@ -0,0 +1,29 @@
+package org.cbioportal.genome_nexus.persistence.internal;
+
+import org.cbioportal.genome_nexus.model.AnnotationJob;
+
+import java.util.Collection;
+import java.util.Date;
+
+public interface AnnotationJobRepositoryCustom
+{
+    /**
+     * Atomically takes the lease of a queued or running job, if the job has no owner, is already owned by the
+     * given owner, or its lease expired.
+     *
+     * @return the claimed job, or null if the job is finished or leased by another owner
+     */
+    AnnotationJob claim(String jobId, String owner, Date now, Date leaseExpiresAt);
+
+    /**
+     * Replaces the stored job only if it is still owned by the owner of the given job.
+     *
+     * @return false if another owner took the job over
+     */
+    boolean saveIfOwner(AnnotationJob job);
+
+    /**
+     * Extends the leases of the given jobs still owned by the given owner.
+     */
+    void renewLeases(Collection<String> jobIds, String owner, Date leaseExpiresAt);
+}
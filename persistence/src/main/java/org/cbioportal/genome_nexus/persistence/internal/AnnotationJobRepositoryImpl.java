@@ -0,0 +1,67 @@
+package org.cbioportal.genome_nexus.persistence.internal;
+
+import org.cbioportal.genome_nexus.model.AnnotationJob;
+import org.cbioportal.genome_nexus.model.AnnotationJobStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.Date;
+
+@Repository
+public class AnnotationJobRepositoryImpl implements AnnotationJobRepositoryCustom
+{
+    public static final String COLLECTION = "annotation.job";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public AnnotationJobRepositoryImpl(MongoTemplate mongoTemplate)
+    {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public AnnotationJob claim(String jobId, String owner, Date now, Date leaseExpiresAt)
+    {
+        Query query = new Query(Criteria.where("_id").is(jobId)
+            .and("status").in(AnnotationJobStatus.QUEUED.name(), AnnotationJobStatus.RUNNING.name())
+            .orOperator(
+                Criteria.where("owner").is(owner),
+                // also matches the jobs without an owner field
+                Criteria.where("owner").is(null),
+                Criteria.where("leaseExpiresAt").lt(now)
+            ));
+        Update update = new Update().set("owner", owner).set("leaseExpiresAt", leaseExpiresAt);
+
+        return this.mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true),
+            AnnotationJob.class, COLLECTION);
+    }
+
+    @Override
+    public boolean saveIfOwner(AnnotationJob job)
+    {
+        Query query = new Query(Criteria.where("_id").is(job.getId()).and("owner").is(job.getOwner()));
+
+        return this.mongoTemplate.findAndReplace(query, job, FindAndReplaceOptions.none(),
+            AnnotationJob.class, COLLECTION) != null;
+    }
+
+    @Override
+    public void renewLeases(Collection<String> jobIds, String owner, Date leaseExpiresAt)
+    {
+        if (jobIds.isEmpty()) {
+            return;
+        }
+
+        Query query = new Query(Criteria.where("_id").in(jobIds).and("owner").is(owner));
+
+        this.mongoTemplate.updateMulti(query, new Update().set("leaseExpiresAt", leaseExpiresAt), COLLECTION);
+    }
+}
@@ -0,0 +1,113 @@
+package org.cbioportal.genome_nexus.persistence.internal;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.cbioportal.genome_nexus.persistence.CacheDocumentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Reads and writes raw documents through the template callbacks, so that the collections are read with
+ * the read preference routed by the template.
+ */
+@Repository
+public class CacheDocumentRepositoryImpl implements CacheDocumentRepository
+{
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public CacheDocumentRepositoryImpl(MongoTemplate mongoTemplate)
+    {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Document findById(String collection, String id)
+    {
+        return this.mongoTemplate.execute(collection, c -> c.find(Filters.eq("_id", id)).first());
+    }
+
+    @Override
+    public List<Document> findAllById(String collection, Collection<String> ids)
+    {
+        return this.mongoTemplate.execute(collection, c -> c.find(Filters.in("_id", ids)).into(new ArrayList<>()));
+    }
+
+    @Override
+    public void save(String collection, Document document)
+    {
+        this.mongoTemplate.save(document, collection);
+    }
+
+    @Override
+    public List<Document> findWithoutField(String collection, String field, String afterId, int limit)
+    {
+        Bson filter = afterId == null ?
+            Filters.exists(field, false) :
+            Filters.and(Filters.gt("_id", afterId), Filters.exists(field, false));
+
+        return this.mongoTemplate.execute(collection, c -> c
+            .find(filter)
+            .sort(Sorts.ascending("_id"))
+            .limit(limit)
+            .into(new ArrayList<>()));
+    }
+
+    @Override
+    public boolean replaceWithoutField(String collection, String field, Document document)
+    {
+        Bson filter = Filters.and(Filters.eq("_id", document.get("_id")), Filters.exists(field, false));
+
+        return this.mongoTemplate.execute(collection, c -> c.replaceOne(filter, document).getModifiedCount() > 0);
+    }
+
+    @Override
+    public List<Document> findAfterId(String collection, Document query, String afterId, int limit)
+    {
+        Bson filter = afterId == null ? query : Filters.and(Filters.gt("_id", afterId), query);
+
+        return this.mongoTemplate.execute(collection, c -> c
+            .find(filter)
+            .sort(Sorts.ascending("_id"))
+            .limit(limit)
+            .into(new ArrayList<>()));
+    }
+
+    @Override
+    public void upsertAll(String collection, List<Document> documents)
+    {
+        if (documents.isEmpty()) {
+            return;
+        }
+
+        BulkOperations bulkOperations = this.mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, collection);
+
+        for (Document document: documents) {
+            bulkOperations.replaceOne(
+                Query.query(Criteria.where("_id").is(document.get("_id"))),
+                document,
+                FindAndReplaceOptions.options().upsert()
+            );
+        }
+
+        bulkOperations.execute();
+    }
+
+    @Override
+    public long count(String collection)
+    {
+        return this.mongoTemplate.execute(collection, MongoCollection::estimatedDocumentCount);
+    }
+}
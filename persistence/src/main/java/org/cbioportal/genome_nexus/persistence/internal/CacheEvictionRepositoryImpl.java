@@ -0,0 +1,174 @@
+package org.cbioportal.genome_nexus.persistence.internal;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.Updates;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.cbioportal.genome_nexus.persistence.CacheEvictionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// collections are accessed through the template callbacks, which apply the read preference routed by the template
+@Repository
+public class CacheEvictionRepositoryImpl implements CacheEvictionRepository
+{
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public CacheEvictionRepositoryImpl(MongoTemplate mongoTemplate)
+    {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Map<String, Date> findCachedAt(String collection, Collection<String> ids)
+    {
+        return this.findDates(collection, ids, CACHED_AT_FIELD);
+    }
+
+    @Override
+    public Map<String, Date> findAccessedAt(String collection, Collection<String> ids)
+    {
+        return this.findDates(collection, ids, ACCESSED_AT_FIELD);
+    }
+
+    private Map<String, Date> findDates(String collection, Collection<String> ids, String field)
+    {
+        Map<String, Date> dates = new HashMap<>();
+
+        this.mongoTemplate.execute(collection, c -> c
+            .find(Filters.and(Filters.in("_id", ids), Filters.exists(field)))
+            .projection(Projections.include(field))
+            .into(new ArrayList<>())
+        ).forEach(document -> dates.put(String.valueOf(document.get("_id")), document.getDate(field)));
+
+        return dates;
+    }
+
+    @Override
+    public void markAccessed(String collection, Collection<String> ids, Date accessedAt)
+    {
+        this.mongoTemplate.execute(collection, c -> c.updateMany(
+            Filters.in("_id", ids), Updates.set(ACCESSED_AT_FIELD, accessedAt)));
+    }
+
+    @Override
+    public int markUntracked(String collection, Date accessedAt, int limit)
+    {
+        List<Object> ids = this.findIds(collection, Filters.exists(ACCESSED_AT_FIELD, false), null, limit);
+
+        if (!ids.isEmpty()) {
+            this.mongoTemplate.execute(collection, c -> c.updateMany(
+                Filters.and(Filters.in("_id", ids), Filters.exists(ACCESSED_AT_FIELD, false)),
+                Updates.set(ACCESSED_AT_FIELD, accessedAt)));
+        }
+
+        return ids.size();
+    }
+
+    @Override
+    public List<String> findIdsAccessedBefore(String collection, Date accessedAt, int limit)
+    {
+        return toStrings(this.findIds(collection, Filters.lt(ACCESSED_AT_FIELD, accessedAt), null, limit));
+    }
+
+    @Override
+    public List<String> findLeastRecentlyAccessedIds(String collection, int limit)
+    {
+        // documents without access time come first
+        return toStrings(this.findIds(collection, new Document(), Sorts.ascending(ACCESSED_AT_FIELD), limit));
+    }
+
+    @Override
+    public List<String> findMostRecentlyAccessedIds(String collection, int limit)
+    {
+        return toStrings(this.findIds(
+            collection, Filters.exists(ACCESSED_AT_FIELD), Sorts.descending(ACCESSED_AT_FIELD), limit));
+    }
+
+    @Override
+    public List<String> findIdsWithOtherSourceVersion(String collection, String sourceVersion, int limit)
+    {
+        return toStrings(this.findIds(collection, otherSourceVersion(sourceVersion), null, limit));
+    }
+
+    @Override
+    public List<String> findIdsWithOtherSourceVersion(String collection, String sourceVersion, Collection<String> ids)
+    {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Bson filter = Filters.and(Filters.in("_id", ids), otherSourceVersion(sourceVersion));
+
+        return toStrings(this.findIds(collection, filter, null, ids.size()));
+    }
+
+    @Override
+    public long deleteByIds(String collection, Collection<String> ids)
+    {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        return this.mongoTemplate.execute(collection, c -> c.deleteMany(Filters.in("_id", ids)).getDeletedCount());
+    }
+
+    @Override
+    public long count(String collection)
+    {
+        return this.mongoTemplate.execute(collection, MongoCollection::estimatedDocumentCount);
+    }
+
+    @Override
+    public long dataSize(String collection)
+    {
+        if (!this.mongoTemplate.collectionExists(collection)) {
+            return 0;
+        }
+
+        Document stats = this.mongoTemplate.getDb().runCommand(new Document("collStats", collection));
+        Object size = stats.get("size");
+
+        return size instanceof Number ? ((Number) size).longValue() : 0;
+    }
+
+    private List<Object> findIds(String collection, Bson filter, Bson sort, int limit)
+    {
+        List<Object> ids = new ArrayList<>();
+
+        this.mongoTemplate.execute(collection, c -> c
+            .find(filter)
+            .sort(sort)
+            .projection(Projections.include("_id"))
+            .limit(limit)
+            .into(new ArrayList<>())
+        ).forEach(document -> ids.add(document.get("_id")));
+
+        return ids;
+    }
+
+    private static Bson otherSourceVersion(String sourceVersion)
+    {
+        return Filters.and(Filters.exists(SOURCE_VERSION_FIELD), Filters.ne(SOURCE_VERSION_FIELD, sourceVersion));
+    }
+
+    private static List<String> toStrings(List<Object> ids)
+    {
+        List<String> strings = new ArrayList<>();
+        ids.forEach(id -> strings.add(String.valueOf(id)));
+
+        return strings;
+    }
+}
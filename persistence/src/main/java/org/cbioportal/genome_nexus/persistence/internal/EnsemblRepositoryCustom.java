@@ -34,12 +34,15 @@ package org.cbioportal.genome_nexus.persistence.internal;
 import java.util.*;
 import org.cbioportal.genome_nexus.model.EnsemblGene;
 import org.cbioportal.genome_nexus.model.EnsemblTranscript;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 
 public interface EnsemblRepositoryCustom
 {
     EnsemblTranscript findOneByHugoSymbolIgnoreCase(String hugoSymbol, String isoformOverrideSource);
     EnsemblGene getCanonicalEnsemblGeneIdByHugoSymbol(String hugoSymbol);
+    List<EnsemblGene> getCanonicalEnsemblGeneIdsByHugoSymbols(List<String> hugoSymbols);
+    List<EnsemblTranscript> findCanonicalTranscriptsByHugoSymbols(List<String> hugoSymbols, String isoformOverrideSource);
     EnsemblGene getCanonicalEnsemblGeneIdByEntrezGeneId(String ensemblGeneId);
     String findEntrezGeneIdByHugoSymbol(String hugoSymbol);
     List<String> findEntrezGeneIdByHugoSymbol(String hugoSymbol, Boolean searchInAliases);
@@ -47,4 +50,8 @@ public interface EnsemblRepositoryCustom
 
     @Cacheable("canonicalTranscriptIdsBySource")
     Set<String> findCanonicalTranscriptIdsBySource(String isoformOverrideSource);
+
+    // rebuilds the in memory symbol maps from the canonical transcripts collection
+    @CacheEvict(value = "canonicalTranscriptIdsBySource", allEntries = true)
+    void reloadCanonicalTranscripts();
 }
@@ -17,50 +17,31 @@ import org.springframework.stereotype.Repository;
 public class EnsemblRepositoryImpl implements EnsemblRepositoryCustom
 {
     private final MongoTemplate mongoTemplate;
-    private Map<String, String> hugoSymbolToEntrezGeneIdMap = new HashMap<>();
-    private Map<String, String> entrezGeneIdToHugoSymbolMap = new HashMap<>();
-    private Map<String, List<String>> geneAliasToEntrezGeneIdMap = new HashMap<>();
+
+    // all maps built from the canonical transcripts collection, replaced at once on reload
+    private static class CanonicalMaps
+    {
+        private final Map<String, String> hugoSymbolToEntrezGeneIdMap = new HashMap<>();
+        private final Map<String, String> entrezGeneIdToHugoSymbolMap = new HashMap<>();
+        private final Map<String, List<String>> geneAliasToEntrezGeneIdMap = new HashMap<>();
+        // case folded symbol -> canonical record, see initHugoSymbolToCanonicalMap for precedence rules
+        private final Map<String, EnsemblCanonical> hugoSymbolToCanonicalMap = new HashMap<>();
+    }
+
+    private volatile CanonicalMaps canonicalMaps;
 
     @Autowired
     public EnsemblRepositoryImpl(MongoTemplate mongoTemplate)
     {
         this.mongoTemplate = mongoTemplate;
-        initHugoSymbolToEntrezGeneIdMap();
+        this.canonicalMaps = this.buildCanonicalMaps();
     }
 
     public static final String CANONICAL_TRANSCRIPTS_COLLECTION = "ensembl.canonical_transcript_per_hgnc";
     public static final String TRANSCRIPTS_COLLECTION = "ensembl.biomart_transcripts";
 
     private EnsemblCanonical findOneCanonicalByHugoSymbol(String hugoSymbol) {
-        EnsemblCanonical ensemblCanonical;
-        Query query;
-
-        // check approved symbols
-        Criteria approvedSymbolCriteria = Criteria.where("hgnc_symbol").regex("^" + hugoSymbol + "$", "i");
-        query = new Query();
-        query.addCriteria(approvedSymbolCriteria);
-        ensemblCanonical = mongoTemplate.findOne(query,
-            EnsemblCanonical.class, CANONICAL_TRANSCRIPTS_COLLECTION);
-
-        if (ensemblCanonical == null) {
-            // check prev symbols
-            Criteria prevSymbolsCriteria = Criteria.where("previous_symbols").regex("(^| |,)" + hugoSymbol + "($| |,)", "i");
-            query = new Query();
-            query.addCriteria(prevSymbolsCriteria);
-            ensemblCanonical = mongoTemplate.findOne(query,
-                EnsemblCanonical.class, CANONICAL_TRANSCRIPTS_COLLECTION);
-
-            if (ensemblCanonical == null) {
-                // check synonyms
-                Criteria synonymCriteria = Criteria.where("synonyms").regex("(^| |,)" + hugoSymbol + "($| |,)", "i");
-                query = new Query();
-                query.addCriteria(synonymCriteria);
-                ensemblCanonical = mongoTemplate.findOne(query,
-                    EnsemblCanonical.class, CANONICAL_TRANSCRIPTS_COLLECTION);
-            }
-        }
-
-        return ensemblCanonical;
+        return hugoSymbol == null ? null : canonicalMaps.hugoSymbolToCanonicalMap.get(hugoSymbol.toUpperCase(Locale.ROOT));
     }
 
     private EnsemblCanonical findOneCanonicalByEntrezGeneId(String entrezGeneId) {
@@ -87,6 +68,20 @@ public class EnsemblRepositoryImpl implements EnsemblRepositoryCustom
         }
     }
 
+    @Override
+    public List<EnsemblGene> getCanonicalEnsemblGeneIdsByHugoSymbols(List<String> hugoSymbols) {
+        List<EnsemblGene> ensemblGenes = new ArrayList<>();
+
+        for (String hugoSymbol : hugoSymbols) {
+            EnsemblCanonical ensemblCanonical = this.findOneCanonicalByHugoSymbol(hugoSymbol);
+            if (ensemblCanonical != null) {
+                ensemblGenes.add(new EnsemblGene(ensemblCanonical));
+            }
+        }
+
+        return ensemblGenes;
+    }
+
     @Override
     public EnsemblGene getCanonicalEnsemblGeneIdByEntrezGeneId(String entrezGeneId) {
         EnsemblCanonical ensemblCanonical = this.findOneCanonicalByEntrezGeneId(entrezGeneId);
@@ -112,8 +107,91 @@ public class EnsemblRepositoryImpl implements EnsemblRepositoryCustom
         return null;
     }
 
-    private void initHugoSymbolToEntrezGeneIdMap() {
-        List<EnsemblCanonical> transcripts = mongoTemplate.findAll(EnsemblCanonical.class, CANONICAL_TRANSCRIPTS_COLLECTION);
+    @Override
+    public List<EnsemblTranscript> findCanonicalTranscriptsByHugoSymbols(List<String> hugoSymbols, String isoformOverrideSource) {
+        // resolve all canonical transcript ids in memory, then fetch the transcripts with a single query
+        List<String> transcriptIds = hugoSymbols
+            .stream()
+            .map(this::findOneCanonicalByHugoSymbol)
+            .filter(Objects::nonNull)
+            .map(ensemblCanonical -> ensemblCanonical.getCanonicalTranscriptId(isoformOverrideSource))
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+
+        if (transcriptIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Query query = new Query();
+        query.addCriteria(Criteria.where(EnsemblTranscript.TRANSCRIPT_ID_FIELD_NAME).in(new HashSet<>(transcriptIds)));
+
+        Map<String, EnsemblTranscript> transcriptsById = mongoTemplate
+            .find(query, EnsemblTranscript.class, TRANSCRIPTS_COLLECTION)
+            .stream()
+            .collect(Collectors.toMap(EnsemblTranscript::getTranscriptId, t -> t, (t1, t2) -> t1));
+
+        // keep the order of the input symbols
+        return transcriptIds
+            .stream()
+            .map(transcriptsById::get)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public void reloadCanonicalTranscripts() {
+        this.canonicalMaps = this.buildCanonicalMaps();
+    }
+
+    private CanonicalMaps buildCanonicalMaps() {
+        List<EnsemblCanonical> canonicals = mongoTemplate.findAll(EnsemblCanonical.class, CANONICAL_TRANSCRIPTS_COLLECTION);
+        CanonicalMaps maps = new CanonicalMaps();
+        initHugoSymbolToEntrezGeneIdMap(canonicals, maps);
+        initHugoSymbolToCanonicalMap(canonicals, maps.hugoSymbolToCanonicalMap);
+        return maps;
+    }
+
+    /**
+     * Maps every case folded approved symbol, previous symbol and synonym to its canonical record.
+     * Approved symbols take precedence over previous symbols, which take precedence over synonyms.
+     * Within the same category the first record in the collection wins, same as the findOne queries
+     * this map replaces.
+     */
+    private void initHugoSymbolToCanonicalMap(List<EnsemblCanonical> canonicals,
+                                              Map<String, EnsemblCanonical> hugoSymbolToCanonicalMap) {
+        for (EnsemblCanonical canonical : canonicals) {
+            if (canonical.getHugoSymbol() != null) {
+                hugoSymbolToCanonicalMap.putIfAbsent(canonical.getHugoSymbol().toUpperCase(Locale.ROOT), canonical);
+            }
+        }
+        for (EnsemblCanonical canonical : canonicals) {
+            putAliases(canonical.getPreviousSymbols(), canonical, hugoSymbolToCanonicalMap);
+        }
+        for (EnsemblCanonical canonical : canonicals) {
+            putAliases(canonical.getSynonyms(), canonical, hugoSymbolToCanonicalMap);
+        }
+    }
+
+    private void putAliases(String[] aliases,
+                            EnsemblCanonical canonical,
+                            Map<String, EnsemblCanonical> hugoSymbolToCanonicalMap) {
+        if (aliases != null) {
+            for (String alias : aliases) {
+                // aliases may also be separated by spaces
+                for (String symbol : alias.split("\\s+")) {
+                    if (symbol.length() > 0) {
+                        hugoSymbolToCanonicalMap.putIfAbsent(symbol.toUpperCase(Locale.ROOT), canonical);
+                    }
+                }
+            }
+        }
+    }
+
+    private void initHugoSymbolToEntrezGeneIdMap(List<EnsemblCanonical> transcripts, CanonicalMaps maps) {
+        Map<String, String> hugoSymbolToEntrezGeneIdMap = maps.hugoSymbolToEntrezGeneIdMap;
+        Map<String, String> entrezGeneIdToHugoSymbolMap = maps.entrezGeneIdToHugoSymbolMap;
+        Map<String, List<String>> geneAliasToEntrezGeneIdMap = maps.geneAliasToEntrezGeneIdMap;
+
         for (EnsemblCanonical transcript : transcripts) {
             String[] previousSymbols = transcript.getPreviousSymbols();
             String[] synonyms = transcript.getSynonyms();
@@ -146,16 +224,17 @@ public class EnsemblRepositoryImpl implements EnsemblRepositoryCustom
 
     @Override
     public String findEntrezGeneIdByHugoSymbol(String hugoSymbol) {
-        return hugoSymbolToEntrezGeneIdMap.get(hugoSymbol);
+        return canonicalMaps.hugoSymbolToEntrezGeneIdMap.get(hugoSymbol);
     }
 
     @Override
     public List<String> findEntrezGeneIdByHugoSymbol(String hugoSymbol, Boolean searchInAliases) {
-        List<String> entrezGeneIdMatches = Arrays.asList(hugoSymbolToEntrezGeneIdMap.get(hugoSymbol));
+        CanonicalMaps maps = canonicalMaps;
+        List<String> entrezGeneIdMatches = Arrays.asList(maps.hugoSymbolToEntrezGeneIdMap.get(hugoSymbol));
         // if searching in aliases then also return matching entrez ids from alias map
         if (searchInAliases) {
-            if (geneAliasToEntrezGeneIdMap.containsKey(hugoSymbol)) {
-                entrezGeneIdMatches.addAll(geneAliasToEntrezGeneIdMap.get(hugoSymbol));
+            if (maps.geneAliasToEntrezGeneIdMap.containsKey(hugoSymbol)) {
+                entrezGeneIdMatches.addAll(maps.geneAliasToEntrezGeneIdMap.get(hugoSymbol));
             }
         }
         return entrezGeneIdMatches;
@@ -163,7 +242,7 @@ public class EnsemblRepositoryImpl implements EnsemblRepositoryCustom
 
     @Override
     public String findHugoSymbolByEntrezGeneId(String entrezGeneId) {
-        return entrezGeneIdToHugoSymbolMap.get(entrezGeneId);
+        return canonicalMaps.entrezGeneIdToHugoSymbolMap.get(entrezGeneId);
     }
 
     @Override
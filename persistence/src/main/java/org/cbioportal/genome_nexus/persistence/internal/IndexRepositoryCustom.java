@@ -0,0 +1,17 @@
+package org.cbioportal.genome_nexus.persistence.internal;
+
+import com.mongodb.DBObject;
+
+import java.util.Map;
+
+public interface IndexRepositoryCustom
+{
+    /**
+     * Saves the given index documents in a single bulk write, documents with the same
+     * content as the stored ones are skipped.
+     *
+     * @param documents index documents by key (used as an id)
+     * @return number of documents written
+     */
+    int saveIndexDocuments(Map<String, DBObject> documents);
+}
@@ -1,17 +1,154 @@
 package org.cbioportal.genome_nexus.persistence.internal;
 
+import com.mongodb.DBObject;
+import org.bson.Document;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 @Repository
-public class IndexRepositoryImpl extends JsonMongoRepositoryImpl
+public class IndexRepositoryImpl extends JsonMongoRepositoryImpl implements IndexRepositoryCustom
 {
     public static final String COLLECTION = "index";
+    public static final String CONTENT_HASH_FIELD = "contentHash";
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
 
     @Autowired
     public IndexRepositoryImpl(MongoTemplate mongoTemplate)
     {
         super(mongoTemplate);
     }
+
+    @Override
+    public int saveIndexDocuments(Map<String, DBObject> documents)
+    {
+        if (documents.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, Long> storedHashes = this.findContentHashes(documents.keySet());
+        BulkOperations bulkOperations = null;
+        int count = 0;
+
+        for (Map.Entry<String, DBObject> entry: documents.entrySet())
+        {
+            Document document = new Document(entry.getValue().toMap());
+            document.remove("_id");
+            document.remove(CONTENT_HASH_FIELD);
+
+            long contentHash = contentHash(document);
+
+            // nothing changed since the last time this variant was indexed
+            if (storedHashes.containsKey(entry.getKey()) && storedHashes.get(entry.getKey()) == contentHash) {
+                continue;
+            }
+
+            document.put("_id", entry.getKey());
+            document.put(CONTENT_HASH_FIELD, contentHash);
+
+            if (bulkOperations == null) {
+                bulkOperations = this.mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, COLLECTION);
+            }
+
+            bulkOperations.replaceOne(
+                Query.query(Criteria.where("_id").is(entry.getKey())),
+                document,
+                FindAndReplaceOptions.options().upsert()
+            );
+            count++;
+        }
+
+        if (bulkOperations != null) {
+            bulkOperations.execute();
+        }
+
+        return count;
+    }
+
+    private Map<String, Long> findContentHashes(Collection<String> keys)
+    {
+        Query query = Query.query(Criteria.where("_id").in(keys));
+        query.fields().include(CONTENT_HASH_FIELD);
+
+        Map<String, Long> hashes = new HashMap<>();
+
+        for (Document document: this.mongoTemplate.find(query, Document.class, COLLECTION))
+        {
+            Object hash = document.get(CONTENT_HASH_FIELD);
+
+            // documents written before the hash was introduced are always replaced
+            if (hash instanceof Long) {
+                hashes.put(String.valueOf(document.get("_id")), (Long) hash);
+            }
+        }
+
+        return hashes;
+    }
+
+    /**
+     * 64 bit FNV-1a hash of the field names and values, stable across restarts
+     * so that it can be compared with the stored hash.
+     */
+    static long contentHash(Object value)
+    {
+        return hash(FNV_OFFSET_BASIS, value);
+    }
+
+    private static long hash(long hash, Object value)
+    {
+        if (value instanceof Map)
+        {
+            hash = hash(hash, '{');
+
+            for (Map.Entry<?, ?> entry: ((Map<?, ?>) value).entrySet()) {
+                hash = hash(hash, String.valueOf(entry.getKey()));
+                hash = hash(hash, ':');
+                hash = hash(hash, entry.getValue());
+            }
+
+            return hash(hash, '}');
+        }
+        else if (value instanceof List)
+        {
+            hash = hash(hash, '[');
+
+            for (Object item: (List<?>) value) {
+                hash = hash(hash, item);
+                hash = hash(hash, ',');
+            }
+
+            return hash(hash, ']');
+        }
+        else if (value == null)
+        {
+            return hash(hash, '\0');
+        }
+        else
+        {
+            String string = value.toString();
+
+            for (int i = 0; i < string.length(); i++) {
+                hash = hash(hash, string.charAt(i));
+            }
+
+            // separates consecutive values, e.g. ["ab", "c"] and ["a", "bc"]
+            return hash(hash, '"');
+        }
+    }
+
+    private static long hash(long hash, char c)
+    {
+        return (hash ^ c) * FNV_PRIME;
+    }
 }
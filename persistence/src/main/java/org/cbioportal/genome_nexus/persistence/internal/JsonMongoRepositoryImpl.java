@@ -64,6 +64,13 @@ public class JsonMongoRepositoryImpl extends BaseGenericMongoRepository
      */
     @Override
     public void saveDBObject(String collection, String key, DBObject value)
+    {
+        // save the object into the correct repository
+        this.mongoTemplate.save(this.toDBObject(key, value), collection);
+    }
+
+    @Override
+    public DBObject toDBObject(String key, DBObject value)
     {
         // parse the given json string to get a proper object
         List<DBObject> list = Transformer.convertToDbObjectList(value);
@@ -80,7 +87,6 @@ public class JsonMongoRepositoryImpl extends BaseGenericMongoRepository
         // update the _id field to the given variant
         dbObject.put("_id", key);
 
-        // save the object into the correct repository
-        this.mongoTemplate.save(dbObject, collection);
+        return dbObject;
     }
 }
@@ -0,0 +1,102 @@
+package org.cbioportal.genome_nexus.persistence.internal;
+
+import org.bson.Document;
+import org.cbioportal.genome_nexus.persistence.MongoIndexRepository;
+import org.cbioportal.genome_nexus.persistence.RequiredIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.index.IndexField;
+import org.springframework.data.mongodb.core.index.IndexInfo;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Repository
+public class MongoIndexRepositoryImpl implements MongoIndexRepository
+{
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public MongoIndexRepositoryImpl(MongoTemplate mongoTemplate)
+    {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public boolean collectionExists(String collection)
+    {
+        return this.mongoTemplate.collectionExists(collection);
+    }
+
+    @Override
+    public List<List<String>> findIndexKeys(String collection)
+    {
+        List<List<String>> indexKeys = new ArrayList<>();
+
+        for (IndexInfo indexInfo: this.mongoTemplate.indexOps(collection).getIndexInfo()) {
+            indexKeys.add(indexInfo.getIndexFields().stream().map(IndexField::getKey).collect(Collectors.toList()));
+        }
+
+        return indexKeys;
+    }
+
+    @Override
+    public void createIndex(RequiredIndex requiredIndex)
+    {
+        // built in the background, the collection stays available meanwhile
+        Index index = new Index().named(requiredIndex.getName()).background();
+
+        for (String key: requiredIndex.getKeys()) {
+            index.on(key, Sort.Direction.ASC);
+        }
+
+        this.mongoTemplate.indexOps(requiredIndex.getCollection()).ensureIndex(index);
+    }
+
+    @Override
+    public Document sampleQuery(RequiredIndex index)
+    {
+        String firstKey = index.getKeys().get(0);
+        Document sample = this.mongoTemplate.getCollection(index.getCollection())
+            .find(new Document(firstKey, new Document("$exists", true)))
+            .limit(1)
+            .first();
+
+        if (sample == null) {
+            return null;
+        }
+
+        Document query = new Document();
+
+        // only a prefix of the keys is used when the sample lacks one of them
+        for (String key: index.getKeys())
+        {
+            Object value = sample.get(key);
+
+            if (value instanceof List) {
+                value = ((List<?>) value).isEmpty() ? null : ((List<?>) value).get(0);
+            }
+
+            if (value == null) {
+                break;
+            }
+
+            query.put(key, value);
+        }
+
+        return query;
+    }
+
+    @Override
+    public Document explain(String collection, Document query)
+    {
+        Document find = new Document("find", collection).append("filter", query);
+
+        return this.mongoTemplate.getDb().runCommand(
+            new Document("explain", find).append("verbosity", "executionStats"));
+    }
+}
@@ -0,0 +1,124 @@
+package org.cbioportal.genome_nexus.persistence.internal;
+
+import com.mongodb.ReadPreference;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.cbioportal.genome_nexus.persistence.ReadRoute;
+import org.cbioportal.genome_nexus.persistence.ReadRoutes;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDbFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Replaces the auto-configured Mongo template, so that the repositories of the reference collections can read
+ * from the secondary or nearest members of a replica set while the cache collections are read from the primary.
+ */
+@Configuration
+public class MongoReadPreferenceConfiguration
+{
+    private static final Log LOG = LogFactory.getLog(MongoReadPreferenceConfiguration.class);
+
+    // the driver rejects a smaller max staleness, but only on the first read from a secondary
+    static final long MIN_MAX_STALENESS_SECONDS = 90;
+
+    @Bean
+    public MongoTemplate mongoTemplate(
+        MongoDbFactory mongoDbFactory,
+        MongoConverter mongoConverter,
+        @Value("${mongo.read_preference.reference:primary}") String referenceReadPreference,
+        @Value("${mongo.read_preference.repositories:}") String repositoryReadPreferences,
+        @Value("${mongo.read_preference.max_staleness_seconds:0}") long maxStalenessSeconds
+    ) {
+        Map<String, ReadPreference> collectionReadPreferences = collectionReadPreferences(ReadRoutes.all(),
+            referenceReadPreference, parseRepositoryReadPreferences(repositoryReadPreferences), maxStalenessSeconds);
+
+        LOG.info("Mongo read preferences by collection: " + collectionReadPreferences);
+
+        return new ReadPreferenceRoutingMongoTemplate(mongoDbFactory, mongoConverter, collectionReadPreferences);
+    }
+
+    /**
+     * @param repositoryReadPreferences read preference names by repository name, overriding the reference one
+     * @return read preferences by collection, cache collections are always read from the primary
+     * @param maxStalenessSeconds 0 for no max staleness, otherwise at least 90 seconds
+     * @throws IllegalArgumentException if a read preference or the max staleness is not valid, or if a repository
+     *                                  is not the repository of a reference collection
+     */
+    static Map<String, ReadPreference> collectionReadPreferences(List<ReadRoute> routes,
+                                                                 String referenceReadPreference,
+                                                                 Map<String, String> repositoryReadPreferences,
+                                                                 long maxStalenessSeconds)
+    {
+        Map<String, ReadPreference> collectionReadPreferences = new LinkedHashMap<>();
+
+        if (maxStalenessSeconds != 0 && maxStalenessSeconds < MIN_MAX_STALENESS_SECONDS) {
+            throw new IllegalArgumentException("Invalid mongo.read_preference.max_staleness_seconds: " +
+                maxStalenessSeconds + ", expected 0 (no max staleness) or at least " + MIN_MAX_STALENESS_SECONDS);
+        }
+
+        // a misspelled repository would otherwise be silently read with the reference read preference
+        for (String repository: repositoryReadPreferences.keySet())
+        {
+            if (routes.stream().noneMatch(route -> route.isReference() && route.getRepository().equals(repository))) {
+                throw new IllegalArgumentException("Unknown reference repository: " + repository);
+            }
+        }
+
+        for (ReadRoute route: routes)
+        {
+            ReadPreference readPreference = route.isReference() ?
+                readPreference(repositoryReadPreferences.getOrDefault(route.getRepository(), referenceReadPreference),
+                    maxStalenessSeconds) :
+                ReadPreference.primary();
+
+            for (String collection: route.getCollections()) {
+                collectionReadPreferences.put(collection, readPreference);
+            }
+        }
+
+        return collectionReadPreferences;
+    }
+
+    static ReadPreference readPreference(String name, long maxStalenessSeconds)
+    {
+        ReadPreference readPreference = ReadPreference.valueOf(name.trim());
+
+        // staleness only applies to reads which do not go to the primary
+        if (maxStalenessSeconds > 0 && !readPreference.equals(ReadPreference.primary())) {
+            readPreference = ReadPreference.valueOf(
+                readPreference.getName(), Collections.emptyList(), maxStalenessSeconds, TimeUnit.SECONDS);
+        }
+
+        return readPreference;
+    }
+
+    // for example "EnsemblRepository:nearest,HotspotRepository:secondaryPreferred"
+    static Map<String, String> parseRepositoryReadPreferences(String value)
+    {
+        Map<String, String> repositoryReadPreferences = new HashMap<>();
+
+        for (String entry: value.split(","))
+        {
+            String[] parts = entry.split(":");
+
+            if (parts.length == 2 && !parts[0].trim().isEmpty()) {
+                repositoryReadPreferences.put(parts[0].trim(), parts[1].trim());
+            }
+            else if (!entry.trim().isEmpty()) {
+                throw new IllegalArgumentException("Invalid repository read preference: " + entry);
+            }
+        }
+
+        return repositoryReadPreferences;
+    }
+}
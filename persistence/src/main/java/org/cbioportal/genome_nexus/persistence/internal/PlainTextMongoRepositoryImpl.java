@@ -1,5 +1,6 @@
 package org.cbioportal.genome_nexus.persistence.internal;
 
+import com.mongodb.BasicDBObject;
 import com.mongodb.DBObject;
 import org.cbioportal.genome_nexus.model.SimpleCacheEntity;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -28,4 +29,17 @@ public class PlainTextMongoRepositoryImpl extends BaseGenericMongoRepository
             this.mongoTemplate.save(new SimpleCacheEntity(key, plainText), collection);
         }
     }
+
+    @Override
+    public DBObject toDBObject(String key, DBObject value)
+    {
+        String plainText = value.get(key).toString();
+
+        if (plainText != null && plainText.length() > 0) {
+            // same fields as the saved SimpleCacheEntity
+            return new BasicDBObject("_id", key).append("value", plainText);
+        }
+
+        return null;
+    }
 }
@@ -0,0 +1,47 @@
+package org.cbioportal.genome_nexus.persistence.internal;
+
+import com.mongodb.ReadPreference;
+import com.mongodb.client.MongoCollection;
+import org.bson.Document;
+import org.springframework.data.mongodb.MongoDbFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Mongo template reading each collection with its own read preference. Collections without a read preference
+ * are read with the default one of the template, writes are not affected.
+ */
+public class ReadPreferenceRoutingMongoTemplate extends MongoTemplate
+{
+    private final Map<String, ReadPreference> collectionReadPreferences;
+
+    public ReadPreferenceRoutingMongoTemplate(MongoDbFactory mongoDbFactory,
+                                              MongoConverter mongoConverter,
+                                              Map<String, ReadPreference> collectionReadPreferences)
+    {
+        super(mongoDbFactory, mongoConverter);
+        this.collectionReadPreferences = Collections.unmodifiableMap(new HashMap<>(collectionReadPreferences));
+    }
+
+    public Map<String, ReadPreference> getCollectionReadPreferences()
+    {
+        return this.collectionReadPreferences;
+    }
+
+    @Override
+    protected MongoCollection<Document> prepareCollection(MongoCollection<Document> collection)
+    {
+        ReadPreference readPreference =
+            this.collectionReadPreferences.get(collection.getNamespace().getCollectionName());
+
+        if (readPreference == null) {
+            return super.prepareCollection(collection);
+        }
+
+        return collection.withReadPreference(readPreference);
+    }
+}
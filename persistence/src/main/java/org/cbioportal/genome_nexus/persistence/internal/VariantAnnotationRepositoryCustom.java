@@ -0,0 +1,13 @@
+package org.cbioportal.genome_nexus.persistence.internal;
+
+import org.cbioportal.genome_nexus.model.VariantAnnotation;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface VariantAnnotationRepositoryCustom
+{
+    // reads the cached annotations without the given (top level) fields of the cached VEP response,
+    // so that large unused subtrees are not transferred from the database nor mapped
+    List<VariantAnnotation> findAllByIdExcludingFields(Collection<String> ids, Collection<String> excludedFields);
+}
@@ -1,11 +1,18 @@
 package org.cbioportal.genome_nexus.persistence.internal;
 
+import org.cbioportal.genome_nexus.model.VariantAnnotation;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 @Repository
 public class VariantAnnotationRepositoryImpl extends JsonMongoRepositoryImpl
+    implements VariantAnnotationRepositoryCustom
 {
     public static final String COLLECTION = "vep.annotation";
 
@@ -14,4 +21,16 @@ public class VariantAnnotationRepositoryImpl extends JsonMongoRepositoryImpl
     {
         super(mongoTemplate);
     }
+
+    @Override
+    public List<VariantAnnotation> findAllByIdExcludingFields(Collection<String> ids, Collection<String> excludedFields)
+    {
+        Query query = new Query(Criteria.where("_id").in(ids));
+
+        for (String field: excludedFields) {
+            query.fields().exclude(field);
+        }
+
+        return this.mongoTemplate.find(query, VariantAnnotation.class, COLLECTION);
+    }
 }
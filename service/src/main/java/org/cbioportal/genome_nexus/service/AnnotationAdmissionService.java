@@ -0,0 +1,25 @@
+package org.cbioportal.genome_nexus.service;
+
+import org.cbioportal.genome_nexus.model.AnnotationField;
+import org.cbioportal.genome_nexus.service.exception.AnnotationAdmissionRejectedException;
+
+import java.util.List;
+
+public interface AnnotationAdmissionService
+{
+    /**
+     * Waits until the annotation request may run, the returned admission must be closed when the request
+     * is done.
+     *
+     * @param clientId identifier of the client, used for the per client quota
+     * @throws AnnotationAdmissionRejectedException if the request is shed, the client should retry later
+     */
+    Admission admit(String clientId, int variantCount, List<AnnotationField> fields)
+        throws AnnotationAdmissionRejectedException;
+
+    interface Admission extends AutoCloseable
+    {
+        @Override
+        void close();
+    }
+}
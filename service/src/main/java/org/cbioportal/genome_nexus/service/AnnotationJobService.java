@@ -0,0 +1,47 @@
+package org.cbioportal.genome_nexus.service;
+
+import org.cbioportal.genome_nexus.model.AnnotationField;
+import org.cbioportal.genome_nexus.model.AnnotationJob;
+import org.cbioportal.genome_nexus.model.VariantAnnotation;
+import org.cbioportal.genome_nexus.service.exception.AnnotationJobFailedException;
+import org.cbioportal.genome_nexus.service.exception.AnnotationJobNotFoundException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+public interface AnnotationJobService
+{
+    /**
+     * Stores the variants and queues their annotation.
+     *
+     * @return the queued job
+     */
+    AnnotationJob submit(List<String> variants,
+                         String isoformOverrideSource,
+                         Map<String, String> token,
+                         List<AnnotationField> fields);
+
+    /**
+     * Reads the genomic locations of a MAF or VCF file and queues their annotation.
+     *
+     * @return the queued job
+     * @throws IllegalArgumentException if the file is not a valid MAF or VCF
+     */
+    AnnotationJob submit(BufferedReader variantFile,
+                         String isoformOverrideSource,
+                         Map<String, String> token,
+                         List<AnnotationField> fields) throws IOException;
+
+    AnnotationJob getJob(String jobId) throws AnnotationJobNotFoundException;
+
+    /**
+     * @return annotations of the given chunk, null if the chunk is not processed yet
+     * @throws AnnotationJobNotFoundException if the job or the chunk does not exist, finished jobs are deleted
+     *                                        after the retention period
+     * @throws AnnotationJobFailedException if the job failed before processing the chunk
+     */
+    List<VariantAnnotation> getResults(String jobId, int chunkIndex)
+        throws AnnotationJobNotFoundException, AnnotationJobFailedException;
+}
@@ -0,0 +1,22 @@
+package org.cbioportal.genome_nexus.service;
+
+import org.cbioportal.genome_nexus.model.CacheCompressionStatus;
+
+import java.util.List;
+import java.util.concurrent.Future;
+
+public interface CacheCompressionService
+{
+    /**
+     * @return the progress of the running migration and the result of the previous ones
+     */
+    List<CacheCompressionStatus> getCompressionStatus();
+
+    /**
+     * Schedules the migration of the existing documents of the collection to the compressed format,
+     * while the collection remains in use.
+     *
+     * @throws IllegalArgumentException if the collection is not saved compressed by the cache storage
+     */
+    Future<CacheCompressionStatus> compress(String collection);
+}
@@ -0,0 +1,19 @@
+package org.cbioportal.genome_nexus.service;
+
+import org.cbioportal.genome_nexus.model.CacheCollectionStats;
+
+import java.util.List;
+import java.util.concurrent.Future;
+
+public interface CacheEvictionService
+{
+    /**
+     * @return size, hit age distribution and evictions of every evictable cache collection
+     */
+    List<CacheCollectionStats> getCacheStats();
+
+    /**
+     * Schedules an eviction run, in addition to the periodic ones.
+     */
+    Future<List<CacheCollectionStats>> evict();
+}
@@ -0,0 +1,42 @@
+package org.cbioportal.genome_nexus.service;
+
+import org.cbioportal.genome_nexus.model.CacheTransferReport;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Bulk export and import of the cache collections, to warm start the cache of a new database.
+ *
+ * The filters select the VEP annotations fetched from the source version (annotations of unknown version are
+ * excluded), and the documents of the genes (by HGNC symbol), null for no filter. They do not apply to the
+ * collections without source version or gene.
+ */
+public interface CacheTransferService
+{
+    /**
+     * Exports the collections to a cache archive. With resume, an interrupted export of the same file continues
+     * after the last complete block.
+     */
+    CacheTransferReport exportCache(
+        Path file,
+        List<String> collections,
+        String sourceVersion,
+        Set<String> genes,
+        boolean resume
+    ) throws IOException;
+
+    /**
+     * Imports the documents of the collections from a cache archive, replacing documents with the same id. With
+     * resume, an interrupted import of the same file continues after the last block imported.
+     */
+    CacheTransferReport importCache(
+        Path file,
+        List<String> collections,
+        String sourceVersion,
+        Set<String> genes,
+        boolean resume
+    ) throws IOException;
+}
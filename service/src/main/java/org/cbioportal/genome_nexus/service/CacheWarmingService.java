@@ -0,0 +1,22 @@
+package org.cbioportal.genome_nexus.service;
+
+import org.cbioportal.genome_nexus.model.CacheWarmingStatus;
+
+import java.util.List;
+import java.util.concurrent.Future;
+
+public interface CacheWarmingService
+{
+    /**
+     * @return the progress of the running warming, or the result of the previous one, null if none ran
+     */
+    CacheWarmingStatus getWarmingStatus();
+
+    /**
+     * Schedules the annotation of the variants of the sources (requests, files, hotspots, signal), in this order
+     * of priority.
+     *
+     * @throws IllegalArgumentException if a source is unknown
+     */
+    Future<CacheWarmingStatus> warm(List<String> sources);
+}
@@ -10,4 +10,9 @@ public interface CachedExternalResourceFetcher<T>
     T fetchAndCache(String id) throws ResourceMappingException;
     Map<String, T> constructFetchedMap(List<String> ids) throws ResourceMappingException;
     List<T> fetchAndCache(List<String> id) throws ResourceMappingException;
+
+    /**
+     * @return the reason why the id is not fetched, or null if the id is valid
+     */
+    String getInvalidIdReason(String id);
 }
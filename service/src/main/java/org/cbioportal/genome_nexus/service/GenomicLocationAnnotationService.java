@@ -33,6 +33,7 @@
 package org.cbioportal.genome_nexus.service;
 
 import org.cbioportal.genome_nexus.model.AnnotationField;
+import org.cbioportal.genome_nexus.model.AnnotationProjection;
 import org.cbioportal.genome_nexus.model.GenomicLocation;
 import org.cbioportal.genome_nexus.model.VariantAnnotation;
 import org.cbioportal.genome_nexus.service.exception.VariantAnnotationNotFoundException;
@@ -52,5 +53,11 @@ public interface GenomicLocationAnnotationService
         throws VariantAnnotationWebServiceException, VariantAnnotationNotFoundException;
     List<VariantAnnotation> getAnnotations(List<GenomicLocation> genomicLocations, String isoformOverrideSource, Map<String, String> token, List<AnnotationField> fields);
 
+    // annotates only the parts of the response included in the projection (all parts when null)
+    default List<VariantAnnotation> getAnnotations(List<GenomicLocation> genomicLocations, String isoformOverrideSource, Map<String, String> token, List<AnnotationField> fields, AnnotationProjection projection)
+    {
+        return this.getAnnotations(genomicLocations, isoformOverrideSource, token, projection == null ? fields : projection.restrictFields(fields));
+    }
+
     String getVariantFormat(GenomicLocation genomicLocation);
 }
@@ -2,9 +2,12 @@ package org.cbioportal.genome_nexus.service;
 
 import java.util.List;
 
+import org.cbioportal.genome_nexus.model.Index;
 import org.cbioportal.genome_nexus.model.IndexSearch;
 
 public interface IndexSearchService {
     List<IndexSearch> search(String keyword);
     List<IndexSearch> search(String keyword, Integer limit);
+    void index(String variant, Index index);
+    void remove(String variant);
 }
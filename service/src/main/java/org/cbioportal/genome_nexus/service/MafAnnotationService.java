@@ -0,0 +1,27 @@
+package org.cbioportal.genome_nexus.service;
+
+import org.cbioportal.genome_nexus.model.AnnotationField;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+
+public interface MafAnnotationService
+{
+    /**
+     * Annotates the rows of a tab separated MAF file and writes each row with the annotation columns
+     * (Hugo_Symbol, Variant_Classification, HGVSp_Short, ...) filled in. Columns already present
+     * in the input are overwritten, missing columns are appended. Rows are annotated in windows,
+     * so that only one window of the file is kept in memory.
+     *
+     * @return number of annotated rows
+     * @throws IllegalArgumentException if a required MAF column is missing
+     */
+    long annotate(BufferedReader maf,
+                  Writer annotatedMaf,
+                  String isoformOverrideSource,
+                  Map<String, String> token,
+                  List<AnnotationField> fields) throws IOException;
+}
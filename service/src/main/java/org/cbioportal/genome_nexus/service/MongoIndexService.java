@@ -0,0 +1,19 @@
+package org.cbioportal.genome_nexus.service;
+
+import org.cbioportal.genome_nexus.model.MongoIndexStatus;
+
+import java.util.List;
+import java.util.concurrent.Future;
+
+public interface MongoIndexService
+{
+    /**
+     * @return the status of every required index as of the last verification
+     */
+    List<MongoIndexStatus> getIndexStatus();
+
+    /**
+     * Schedules the verification of the required indexes, missing indexes are created if enabled.
+     */
+    Future<List<MongoIndexStatus>> verify();
+}
@@ -13,5 +13,9 @@ public interface OncokbService
 {
     IndicatorQueryResp getOncokb(Alteration alteration, String token)
         throws OncokbNotFoundException, OncokbWebServiceException;
+
+    /**
+     * @return the OncoKB cancer genes, read once and kept in memory until the dataset is reloaded
+     */
     List<CancerGene>  getOncokbCancerGenesList();
 }
@@ -0,0 +1,19 @@
+package org.cbioportal.genome_nexus.service;
+
+import org.cbioportal.genome_nexus.model.DatasetReloadStatus;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+public interface ReferenceDataReloadService
+{
+    List<String> getDatasetNames();
+    List<DatasetReloadStatus> getReloadStatus();
+
+    /**
+     * @return versions of the datasets currently served by name, datasets without a version are left out
+     */
+    Map<String, String> getDatasetVersions();
+    Future<List<DatasetReloadStatus>> reload(List<String> datasetNames);
+}
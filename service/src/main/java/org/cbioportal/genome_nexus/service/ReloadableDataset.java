@@ -0,0 +1,20 @@
+package org.cbioportal.genome_nexus.service;
+
+/**
+ * Reference dataset kept in memory that can be rebuilt without a restart.
+ * Implementations must build the new data aside and swap it in with a single assignment,
+ * so that concurrent readers see either the old or the new dataset, never a partial one.
+ */
+public interface ReloadableDataset
+{
+    String getDatasetName();
+    void reloadDataset();
+
+    /**
+     * @return version or content hash of the data currently served, the same on every instance serving the same
+     *         data. null for datasets built from collections already versioned by the version collection
+     */
+    default String getDatasetVersion() {
+        return null;
+    }
+}
@@ -33,6 +33,7 @@
 package org.cbioportal.genome_nexus.service;
 
 import org.cbioportal.genome_nexus.model.AnnotationField;
+import org.cbioportal.genome_nexus.model.AnnotationProjection;
 import org.cbioportal.genome_nexus.model.VariantAnnotation;
 import org.cbioportal.genome_nexus.service.exception.VariantAnnotationNotFoundException;
 import org.cbioportal.genome_nexus.service.exception.VariantAnnotationQueryMixedFormatException;
@@ -54,4 +55,15 @@ public interface SelectedAnnotationService {
         Map<String, String> token,
         List<AnnotationField> fields) throws VariantAnnotationNotFoundException, VariantAnnotationQueryMixedFormatException, VariantAnnotationWebServiceException;
 
+    // annotates only the parts of the response included in the projection (all parts when null)
+    public default List<VariantAnnotation> getAnnotations(
+        List<String> variants,
+        String isoformOverrideSource,
+        Map<String, String> token,
+        List<AnnotationField> fields,
+        AnnotationProjection projection) throws VariantAnnotationNotFoundException, VariantAnnotationQueryMixedFormatException, VariantAnnotationWebServiceException
+    {
+        return this.getAnnotations(variants, isoformOverrideSource, token, projection == null ? fields : projection.restrictFields(fields));
+    }
+
 }
@@ -0,0 +1,17 @@
+package org.cbioportal.genome_nexus.service;
+
+public interface SourceVersionService
+{
+    /**
+     * @return digest of the versions of every annotation source, annotations computed with the same
+     *         fingerprint are identical for identical queries
+     */
+    String getFingerprint();
+
+    /**
+     * @return the VEP server and cache versions, null if they are unknown
+     */
+    default String getVepVersion() {
+        return null;
+    }
+}
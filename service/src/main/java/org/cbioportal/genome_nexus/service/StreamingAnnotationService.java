@@ -0,0 +1,43 @@
+package org.cbioportal.genome_nexus.service;
+
+import org.cbioportal.genome_nexus.model.AnnotationField;
+import org.cbioportal.genome_nexus.model.VariantAnnotation;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+public interface StreamingAnnotationService
+{
+    /**
+     * Receives the annotations of each window as soon as they are available.
+     */
+    @FunctionalInterface
+    interface AnnotationWindowWriter
+    {
+        void write(List<VariantAnnotation> annotations) throws IOException;
+    }
+
+    /**
+     * Annotates the variants read from the given reader, one variant per line either as plain text
+     * or as a JSON string (NDJSON), in windows of a fixed size. Only one window is kept in memory.
+     *
+     * @return number of annotations written
+     */
+    long annotate(BufferedReader variants,
+                  String isoformOverrideSource,
+                  Map<String, String> token,
+                  List<AnnotationField> fields,
+                  AnnotationWindowWriter writer) throws IOException;
+
+    /**
+     * Annotates a single window of variants. HGVS and non-HGVS variants may be mixed, the variants
+     * of a failed annotation request are returned as annotations that are not successfully annotated,
+     * with the reason in the error message.
+     */
+    List<VariantAnnotation> annotateWindow(List<String> variants,
+                                           String isoformOverrideSource,
+                                           Map<String, String> token,
+                                           List<AnnotationField> fields);
+}
@@ -3,12 +3,16 @@ package org.cbioportal.genome_nexus.service.cached;
 import com.mongodb.DBObject;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.bson.Document;
+import org.cbioportal.genome_nexus.persistence.CacheEvictionRepository;
 import org.cbioportal.genome_nexus.persistence.GenericMongoRepository;
 import org.cbioportal.genome_nexus.service.CachedExternalResourceFetcher;
 import org.cbioportal.genome_nexus.service.ExternalResourceFetcher;
 import org.cbioportal.genome_nexus.service.ResourceTransformer;
 import org.cbioportal.genome_nexus.service.exception.ResourceMappingException;
 import org.cbioportal.genome_nexus.util.NaturalOrderComparator;
+import org.cbioportal.genome_nexus.util.RequestDeadline;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.mongodb.repository.MongoRepository;
@@ -30,6 +34,8 @@ public abstract class BaseCachedExternalResourceFetcher<T, R extends MongoReposi
     protected ExternalResourceFetcher<T> fetcher;
     protected ResourceTransformer<T> transformer;
     protected Integer maxPageSize;
+    protected CacheStorage cacheStorage;
+    protected CacheAccessTracker cacheAccessTracker;
 
     public BaseCachedExternalResourceFetcher(String collection,
                                              R repository,
@@ -55,14 +61,45 @@ public abstract class BaseCachedExternalResourceFetcher<T, R extends MongoReposi
         this.maxPageSize = maxPageSize;
     }
 
+    // only available when the embedded cache storage is configured
+    @Autowired(required = false)
+    public void setCacheStorage(CacheStorage cacheStorage)
+    {
+        this.cacheStorage = cacheStorage;
+    }
+
+    @Autowired(required = false)
+    public void setCacheAccessTracker(CacheAccessTracker cacheAccessTracker)
+    {
+        this.cacheAccessTracker = cacheAccessTracker;
+    }
+
+    /**
+     * @return true if the collection is kept by the cache storage instead of the Mongo repository
+     */
+    protected boolean isStoredInCacheStorage()
+    {
+        return this.cacheStorage != null && this.cacheStorage.supports(this.collection);
+    }
+
     public Boolean hasValidURI() {
         return this.fetcher.hasValidURI();
     }
 
-    // Needs to be overridden to support checking for valid ids
-    protected Boolean isValidId(String id)
+    /**
+     * @return the id format of the resource, child classes override it to skip ids the web service rejects
+     */
+    protected VariantIdValidator getIdValidator()
+    {
+        return VariantIdValidator.ANY;
+    }
+
+    /**
+     * @return the reason why the id is not fetched, or null if the id is valid
+     */
+    public String getInvalidIdReason(String id)
     {
-        return true;
+        return this.getIdValidator().validate(id);
     }
 
     public T fetchAndCache(String id) throws ResourceMappingException
@@ -70,19 +107,29 @@ public abstract class BaseCachedExternalResourceFetcher<T, R extends MongoReposi
         boolean saveRawValue = true;
         Optional<T> instance = null;
 
-        if (!isValidId(id)) {
+        String invalidIdReason = this.getInvalidIdReason(id);
+
+        if (invalidIdReason != null) {
+            LOG.debug("Skipping invalid id " + id + ": " + invalidIdReason);
             return null;
         }
 
         try {
-            instance = this.repository.findById(id);
+            instance = this.findCached(id);
+
+            if (instance.isPresent()) {
+                this.recordHits(Collections.singleton(id));
+            }
         }
         catch (DataAccessResourceFailureException e) {
             LOG.warn("Failed to read from Mongo database - falling back on the external web service. " +
                 "Will not attempt to store variant in Mongo database.");
             saveRawValue = false;
         }
-        if (!instance.isPresent())
+        if (!instance.isPresent() && RequestDeadline.skip()) {
+            LOG.debug("Request deadline exceeded, not fetching " + id);
+        }
+        else if (!instance.isPresent())
         {
             // get the annotation from the web service and save it to the DB
             try {
@@ -100,7 +147,7 @@ public abstract class BaseCachedExternalResourceFetcher<T, R extends MongoReposi
 
                 // save everything to the cache as a properly parsed JSON
                 if (saveRawValue) {
-                    this.repository.saveDBObject(this.collection, id, rawValue);
+                    this.saveCached(id, rawValue);
                 }
             }
             catch (DataIntegrityViolationException e) {
@@ -122,6 +169,16 @@ public abstract class BaseCachedExternalResourceFetcher<T, R extends MongoReposi
     }
 
     public Map<String, T> constructFetchedMap(List<String> ids) throws ResourceMappingException
+    {
+        return this.constructFetchedMap(ids, Collections.emptySet());
+    }
+
+    /**
+     * @param excludedFields fields of the cached documents which are not needed by the caller,
+     *                       instances fetched from the web service are still complete
+     */
+    public Map<String, T> constructFetchedMap(List<String> ids, Collection<String> excludedFields)
+        throws ResourceMappingException
     {
         boolean saveValues = true;
         Set<String> uniqueIds = new LinkedHashSet<>(ids);
@@ -130,7 +187,7 @@ public abstract class BaseCachedExternalResourceFetcher<T, R extends MongoReposi
 
         try {
             // add everything already cached into the map
-            for (T instance: this.repository.findAllById(uniqueIds))
+            for (T instance: this.findCached(uniqueIds, excludedFields))
             {
                 String id = this.extractId(instance);
                 idToInstance.put(id, instance);
@@ -143,13 +200,38 @@ public abstract class BaseCachedExternalResourceFetcher<T, R extends MongoReposi
             saveValues = false;
         }
 
+        this.recordHits(alreadyCached);
+
         Set<String> needToFetch = new LinkedHashSet<>(uniqueIds);
 
         // remove already cached ids from the set, so that we don't query again
         needToFetch.removeAll(alreadyCached);
 
-        // also remove invalid ids
-        needToFetch = needToFetch.stream().filter(this::isValidId).collect(Collectors.toSet());
+        // also remove invalid ids, each id is validated only once
+        Map<String, String> invalidIds = new LinkedHashMap<>();
+
+        needToFetch.removeIf(id -> {
+            String invalidIdReason = this.getInvalidIdReason(id);
+
+            if (invalidIdReason != null) {
+                invalidIds.put(id, invalidIdReason);
+                return true;
+            }
+
+            return false;
+        });
+
+        // a single warning per batch, large inputs may contain many invalid rows
+        if (!invalidIds.isEmpty()) {
+            Map.Entry<String, String> first = invalidIds.entrySet().iterator().next();
+            LOG.warn("Skipping " + invalidIds.size() + " invalid ids, for example " + first.getKey() + ": " +
+                first.getValue());
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Skipping invalid ids " + invalidIds);
+            }
+        }
+
         // fetch missing instances
         if (needToFetch.size() > 0) {
             // get the annotation from the web service and save it to the DB
@@ -160,20 +242,167 @@ public abstract class BaseCachedExternalResourceFetcher<T, R extends MongoReposi
 
     public List<T> fetchAndCache(List<String> ids) throws ResourceMappingException
     {
-        Map<String, T> idToInstance = constructFetchedMap(ids);
+        return this.fetchAndCache(ids, Collections.emptySet());
+    }
+
+    public List<T> fetchAndCache(List<String> ids, Collection<String> excludedFields) throws ResourceMappingException
+    {
+        Map<String, T> idToInstance = constructFetchedMap(ids, excludedFields);
         Collection<T> values = idToInstance.values();
         values.removeIf(Objects::isNull);
 
         return new ArrayList<>(values);
     }
 
+    /**
+     * Fetches the ids from the web service even if they are already cached. A cached document is only replaced
+     * once its id is fetched successfully, the ids which fail keep their cached document. The replaced documents
+     * keep their access time, a refresh is not an access.
+     *
+     * @return the ids fetched from the web service
+     */
+    public Set<String> refresh(List<String> ids) throws ResourceMappingException
+    {
+        Set<String> needToFetch = new LinkedHashSet<>(ids);
+        needToFetch.removeIf(id -> this.getInvalidIdReason(id) != null);
+
+        Map<String, T> idToInstance = initIdToInstanceMap(needToFetch);
+
+        if (needToFetch.size() > 0) {
+            this.fetchAndCache(needToFetch, idToInstance, true, this.findAccessedAt(needToFetch));
+        }
+
+        return needToFetch.stream()
+            .filter(id -> idToInstance.get(id) != null)
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+
+    protected Optional<T> findCached(String id)
+    {
+        if (this.isStoredInCacheStorage()) {
+            return this.cacheStorage.findById(this.collection, id).map(this::expand).map(this::readCached);
+        }
+
+        return this.repository.findById(id);
+    }
+
+    // Needs to be overridden by child classes to support reading partial documents from the cache
+    protected Iterable<T> findCached(Set<String> ids, Collection<String> excludedFields)
+    {
+        if (this.isStoredInCacheStorage()) {
+            return this.cacheStorage.findAllById(this.collection, ids).stream()
+                .map(this::expand)
+                .map(this::readCached)
+                .collect(Collectors.toList());
+        }
+
+        return this.repository.findAllById(ids);
+    }
+
+    /**
+     * @return the document as it was saved, the cache storage may return compressed documents
+     */
+    protected Document expand(Document document)
+    {
+        return CompressedDocumentCodec.expand(document);
+    }
+
+    // Needs to be overridden by child classes not mapped by the repository as the cached document
+    protected T readCached(Document document)
+    {
+        return this.cacheStorage.read(this.type, document);
+    }
+
+    protected void saveCached(String id, DBObject rawValue)
+    {
+        DBObject dbObject = this.repository.toDBObject(id, rawValue);
+
+        if (dbObject != null) {
+            this.saveCached(Collections.singletonList(dbObject));
+        }
+    }
+
+    protected void saveCached(List<DBObject> dbObjects)
+    {
+        this.saveCached(dbObjects, Collections.emptyMap());
+    }
+
+    /**
+     * @param accessedAt access time of the cached documents replaced by the given ones, by id
+     */
+    protected void saveCached(List<DBObject> dbObjects, Map<String, Date> accessedAt)
+    {
+        if (this.cacheAccessTracker != null) {
+            dbObjects.forEach(dbObject -> this.cacheAccessTracker.stamp(this.collection, dbObject,
+                accessedAt.get(String.valueOf(dbObject.get("_id")))));
+        }
+
+        if (this.isStoredInCacheStorage()) {
+            this.cacheStorage.saveAll(this.collection, dbObjects);
+        }
+        else {
+            this.repository.saveDBObjects(this.collection, dbObjects);
+        }
+    }
+
+    /**
+     * @return the access time of the cached documents of the given ids, read the same way they are stored
+     */
+    private Map<String, Date> findAccessedAt(Set<String> ids)
+    {
+        if (this.cacheAccessTracker == null || !this.cacheAccessTracker.isTracked(this.collection)) {
+            return Collections.emptyMap();
+        }
+
+        if (this.isStoredInCacheStorage()) {
+            Map<String, Date> accessedAt = new HashMap<>();
+
+            // the access time is kept at the top level of compressed documents
+            for (Document document: this.cacheStorage.findAllById(this.collection, ids)) {
+                Object date = document.get(CacheEvictionRepository.ACCESSED_AT_FIELD);
+
+                if (date instanceof Date) {
+                    accessedAt.put(String.valueOf(document.get("_id")), (Date) date);
+                }
+            }
+
+            return accessedAt;
+        }
+
+        return this.cacheAccessTracker.findAccessedAt(this.collection, ids);
+    }
+
+    private void recordHits(Collection<String> ids)
+    {
+        if (this.cacheAccessTracker != null) {
+            this.cacheAccessTracker.recordHits(this.collection, ids);
+        }
+    }
+
     protected void fetchAndCache(Set<String> needToFetch,
                                  Map<String, T> idToInstance,
                                  boolean saveValues) throws ResourceMappingException, HttpClientErrorException
+    {
+        this.fetchAndCache(needToFetch, idToInstance, saveValues, Collections.emptyMap());
+    }
+
+    /**
+     * @param accessedAt access time of the cached documents replaced by the fetched ones, by id
+     */
+    private void fetchAndCache(Set<String> needToFetch,
+                               Map<String, T> idToInstance,
+                               boolean saveValues,
+                               Map<String, Date> accessedAt) throws ResourceMappingException, HttpClientErrorException
     {
         // send up to maxPageSize entities per request
         for (Set<String> subSet: this.generateChunks(needToFetch))
         {
+            // cached instances are still returned, the remaining ids are left unresolved
+            if (RequestDeadline.skip()) {
+                LOG.debug("Request deadline exceeded, not fetching " + subSet.size() + " ids");
+                continue;
+            }
+
             DBObject rawValue = null;
 
             try {
@@ -182,7 +411,13 @@ public abstract class BaseCachedExternalResourceFetcher<T, R extends MongoReposi
             } catch (HttpClientErrorException e) {
                 LOG.error("HTTP ERROR " + e.getStatusCode() + " for " + subSet.toString() + ": " + e.getResponseBodyAsString(), e);
             } catch (RestClientException e) {
-                LOG.error("REST ERROR [" +  e.getLocalizedMessage() + "] for " + subSet.toString(), e);
+                if (RequestDeadline.skip()) {
+                    // timed out at the deadline of the request, not an upstream failure
+                    LOG.debug("Request deadline exceeded while fetching " + subSet.size() + " ids");
+                }
+                else {
+                    LOG.error("REST ERROR [" +  e.getLocalizedMessage() + "] for " + subSet.toString(), e);
+                }
             }
 
             if (rawValue != null) {
@@ -197,7 +432,7 @@ public abstract class BaseCachedExternalResourceFetcher<T, R extends MongoReposi
 
                     // save everything to the cache as a properly parsed JSON
                     if (saveValues) {
-                        this.saveToDb(rawValue);
+                        this.saveToDb(rawValue, accessedAt);
                     }
                 } catch (DataIntegrityViolationException e) {
                     // in case of data integrity violation exception, do not bloat the logs
@@ -224,6 +459,11 @@ public abstract class BaseCachedExternalResourceFetcher<T, R extends MongoReposi
     }
 
     protected void saveToDb(DBObject rawValue)
+    {
+        this.saveToDb(rawValue, Collections.emptyMap());
+    }
+
+    private void saveToDb(DBObject rawValue, Map<String, Date> accessedAt)
     {
         List<DBObject> dbObjects = this.transformer.transform(rawValue);
 
@@ -236,7 +476,7 @@ public abstract class BaseCachedExternalResourceFetcher<T, R extends MongoReposi
             .filter(o -> o.get("_id") != null)
             .collect(Collectors.toList());
 
-        this.repository.saveDBObjects(this.collection, dbObjects);
+        this.saveCached(dbObjects, accessedAt);
     }
 
     private Map<String, T> initIdToInstanceMap(Set<String> ids)
@@ -12,6 +12,7 @@ import org.cbioportal.genome_nexus.service.ExternalResourceFetcher;
 import org.cbioportal.genome_nexus.service.ResourceTransformer;
 import org.cbioportal.genome_nexus.service.exception.ResourceMappingException;
 import org.cbioportal.genome_nexus.util.NaturalOrderComparator;
+import org.cbioportal.genome_nexus.util.RequestDeadline;
 import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.mongodb.repository.MongoRepository;
@@ -71,6 +72,10 @@ public abstract class BaseCachedVariantAnnotationFetcher
             variantAnnotation = super.fetchAndCache(id);
             if (variantAnnotation == null) {
                 variantAnnotation = new VariantAnnotation(id);
+
+                if (RequestDeadline.isExpired()) {
+                    variantAnnotation.setErrorMessage("Request deadline exceeded before annotating: " + id);
+                }
             } else {
                 variantAnnotation.setSuccessfullyAnnotated(true);
             }
@@ -87,13 +92,28 @@ public abstract class BaseCachedVariantAnnotationFetcher
     }
     
     @Override
-    public List<VariantAnnotation> fetchAndCache(List<String> ids) throws ResourceMappingException
+    protected Iterable<VariantAnnotation> findCached(Set<String> ids, Collection<String> excludedFields)
+    {
+        // the embedded cache storage only reads complete documents
+        if (excludedFields.isEmpty() || this.isStoredInCacheStorage()) {
+            return super.findCached(ids, excludedFields);
+        }
+
+        // the repository field of this class is never assigned, the parent one is
+        return super.repository.findAllByIdExcludingFields(ids, excludedFields);
+    }
+
+    @Override
+    public List<VariantAnnotation> fetchAndCache(List<String> ids, Collection<String> excludedFields)
+        throws ResourceMappingException
     {
-        Map<String, VariantAnnotation> variantResponse = this.constructFetchedMap(ids); 
+        Map<String, VariantAnnotation> variantResponse = this.constructFetchedMap(ids, excludedFields);
         for (String variantId : variantResponse.keySet()) {
             if (variantResponse.get(variantId) == null) {
                 VariantAnnotation variantAnnotation = new VariantAnnotation(variantId);
-                variantAnnotation.setErrorMessage("Error from VEP for: " + variantId);
+                variantAnnotation.setErrorMessage(RequestDeadline.isExpired() ?
+                    "Request deadline exceeded before annotating: " + variantId :
+                    "Error from VEP for: " + variantId);
                 variantResponse.put(variantId, variantAnnotation);
             } else {
                 variantResponse.get(variantId).setSuccessfullyAnnotated(true);
@@ -0,0 +1,312 @@
+package org.cbioportal.genome_nexus.service.cached;
+
+import com.mongodb.DBObject;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.cbioportal.genome_nexus.persistence.CacheEvictionRepository;
+import org.cbioportal.genome_nexus.persistence.internal.VariantAnnotationRepositoryImpl;
+import org.cbioportal.genome_nexus.service.SourceVersionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tracks the cache hits of the evictable collections. Saved documents are stamped with the time they were cached
+ * and the VEP version, and the hits update the access time of the documents in the background, so that reads are
+ * not turned into writes. A document hit several times between two flushes is only updated once. The age of the
+ * hit documents is recorded in a histogram.
+ *
+ * Background accesses, such as the cache warming, are not hits: they would keep the documents they read from
+ * aging and hide the documents actually requested.
+ */
+@Component
+public class CacheAccessTracker
+{
+    private static final Log LOG = LogFactory.getLog(CacheAccessTracker.class);
+
+    // set while the current thread accesses the cache in the background
+    private static final ThreadLocal<Boolean> BACKGROUND_ACCESS = new ThreadLocal<>();
+
+    // the pending ids of a collection are flushed early once they reach this limit, and new hits are only
+    // dropped (and counted) while twice as many ids are pending, when the flushes cannot keep up
+    static final int MAX_PENDING = 100000;
+
+    public static final String UNKNOWN_AGE = "unknown";
+    private static final String[] AGE_BUCKETS = {"1h", "1d", "7d", "30d", "90d", "365d", "older", UNKNOWN_AGE};
+    private static final long[] AGE_LIMITS_MILLIS = {
+        TimeUnit.HOURS.toMillis(1),
+        TimeUnit.DAYS.toMillis(1),
+        TimeUnit.DAYS.toMillis(7),
+        TimeUnit.DAYS.toMillis(30),
+        TimeUnit.DAYS.toMillis(90),
+        TimeUnit.DAYS.toMillis(365)
+    };
+
+    private final CacheEvictionRepository cacheEvictionRepository;
+    private final SourceVersionService sourceVersionService;
+    private final Set<String> collections;
+    private final long flushSeconds;
+
+    private final Map<String, Set<String>> pendingIds = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> hits = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLongArray> hitAges = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> droppedHits = new ConcurrentHashMap<>();
+    private final AtomicBoolean earlyFlush = new AtomicBoolean();
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cache-access-tracking");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Autowired
+    public CacheAccessTracker(
+        CacheEvictionRepository cacheEvictionRepository,
+        SourceVersionService sourceVersionService,
+        @Value("${annotation.cache.eviction.collections:vep.annotation,my_variant_info.annotation}") String collections,
+        @Value("${annotation.cache.eviction.access_flush_seconds:10}") long flushSeconds
+    ) {
+        this.cacheEvictionRepository = cacheEvictionRepository;
+        this.sourceVersionService = sourceVersionService;
+        this.collections = new LinkedHashSet<>();
+        this.flushSeconds = flushSeconds;
+
+        for (String collection: collections.split(",")) {
+            if (collection.trim().length() > 0) {
+                this.collections.add(collection.trim());
+            }
+        }
+
+        for (String collection: this.collections) {
+            this.pendingIds.put(collection, ConcurrentHashMap.newKeySet());
+            this.hits.put(collection, new LongAdder());
+            this.hitAges.put(collection, new AtomicLongArray(AGE_BUCKETS.length));
+            this.droppedHits.put(collection, new LongAdder());
+        }
+    }
+
+    @PostConstruct
+    public void startFlushing()
+    {
+        if (this.flushSeconds > 0) {
+            this.executor.scheduleWithFixedDelay(this::flush, this.flushSeconds, this.flushSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Until cleared, the cache reads of the current thread are not recorded as hits. Whoever starts a background
+     * access is responsible for clearing it.
+     */
+    public static void startBackgroundAccess()
+    {
+        BACKGROUND_ACCESS.set(Boolean.TRUE);
+    }
+
+    public static void clearBackgroundAccess()
+    {
+        BACKGROUND_ACCESS.remove();
+    }
+
+    public static boolean isBackgroundAccess()
+    {
+        return BACKGROUND_ACCESS.get() != null;
+    }
+
+    public Set<String> getCollections()
+    {
+        return Collections.unmodifiableSet(this.collections);
+    }
+
+    public boolean isTracked(String collection)
+    {
+        return this.collections.contains(collection);
+    }
+
+    /**
+     * Adds the cache metadata to a document about to be saved.
+     */
+    public void stamp(String collection, DBObject document)
+    {
+        this.stamp(collection, document, null);
+    }
+
+    /**
+     * @param accessedAt access time of the document replaced by this one, null for a new document
+     */
+    public void stamp(String collection, DBObject document, Date accessedAt)
+    {
+        if (!this.isTracked(collection)) {
+            return;
+        }
+
+        Date now = new Date();
+        document.put(CacheEvictionRepository.CACHED_AT_FIELD, now);
+        document.put(CacheEvictionRepository.ACCESSED_AT_FIELD, accessedAt == null ? now : accessedAt);
+
+        String sourceVersion = this.getSourceVersion(collection);
+
+        if (sourceVersion != null) {
+            document.put(CacheEvictionRepository.SOURCE_VERSION_FIELD, sourceVersion);
+        }
+    }
+
+    /**
+     * @return the version of the source the documents of the collection are currently fetched from,
+     *         null if the collection is not versioned or the version is unknown
+     */
+    public String getSourceVersion(String collection)
+    {
+        if (!VariantAnnotationRepositoryImpl.COLLECTION.equals(collection)) {
+            return null;
+        }
+
+        try {
+            return this.sourceVersionService.getVepVersion();
+        }
+        catch (RuntimeException e) {
+            LOG.debug("VEP version not available: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @return the last access time of the documents of a tracked collection stored in Mongo
+     */
+    public Map<String, Date> findAccessedAt(String collection, Collection<String> ids)
+    {
+        if (!this.isTracked(collection) || ids.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        return this.cacheEvictionRepository.findAccessedAt(collection, ids);
+    }
+
+    public void recordHits(String collection, Collection<String> ids)
+    {
+        Set<String> pending = this.pendingIds.get(collection);
+
+        if (pending == null || ids.isEmpty() || isBackgroundAccess()) {
+            return;
+        }
+
+        this.hits.get(collection).add(ids.size());
+
+        for (String id: ids) {
+            if (pending.size() < 2 * MAX_PENDING) {
+                pending.add(id);
+            }
+            else {
+                this.droppedHits.get(collection).increment();
+            }
+        }
+
+        if (pending.size() >= MAX_PENDING && this.earlyFlush.compareAndSet(false, true)) {
+            try {
+                this.executor.execute(this::flush);
+            }
+            catch (RejectedExecutionException e) {
+                // shutting down
+                this.earlyFlush.set(false);
+            }
+        }
+    }
+
+    /**
+     * Updates the access time of the documents hit since the last flush, and records their age.
+     */
+    public void flush()
+    {
+        this.earlyFlush.set(false);
+
+        for (Map.Entry<String, Set<String>> entry: this.pendingIds.entrySet())
+        {
+            long dropped = this.droppedHits.get(entry.getKey()).sumThenReset();
+
+            if (dropped > 0) {
+                LOG.warn("Dropped " + dropped + " hits of " + entry.getKey() + " since the last flush, " +
+                    "their access time is not updated");
+            }
+
+            List<String> ids = new ArrayList<>();
+            Iterator<String> iterator = entry.getValue().iterator();
+
+            while (iterator.hasNext()) {
+                ids.add(iterator.next());
+                iterator.remove();
+            }
+
+            if (ids.isEmpty()) {
+                continue;
+            }
+
+            try {
+                Date now = new Date();
+                Map<String, Date> cachedAt = this.cacheEvictionRepository.findCachedAt(entry.getKey(), ids);
+                AtomicLongArray ages = this.hitAges.get(entry.getKey());
+
+                for (String id: ids) {
+                    Date date = cachedAt.get(id);
+                    ages.incrementAndGet(date == null ? AGE_BUCKETS.length - 1 : ageBucket(now.getTime() - date.getTime()));
+                }
+
+                this.cacheEvictionRepository.markAccessed(entry.getKey(), ids, now);
+            }
+            catch (RuntimeException e) {
+                LOG.warn("Failed to record the access of " + ids.size() + " documents of " + entry.getKey() + ": " +
+                    e.getMessage());
+            }
+        }
+    }
+
+    public long getHits(String collection)
+    {
+        LongAdder hits = this.hits.get(collection);
+
+        return hits == null ? 0 : hits.sum();
+    }
+
+    /**
+     * @return number of hit documents by age (time since it was cached), from the youngest bucket. A document is
+     *         counted once per flush it was hit in
+     */
+    public Map<String, Long> getHitAgeHistogram(String collection)
+    {
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        AtomicLongArray ages = this.hitAges.get(collection);
+
+        for (int i = 0; ages != null && i < AGE_BUCKETS.length; i++) {
+            histogram.put(AGE_BUCKETS[i], ages.get(i));
+        }
+
+        return histogram;
+    }
+
+    private static int ageBucket(long ageMillis)
+    {
+        for (int i = 0; i < AGE_LIMITS_MILLIS.length; i++) {
+            if (ageMillis < AGE_LIMITS_MILLIS[i]) {
+                return i;
+            }
+        }
+
+        return AGE_LIMITS_MILLIS.length;
+    }
+}
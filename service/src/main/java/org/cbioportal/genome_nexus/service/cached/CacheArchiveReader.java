@@ -0,0 +1,220 @@
+package org.cbioportal.genome_nexus.service.cached;
+
+import com.mongodb.MongoClientSettings;
+import org.bson.BsonBinaryReader;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads the blocks of an archive written by CacheArchiveWriter. The checksum of a block is verified when it is
+ * read, and its documents are only decoded by Block.getDocuments(), so that blocks are decoded in parallel.
+ */
+public class CacheArchiveReader implements Closeable
+{
+    private static final DocumentCodec DOCUMENT_CODEC = new DocumentCodec(MongoClientSettings.getDefaultCodecRegistry());
+
+    private final DataInputStream input;
+    private long position;
+    private Long totalDocuments;
+
+    /**
+     * @param position position of a block to start reading from, or 0 to read from the first block
+     */
+    public CacheArchiveReader(Path file, long position) throws IOException
+    {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+
+        try {
+            ByteBuffer header = ByteBuffer.allocate(CacheArchiveWriter.MAGIC.length + 1);
+
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                // reading the header
+            }
+
+            byte[] magic = Arrays.copyOf(header.array(), CacheArchiveWriter.MAGIC.length);
+
+            if (header.hasRemaining() || !Arrays.equals(magic, CacheArchiveWriter.MAGIC)) {
+                throw new IOException(file + " is not a cache archive");
+            }
+
+            byte version = header.get(magic.length);
+
+            if (version != CacheArchiveWriter.VERSION) {
+                throw new IOException("Unsupported cache archive version " + version + " of " + file);
+            }
+
+            this.position = Math.max(position, header.capacity());
+            channel.position(this.position);
+        }
+        catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+
+        this.input = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+    }
+
+    /**
+     * @return the next block, or null at the end of the archive
+     * @throws EOFException if the archive is truncated
+     */
+    public Block next() throws IOException
+    {
+        long start = this.position;
+        byte type = this.input.readByte();
+
+        if (type == CacheArchiveWriter.END) {
+            this.totalDocuments = this.input.readLong();
+            return null;
+        }
+
+        if (type != CacheArchiveWriter.BLOCK) {
+            throw new IOException("Unexpected block type " + type + " at offset " + start);
+        }
+
+        byte[] name = new byte[this.input.readUnsignedShort()];
+        this.input.readFully(name);
+
+        int documents = this.input.readInt();
+        int expandedLength = this.input.readInt();
+        byte[] compressed = new byte[this.input.readInt()];
+        int checksum = this.input.readInt();
+        this.input.readFully(compressed);
+
+        CRC32 crc = new CRC32();
+        crc.update(compressed);
+
+        if ((int) crc.getValue() != checksum) {
+            throw new IOException("Checksum mismatch in the block at offset " + start);
+        }
+
+        this.position += 1 + 2 + name.length + 16 + compressed.length;
+
+        return new Block(new String(name, StandardCharsets.UTF_8), documents, expandedLength, compressed,
+            start, this.position);
+    }
+
+    /**
+     * @return number of documents of the whole archive once the end is read, null before
+     */
+    public Long getTotalDocuments()
+    {
+        return this.totalDocuments;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        this.input.close();
+    }
+
+    public static class Block
+    {
+        private final String collection;
+        private final int documentCount;
+        private final int expandedLength;
+        private final byte[] compressed;
+        private final long start;
+        private final long end;
+
+        private Block(String collection, int documentCount, int expandedLength, byte[] compressed, long start, long end)
+        {
+            this.collection = collection;
+            this.documentCount = documentCount;
+            this.expandedLength = expandedLength;
+            this.compressed = compressed;
+            this.start = start;
+            this.end = end;
+        }
+
+        public String getCollection() {
+            return collection;
+        }
+
+        public int getDocumentCount() {
+            return documentCount;
+        }
+
+        public int getCompressedLength() {
+            return compressed.length;
+        }
+
+        public long getStart() {
+            return start;
+        }
+
+        /**
+         * @return position of the next block
+         */
+        public long getEnd() {
+            return end;
+        }
+
+        public List<Document> getDocuments() throws IOException
+        {
+            byte[] bson = new byte[this.expandedLength];
+            Inflater inflater = new Inflater();
+            inflater.setInput(this.compressed);
+
+            try {
+                int length = 0;
+
+                while (length < bson.length) {
+                    int inflated = inflater.inflate(bson, length, bson.length - length);
+
+                    if (inflated == 0 && (inflater.needsInput() || inflater.finished())) {
+                        throw new IOException("Truncated block at offset " + this.start);
+                    }
+
+                    length += inflated;
+                }
+            }
+            catch (DataFormatException e) {
+                throw new IOException("Corrupted block at offset " + this.start, e);
+            }
+            finally {
+                inflater.end();
+            }
+
+            List<Document> documents = new ArrayList<>(this.documentCount);
+            ByteBuffer buffer = ByteBuffer.wrap(bson).order(ByteOrder.LITTLE_ENDIAN);
+
+            while (buffer.hasRemaining()) {
+                // every BSON document starts with its length
+                int size = buffer.getInt(buffer.position());
+                ByteBuffer slice = buffer.slice();
+                slice.limit(size);
+
+                documents.add(DOCUMENT_CODEC.decode(new BsonBinaryReader(slice), DecoderContext.builder().build()));
+                buffer.position(buffer.position() + size);
+            }
+
+            if (documents.size() != this.documentCount) {
+                throw new IOException("Expected " + this.documentCount + " documents in the block at offset " +
+                    this.start + ", found " + documents.size());
+            }
+
+            return documents;
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package org.cbioportal.genome_nexus.service.cached;
+
+import com.mongodb.MongoClientSettings;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes cached documents to an archive file, which is a header followed by blocks and an end marker:
+ *
+ * header: "GNCACHE" [version byte]
+ * block:  [BLOCK byte] [collection length short] [collection UTF-8] [documents int] [expanded length int]
+ *         [compressed length int] [CRC32 of the compressed bytes int] [deflated BSON documents]
+ * end:    [END byte] [total documents long]
+ *
+ * Every block is checksummed and can be decoded on its own, so that an archive is streamed in both directions,
+ * imported in parallel, and an interrupted export is resumed from the end of its last block.
+ */
+public class CacheArchiveWriter implements Closeable
+{
+    static final byte[] MAGIC = "GNCACHE".getBytes(StandardCharsets.US_ASCII);
+    static final byte VERSION = 1;
+    static final byte BLOCK = 1;
+    static final byte END = 0;
+
+    private static final DocumentCodec DOCUMENT_CODEC = new DocumentCodec(MongoClientSettings.getDefaultCodecRegistry());
+
+    private final DataOutputStream output;
+    private long position;
+    private long documents;
+
+    private CacheArchiveWriter(FileChannel channel, long position) throws IOException
+    {
+        channel.truncate(position);
+        channel.position(position);
+
+        this.output = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+        this.position = position;
+    }
+
+    /**
+     * Creates a new archive, replacing an existing file.
+     */
+    public static CacheArchiveWriter create(Path file) throws IOException
+    {
+        CacheArchiveWriter writer = new CacheArchiveWriter(FileChannel.open(file,
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), 0);
+
+        writer.output.write(MAGIC);
+        writer.output.writeByte(VERSION);
+        writer.position = MAGIC.length + 1;
+
+        return writer;
+    }
+
+    /**
+     * Continues an archive after the block ending at the position, anything written after it is discarded.
+     */
+    public static CacheArchiveWriter append(Path file, long position) throws IOException
+    {
+        return new CacheArchiveWriter(FileChannel.open(file, StandardOpenOption.WRITE), position);
+    }
+
+    /**
+     * @return position in the file after the last block written
+     */
+    public long getPosition()
+    {
+        return this.position;
+    }
+
+    public void writeBlock(String collection, List<Document> documents) throws IOException
+    {
+        BasicOutputBuffer bson = new BasicOutputBuffer();
+
+        for (Document document: documents) {
+            DOCUMENT_CODEC.encode(new BsonBinaryWriter(bson), document, EncoderContext.builder().build());
+        }
+
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(bson.getSize() / 4);
+        Deflater deflater = new Deflater();
+
+        try (DeflaterOutputStream deflated = new DeflaterOutputStream(compressed, deflater)) {
+            bson.pipe(deflated);
+        }
+        finally {
+            deflater.end();
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(compressed.toByteArray());
+
+        byte[] name = collection.getBytes(StandardCharsets.UTF_8);
+
+        this.output.writeByte(BLOCK);
+        this.output.writeShort(name.length);
+        this.output.write(name);
+        this.output.writeInt(documents.size());
+        this.output.writeInt(bson.getSize());
+        this.output.writeInt(compressed.size());
+        this.output.writeInt((int) crc.getValue());
+        compressed.writeTo(this.output);
+
+        this.position += 1 + 2 + name.length + 16 + compressed.size();
+        this.documents += documents.size();
+    }
+
+    public void flush() throws IOException
+    {
+        this.output.flush();
+    }
+
+    /**
+     * Writes the end marker, an archive without it is incomplete.
+     *
+     * @param totalDocuments number of documents in the whole archive, including the blocks of a resumed export
+     */
+    public void finish(long totalDocuments) throws IOException
+    {
+        this.output.writeByte(END);
+        this.output.writeLong(totalDocuments);
+        this.output.flush();
+    }
+
+    /**
+     * @return number of documents written by this writer
+     */
+    public long getDocuments()
+    {
+        return this.documents;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        this.output.close();
+    }
+}
@@ -0,0 +1,28 @@
+package org.cbioportal.genome_nexus.service.cached;
+
+import com.mongodb.DBObject;
+import org.bson.Document;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Storage of cached documents replacing the Mongo repository of the supported collections.
+ * Documents are saved with the _id field set, as they would be saved to Mongo.
+ */
+public interface CacheStorage
+{
+    boolean supports(String collection);
+
+    Optional<Document> findById(String collection, String id);
+    List<Document> findAllById(String collection, Collection<String> ids);
+
+    void save(String collection, DBObject document);
+    void saveAll(String collection, List<DBObject> documents);
+
+    /**
+     * Maps a stored document the same way the Mongo repositories do.
+     */
+    <T> T read(Class<T> type, Document document);
+}
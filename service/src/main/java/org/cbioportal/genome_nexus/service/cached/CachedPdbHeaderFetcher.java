@@ -1,25 +1,39 @@
 package org.cbioportal.genome_nexus.service.cached;
 
+import org.bson.Document;
 import org.cbioportal.genome_nexus.model.PdbHeader;
 import org.cbioportal.genome_nexus.persistence.PdbHeaderRepository;
 import org.cbioportal.genome_nexus.persistence.internal.PdbHeaderRepositoryImpl;
 import org.cbioportal.genome_nexus.service.transformer.PdbHeaderTransformer;
 import org.cbioportal.genome_nexus.service.remote.PdbHeaderDataFetcher;
+import org.cbioportal.genome_nexus.util.PdbHeaderParser;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 @Component
 public class CachedPdbHeaderFetcher extends BaseCachedExternalResourceFetcher<PdbHeader, PdbHeaderRepository>
 {
+    private final PdbHeaderParser parser;
+
     @Autowired
     public CachedPdbHeaderFetcher(PdbHeaderTransformer transformer,
                                   PdbHeaderRepository repository,
-                                  PdbHeaderDataFetcher fetcher)
+                                  PdbHeaderDataFetcher fetcher,
+                                  PdbHeaderParser parser)
     {
         super(PdbHeaderRepositoryImpl.COLLECTION,
             repository,
             PdbHeader.class,
             fetcher,
             transformer);
+
+        this.parser = parser;
+    }
+
+    // the plain text header is cached, as done by the repository
+    @Override
+    protected PdbHeader readCached(Document document)
+    {
+        return this.parser.convertToInstance(document.getString("value"));
     }
 }
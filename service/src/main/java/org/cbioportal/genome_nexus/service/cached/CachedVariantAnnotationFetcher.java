@@ -33,8 +33,9 @@ public class CachedVariantAnnotationFetcher extends BaseCachedVariantAnnotationF
     }
 
     @Override
-    protected Boolean isValidId(String id) {
-        return !id.contains("-") && !id.contains("undefined") && !id.contains("g.0") && id.contains(":") && id.split(":")[1].matches(".*\\d+.*");
+    protected VariantIdValidator getIdValidator()
+    {
+        return VariantIdValidator.HGVS;
     }
 
     @Override
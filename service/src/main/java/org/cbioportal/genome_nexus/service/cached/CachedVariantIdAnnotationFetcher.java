@@ -31,9 +31,9 @@ public class CachedVariantIdAnnotationFetcher extends BaseCachedVariantAnnotatio
     }
 
     @Override
-    protected Boolean isValidId(String id) 
+    protected VariantIdValidator getIdValidator()
     {
-        return id.matches("rs\\d+") || id.matches("COSM\\d+");
+        return VariantIdValidator.DBSNP;
     }
 
     @Override
@@ -33,24 +33,9 @@ public class CachedVariantRegionAnnotationFetcher extends BaseCachedVariantAnnot
     }
 
     @Override
-    protected Boolean isValidId(String id) 
+    protected VariantIdValidator getIdValidator()
     {
-        // e.g.
-        // 17:36002278-36002277:1/A
-        //  1:206811015-206811016:1/-
-        return (
-            !id.contains("undefined") && !id.contains("g.") &&
-            id.contains("-") &&
-            // should have two :
-            (id.length() - id.replace(":","").length() == 2) &&
-            // should have one /
-            (id.length() - id.replace("/","").length() == 1) &&
-            // should be (digit|X|Y|MT):digit-digit:1/character(s)
-            (id.split(":")[0].matches("\\d+") || id.split(":")[0].contains("X") || id.split(":")[0].contains("Y") || id.split(":")[0].contains("MT")) &&
-            id.split(":")[1].split("-")[0].matches("\\d+") &&
-            id.split(":")[1].split("-")[1].matches("\\d+") &&
-            id.split(":")[2].startsWith("1/")
-        );
+        return VariantIdValidator.REGION;
     }
 
 }
@@ -0,0 +1,262 @@
+package org.cbioportal.genome_nexus.service.cached;
+
+import com.mongodb.MongoClientSettings;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+import org.bson.types.Binary;
+import org.cbioportal.genome_nexus.persistence.CacheEvictionRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compressed format of the cached documents: the BSON of the whole document is deflated with a preset dictionary
+ * of the keys and values repeated by every VEP annotation, and stored in the _compressed field. The _id and a few
+ * top-level fields are kept as is, so that they can still be queried and indexed.
+ */
+@Component
+public class CompressedDocumentCodec
+{
+    public static final String COMPRESSED_FIELD = "_compressed";
+    public static final String FORMAT_FIELD = "_format";
+
+    // version of the dictionary, compressed documents can only be read with the dictionary they were written with
+    public static final int FORMAT = 1;
+
+    private static final DocumentCodec DOCUMENT_CODEC = new DocumentCodec(MongoClientSettings.getDefaultCodecRegistry());
+    private static final byte[] DICTIONARY = buildDictionary();
+
+    private final Set<String> collections;
+    private final List<String> topLevelFields;
+
+    @Autowired
+    public CompressedDocumentCodec(
+        @Value("${annotation.cache.compressed.collections:vep.annotation}") String collections,
+        @Value("${annotation.cache.compressed.top_level_fields:input,assembly_name,seq_region_name,start,end,allele_string,most_severe_consequence}") String topLevelFields
+    ) {
+        this.collections = new LinkedHashSet<>(split(collections));
+        this.topLevelFields = split(topLevelFields);
+
+        // queried by the cache eviction
+        this.topLevelFields.addAll(Arrays.asList(CacheEvictionRepository.CACHED_AT_FIELD,
+            CacheEvictionRepository.ACCESSED_AT_FIELD, CacheEvictionRepository.SOURCE_VERSION_FIELD));
+    }
+
+    /**
+     * @return true if the documents of the collection are compressed when saved
+     */
+    public boolean supports(String collection)
+    {
+        return this.collections.contains(collection);
+    }
+
+    public Document compress(Document document)
+    {
+        Document compressed = new Document("_id", document.get("_id"));
+
+        for (String field: this.topLevelFields) {
+            if (document.containsKey(field)) {
+                compressed.put(field, document.get(field));
+            }
+        }
+
+        byte[] bson = encode(document);
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        deflater.setDictionary(DICTIONARY);
+        deflater.setInput(bson);
+        deflater.finish();
+
+        // expanded length first, so that the document is inflated in a single pass
+        byte[] buffer = new byte[bson.length + 64];
+        ByteBuffer.wrap(buffer).putInt(bson.length);
+        int length = 4;
+
+        while (!deflater.finished()) {
+            if (length == buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+
+            length += deflater.deflate(buffer, length, buffer.length - length);
+        }
+
+        deflater.end();
+
+        compressed.put(FORMAT_FIELD, FORMAT);
+        compressed.put(COMPRESSED_FIELD, new Binary(Arrays.copyOf(buffer, length)));
+
+        return compressed;
+    }
+
+    public static boolean isCompressed(Document document)
+    {
+        return document.containsKey(COMPRESSED_FIELD);
+    }
+
+    /**
+     * @return the document as it was saved, compressed or not
+     */
+    public static Document expand(Document document)
+    {
+        return isCompressed(document) ? decompress(document) : document;
+    }
+
+    /**
+     * @return the document as it was before compression
+     */
+    public static Document decompress(Document document)
+    {
+        if (!Objects.equals(document.get(FORMAT_FIELD), FORMAT)) {
+            throw new IllegalStateException("Unsupported compressed document format " + document.get(FORMAT_FIELD) +
+                " for " + document.get("_id"));
+        }
+
+        Object value = document.get(COMPRESSED_FIELD);
+        byte[] compressed = value instanceof Binary ? ((Binary) value).getData() : (byte[]) value;
+        byte[] bson = new byte[ByteBuffer.wrap(compressed).getInt()];
+
+        Inflater inflater = new Inflater();
+        inflater.setInput(compressed, 4, compressed.length - 4);
+
+        try {
+            int length = 0;
+
+            while (length < bson.length) {
+                int inflated = inflater.inflate(bson, length, bson.length - length);
+
+                if (inflated == 0 && inflater.needsDictionary()) {
+                    inflater.setDictionary(DICTIONARY);
+                }
+                else if (inflated == 0 && (inflater.needsInput() || inflater.finished())) {
+                    throw new IllegalStateException("Truncated compressed document " + document.get("_id"));
+                }
+
+                length += inflated;
+            }
+        }
+        catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupted compressed document " + document.get("_id"), e);
+        }
+        finally {
+            inflater.end();
+        }
+
+        return DOCUMENT_CODEC.decode(new BsonBinaryReader(ByteBuffer.wrap(bson)), DecoderContext.builder().build());
+    }
+
+    /**
+     * @return size of the document in BSON
+     */
+    public static int encodedSize(Document document)
+    {
+        return encode(document).length;
+    }
+
+    private static byte[] encode(Document document)
+    {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        DOCUMENT_CODEC.encode(new BsonBinaryWriter(buffer), document, EncoderContext.builder().build());
+
+        return buffer.toByteArray();
+    }
+
+    /**
+     * The dictionary is the BSON of a typical annotation, so that the field names and common values of the
+     * transcript consequences are found as they are encoded. The most common strings come last, since deflate
+     * favors the closest matches.
+     */
+    private static byte[] buildDictionary()
+    {
+        Document transcriptConsequence = new Document()
+            .append("transcript_id", "ENST00000000000")
+            .append("gene_id", "ENSG00000000000")
+            .append("protein_id", "ENSP00000000000")
+            .append("gene_symbol", "")
+            .append("gene_symbol_source", "HGNC")
+            .append("hgnc_id", "HGNC:")
+            .append("biotype", "protein_coding")
+            .append("canonical", 1)
+            .append("consequence_terms", Arrays.asList("downstream_gene_variant", "upstream_gene_variant",
+                "intron_variant", "non_coding_transcript_variant", "non_coding_transcript_exon_variant",
+                "NMD_transcript_variant", "synonymous_variant", "missense_variant"))
+            .append("impact", "MODIFIER")
+            .append("variant_allele", "")
+            .append("strand", -1)
+            .append("distance", 0)
+            .append("cdna_start", 0)
+            .append("cdna_end", 0)
+            .append("cds_start", 0)
+            .append("cds_end", 0)
+            .append("protein_start", 0)
+            .append("protein_end", 0)
+            .append("codons", "")
+            .append("amino_acids", "")
+            .append("exon", "")
+            .append("intron", "")
+            .append("hgvsc", "ENST00000000000.1:c.")
+            .append("hgvsp", "ENSP00000000000.1:p.")
+            .append("hgvsg", ":g.")
+            .append("polyphen_prediction", "benign")
+            .append("polyphen_score", 0.0)
+            .append("sift_prediction", "tolerated")
+            .append("sift_score", 0.0)
+            .append("refseq_transcript_ids", Collections.singletonList("NM_"))
+            .append("flags", Collections.singletonList("cds_start_NF"));
+
+        Document colocatedVariant = new Document()
+            .append("id", "rs")
+            .append("seq_region_name", "")
+            .append("start", 0)
+            .append("end", 0)
+            .append("strand", 1)
+            .append("allele_string", "")
+            .append("minor_allele", "")
+            .append("minor_allele_freq", 0.0)
+            .append("frequencies", new Document())
+            .append("gnomad_nfe_maf", 0.0)
+            .append("gnomad_afr_maf", 0.0)
+            .append("gnomad_eas_maf", 0.0);
+
+        Document annotation = new Document()
+            .append("_id", "")
+            .append("id", "")
+            .append("input", "")
+            .append("assembly_name", "GRCh37")
+            .append("seq_region_name", "")
+            .append("start", 0)
+            .append("end", 0)
+            .append("strand", 1)
+            .append("allele_string", "")
+            .append("most_severe_consequence", "missense_variant")
+            .append("colocated_variants", Collections.singletonList(colocatedVariant))
+            .append("intergenic_consequences", Collections.singletonList(new Document("impact", "MODIFIER")))
+            .append("regulatory_feature_consequences", Collections.singletonList(
+                new Document("regulatory_feature_id", "ENSR00000000000").append("biotype", "promoter_flanking_region")))
+            .append("transcript_consequences", Arrays.asList(transcriptConsequence, transcriptConsequence));
+
+        return encode(annotation);
+    }
+
+    private static List<String> split(String values)
+    {
+        List<String> list = new ArrayList<>();
+
+        for (String value: values.split(",")) {
+            if (value.trim().length() > 0) {
+                list.add(value.trim());
+            }
+        }
+
+        return list;
+    }
+}
@@ -0,0 +1,75 @@
+package org.cbioportal.genome_nexus.service.cached;
+
+import com.mongodb.DBObject;
+import org.bson.Document;
+import org.cbioportal.genome_nexus.persistence.CacheDocumentRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Saves the documents of the configured Mongo collections in the format of the {@link CompressedDocumentCodec}.
+ * Documents are returned as stored, compressed or not, and decompressed by the fetchers, so that the collections
+ * can be migrated while they are in use.
+ */
+@Component
+@ConditionalOnProperty(name = "annotation.cache.storage", havingValue = "compressed")
+public class CompressedMongoCacheStorage implements CacheStorage
+{
+    private final CacheDocumentRepository cacheDocumentRepository;
+    private final CompressedDocumentCodec codec;
+    private final MongoConverter mongoConverter;
+
+    @Autowired
+    public CompressedMongoCacheStorage(CacheDocumentRepository cacheDocumentRepository,
+                                       CompressedDocumentCodec codec,
+                                       MongoConverter mongoConverter)
+    {
+        this.cacheDocumentRepository = cacheDocumentRepository;
+        this.codec = codec;
+        this.mongoConverter = mongoConverter;
+    }
+
+    @Override
+    public boolean supports(String collection)
+    {
+        return this.codec.supports(collection);
+    }
+
+    @Override
+    public Optional<Document> findById(String collection, String id)
+    {
+        return Optional.ofNullable(this.cacheDocumentRepository.findById(collection, id));
+    }
+
+    @Override
+    public List<Document> findAllById(String collection, Collection<String> ids)
+    {
+        return this.cacheDocumentRepository.findAllById(collection, ids);
+    }
+
+    @Override
+    public void save(String collection, DBObject document)
+    {
+        this.cacheDocumentRepository.save(collection, this.codec.compress(new Document(document.toMap())));
+    }
+
+    @Override
+    public void saveAll(String collection, List<DBObject> documents)
+    {
+        for (DBObject document: documents) {
+            this.save(collection, document);
+        }
+    }
+
+    @Override
+    public <T> T read(Class<T> type, Document document)
+    {
+        return this.mongoConverter.read(type, document);
+    }
+}
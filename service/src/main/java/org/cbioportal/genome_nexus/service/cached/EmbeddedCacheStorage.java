@@ -0,0 +1,255 @@
+package org.cbioportal.genome_nexus.service.cached;
+
+import com.mongodb.DBObject;
+import com.mongodb.DBObjectCodec;
+import com.mongodb.MongoClientSettings;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonBinaryWriter;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.codecs.configuration.CodecRegistry;
+import org.bson.io.BasicOutputBuffer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Keeps the cached documents of the configured collections in local {@link MappedKeyValueStore} files instead of
+ * Mongo, one store per collection. Documents are stored as BSON, deflated when it makes them smaller. Uncompressed
+ * documents are decoded straight from the mapped files.
+ *
+ * The stores are local to the instance, Mongo remains the storage to use for a cache shared by several instances.
+ */
+@Component
+@ConditionalOnProperty(name = "annotation.cache.storage", havingValue = "embedded")
+public class EmbeddedCacheStorage implements CacheStorage
+{
+    private static final Log LOG = LogFactory.getLog(EmbeddedCacheStorage.class);
+
+    private static final byte PLAIN = 0;
+    private static final byte DEFLATED = 1;
+
+    private final MongoConverter mongoConverter;
+    private final Path directory;
+    private final Set<String> collections;
+    private final boolean compression;
+    private final Map<String, MappedKeyValueStore> stores = new ConcurrentHashMap<>();
+
+    private final DBObjectCodec dbObjectCodec;
+    private final DocumentCodec documentCodec;
+
+    @Autowired
+    public EmbeddedCacheStorage(
+        MongoConverter mongoConverter,
+        @Value("${annotation.cache.embedded.directory:embedded-cache}") String directory,
+        @Value("${annotation.cache.embedded.collections:vep.annotation,my_variant_info.annotation,ensembl.nucleotide_context,pdb.header}") String collections,
+        @Value("${annotation.cache.embedded.compression:true}") boolean compression
+    ) {
+        this.mongoConverter = mongoConverter;
+        this.directory = Paths.get(directory);
+        this.collections = new LinkedHashSet<>();
+        this.compression = compression;
+
+        for (String collection: collections.split(",")) {
+            if (collection.trim().length() > 0) {
+                this.collections.add(collection.trim());
+            }
+        }
+
+        CodecRegistry codecRegistry = MongoClientSettings.getDefaultCodecRegistry();
+        this.dbObjectCodec = new DBObjectCodec(codecRegistry);
+        this.documentCodec = new DocumentCodec(codecRegistry);
+
+        LOG.info("Embedded cache storage in " + this.directory.toAbsolutePath() + " for " + this.collections);
+    }
+
+    @PreDestroy
+    public void close()
+    {
+        for (Map.Entry<String, MappedKeyValueStore> entry: this.stores.entrySet()) {
+            try {
+                entry.getValue().close();
+            }
+            catch (IOException e) {
+                LOG.error("Failed to close the embedded cache of " + entry.getKey() + ": " + e.getLocalizedMessage());
+            }
+        }
+
+        this.stores.clear();
+    }
+
+    @Override
+    public boolean supports(String collection)
+    {
+        return this.collections.contains(collection);
+    }
+
+    @Override
+    public Optional<Document> findById(String collection, String id)
+    {
+        ByteBuffer value = this.getStore(collection).get(id);
+
+        return Optional.ofNullable(value == null ? null : this.decode(value));
+    }
+
+    @Override
+    public List<Document> findAllById(String collection, Collection<String> ids)
+    {
+        List<Document> documents = new ArrayList<>();
+
+        for (ByteBuffer value: this.getStore(collection).getAll(ids).values()) {
+            documents.add(this.decode(value));
+        }
+
+        return documents;
+    }
+
+    @Override
+    public void save(String collection, DBObject document)
+    {
+        MappedKeyValueStore store = this.getStore(collection);
+
+        try {
+            store.put(document.get("_id").toString(), this.encode(document));
+        }
+        catch (IOException e) {
+            throw new DataAccessResourceFailureException("Failed to write to the embedded cache of " + collection, e);
+        }
+    }
+
+    @Override
+    public void saveAll(String collection, List<DBObject> documents)
+    {
+        for (DBObject document: documents) {
+            this.save(collection, document);
+        }
+    }
+
+    @Override
+    public <T> T read(Class<T> type, Document document)
+    {
+        return this.mongoConverter.read(type, document);
+    }
+
+    /**
+     * @return number of documents stored for each opened collection
+     */
+    public Map<String, Integer> getDocumentCounts()
+    {
+        Map<String, Integer> counts = new TreeMap<>();
+        this.stores.forEach((collection, store) -> counts.put(collection, store.size()));
+
+        return counts;
+    }
+
+    private MappedKeyValueStore getStore(String collection)
+    {
+        try {
+            return this.stores.computeIfAbsent(collection, c -> {
+                try {
+                    long start = System.currentTimeMillis();
+                    MappedKeyValueStore store = new MappedKeyValueStore(this.directory, c);
+
+                    LOG.info("Opened the embedded cache of " + c + " with " + store.size() + " documents in " +
+                        (System.currentTimeMillis() - start) + " ms");
+
+                    return store;
+                }
+                catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        catch (UncheckedIOException e) {
+            throw new DataAccessResourceFailureException("Failed to open the embedded cache of " + collection, e.getCause());
+        }
+    }
+
+    private ByteBuffer encode(DBObject document)
+    {
+        BasicOutputBuffer buffer = new BasicOutputBuffer();
+        this.dbObjectCodec.encode(new BsonBinaryWriter(buffer), document, EncoderContext.builder().build());
+        byte[] bson = buffer.toByteArray();
+
+        if (this.compression) {
+            Deflater deflater = new Deflater();
+            deflater.setInput(bson);
+            deflater.finish();
+
+            // flag and uncompressed length first, values not getting smaller are kept plain
+            byte[] deflated = new byte[bson.length];
+            int length = 5;
+
+            while (!deflater.finished() && length < deflated.length) {
+                length += deflater.deflate(deflated, length, deflated.length - length);
+            }
+
+            boolean smaller = deflater.finished() && length < bson.length;
+            deflater.end();
+
+            if (smaller) {
+                ByteBuffer value = ByteBuffer.wrap(deflated, 0, length);
+                value.put(0, DEFLATED);
+                value.putInt(1, bson.length);
+
+                return value;
+            }
+        }
+
+        ByteBuffer value = ByteBuffer.allocate(bson.length + 1);
+        value.put(PLAIN).put(bson).flip();
+
+        return value;
+    }
+
+    private Document decode(ByteBuffer value)
+    {
+        ByteBuffer bson;
+
+        if (value.get(0) == DEFLATED) {
+            byte[] deflated = new byte[value.remaining() - 5];
+            ((ByteBuffer) value.duplicate().position(5)).get(deflated);
+
+            byte[] inflated = new byte[value.getInt(1)];
+            Inflater inflater = new Inflater();
+            inflater.setInput(deflated);
+
+            try {
+                inflater.inflate(inflated);
+            }
+            catch (DataFormatException e) {
+                throw new DataAccessResourceFailureException("Corrupted document in the embedded cache", e);
+            }
+            finally {
+                inflater.end();
+            }
+
+            bson = ByteBuffer.wrap(inflated);
+        }
+        else {
+            // read from the mapped file without copying
+            bson = ((ByteBuffer) value.duplicate().position(1)).slice();
+        }
+
+        return this.documentCodec.decode(new BsonBinaryReader(bson), DecoderContext.builder().build());
+    }
+}
@@ -0,0 +1,503 @@
+package org.cbioportal.genome_nexus.service.cached;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * Embedded key value store made of an append only data file and an open addressing hash index, both memory
+ * mapped. Opening a store does not read anything, and a lookup only touches the index slots and the pages of
+ * the record. Values are returned as read only views of the mapped data file, valid until the store is closed.
+ *
+ * A value overwritten by a later put stays in the data file as garbage, the files of a store can be deleted
+ * while it is closed to start over. A store is opened by a single process at a time. The data and index pages
+ * are written back independently, so records are checksummed and a record lost in a crash is not returned.
+ */
+public class MappedKeyValueStore implements Closeable
+{
+    private static final Log LOG = LogFactory.getLog(MappedKeyValueStore.class);
+
+    public static final int DEFAULT_SEGMENT_SIZE = 256 * 1024 * 1024;
+
+    private static final long DATA_MAGIC = 0x474e4b5644415432L;
+    private static final long INDEX_MAGIC = 0x474e4b5649445831L;
+
+    // data file: magic, then records of [key length][value length][crc32 of key and value][key][value]
+    // never crossing a segment
+    private static final int DATA_HEADER_SIZE = 8;
+    private static final int RECORD_HEADER_SIZE = 12;
+
+    // index file: magic, capacity, size, end of data, segment size, then slots of [record offset][key hash]
+    private static final int INDEX_HEADER_SIZE = 32;
+    private static final int CAPACITY_POSITION = 8;
+    private static final int SIZE_POSITION = 12;
+    private static final int DATA_END_POSITION = 16;
+    private static final int SEGMENT_SIZE_POSITION = 24;
+    private static final int SLOT_SIZE = 12;
+
+    private static final int MIN_CAPACITY = 1024;
+    private static final int MAX_CAPACITY = 1 << 27;
+    private static final double MAX_LOAD_FACTOR = 0.7;
+
+    private final Path dataPath;
+    private final Path indexPath;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final FileChannel dataChannel;
+    private final FileLock fileLock;
+    private final List<MappedByteBuffer> segments = new ArrayList<>();
+
+    private int segmentSize;
+    private FileChannel indexChannel;
+    private MappedByteBuffer index;
+    private int capacity;
+    private int size;
+    private long dataEnd;
+
+    public MappedKeyValueStore(Path directory, String name) throws IOException
+    {
+        this(directory, name, DEFAULT_SEGMENT_SIZE);
+    }
+
+    public MappedKeyValueStore(Path directory, String name, int segmentSize) throws IOException
+    {
+        Files.createDirectories(directory);
+
+        this.dataPath = directory.resolve(name + ".data");
+        this.indexPath = directory.resolve(name + ".index");
+        this.segmentSize = segmentSize;
+        this.dataChannel = FileChannel.open(this.dataPath,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        try {
+            this.fileLock = lock(this.dataChannel);
+
+            if (this.fileLock == null) {
+                throw new IOException("Embedded cache " + this.dataPath + " is used by another process");
+            }
+
+            if (!this.open()) {
+                this.reset();
+            }
+        }
+        catch (IOException e) {
+            this.dataChannel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @return a read only view of the value, or null if the key is not stored
+     */
+    public ByteBuffer get(String key)
+    {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+
+        this.lock.readLock().lock();
+
+        try {
+            long offset = this.recordOffset(this.findSlot(keyBytes, hash(keyBytes)));
+
+            return offset == 0 ? null : this.value(offset, keyBytes);
+        }
+        finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return read only views of the stored values by key, in the order of the given keys
+     */
+    public Map<String, ByteBuffer> getAll(Collection<String> keys)
+    {
+        Map<String, ByteBuffer> values = new LinkedHashMap<>();
+
+        this.lock.readLock().lock();
+
+        try {
+            for (String key: keys) {
+                byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+                long offset = this.recordOffset(this.findSlot(keyBytes, hash(keyBytes)));
+
+                ByteBuffer value = offset == 0 ? null : this.value(offset, keyBytes);
+
+                if (value != null) {
+                    values.put(key, value);
+                }
+            }
+        }
+        finally {
+            this.lock.readLock().unlock();
+        }
+
+        return values;
+    }
+
+    public void put(String key, ByteBuffer value) throws IOException
+    {
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        int length = RECORD_HEADER_SIZE + keyBytes.length + value.remaining();
+
+        if (length > this.segmentSize - DATA_HEADER_SIZE) {
+            throw new IllegalArgumentException("Value too large for the segment size: " + key + " (" + length + " bytes)");
+        }
+
+        this.lock.writeLock().lock();
+
+        try {
+            // records do not cross segments, so that a value is always a single mapped view
+            long offset = this.dataEnd;
+
+            if (offset % this.segmentSize + length > this.segmentSize) {
+                offset = (offset / this.segmentSize + 1) * this.segmentSize;
+            }
+
+            ByteBuffer segment = this.segment((int) (offset / this.segmentSize)).duplicate();
+            segment.position((int) (offset % this.segmentSize));
+            segment.putInt(keyBytes.length);
+            segment.putInt(value.remaining());
+            segment.putInt(checksum(keyBytes, value));
+            segment.put(keyBytes);
+            segment.put(value.duplicate());
+
+            if (this.size + 1 > this.capacity * MAX_LOAD_FACTOR && this.capacity < MAX_CAPACITY) {
+                this.resize(this.capacity * 2);
+            }
+
+            int hash = hash(keyBytes);
+            int slot = this.findSlot(keyBytes, hash);
+
+            if (this.recordOffset(slot) == 0) {
+                if (this.size + 1 >= this.capacity) {
+                    throw new IOException("Index of " + this.indexPath + " is full");
+                }
+
+                this.size++;
+            }
+
+            this.index.putLong(slotPosition(slot), offset);
+            this.index.putInt(slotPosition(slot) + 8, hash);
+            this.dataEnd = offset + length;
+            this.index.putInt(SIZE_POSITION, this.size);
+            this.index.putLong(DATA_END_POSITION, this.dataEnd);
+        }
+        finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of stored keys
+     */
+    public int size()
+    {
+        this.lock.readLock().lock();
+
+        try {
+            return this.size;
+        }
+        finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of bytes used by the data file, including overwritten values
+     */
+    public long getDataSize()
+    {
+        this.lock.readLock().lock();
+
+        try {
+            return this.dataEnd;
+        }
+        finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        this.lock.writeLock().lock();
+
+        try {
+            for (MappedByteBuffer segment: this.segments) {
+                segment.force();
+            }
+
+            this.index.force();
+            this.indexChannel.close();
+            // closing the channel releases the lock
+            this.dataChannel.close();
+        }
+        finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return false if the files are new or not valid store files
+     */
+    private boolean open() throws IOException
+    {
+        if (!Files.exists(this.indexPath) || this.dataChannel.size() < DATA_HEADER_SIZE) {
+            return false;
+        }
+
+        this.indexChannel = FileChannel.open(this.indexPath, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        if (this.indexChannel.size() < INDEX_HEADER_SIZE) {
+            this.indexChannel.close();
+            return false;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(INDEX_HEADER_SIZE);
+        this.indexChannel.read(header, 0);
+        header.flip();
+
+        long magic = header.getLong();
+        int capacity = header.getInt();
+        int size = header.getInt();
+        long dataEnd = header.getLong();
+        int segmentSize = header.getInt();
+
+        if (magic != INDEX_MAGIC ||
+            Integer.bitCount(capacity) != 1 ||
+            this.indexChannel.size() != INDEX_HEADER_SIZE + (long) capacity * SLOT_SIZE ||
+            segmentSize <= DATA_HEADER_SIZE ||
+            dataEnd < DATA_HEADER_SIZE ||
+            dataEnd > this.dataChannel.size())
+        {
+            LOG.warn("Ignoring invalid embedded cache index " + this.indexPath);
+            this.indexChannel.close();
+            return false;
+        }
+
+        // offsets depend on the segment size the store was created with
+        this.segmentSize = segmentSize;
+        this.capacity = capacity;
+        this.size = size;
+        this.dataEnd = dataEnd;
+        this.index = this.indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, this.indexChannel.size());
+
+        for (int i = 0; i <= (dataEnd - 1) / this.segmentSize; i++) {
+            this.segment(i);
+        }
+
+        if (this.segments.get(0).getLong(0) != DATA_MAGIC) {
+            LOG.warn("Ignoring invalid embedded cache data " + this.dataPath);
+            this.indexChannel.close();
+            this.segments.clear();
+            return false;
+        }
+
+        return true;
+    }
+
+    private void reset() throws IOException
+    {
+        this.dataChannel.truncate(0);
+        this.segments.clear();
+        this.segment(0).putLong(0, DATA_MAGIC);
+
+        this.size = 0;
+        this.dataEnd = DATA_HEADER_SIZE;
+        this.capacity = MIN_CAPACITY;
+        this.indexChannel = FileChannel.open(this.indexPath,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.index = this.mapIndex(this.indexChannel, this.capacity);
+    }
+
+    private void resize(int capacity) throws IOException
+    {
+        Path resizedPath = this.indexPath.resolveSibling(this.indexPath.getFileName() + ".resize");
+        FileChannel resizedChannel = FileChannel.open(resizedPath,
+            StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer resized = this.mapIndex(resizedChannel, capacity);
+
+        // keys are unique and hashes are stored, the records are not read again
+        for (int slot = 0; slot < this.capacity; slot++) {
+            long offset = this.recordOffset(slot);
+
+            if (offset != 0) {
+                int hash = this.index.getInt(slotPosition(slot) + 8);
+                int resizedSlot = hash & (capacity - 1);
+
+                while (resized.getLong(slotPosition(resizedSlot)) != 0) {
+                    resizedSlot = (resizedSlot + 1) & (capacity - 1);
+                }
+
+                resized.putLong(slotPosition(resizedSlot), offset);
+                resized.putInt(slotPosition(resizedSlot) + 8, hash);
+            }
+        }
+
+        resized.force();
+        Files.move(resizedPath, this.indexPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        this.indexChannel.close();
+        this.indexChannel = resizedChannel;
+        this.index = resized;
+        this.capacity = capacity;
+    }
+
+    private MappedByteBuffer segment(int segmentIndex) throws IOException
+    {
+        while (this.segments.size() <= segmentIndex) {
+            // mapping beyond the end of the file extends it
+            this.segments.add(this.dataChannel.map(FileChannel.MapMode.READ_WRITE,
+                (long) this.segments.size() * this.segmentSize, this.segmentSize));
+        }
+
+        return this.segments.get(segmentIndex);
+    }
+
+    /**
+     * @return the slot of the key, or the empty slot where it should be inserted
+     */
+    private int findSlot(byte[] keyBytes, int hash)
+    {
+        int slot = hash & (this.capacity - 1);
+
+        while (true) {
+            long offset = this.recordOffset(slot);
+
+            if (offset == 0 ||
+                (this.index.getInt(slotPosition(slot) + 8) == hash && this.keyEquals(offset, keyBytes)))
+            {
+                return slot;
+            }
+
+            slot = (slot + 1) & (this.capacity - 1);
+        }
+    }
+
+    private long recordOffset(int slot)
+    {
+        return this.index.getLong(slotPosition(slot));
+    }
+
+    private boolean keyEquals(long offset, byte[] keyBytes)
+    {
+        // after a crash, a slot may point to a record that was never written back
+        if (offset >= this.dataEnd ||
+            offset % this.segmentSize + RECORD_HEADER_SIZE + keyBytes.length > this.segmentSize)
+        {
+            return false;
+        }
+
+        ByteBuffer segment = this.segments.get((int) (offset / this.segmentSize));
+        int position = (int) (offset % this.segmentSize);
+
+        if (segment.getInt(position) != keyBytes.length) {
+            return false;
+        }
+
+        for (int i = 0; i < keyBytes.length; i++) {
+            if (segment.get(position + RECORD_HEADER_SIZE + i) != keyBytes[i]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return the value of the record, or null if the record is not valid
+     */
+    private ByteBuffer value(long offset, byte[] keyBytes)
+    {
+        ByteBuffer segment = this.segments.get((int) (offset / this.segmentSize)).duplicate();
+        int position = (int) (offset % this.segmentSize);
+        int valueLength = segment.getInt(position + 4);
+        int valuePosition = position + RECORD_HEADER_SIZE + keyBytes.length;
+
+        if (valueLength >= 0 && valueLength <= this.segmentSize - valuePosition) {
+            segment.position(valuePosition);
+            segment.limit(valuePosition + valueLength);
+            ByteBuffer value = segment.slice().asReadOnlyBuffer();
+
+            if (segment.getInt(position + 8) == checksum(keyBytes, value)) {
+                return value;
+            }
+        }
+
+        // the record was not written back before a crash, read as a cache miss until it is put again
+        LOG.warn("Ignoring invalid record of " + new String(keyBytes, StandardCharsets.UTF_8) + " in " + this.dataPath);
+        return null;
+    }
+
+    private MappedByteBuffer mapIndex(FileChannel channel, int capacity) throws IOException
+    {
+        MappedByteBuffer index = channel.map(FileChannel.MapMode.READ_WRITE, 0, INDEX_HEADER_SIZE + (long) capacity * SLOT_SIZE);
+
+        index.putLong(0, INDEX_MAGIC);
+        index.putInt(CAPACITY_POSITION, capacity);
+        index.putInt(SIZE_POSITION, this.size);
+        index.putLong(DATA_END_POSITION, this.dataEnd);
+        index.putInt(SEGMENT_SIZE_POSITION, this.segmentSize);
+
+        return index;
+    }
+
+    /**
+     * @return the lock of the channel, or null if it is held by another process
+     */
+    private static FileLock lock(FileChannel channel) throws IOException
+    {
+        try {
+            return channel.tryLock();
+        }
+        catch (OverlappingFileLockException e) {
+            // held by this process
+            return null;
+        }
+    }
+
+    private static int checksum(byte[] keyBytes, ByteBuffer value)
+    {
+        CRC32 crc = new CRC32();
+        crc.update(keyBytes);
+        crc.update(value.duplicate());
+
+        return (int) crc.getValue();
+    }
+
+    private static int slotPosition(int slot)
+    {
+        return INDEX_HEADER_SIZE + slot * SLOT_SIZE;
+    }
+
+    private static int hash(byte[] keyBytes)
+    {
+        int hash = 0x811c9dc5;
+
+        for (byte b: keyBytes) {
+            hash = (hash ^ b) * 0x01000193;
+        }
+
+        // spread the bits used by the index mask
+        return hash ^ (hash >>> 16);
+    }
+}
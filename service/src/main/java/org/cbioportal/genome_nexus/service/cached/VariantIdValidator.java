@@ -0,0 +1,223 @@
+package org.cbioportal.genome_nexus.service.cached;
+
+/**
+ * Id format checks for the cached external resource fetchers.
+ *
+ * Each validator inspects the id in a single character scan, without splitting or regex matching,
+ * and returns the reason why the id is rejected, or null if the id is valid.
+ */
+public enum VariantIdValidator
+{
+    /**
+     * Accepts every id, for resources without a known id format.
+     */
+    ANY {
+        @Override
+        public String validate(String id)
+        {
+            return null;
+        }
+    },
+
+    /**
+     * Ensembl region notation, e.g. 17:36002278-36002277:1/A or 1:206811015-206811016:1/-
+     */
+    REGION {
+        @Override
+        public String validate(String id)
+        {
+            int length = id.length();
+            int colons = 0;
+            int slashes = 0;
+            int firstColon = -1;
+            int secondColon = -1;
+            boolean dash = false;
+
+            for (int i = 0; i < length; i++)
+            {
+                char c = id.charAt(i);
+
+                if (c == ':') {
+                    if (colons == 0) {
+                        firstColon = i;
+                    }
+                    else if (colons == 1) {
+                        secondColon = i;
+                    }
+                    colons++;
+                }
+                else if (c == '/') {
+                    slashes++;
+                }
+                else if (c == '-') {
+                    dash = true;
+                }
+                else if (c == 'u' && id.startsWith("undefined", i)) {
+                    return "contains undefined";
+                }
+                else if (c == 'g' && i + 1 < length && id.charAt(i + 1) == '.') {
+                    return "HGVS notation is not a region";
+                }
+            }
+
+            if (!dash) {
+                return "missing '-' between start and end";
+            }
+            if (colons != 2) {
+                return "should have two ':' but has " + colons;
+            }
+            if (slashes != 1) {
+                return "should have one '/' but has " + slashes;
+            }
+            if (!isDigits(id, 0, firstColon) && !containsChromosomeLetter(id, firstColon)) {
+                return "invalid chromosome";
+            }
+
+            // only the first two '-' separated values of the position are checked
+            int startEnd = indexOf(id, '-', firstColon + 1, secondColon);
+
+            if (startEnd == -1 || !isDigits(id, firstColon + 1, startEnd)) {
+                return "invalid start position";
+            }
+
+            int endEnd = indexOf(id, '-', startEnd + 1, secondColon);
+
+            if (!isDigits(id, startEnd + 1, endEnd == -1 ? secondColon : endEnd)) {
+                return "invalid end position";
+            }
+            if (!id.startsWith("1/", secondColon + 1)) {
+                return "should be (digit|X|Y|MT):digit-digit:1/allele";
+            }
+
+            return null;
+        }
+    },
+
+    /**
+     * Genomic HGVS notation, e.g. 7:g.140453136A>T
+     */
+    HGVS {
+        @Override
+        public String validate(String id)
+        {
+            int length = id.length();
+            int colons = 0;
+            boolean positionDigit = false;
+            boolean lineBreak = false;
+
+            for (int i = 0; i < length; i++)
+            {
+                char c = id.charAt(i);
+
+                if (c == '-') {
+                    return "contains '-'";
+                }
+                else if (c == 'u' && id.startsWith("undefined", i)) {
+                    return "contains undefined";
+                }
+                else if (c == 'g' && id.startsWith("g.0", i)) {
+                    return "position starts with 0";
+                }
+                else if (c == ':') {
+                    colons++;
+                }
+                else if (colons == 1) {
+                    // only the value between the first and the second ':' needs a position
+                    positionDigit |= isDigit(c);
+                    lineBreak |= isLineBreak(c);
+                }
+            }
+
+            if (colons == 0) {
+                return "missing ':' after chromosome";
+            }
+            if (!positionDigit || lineBreak) {
+                return "missing position";
+            }
+
+            return null;
+        }
+    },
+
+    /**
+     * dbSNP or COSMIC id, e.g. rs113488022 or COSM476
+     */
+    DBSNP {
+        @Override
+        public String validate(String id)
+        {
+            int prefix;
+
+            if (id.startsWith("rs")) {
+                prefix = 2;
+            }
+            else if (id.startsWith("COSM")) {
+                prefix = 4;
+            }
+            else {
+                return "should start with rs or COSM";
+            }
+
+            if (!isDigits(id, prefix, id.length())) {
+                return "should be followed by digits only";
+            }
+
+            return null;
+        }
+    };
+
+    /**
+     * @return the reason why the id is rejected, or null if the id is valid
+     */
+    public abstract String validate(String id);
+
+    public boolean isValid(String id)
+    {
+        return this.validate(id) == null;
+    }
+
+    private static boolean isDigits(String value, int start, int end)
+    {
+        if (end <= start) {
+            return false;
+        }
+
+        for (int i = start; i < end; i++) {
+            if (!isDigit(value.charAt(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isDigit(char c)
+    {
+        return c >= '0' && c <= '9';
+    }
+
+    // line terminators not matched by '.' in a regex
+    private static boolean isLineBreak(char c)
+    {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    private static boolean containsChromosomeLetter(String value, int end)
+    {
+        for (int i = 0; i < end; i++) {
+            char c = value.charAt(i);
+
+            if (c == 'X' || c == 'Y' || (c == 'M' && i + 1 < end && value.charAt(i + 1) == 'T')) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static int indexOf(String value, char c, int start, int end)
+    {
+        int index = value.indexOf(c, start);
+        return index >= end ? -1 : index;
+    }
+}
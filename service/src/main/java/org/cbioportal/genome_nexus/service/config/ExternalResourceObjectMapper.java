@@ -55,4 +55,19 @@ public class ExternalResourceObjectMapper extends ObjectMapper
         mixinMap.put(IntergenicConsequences.class, IntergenicConsequencesMixin.class);
         super.setMixIns(mixinMap);
     }
+
+    protected ExternalResourceObjectMapper(ExternalResourceObjectMapper src)
+    {
+        super(src);
+    }
+
+    /**
+     * Copy with the same mixins and features, which can be configured independently.
+     */
+    @Override
+    public ExternalResourceObjectMapper copy()
+    {
+        _checkInvalidCopy(ExternalResourceObjectMapper.class);
+        return new ExternalResourceObjectMapper(this);
+    }
 }
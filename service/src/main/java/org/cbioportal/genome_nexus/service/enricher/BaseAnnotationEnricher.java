@@ -4,6 +4,7 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.cbioportal.genome_nexus.model.VariantAnnotation;
 import org.cbioportal.genome_nexus.service.AnnotationEnricher;
+import org.cbioportal.genome_nexus.util.RequestDeadline;
 
 import java.util.List;
 
@@ -21,6 +22,11 @@ public abstract class BaseAnnotationEnricher implements AnnotationEnricher
     public void enrich(List<VariantAnnotation> annotations) {
         // default implementation, just iterate over all annotations and call enrich one by one
         for (VariantAnnotation annotation: annotations) {
+            if (RequestDeadline.skip()) {
+                // the remaining annotations are marked as skipped by the enrichment service
+                break;
+            }
+
             try {
                 this.enrich(annotation);
             } catch (Exception e) {
@@ -0,0 +1,35 @@
+package org.cbioportal.genome_nexus.service.exception;
+
+public class AnnotationAdmissionRejectedException extends Exception
+{
+    private String reason;
+    private long retryAfterSeconds;
+
+    public AnnotationAdmissionRejectedException(String reason, long retryAfterSeconds) {
+        super();
+        this.reason = reason;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public void setReason(String reason) {
+        this.reason = reason;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public void setRetryAfterSeconds(long retryAfterSeconds) {
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    @Override
+    public String getMessage() {
+        return "Annotation request not admitted: " + this.getReason() +
+            ", retry after " + this.getRetryAfterSeconds() + " seconds";
+    }
+}
@@ -0,0 +1,34 @@
+package org.cbioportal.genome_nexus.service.exception;
+
+public class AnnotationJobFailedException extends Exception
+{
+    private String jobId;
+    private String error;
+
+    public AnnotationJobFailedException(String jobId, String error) {
+        super();
+        this.jobId = jobId;
+        this.error = error;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    @Override
+    public String getMessage() {
+        return "Annotation job failed: " + this.getJobId() + (this.getError() == null ? "" : ", " + this.getError());
+    }
+}
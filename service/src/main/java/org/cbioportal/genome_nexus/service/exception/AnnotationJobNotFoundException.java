@@ -0,0 +1,24 @@
+package org.cbioportal.genome_nexus.service.exception;
+
+public class AnnotationJobNotFoundException extends Exception
+{
+    private String jobId;
+
+    public AnnotationJobNotFoundException(String jobId) {
+        super();
+        this.jobId = jobId;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    @Override
+    public String getMessage() {
+        return "Annotation job not found: " + this.getJobId();
+    }
+}
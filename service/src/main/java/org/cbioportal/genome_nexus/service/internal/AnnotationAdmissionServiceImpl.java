@@ -0,0 +1,292 @@
+package org.cbioportal.genome_nexus.service.internal;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.cbioportal.genome_nexus.model.AnnotationField;
+import org.cbioportal.genome_nexus.service.AnnotationAdmissionService;
+import org.cbioportal.genome_nexus.service.exception.AnnotationAdmissionRejectedException;
+import org.cbioportal.genome_nexus.util.RequestDeadline;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the number of annotation requests running at the same time, so that large batch requests
+ * cannot occupy every request thread and the VEP upstream.
+ *
+ * The cost of a request is its number of variants times one plus the number of requested annotation fields.
+ * Requests above the bulk cost threshold wait in the bulk queue, other requests in the interactive queue.
+ * Free slots are given to the interactive queue, except every (interactive weight + 1)th slot which goes
+ * to the bulk queue if it is not empty, and bulk requests never take the slots reserved for interactive
+ * requests. Requests are rejected with a retry delay when their queue or the quota of their client is
+ * full, or when they have waited for too long. Admission control is disabled unless
+ * annotation.admission.enabled is set.
+ */
+@Service
+public class AnnotationAdmissionServiceImpl implements AnnotationAdmissionService
+{
+    private static final Log LOG = LogFactory.getLog(AnnotationAdmissionServiceImpl.class);
+
+    enum RequestClass {INTERACTIVE, BULK}
+
+    private static final Admission NOT_LIMITED = () -> {};
+
+    private final boolean enabled;
+    private final int maxRunning;
+    private final int maxRunningBulk;
+    private final int interactiveQueueSize;
+    private final int bulkQueueSize;
+    private final int interactiveWeight;
+    private final long bulkCostThreshold;
+    private final int perClientLimit;
+    private final long maxWaitNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Deque<Ticket> interactiveQueue = new ArrayDeque<>();
+    private final Deque<Ticket> bulkQueue = new ArrayDeque<>();
+    // running and queued requests per client
+    private final Map<String, Integer> clientRequests = new HashMap<>();
+    private int running;
+    private int runningBulk;
+    private int interactiveSinceBulk;
+    // moving average of the request durations, used to estimate the retry delay
+    private double averageDurationMillis = 1000;
+
+    @Autowired
+    public AnnotationAdmissionServiceImpl(
+        @Value("${annotation.admission.enabled:false}") boolean enabled,
+        @Value("${annotation.admission.max_running:16}") int maxRunning,
+        @Value("${annotation.admission.bulk.max_running:12}") int maxRunningBulk,
+        @Value("${annotation.admission.interactive.queue_size:200}") int interactiveQueueSize,
+        @Value("${annotation.admission.bulk.queue_size:20}") int bulkQueueSize,
+        @Value("${annotation.admission.interactive.weight:4}") int interactiveWeight,
+        @Value("${annotation.admission.bulk.cost_threshold:100}") long bulkCostThreshold,
+        @Value("${annotation.admission.per_client_limit:0}") int perClientLimit,
+        @Value("${annotation.admission.max_wait_seconds:30}") long maxWaitSeconds
+    ) {
+        this.enabled = enabled;
+        this.maxRunning = Math.max(maxRunning, 1);
+        this.maxRunningBulk = Math.min(Math.max(maxRunningBulk, 1), this.maxRunning);
+        this.interactiveQueueSize = interactiveQueueSize;
+        this.bulkQueueSize = bulkQueueSize;
+        this.interactiveWeight = Math.max(interactiveWeight, 1);
+        this.bulkCostThreshold = bulkCostThreshold;
+        this.perClientLimit = perClientLimit;
+        this.maxWaitNanos = TimeUnit.SECONDS.toNanos(maxWaitSeconds);
+    }
+
+    @Override
+    public Admission admit(String clientId, int variantCount, List<AnnotationField> fields)
+        throws AnnotationAdmissionRejectedException
+    {
+        if (!this.enabled) {
+            return NOT_LIMITED;
+        }
+
+        RequestClass requestClass = cost(variantCount, fields) > this.bulkCostThreshold ?
+            RequestClass.BULK : RequestClass.INTERACTIVE;
+        Ticket ticket = new Ticket(clientId, requestClass);
+
+        this.lock.lock();
+
+        try {
+            this.enqueue(ticket);
+            this.dispatch();
+            this.await(ticket);
+        }
+        finally {
+            this.lock.unlock();
+        }
+
+        return ticket;
+    }
+
+    int getQueuedCount()
+    {
+        this.lock.lock();
+
+        try {
+            return this.interactiveQueue.size() + this.bulkQueue.size();
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+    static long cost(int variantCount, List<AnnotationField> fields)
+    {
+        // the VEP annotation itself plus one enrichment per annotation source
+        return (long) variantCount * (1 + (fields == null ? 0 : fields.size()));
+    }
+
+    private void enqueue(Ticket ticket) throws AnnotationAdmissionRejectedException
+    {
+        int clientRequests = this.clientRequests.getOrDefault(ticket.clientId, 0);
+
+        if (this.perClientLimit > 0 && clientRequests >= this.perClientLimit) {
+            throw this.reject("too many concurrent requests from client " + ticket.clientId);
+        }
+
+        Deque<Ticket> queue = this.queue(ticket.requestClass);
+
+        int queueSize = ticket.requestClass == RequestClass.BULK ? this.bulkQueueSize : this.interactiveQueueSize;
+        // a request which can run right away only passes through the queue
+        boolean slotAvailable = queue.isEmpty() && this.running < this.maxRunning &&
+            (ticket.requestClass == RequestClass.INTERACTIVE || this.runningBulk < this.maxRunningBulk);
+
+        if (queue.size() >= queueSize && !slotAvailable) {
+            throw this.reject(ticket.requestClass.name().toLowerCase() + " queue is full");
+        }
+
+        queue.addLast(ticket);
+        this.clientRequests.put(ticket.clientId, clientRequests + 1);
+    }
+
+    private void await(Ticket ticket) throws AnnotationAdmissionRejectedException
+    {
+        // a request is not left waiting past its own deadline
+        long deadlineNanos = RequestDeadline.remainingNanos();
+        long remaining = Math.min(this.maxWaitNanos, deadlineNanos);
+
+        try {
+            while (!ticket.admitted)
+            {
+                if (remaining <= 0) {
+                    this.abandon(ticket);
+                    throw this.reject(deadlineNanos < this.maxWaitNanos ?
+                        "request deadline exceeded while waiting" :
+                        "waited for more than " + TimeUnit.NANOSECONDS.toSeconds(this.maxWaitNanos) + " seconds");
+                }
+
+                remaining = ticket.admittedCondition.awaitNanos(remaining);
+            }
+        }
+        catch (InterruptedException e) {
+            this.abandon(ticket);
+            Thread.currentThread().interrupt();
+            throw this.reject("interrupted while waiting");
+        }
+    }
+
+    private void abandon(Ticket ticket)
+    {
+        if (ticket.admitted) {
+            // admitted right when giving up, the slot is given to the next request
+            this.finish(ticket);
+        }
+        else {
+            this.queue(ticket.requestClass).remove(ticket);
+            this.releaseClient(ticket.clientId);
+        }
+    }
+
+    private void release(Ticket ticket)
+    {
+        this.lock.lock();
+
+        try {
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - ticket.admittedAt);
+            this.averageDurationMillis = 0.9 * this.averageDurationMillis + 0.1 * millis;
+            this.finish(ticket);
+        }
+        finally {
+            this.lock.unlock();
+        }
+    }
+
+    private void finish(Ticket ticket)
+    {
+        this.running--;
+
+        if (ticket.requestClass == RequestClass.BULK) {
+            this.runningBulk--;
+        }
+
+        this.releaseClient(ticket.clientId);
+        this.dispatch();
+    }
+
+    private void releaseClient(String clientId)
+    {
+        this.clientRequests.computeIfPresent(clientId, (id, count) -> count > 1 ? count - 1 : null);
+    }
+
+    // weighted fair selection of the next requests to run, only called while holding the lock
+    private void dispatch()
+    {
+        while (this.running < this.maxRunning)
+        {
+            boolean bulkAvailable = !this.bulkQueue.isEmpty() && this.runningBulk < this.maxRunningBulk;
+            Ticket next;
+
+            if (!this.interactiveQueue.isEmpty() && (!bulkAvailable || this.interactiveSinceBulk < this.interactiveWeight)) {
+                next = this.interactiveQueue.pollFirst();
+                this.interactiveSinceBulk++;
+            }
+            else if (bulkAvailable) {
+                next = this.bulkQueue.pollFirst();
+                this.interactiveSinceBulk = 0;
+                this.runningBulk++;
+            }
+            else {
+                return;
+            }
+
+            this.running++;
+            next.admitted = true;
+            next.admittedAt = System.nanoTime();
+            next.admittedCondition.signal();
+        }
+    }
+
+    private AnnotationAdmissionRejectedException reject(String reason)
+    {
+        int waiting = this.interactiveQueue.size() + this.bulkQueue.size();
+        // time to run the waiting requests with every slot busy
+        long retryAfterSeconds = Math.max(1, Math.round(
+            this.averageDurationMillis * (waiting / (double) this.maxRunning + 1) / 1000));
+
+        LOG.debug("Rejected annotation request: " + reason);
+
+        return new AnnotationAdmissionRejectedException(reason, retryAfterSeconds);
+    }
+
+    private Deque<Ticket> queue(RequestClass requestClass)
+    {
+        return requestClass == RequestClass.BULK ? this.bulkQueue : this.interactiveQueue;
+    }
+
+    private class Ticket implements Admission
+    {
+        private final String clientId;
+        private final RequestClass requestClass;
+        private final Condition admittedCondition = lock.newCondition();
+        private boolean admitted;
+        private long admittedAt;
+        private boolean closed;
+
+        Ticket(String clientId, RequestClass requestClass)
+        {
+            this.clientId = clientId == null ? "" : clientId;
+            this.requestClass = requestClass;
+        }
+
+        @Override
+        public void close()
+        {
+            if (!this.closed) {
+                this.closed = true;
+                release(this);
+            }
+        }
+    }
+}
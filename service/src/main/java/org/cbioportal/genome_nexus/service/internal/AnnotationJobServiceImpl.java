@@ -0,0 +1,457 @@
+package org.cbioportal.genome_nexus.service.internal;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.cbioportal.genome_nexus.component.annotation.NotationConverter;
+import org.cbioportal.genome_nexus.model.AnnotationField;
+import org.cbioportal.genome_nexus.model.AnnotationJob;
+import org.cbioportal.genome_nexus.model.AnnotationJobChunk;
+import org.cbioportal.genome_nexus.model.AnnotationJobResult;
+import org.cbioportal.genome_nexus.model.AnnotationJobStatus;
+import org.cbioportal.genome_nexus.model.GenomicLocation;
+import org.cbioportal.genome_nexus.model.VariantAnnotation;
+import org.cbioportal.genome_nexus.persistence.AnnotationJobChunkRepository;
+import org.cbioportal.genome_nexus.persistence.AnnotationJobRepository;
+import org.cbioportal.genome_nexus.persistence.AnnotationJobResultRepository;
+import org.cbioportal.genome_nexus.service.AnnotationJobService;
+import org.cbioportal.genome_nexus.service.StreamingAnnotationService;
+import org.cbioportal.genome_nexus.service.exception.AnnotationJobFailedException;
+import org.cbioportal.genome_nexus.service.exception.AnnotationJobNotFoundException;
+import org.cbioportal.genome_nexus.util.GenomicLocationFileReader;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Annotates large variant lists in the background.
+ *
+ * Jobs and their variants are stored in the database before they are queued, so queued and running jobs
+ * are resumed after a restart from the first chunk that was not processed yet. A fixed number of jobs run
+ * at the same time, each job annotates its chunks one after the other through the regular annotation
+ * pipeline. Tokens are only kept in memory, jobs resumed after a restart run without tokens.
+ *
+ * When several instances share the database, a job is only run by the instance holding its lease: the
+ * submitting instance takes it, renews it while the job is queued or running, and checks it before each
+ * chunk. Jobs whose lease expired, because their instance stopped, are taken over by the other instances.
+ *
+ * The annotations are stored one per document, and finished jobs are deleted with their chunks and
+ * annotations once they are older than the retention period.
+ */
+@Service
+public class AnnotationJobServiceImpl implements AnnotationJobService
+{
+    private static final Log LOG = LogFactory.getLog(AnnotationJobServiceImpl.class);
+
+    private final AnnotationJobRepository annotationJobRepository;
+    private final AnnotationJobChunkRepository annotationJobChunkRepository;
+    private final AnnotationJobResultRepository annotationJobResultRepository;
+    private final StreamingAnnotationService streamingAnnotationService;
+    private final NotationConverter notationConverter;
+    private final int chunkSize;
+    private final long retentionHours;
+    private final long leaseMillis;
+    private final ExecutorService executor;
+
+    private final ScheduledExecutorService maintenanceExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "annotation-job-maintenance");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // owner of the job leases taken by this instance
+    private final String instanceId = ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID();
+
+    private final Map<String, Map<String, String>> tokens = new ConcurrentHashMap<>();
+
+    // jobs queued or running in this instance
+    private final Set<String> localJobs = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public AnnotationJobServiceImpl(
+        AnnotationJobRepository annotationJobRepository,
+        AnnotationJobChunkRepository annotationJobChunkRepository,
+        AnnotationJobResultRepository annotationJobResultRepository,
+        StreamingAnnotationService streamingAnnotationService,
+        NotationConverter notationConverter,
+        @Value("${annotation.job.chunk_size:100}") Integer chunkSize,
+        @Value("${annotation.job.workers:2}") Integer workers,
+        @Value("${annotation.job.retention_hours:168}") long retentionHours,
+        @Value("${annotation.job.lease_seconds:300}") long leaseSeconds
+    ) {
+        this.annotationJobRepository = annotationJobRepository;
+        this.annotationJobChunkRepository = annotationJobChunkRepository;
+        this.annotationJobResultRepository = annotationJobResultRepository;
+        this.streamingAnnotationService = streamingAnnotationService;
+        this.notationConverter = notationConverter;
+        this.chunkSize = chunkSize == null || chunkSize < 1 ? 100 : chunkSize;
+        this.retentionHours = retentionHours;
+        this.leaseMillis = TimeUnit.SECONDS.toMillis(Math.max(leaseSeconds, 3));
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(workers == null || workers < 1 ? 2 : workers, runnable -> {
+            Thread thread = new Thread(runnable, "annotation-job-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * The ready event is published after the command line runners, which exit the application, so the
+     * command line modes never resume jobs.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void startMaintenance()
+    {
+        // leases are renewed well before they expire, and the jobs of stopped instances are taken over
+        this.maintenanceExecutor.scheduleWithFixedDelay(this::maintainLeases,
+            0, this.leaseMillis / 3, TimeUnit.MILLISECONDS);
+
+        if (this.retentionHours > 0) {
+            this.maintenanceExecutor.scheduleWithFixedDelay(this::deleteExpiredJobs, 1, 60, TimeUnit.MINUTES);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        this.executor.shutdownNow();
+        this.maintenanceExecutor.shutdownNow();
+    }
+
+    /**
+     * Queues the queued and running jobs which are not leased by another instance.
+     */
+    void resumeJobs()
+    {
+        Date now = new Date();
+
+        for (AnnotationJob job: this.annotationJobRepository.findByStatusInOrderByCreatedAtAsc(
+            Arrays.asList(AnnotationJobStatus.QUEUED, AnnotationJobStatus.RUNNING)))
+        {
+            boolean leasedByOther = job.getOwner() != null &&
+                !this.instanceId.equals(job.getOwner()) &&
+                job.getLeaseExpiresAt() != null &&
+                job.getLeaseExpiresAt().after(now);
+
+            // the job is only claimed when it starts, another instance may still take it first
+            if (!leasedByOther && this.localJobs.add(job.getId())) {
+                LOG.info("Resuming annotation job " + job.getId());
+                this.executor.execute(() -> this.run(job.getId()));
+            }
+        }
+    }
+
+    private void maintainLeases()
+    {
+        try {
+            this.annotationJobRepository.renewLeases(new ArrayList<>(this.localJobs), this.instanceId, this.leaseExpiry());
+            this.resumeJobs();
+        }
+        catch (RuntimeException e) {
+            LOG.error("Failed to renew the annotation job leases", e);
+        }
+    }
+
+    /**
+     * Deletes the jobs finished before the retention period, with their chunks and annotations.
+     */
+    void deleteExpiredJobs()
+    {
+        try {
+            Date finishedBefore = new Date(System.currentTimeMillis() - TimeUnit.HOURS.toMillis(this.retentionHours));
+
+            for (AnnotationJob job: this.annotationJobRepository.findByFinishedAtBefore(finishedBefore))
+            {
+                // the job is deleted last, so that an interrupted cleanup is completed by the next one
+                this.annotationJobResultRepository.deleteByJobId(job.getId());
+                this.annotationJobChunkRepository.deleteByJobId(job.getId());
+                this.annotationJobRepository.deleteById(job.getId());
+                LOG.info("Deleted annotation job " + job.getId() + " finished at " + job.getFinishedAt());
+            }
+        }
+        catch (RuntimeException e) {
+            LOG.error("Failed to delete the expired annotation jobs", e);
+        }
+    }
+
+    @Override
+    public AnnotationJob submit(List<String> variants,
+                                String isoformOverrideSource,
+                                Map<String, String> token,
+                                List<AnnotationField> fields)
+    {
+        AnnotationJob job = this.createJob(isoformOverrideSource, fields);
+        List<AnnotationJobChunk> chunks = new ArrayList<>();
+
+        for (int from = 0; from < variants.size(); from += this.chunkSize) {
+            List<String> chunk = variants.subList(from, Math.min(from + this.chunkSize, variants.size()));
+            chunks.add(new AnnotationJobChunk(job.getId(), chunks.size(), new ArrayList<>(chunk)));
+        }
+
+        this.annotationJobChunkRepository.saveAll(chunks);
+
+        return this.queue(job, variants.size(), chunks.size(), token);
+    }
+
+    @Override
+    public AnnotationJob submit(BufferedReader variantFile,
+                                String isoformOverrideSource,
+                                Map<String, String> token,
+                                List<AnnotationField> fields) throws IOException
+    {
+        AnnotationJob job = this.createJob(isoformOverrideSource, fields);
+        List<String> chunk = new ArrayList<>(this.chunkSize);
+        long totalVariants = 0;
+        int chunkCount = 0;
+
+        // only one chunk of the file is kept in memory
+        try (GenomicLocationFileReader reader = new GenomicLocationFileReader(variantFile))
+        {
+            GenomicLocation location;
+
+            while ((location = reader.next()) != null)
+            {
+                String variant = this.notationConverter.genomicToHgvs(location);
+
+                if (variant == null) {
+                    LOG.debug("Skipping genomic location " + location + ", it cannot be converted to HGVS");
+                    continue;
+                }
+
+                chunk.add(variant);
+                totalVariants++;
+
+                if (chunk.size() == this.chunkSize) {
+                    this.annotationJobChunkRepository.save(new AnnotationJobChunk(job.getId(), chunkCount++, chunk));
+                    chunk = new ArrayList<>(this.chunkSize);
+                }
+            }
+
+            if (!chunk.isEmpty()) {
+                this.annotationJobChunkRepository.save(new AnnotationJobChunk(job.getId(), chunkCount++, chunk));
+            }
+        }
+        catch (IOException | RuntimeException e) {
+            // the job is never queued, remove the chunks stored so far
+            this.annotationJobChunkRepository.deleteByJobId(job.getId());
+            throw e;
+        }
+
+        return this.queue(job, totalVariants, chunkCount, token);
+    }
+
+    @Override
+    public AnnotationJob getJob(String jobId) throws AnnotationJobNotFoundException
+    {
+        return this.annotationJobRepository.findById(jobId)
+            .orElseThrow(() -> new AnnotationJobNotFoundException(jobId));
+    }
+
+    /**
+     * @throws IllegalArgumentException if the chunk index is out of range
+     */
+    @Override
+    public List<VariantAnnotation> getResults(String jobId, int chunkIndex)
+        throws AnnotationJobNotFoundException, AnnotationJobFailedException
+    {
+        AnnotationJob job = this.getJob(jobId);
+
+        if (chunkIndex < 0 || chunkIndex >= job.getChunkCount()) {
+            throw new IllegalArgumentException(
+                "Chunk index should be between 0 and " + (job.getChunkCount() - 1) + ": " + chunkIndex);
+        }
+
+        AnnotationJobChunk chunk = this.annotationJobChunkRepository
+            .findById(AnnotationJobChunk.chunkId(jobId, chunkIndex))
+            .orElseThrow(() -> new AnnotationJobNotFoundException(jobId));
+
+        if (!Boolean.TRUE.equals(chunk.getAnnotated())) {
+            // the chunks left when the job failed are never annotated
+            if (job.getStatus() == AnnotationJobStatus.FAILED) {
+                throw new AnnotationJobFailedException(jobId, job.getError());
+            }
+
+            return null;
+        }
+
+        return this.annotationJobResultRepository.findByJobIdAndChunkIndexOrderByPositionAsc(jobId, chunkIndex)
+            .stream()
+            .map(AnnotationJobResult::getAnnotation)
+            .collect(Collectors.toList());
+    }
+
+    private AnnotationJob createJob(String isoformOverrideSource, List<AnnotationField> fields)
+    {
+        AnnotationJob job = new AnnotationJob();
+
+        job.setId(UUID.randomUUID().toString());
+        job.setStatus(AnnotationJobStatus.QUEUED);
+        job.setIsoformOverrideSource(isoformOverrideSource);
+        job.setFields(fields);
+        job.setProcessedVariants(0L);
+        job.setAnnotatedVariants(0L);
+        job.setProcessedChunks(0);
+        job.setCreatedAt(new Date());
+
+        return job;
+    }
+
+    private AnnotationJob queue(AnnotationJob job, long totalVariants, int chunkCount, Map<String, String> token)
+    {
+        job.setTotalVariants(totalVariants);
+        job.setChunkCount(chunkCount);
+        // only this instance has the tokens, keep the job while it waits for a worker
+        job.setOwner(this.instanceId);
+        job.setLeaseExpiresAt(this.leaseExpiry());
+
+        if (token != null) {
+            this.tokens.put(job.getId(), token);
+        }
+
+        this.localJobs.add(job.getId());
+        this.annotationJobRepository.save(job);
+        this.executor.execute(() -> this.run(job.getId()));
+
+        return job;
+    }
+
+    private Date leaseExpiry()
+    {
+        return new Date(System.currentTimeMillis() + this.leaseMillis);
+    }
+
+    /**
+     * @return the job with a renewed lease, or null if the job is finished or leased by another instance
+     */
+    private AnnotationJob claim(String jobId)
+    {
+        return this.annotationJobRepository.claim(jobId, this.instanceId, new Date(), this.leaseExpiry());
+    }
+
+    void run(String jobId)
+    {
+        try {
+            AnnotationJob job = this.claim(jobId);
+
+            if (job == null) {
+                LOG.debug("Annotation job " + jobId + " is finished or run by another instance");
+                return;
+            }
+
+            this.run(job);
+        }
+        finally {
+            this.localJobs.remove(jobId);
+            this.tokens.remove(jobId);
+        }
+    }
+
+    private void run(AnnotationJob job)
+    {
+        String jobId = job.getId();
+
+        try {
+            job.setStatus(AnnotationJobStatus.RUNNING);
+
+            if (job.getStartedAt() == null) {
+                job.setStartedAt(new Date());
+            }
+
+            this.save(job);
+
+            for (int i = job.getProcessedChunks(); i < job.getChunkCount(); i++)
+            {
+                if (Thread.currentThread().isInterrupted()) {
+                    // shutting down, the job is resumed from this chunk after the restart
+                    return;
+                }
+
+                this.annotateChunk(job, i);
+            }
+
+            job.setStatus(AnnotationJobStatus.COMPLETED);
+        }
+        catch (JobTakenOverException e) {
+            LOG.warn("Annotation job " + jobId + " was taken over by another instance");
+            return;
+        }
+        catch (RuntimeException e) {
+            LOG.error("Annotation job " + jobId + " failed", e);
+            job.setStatus(AnnotationJobStatus.FAILED);
+            job.setError(e.getMessage());
+        }
+
+        job.setFinishedAt(new Date());
+
+        try {
+            this.save(job);
+        }
+        catch (JobTakenOverException e) {
+            LOG.warn("Annotation job " + jobId + " was taken over by another instance");
+        }
+    }
+
+    /**
+     * Saves the progress of a job and renews its lease.
+     *
+     * @throws JobTakenOverException if the lease expired and another instance took the job over
+     */
+    private void save(AnnotationJob job)
+    {
+        job.setLeaseExpiresAt(this.leaseExpiry());
+
+        if (!this.annotationJobRepository.saveIfOwner(job)) {
+            throw new JobTakenOverException();
+        }
+    }
+
+    private void annotateChunk(AnnotationJob job, int chunkIndex)
+    {
+        AnnotationJobChunk chunk = this.annotationJobChunkRepository
+            .findById(AnnotationJobChunk.chunkId(job.getId(), chunkIndex))
+            .orElseThrow(() -> new IllegalStateException("Missing chunk " + chunkIndex));
+
+        List<VariantAnnotation> annotations = this.streamingAnnotationService.annotateWindow(
+            chunk.getVariants(), job.getIsoformOverrideSource(), this.tokens.get(job.getId()), job.getFields());
+
+        List<AnnotationJobResult> results = new ArrayList<>(annotations.size());
+
+        for (int i = 0; i < annotations.size(); i++) {
+            results.add(new AnnotationJobResult(job.getId(), chunkIndex, i, annotations.get(i)));
+        }
+
+        this.annotationJobResultRepository.saveAll(results);
+
+        chunk.setAnnotated(true);
+        this.annotationJobChunkRepository.save(chunk);
+
+        // progress is saved after each chunk, so that it is visible while the job runs
+        job.setProcessedChunks(chunkIndex + 1);
+        job.setProcessedVariants(job.getProcessedVariants() + chunk.getVariants().size());
+        job.setAnnotatedVariants(job.getAnnotatedVariants() + annotations.size());
+        this.save(job);
+    }
+
+    private static class JobTakenOverException extends RuntimeException {}
+}
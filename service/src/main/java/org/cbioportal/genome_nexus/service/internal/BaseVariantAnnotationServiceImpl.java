@@ -52,8 +52,6 @@ import org.springframework.web.client.ResourceAccessException;
 
 import java.util.*;
 
-import com.google.gson.Gson;
-import com.mongodb.BasicDBObject;
 import com.mongodb.DBObject;
 
 public abstract class BaseVariantAnnotationServiceImpl implements VariantAnnotationService
@@ -72,8 +70,10 @@ public abstract class BaseVariantAnnotationServiceImpl implements VariantAnnotat
     private final OncokbService oncokbService;
     private final ClinvarVariantAnnotationService clinvarVariantAnnotationService;
     private final IndexRepository indexRepository;
+    private final IndexSearchService indexSearchService;
     private final ProteinChangeResolver proteinChangeResolver;
     private final HugoGeneSymbolResolver hugoGeneSymbolResolver;
+    private final IndexBuilder indexBuilder;
 
     public BaseVariantAnnotationServiceImpl(
         BaseCachedExternalResourceFetcher<VariantAnnotation, VariantAnnotationRepository> resourceFetcher,
@@ -88,6 +88,7 @@ public abstract class BaseVariantAnnotationServiceImpl implements VariantAnnotat
         OncokbService oncokbService,
         ClinvarVariantAnnotationService clinvarVariantAnnotationService,
         IndexRepository indexRepository,
+        IndexSearchService indexSearchService,
         ProteinChangeResolver proteinChangeResolver,
         HugoGeneSymbolResolver hugoGeneSymbolResolver
     ) {
@@ -103,8 +104,10 @@ public abstract class BaseVariantAnnotationServiceImpl implements VariantAnnotat
         this.oncokbService = oncokbService;
         this.clinvarVariantAnnotationService = clinvarVariantAnnotationService;
         this.indexRepository = indexRepository;
+        this.indexSearchService = indexSearchService;
         this.proteinChangeResolver = proteinChangeResolver;
         this.hugoGeneSymbolResolver = hugoGeneSymbolResolver;
+        this.indexBuilder = new IndexBuilder(proteinChangeResolver, hugoGeneSymbolResolver);
     }
 
     // Needs to be overridden to support normalizing variants
@@ -114,8 +117,7 @@ public abstract class BaseVariantAnnotationServiceImpl implements VariantAnnotat
     }
 
     public Index buildIndex(VariantAnnotation variantAnnotation) {
-        IndexBuilder builder = new IndexBuilder(this.proteinChangeResolver, this.hugoGeneSymbolResolver);
-        return builder.buildIndex(variantAnnotation);
+        return this.indexBuilder.buildIndex(variantAnnotation);
     }
 
     @Override
@@ -154,6 +156,41 @@ public abstract class BaseVariantAnnotationServiceImpl implements VariantAnnotat
         );
     }
 
+    @Override
+    public List<VariantAnnotation> getAnnotations(List<String> variants,
+                                                  String isoformOverrideSource,
+                                                  Map<String, String> token,
+                                                  List<AnnotationField> fields,
+                                                  AnnotationProjection projection)
+    {
+        if (projection == null) {
+            return this.getAnnotations(variants, isoformOverrideSource, token, fields);
+        }
+
+        // fields which are not requested are neither enriched nor read from the cache
+        EnrichmentService postEnrichmentService =
+            this.initPostEnrichmentService(isoformOverrideSource, projection.restrictFields(fields), token);
+
+        return this.getVariantAnnotations(
+            variants,
+            postEnrichmentService,
+            excludedCacheFields(projection)
+        );
+    }
+
+    /**
+     * Only the colocated variants can be left out of the cached documents: the consequences are needed
+     * by the index and by the enrichers, and they are the source of the annotation summary.
+     */
+    private static Set<String> excludedCacheFields(AnnotationProjection projection)
+    {
+        if (projection.includes("colocatedVariants")) {
+            return Collections.emptySet();
+        }
+
+        return Collections.singleton("colocated_variants");
+    }
+
     private VariantAnnotation getVariantAnnotationExternally(String variant)
         throws VariantAnnotationNotFoundException, VariantAnnotationWebServiceException
     {
@@ -195,7 +232,8 @@ public abstract class BaseVariantAnnotationServiceImpl implements VariantAnnotat
         }
     }
 
-    private List<VariantAnnotation> getVariantAnnotationsExternally(List<String> variants)
+    private List<VariantAnnotation> getVariantAnnotationsExternally(List<String> variants,
+                                                                    Set<String> excludedCacheFields)
             throws VariantAnnotationWebServiceException {
         List<VariantAnnotation> variantAnnotations = null;
         Map<String, String> normVarToOrigVarQueryMap = new LinkedHashMap<>();
@@ -205,12 +243,17 @@ public abstract class BaseVariantAnnotationServiceImpl implements VariantAnnotat
 
         try {
             // get the annotations from the web service and save it to the DB
-            variantAnnotations = this.resourceFetcher.fetchAndCache(new ArrayList(normVarToOrigVarQueryMap.keySet()));
+            List<String> normalizedVariants = new ArrayList<>(normVarToOrigVarQueryMap.keySet());
+            variantAnnotations = excludedCacheFields.isEmpty() ?
+                this.resourceFetcher.fetchAndCache(normalizedVariants) :
+                this.resourceFetcher.fetchAndCache(normalizedVariants, excludedCacheFields);
+            Map<String, VariantAnnotation> annotationsToIndex = new LinkedHashMap<>();
             for (VariantAnnotation variantAnnotation : variantAnnotations) {
-                // add new annotation to index db
-                this.saveToIndexDb(normVarToOrigVarQueryMap.get(variantAnnotation.getVariant()), variantAnnotation);
+                annotationsToIndex.put(normVarToOrigVarQueryMap.get(variantAnnotation.getVariant()), variantAnnotation);
                 variantAnnotation.setOriginalVariantQuery(normVarToOrigVarQueryMap.get(variantAnnotation.getVariant()));
             }
+            // add new annotations to index db, in a single write per request
+            this.saveToIndexDb(annotationsToIndex);
         } catch (HttpClientErrorException e) {
             // in case of web service error, throw an exception to indicate that there is a
             // problem with the service.
@@ -231,11 +274,6 @@ public abstract class BaseVariantAnnotationServiceImpl implements VariantAnnotat
         return getVariantAnnotationExternally(variant);
     }
 
-    private List<VariantAnnotation> getVariantAnnotations(List<String> variants)
-            throws VariantAnnotationWebServiceException {
-        return getVariantAnnotationsExternally(variants);
-    }
-
     private VariantAnnotation getVariantAnnotation(String variant, EnrichmentService postEnrichmentService)
         throws VariantAnnotationNotFoundException, VariantAnnotationWebServiceException
     {
@@ -252,12 +290,19 @@ public abstract class BaseVariantAnnotationServiceImpl implements VariantAnnotat
 
     private List<VariantAnnotation> getVariantAnnotations(List<String> variants,
                                                           EnrichmentService postEnrichmentService)
+    {
+        return this.getVariantAnnotations(variants, postEnrichmentService, Collections.emptySet());
+    }
+
+    private List<VariantAnnotation> getVariantAnnotations(List<String> variants,
+                                                          EnrichmentService postEnrichmentService,
+                                                          Set<String> excludedCacheFields)
     {
         List<VariantAnnotation> variantAnnotations = Collections.emptyList();
 
         try {
             // fetch all annotations at once
-            variantAnnotations = this.getVariantAnnotations(variants);
+            variantAnnotations = this.getVariantAnnotationsExternally(variants, excludedCacheFields);
 
             if (postEnrichmentService != null) {
                 postEnrichmentService.enrichAnnotations(variantAnnotations);
@@ -270,9 +315,25 @@ public abstract class BaseVariantAnnotationServiceImpl implements VariantAnnotat
     }
 
     public void saveToIndexDb(String normalizedVariant, VariantAnnotation annotation) {
-        Gson gson = new Gson();
-        DBObject dbObject = BasicDBObject.parse(gson.toJson(this.buildIndex(annotation)));
-        this.indexRepository.saveDBObject("index", normalizedVariant, dbObject);
+        this.saveToIndexDb(Collections.singletonMap(normalizedVariant, annotation));
+    }
+
+    public void saveToIndexDb(Map<String, VariantAnnotation> annotations) {
+        if (annotations.isEmpty()) {
+            return;
+        }
+
+        Map<String, Index> indexes = new LinkedHashMap<>();
+        Map<String, DBObject> documents = new LinkedHashMap<>();
+        annotations.forEach((variant, annotation) -> {
+            Index index = this.buildIndex(annotation);
+            indexes.put(variant, index);
+            documents.put(variant, this.indexBuilder.buildIndexDocument(index));
+        });
+
+        // unchanged index documents are not written again
+        this.indexRepository.saveIndexDocuments(documents);
+        indexes.forEach(this.indexSearchService::index);
     }
 
 
@@ -0,0 +1,215 @@
+package org.cbioportal.genome_nexus.service.internal;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.bson.Document;
+import org.cbioportal.genome_nexus.model.CacheCompressionStatus;
+import org.cbioportal.genome_nexus.persistence.CacheDocumentRepository;
+import org.cbioportal.genome_nexus.service.CacheCompressionService;
+import org.cbioportal.genome_nexus.service.cached.CacheStorage;
+import org.cbioportal.genome_nexus.service.cached.CompressedDocumentCodec;
+import org.cbioportal.genome_nexus.service.cached.CompressedMongoCacheStorage;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Rewrites the existing documents of a cache collection in the compressed format, batch by batch in id order.
+ * Each document is replaced only if it is still expanded, so the documents saved meanwhile by the application
+ * are left as they are, and the fetchers read both formats during the migration.
+ *
+ * Every batch is read by id before and after compression to measure the read latency of both formats.
+ */
+@Service
+public class CacheCompressionServiceImpl implements CacheCompressionService
+{
+    private static final Log LOG = LogFactory.getLog(CacheCompressionServiceImpl.class);
+
+    private final CacheDocumentRepository cacheDocumentRepository;
+    private final CompressedDocumentCodec codec;
+    private final ObjectProvider<CacheStorage> cacheStorage;
+    private final int batchSize;
+    private final long pauseMillis;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cache-compression");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, CacheCompressionStatus> compressionStatus = new ConcurrentSkipListMap<>();
+
+    @Autowired
+    public CacheCompressionServiceImpl(
+        CacheDocumentRepository cacheDocumentRepository,
+        CompressedDocumentCodec codec,
+        ObjectProvider<CacheStorage> cacheStorage,
+        @Value("${annotation.cache.compressed.migration_batch_size:500}") int batchSize,
+        @Value("${annotation.cache.compressed.migration_pause_millis:0}") long pauseMillis
+    ) {
+        this.cacheDocumentRepository = cacheDocumentRepository;
+        this.codec = codec;
+        this.cacheStorage = cacheStorage;
+        this.batchSize = batchSize;
+        this.pauseMillis = pauseMillis;
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        this.executor.shutdownNow();
+    }
+
+    @Override
+    public List<CacheCompressionStatus> getCompressionStatus()
+    {
+        return new ArrayList<>(this.compressionStatus.values());
+    }
+
+    @Override
+    public Future<CacheCompressionStatus> compress(String collection)
+    {
+        CacheStorage storage = this.cacheStorage.getIfAvailable();
+
+        // the application would not read compressed documents through the repositories
+        if (!(storage instanceof CompressedMongoCacheStorage) || !storage.supports(collection)) {
+            throw new IllegalArgumentException("Collection " + collection + " is not configured for compressed storage");
+        }
+
+        return this.executor.submit(() -> this.compressCollection(collection));
+    }
+
+    CacheCompressionStatus compressCollection(String collection)
+    {
+        Progress progress = new Progress(collection);
+        this.compressionStatus.put(collection, progress.toStatus(CacheCompressionStatus.RUNNING, null));
+
+        LOG.info("Compressing the documents of " + collection + " (about " +
+            this.cacheDocumentRepository.count(collection) + " documents)");
+
+        try {
+            String afterId = null;
+            List<Document> batch;
+
+            while (!(batch = this.cacheDocumentRepository.findWithoutField(
+                collection, CompressedDocumentCodec.COMPRESSED_FIELD, afterId, this.batchSize)).isEmpty())
+            {
+                List<String> ids = new ArrayList<>();
+                batch.forEach(document -> ids.add(document.get("_id").toString()));
+                afterId = ids.get(ids.size() - 1);
+
+                long start = System.nanoTime();
+                this.cacheDocumentRepository.findAllById(collection, ids);
+                progress.expandedReadNanos += System.nanoTime() - start;
+
+                for (Document document: batch) {
+                    start = System.nanoTime();
+                    Document compressed = this.codec.compress(document);
+                    progress.compressNanos += System.nanoTime() - start;
+
+                    if (this.cacheDocumentRepository.replaceWithoutField(
+                        collection, CompressedDocumentCodec.COMPRESSED_FIELD, compressed))
+                    {
+                        progress.compressed++;
+                        progress.expandedBytes += CompressedDocumentCodec.encodedSize(document);
+                        progress.compressedBytes += CompressedDocumentCodec.encodedSize(compressed);
+                    }
+                    else {
+                        progress.skipped++;
+                    }
+                }
+
+                start = System.nanoTime();
+                for (Document document: this.cacheDocumentRepository.findAllById(collection, ids)) {
+                    if (CompressedDocumentCodec.isCompressed(document)) {
+                        CompressedDocumentCodec.decompress(document);
+                    }
+                }
+                progress.compressedReadNanos += System.nanoTime() - start;
+                progress.read += ids.size();
+
+                this.compressionStatus.put(collection, progress.toStatus(CacheCompressionStatus.RUNNING, null));
+
+                if (this.pauseMillis > 0) {
+                    // leave room for the regular traffic
+                    Thread.sleep(this.pauseMillis);
+                }
+            }
+
+            CacheCompressionStatus status = progress.toStatus(CacheCompressionStatus.COMPLETED, null);
+            this.compressionStatus.put(collection, status);
+
+            LOG.info("Compressed " + status.getDocumentsCompressed() + " documents of " + collection +
+                ", compression ratio " + status.getCompressionRatio());
+
+            return status;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.compressionStatus.put(collection, progress.toStatus(CacheCompressionStatus.FAILED, "Interrupted"));
+            throw new IllegalStateException("Interrupted while compressing " + collection);
+        }
+        catch (RuntimeException e) {
+            LOG.error("Failed to compress the documents of " + collection, e);
+            this.compressionStatus.put(collection, progress.toStatus(CacheCompressionStatus.FAILED, e.getMessage()));
+            throw e;
+        }
+    }
+
+    // only updated by the migration thread, published as status copies
+    private static class Progress
+    {
+        private final String collection;
+        private final Date startedAt = new Date();
+        private long compressed;
+        private long skipped;
+        private long read;
+        private long expandedBytes;
+        private long compressedBytes;
+        private long expandedReadNanos;
+        private long compressedReadNanos;
+        private long compressNanos;
+
+        private Progress(String collection)
+        {
+            this.collection = collection;
+        }
+
+        private CacheCompressionStatus toStatus(String state, String error)
+        {
+            CacheCompressionStatus status = new CacheCompressionStatus();
+            status.setCollection(this.collection);
+            status.setState(state);
+            status.setStartedAt(this.startedAt);
+            status.setFinishedAt(CacheCompressionStatus.RUNNING.equals(state) ? null : new Date());
+            status.setDocumentsCompressed(this.compressed);
+            status.setDocumentsSkipped(this.skipped);
+            status.setExpandedBytes(this.expandedBytes);
+            status.setCompressedBytes(this.compressedBytes);
+            status.setError(error);
+
+            if (this.compressedBytes > 0) {
+                status.setCompressionRatio((double) this.expandedBytes / this.compressedBytes);
+            }
+
+            if (this.read > 0) {
+                status.setExpandedReadMicros(this.expandedReadNanos / 1000.0 / this.read);
+                status.setCompressedReadMicros(this.compressedReadNanos / 1000.0 / this.read);
+                status.setCompressMicros(this.compressNanos / 1000.0 / this.read);
+            }
+
+            return status;
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package org.cbioportal.genome_nexus.service.internal;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.cbioportal.genome_nexus.model.CacheCollectionStats;
+import org.cbioportal.genome_nexus.persistence.CacheEvictionRepository;
+import org.cbioportal.genome_nexus.persistence.internal.IndexRepositoryImpl;
+import org.cbioportal.genome_nexus.persistence.internal.VariantAnnotationRepositoryImpl;
+import org.cbioportal.genome_nexus.service.CacheEvictionService;
+import org.cbioportal.genome_nexus.service.IndexSearchService;
+import org.cbioportal.genome_nexus.service.cached.CacheAccessTracker;
+import org.cbioportal.genome_nexus.service.cached.CacheStorage;
+import org.cbioportal.genome_nexus.service.cached.EmbeddedCacheStorage;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Evicts the documents of the cache collections in the background, in small batches with a pause in between:
+ *
+ * - documents fetched from another VEP version than the current one, if enabled
+ * - documents not accessed for more than the TTL
+ * - the least recently accessed documents, while a collection has more documents or data than allowed
+ *
+ * Documents cached before access tracking are considered accessed at the first run. The index documents of the
+ * evicted variants are evicted with them, and removed from the in memory search index.
+ */
+@Service
+public class CacheEvictionServiceImpl implements CacheEvictionService
+{
+    private static final Log LOG = LogFactory.getLog(CacheEvictionServiceImpl.class);
+
+    private final CacheEvictionRepository cacheEvictionRepository;
+    private final CacheAccessTracker cacheAccessTracker;
+    private final IndexSearchService indexSearchService;
+    private final ObjectProvider<CacheStorage> cacheStorage;
+    private final long ttlMillis;
+    private final long maxDocuments;
+    private final long maxSizeBytes;
+    private final boolean purgeOtherSourceVersions;
+    private final int batchSize;
+    private final long batchPauseMillis;
+    private final int maxBatchesPerRun;
+    private final long intervalMinutes;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cache-eviction");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, Evictions> evictions = new ConcurrentHashMap<>();
+
+    @Autowired
+    public CacheEvictionServiceImpl(
+        CacheEvictionRepository cacheEvictionRepository,
+        CacheAccessTracker cacheAccessTracker,
+        IndexSearchService indexSearchService,
+        ObjectProvider<CacheStorage> cacheStorage,
+        @Value("${annotation.cache.eviction.ttl_days:0}") long ttlDays,
+        @Value("${annotation.cache.eviction.max_documents:0}") long maxDocuments,
+        @Value("${annotation.cache.eviction.max_size_mb:0}") long maxSizeMb,
+        @Value("${annotation.cache.eviction.purge_other_source_versions:false}") boolean purgeOtherSourceVersions,
+        @Value("${annotation.cache.eviction.batch_size:500}") int batchSize,
+        @Value("${annotation.cache.eviction.batch_pause_millis:100}") long batchPauseMillis,
+        @Value("${annotation.cache.eviction.max_batches_per_run:100}") int maxBatchesPerRun,
+        @Value("${annotation.cache.eviction.interval_minutes:60}") long intervalMinutes
+    ) {
+        this.cacheEvictionRepository = cacheEvictionRepository;
+        this.cacheAccessTracker = cacheAccessTracker;
+        this.indexSearchService = indexSearchService;
+        this.cacheStorage = cacheStorage;
+        this.ttlMillis = TimeUnit.DAYS.toMillis(ttlDays);
+        this.maxDocuments = maxDocuments;
+        this.maxSizeBytes = maxSizeMb * 1024 * 1024;
+        this.purgeOtherSourceVersions = purgeOtherSourceVersions;
+        this.batchSize = batchSize;
+        this.batchPauseMillis = batchPauseMillis;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.intervalMinutes = intervalMinutes;
+
+        for (String collection: cacheAccessTracker.getCollections()) {
+            this.evictions.put(collection, new Evictions());
+        }
+    }
+
+    @PostConstruct
+    public void scheduleEviction()
+    {
+        boolean enabled = this.ttlMillis > 0 || this.maxDocuments > 0 || this.maxSizeBytes > 0 ||
+            this.purgeOtherSourceVersions;
+
+        if (enabled && this.intervalMinutes > 0) {
+            this.executor.scheduleWithFixedDelay(
+                this::evictCollections, this.intervalMinutes, this.intervalMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        this.executor.shutdownNow();
+    }
+
+    @Override
+    public List<CacheCollectionStats> getCacheStats()
+    {
+        List<CacheCollectionStats> stats = new ArrayList<>();
+
+        for (String collection: this.cacheAccessTracker.getCollections())
+        {
+            Evictions evictions = this.evictions.get(collection);
+            CacheCollectionStats collectionStats = new CacheCollectionStats();
+            collectionStats.setCollection(collection);
+            collectionStats.setEvictable(this.isEvictable(collection));
+            collectionStats.setHits(this.cacheAccessTracker.getHits(collection));
+            collectionStats.setHitAges(this.cacheAccessTracker.getHitAgeHistogram(collection));
+            collectionStats.setEvictedExpired(evictions.expired.sum());
+            collectionStats.setEvictedOverCapacity(evictions.overCapacity.sum());
+            collectionStats.setEvictedSourceVersion(evictions.sourceVersion.sum());
+            collectionStats.setSourceVersion(this.cacheAccessTracker.getSourceVersion(collection));
+            collectionStats.setLastEvictionAt(evictions.lastEvictionAt);
+            collectionStats.setError(evictions.error);
+
+            if (collectionStats.getEvictable()) {
+                try {
+                    collectionStats.setDocuments(this.cacheEvictionRepository.count(collection));
+                    collectionStats.setDataSizeBytes(this.cacheEvictionRepository.dataSize(collection));
+                }
+                catch (RuntimeException e) {
+                    collectionStats.setError(e.getMessage());
+                }
+            }
+
+            stats.add(collectionStats);
+        }
+
+        return stats;
+    }
+
+    @Override
+    public Future<List<CacheCollectionStats>> evict()
+    {
+        return this.executor.submit(() -> {
+            this.evictCollections();
+            return this.getCacheStats();
+        });
+    }
+
+    void evictCollections()
+    {
+        for (String collection: this.cacheAccessTracker.getCollections())
+        {
+            if (!this.isEvictable(collection)) {
+                continue;
+            }
+
+            Evictions evictions = this.evictions.get(collection);
+
+            try {
+                this.evictCollection(collection, evictions);
+                evictions.error = null;
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            catch (RuntimeException e) {
+                LOG.error("Failed to evict documents of " + collection, e);
+                evictions.error = e.getMessage();
+            }
+
+            evictions.lastEvictionAt = new Date();
+        }
+    }
+
+    private void evictCollection(String collection, Evictions evictions) throws InterruptedException
+    {
+        Date now = new Date();
+
+        // the documents cached before access tracking start aging now
+        this.runBatches(() -> this.cacheEvictionRepository.markUntracked(collection, now, this.batchSize));
+
+        String sourceVersion = this.cacheAccessTracker.getSourceVersion(collection);
+
+        if (this.purgeOtherSourceVersions && sourceVersion != null) {
+            evictions.sourceVersion.add(this.runBatches(() -> this.delete(collection,
+                this.cacheEvictionRepository.findIdsWithOtherSourceVersion(collection, sourceVersion, this.batchSize))));
+        }
+
+        if (this.ttlMillis > 0) {
+            Date expiredBefore = new Date(now.getTime() - this.ttlMillis);
+
+            evictions.expired.add(this.runBatches(() -> this.delete(collection,
+                this.cacheEvictionRepository.findIdsAccessedBefore(collection, expiredBefore, this.batchSize))));
+        }
+
+        long[] excess = {this.excessDocuments(collection)};
+
+        if (excess[0] > 0) {
+            evictions.overCapacity.add(this.runBatches(() -> {
+                int limit = (int) Math.min(this.batchSize, excess[0]);
+                int deleted = limit > 0 ? this.delete(collection,
+                    this.cacheEvictionRepository.findLeastRecentlyAccessedIds(collection, limit)) : 0;
+                excess[0] -= deleted;
+
+                return deleted;
+            }));
+        }
+    }
+
+    /**
+     * @return number of documents to evict to satisfy the document count and size limits
+     */
+    private long excessDocuments(String collection)
+    {
+        if (this.maxDocuments <= 0 && this.maxSizeBytes <= 0) {
+            return 0;
+        }
+
+        long documents = this.cacheEvictionRepository.count(collection);
+        long excess = this.maxDocuments > 0 ? documents - this.maxDocuments : 0;
+
+        if (this.maxSizeBytes > 0 && documents > 0) {
+            long size = this.cacheEvictionRepository.dataSize(collection);
+
+            if (size > this.maxSizeBytes) {
+                // assuming documents of average size
+                double averageSize = (double) size / documents;
+                excess = Math.max(excess, (long) Math.ceil((size - this.maxSizeBytes) / averageSize));
+            }
+        }
+
+        return excess;
+    }
+
+    /**
+     * Runs batches until one is incomplete or the number of batches per run is reached.
+     *
+     * @return number of processed documents
+     */
+    private long runBatches(IntSupplier batch) throws InterruptedException
+    {
+        long total = 0;
+
+        for (int i = 0; i < this.maxBatchesPerRun; i++)
+        {
+            int count = batch.getAsInt();
+            total += count;
+
+            if (count < this.batchSize) {
+                break;
+            }
+
+            if (this.batchPauseMillis > 0) {
+                Thread.sleep(this.batchPauseMillis);
+            }
+        }
+
+        return total;
+    }
+
+    private int delete(String collection, List<String> ids)
+    {
+        this.cacheEvictionRepository.deleteByIds(collection, ids);
+
+        if (VariantAnnotationRepositoryImpl.COLLECTION.equals(collection)) {
+            this.cacheEvictionRepository.deleteByIds(IndexRepositoryImpl.COLLECTION, ids);
+            ids.forEach(this.indexSearchService::remove);
+        }
+
+        return ids.size();
+    }
+
+    private boolean isEvictable(String collection)
+    {
+        CacheStorage storage = this.cacheStorage.getIfAvailable();
+
+        // the embedded storage has no eviction
+        return !(storage instanceof EmbeddedCacheStorage && storage.supports(collection));
+    }
+
+    private static class Evictions
+    {
+        private final LongAdder expired = new LongAdder();
+        private final LongAdder overCapacity = new LongAdder();
+        private final LongAdder sourceVersion = new LongAdder();
+        private volatile Date lastEvictionAt;
+        private volatile String error;
+    }
+}
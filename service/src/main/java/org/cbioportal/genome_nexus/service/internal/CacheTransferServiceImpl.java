@@ -0,0 +1,531 @@
+package org.cbioportal.genome_nexus.service.internal;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.bson.Document;
+import org.cbioportal.genome_nexus.model.CacheTransferReport;
+import org.cbioportal.genome_nexus.persistence.CacheDocumentRepository;
+import org.cbioportal.genome_nexus.persistence.CacheEvictionRepository;
+import org.cbioportal.genome_nexus.persistence.internal.IndexRepositoryImpl;
+import org.cbioportal.genome_nexus.persistence.internal.MyVariantInfoRepositoryImpl;
+import org.cbioportal.genome_nexus.persistence.internal.VariantAnnotationRepositoryImpl;
+import org.cbioportal.genome_nexus.service.CacheTransferService;
+import org.cbioportal.genome_nexus.service.cached.CacheArchiveReader;
+import org.cbioportal.genome_nexus.service.cached.CacheArchiveWriter;
+import org.cbioportal.genome_nexus.service.cached.CacheStorage;
+import org.cbioportal.genome_nexus.service.cached.CompressedDocumentCodec;
+import org.cbioportal.genome_nexus.service.cached.CompressedMongoCacheStorage;
+import org.cbioportal.genome_nexus.service.cached.EmbeddedCacheStorage;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Exports the cache collections page by page in id order, each page written as a block of the archive, and imports
+ * the blocks in parallel with unordered bulk writes. The progress of both is saved next to the archive after every
+ * block, so that an interrupted transfer is resumed.
+ *
+ * When both are exported, the index documents are exported with the VEP annotations they were derived from, so
+ * that the filters of the annotations apply to them as well.
+ *
+ * Documents are exported as stored, compressed or not, and imported in the format of the cache storage of the
+ * target: compressed for the collections of the compressed Mongo storage, expanded otherwise, and into the local
+ * files for the collections of the embedded storage.
+ */
+@Service
+public class CacheTransferServiceImpl implements CacheTransferService
+{
+    private static final Log LOG = LogFactory.getLog(CacheTransferServiceImpl.class);
+
+    private static final String EXPORT_PROGRESS_SUFFIX = ".export-progress";
+    private static final String IMPORT_PROGRESS_SUFFIX = ".import-progress";
+    private static final String POSITION = "position";
+    private static final String DOCUMENTS = "documents";
+    private static final String LAST_ID = "last_id.";
+    private static final String DONE = "done.";
+
+    private static final String VEP_COLLECTION = VariantAnnotationRepositoryImpl.COLLECTION;
+    private static final String INDEX_COLLECTION = IndexRepositoryImpl.COLLECTION;
+
+    // path of the HGNC symbols in the documents of each collection
+    private static final Map<String, String[]> GENE_FIELDS = new HashMap<>();
+
+    static {
+        GENE_FIELDS.put(VEP_COLLECTION, new String[] {"transcript_consequences", "gene_symbol"});
+        GENE_FIELDS.put(INDEX_COLLECTION, new String[] {"hugoSymbol"});
+        GENE_FIELDS.put(MyVariantInfoRepositoryImpl.COLLECTION, new String[] {"dbsnp", "gene", "symbol"});
+    }
+
+    private final CacheDocumentRepository cacheDocumentRepository;
+    private final CompressedDocumentCodec codec;
+    private final ObjectProvider<CacheStorage> cacheStorage;
+    private final int batchSize;
+    private final int importThreads;
+
+    @Autowired
+    public CacheTransferServiceImpl(
+        CacheDocumentRepository cacheDocumentRepository,
+        CompressedDocumentCodec codec,
+        ObjectProvider<CacheStorage> cacheStorage,
+        @Value("${annotation.cache.transfer.batch_size:1000}") int batchSize,
+        @Value("${annotation.cache.transfer.import_threads:4}") int importThreads
+    ) {
+        this.cacheDocumentRepository = cacheDocumentRepository;
+        this.codec = codec;
+        this.cacheStorage = cacheStorage;
+        this.batchSize = batchSize;
+        this.importThreads = importThreads;
+    }
+
+    @Override
+    public CacheTransferReport exportCache(
+        Path file,
+        List<String> collections,
+        String sourceVersion,
+        Set<String> genes,
+        boolean resume
+    ) throws IOException {
+        long start = System.currentTimeMillis();
+        Path progressFile = progressFile(file, EXPORT_PROGRESS_SUFFIX);
+        Properties progress = resume ? loadProgress(progressFile) : new Properties();
+        boolean resumed = !progress.isEmpty();
+        long previousDocuments = Long.parseLong(progress.getProperty(DOCUMENTS, "0"));
+        boolean indexWithAnnotations = collections.contains(VEP_COLLECTION) && collections.contains(INDEX_COLLECTION);
+        Transfer transfer = new Transfer();
+
+        try (CacheArchiveWriter writer = resumed ?
+            CacheArchiveWriter.append(file, Long.parseLong(progress.getProperty(POSITION))) :
+            CacheArchiveWriter.create(file))
+        {
+            for (String collection: collections)
+            {
+                if ((indexWithAnnotations && INDEX_COLLECTION.equals(collection)) ||
+                    progress.containsKey(DONE + collection))
+                {
+                    continue;
+                }
+
+                Document query = exportQuery(collection, sourceVersion, genes);
+                String afterId = progress.getProperty(LAST_ID + collection);
+                List<Document> page;
+
+                do {
+                    page = this.cacheDocumentRepository.findAfterId(collection, query, afterId, this.batchSize);
+
+                    if (page.isEmpty()) {
+                        break;
+                    }
+
+                    afterId = String.valueOf(page.get(page.size() - 1).get("_id"));
+
+                    List<Document> selected = transfer.filter(collection, page, sourceVersion, genes);
+                    transfer.write(writer, collection, selected);
+
+                    if (indexWithAnnotations && VEP_COLLECTION.equals(collection) && !selected.isEmpty()) {
+                        List<String> ids = selected.stream()
+                            .map(document -> String.valueOf(document.get("_id")))
+                            .collect(Collectors.toList());
+
+                        transfer.write(writer, INDEX_COLLECTION,
+                            this.cacheDocumentRepository.findAllById(INDEX_COLLECTION, ids));
+                    }
+
+                    progress.setProperty(LAST_ID + collection, afterId);
+                    saveExportProgress(progressFile, progress, writer, previousDocuments);
+                }
+                while (page.size() == this.batchSize);
+
+                progress.setProperty(DONE + collection, "true");
+                saveExportProgress(progressFile, progress, writer, previousDocuments);
+
+                LOG.info("Exported " + transfer.getDocuments(collection) + " documents of " + collection +
+                    " to " + file);
+            }
+
+            writer.finish(previousDocuments + writer.getDocuments());
+        }
+
+        Files.deleteIfExists(progressFile);
+
+        return transfer.report(file, resumed, start);
+    }
+
+    @Override
+    public CacheTransferReport importCache(
+        Path file,
+        List<String> collections,
+        String sourceVersion,
+        Set<String> genes,
+        boolean resume
+    ) throws IOException {
+        long start = System.currentTimeMillis();
+        Path progressFile = progressFile(file, IMPORT_PROGRESS_SUFFIX);
+        Properties progress = resume ? loadProgress(progressFile) : new Properties();
+        boolean resumed = !progress.isEmpty();
+        ImportProgress importProgress = new ImportProgress(progressFile,
+            Long.parseLong(progress.getProperty(POSITION, "0")));
+        Transfer transfer = new Transfer();
+
+        // imported documents start aging now, instead of being evicted for not being accessed in the source cache
+        Date importedAt = new Date();
+        CacheStorage storage = this.cacheStorage.getIfAvailable();
+
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(this.importThreads, runnable -> {
+            Thread thread = new Thread(runnable, "cache-import-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // limits the blocks read ahead of the bulk writes
+        Semaphore pendingBlocks = new Semaphore(this.importThreads * 2);
+        AtomicReference<Exception> failure = new AtomicReference<>();
+
+        try (CacheArchiveReader reader = new CacheArchiveReader(file, importProgress.getPosition()))
+        {
+            long sequence = 0;
+            CacheArchiveReader.Block block;
+
+            while (failure.get() == null && (block = reader.next()) != null)
+            {
+                long blockSequence = sequence++;
+                CacheArchiveReader.Block current = block;
+
+                if (!collections.contains(block.getCollection())) {
+                    importProgress.complete(blockSequence, block.getEnd());
+                    continue;
+                }
+
+                pendingBlocks.acquire();
+                executor.execute(() -> {
+                    try {
+                        List<Document> documents = transfer.filter(
+                            current.getCollection(), current.getDocuments(), sourceVersion, genes);
+
+                        for (Document document: documents) {
+                            if (document.containsKey(CacheEvictionRepository.ACCESSED_AT_FIELD)) {
+                                document.put(CacheEvictionRepository.ACCESSED_AT_FIELD, importedAt);
+                            }
+                        }
+
+                        this.store(storage, current.getCollection(), documents);
+                        transfer.count(current.getCollection(), documents.size(), current.getCompressedLength());
+                        importProgress.complete(blockSequence, current.getEnd());
+                    }
+                    catch (Exception e) {
+                        failure.compareAndSet(null, e);
+                    }
+                    finally {
+                        pendingBlocks.release();
+                    }
+                });
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Import of " + file + " interrupted");
+        }
+        finally {
+            executor.shutdown();
+            awaitTermination(executor);
+        }
+
+        if (failure.get() instanceof IOException) {
+            throw (IOException) failure.get();
+        }
+        else if (failure.get() != null) {
+            throw new IOException("Failed to import " + file + ": " + failure.get().getMessage(), failure.get());
+        }
+
+        Files.deleteIfExists(progressFile);
+
+        for (String collection: collections) {
+            LOG.info("Imported " + transfer.getDocuments(collection) + " documents of " + collection +
+                " from " + file);
+        }
+
+        return transfer.report(file, resumed, start);
+    }
+
+    private void store(CacheStorage storage, String collection, List<Document> documents)
+    {
+        boolean supported = storage != null && storage.supports(collection);
+
+        if (supported && storage instanceof EmbeddedCacheStorage) {
+            List<DBObject> dbObjects = new ArrayList<>(documents.size());
+
+            for (Document document: documents) {
+                dbObjects.add(new BasicDBObject(expand(document)));
+            }
+
+            storage.saveAll(collection, dbObjects);
+        }
+        else {
+            boolean compressed = supported && storage instanceof CompressedMongoCacheStorage;
+            List<Document> normalized = new ArrayList<>(documents.size());
+
+            for (Document document: documents)
+            {
+                if (CompressedDocumentCodec.isCompressed(document) == compressed) {
+                    normalized.add(document);
+                }
+                else {
+                    normalized.add(compressed ? this.codec.compress(document) : expand(document));
+                }
+            }
+
+            this.cacheDocumentRepository.upsertAll(collection, normalized);
+        }
+    }
+
+    private static Document expand(Document document)
+    {
+        Document expanded = CompressedDocumentCodec.expand(document);
+
+        // the access time of a compressed document is the top-level one, set by the import
+        if (expanded != document && document.containsKey(CacheEvictionRepository.ACCESSED_AT_FIELD)) {
+            expanded.put(CacheEvictionRepository.ACCESSED_AT_FIELD, document.get(CacheEvictionRepository.ACCESSED_AT_FIELD));
+        }
+
+        return expanded;
+    }
+
+    private static Document exportQuery(String collection, String sourceVersion, Set<String> genes)
+    {
+        Document query = new Document();
+
+        if (sourceVersion != null && VEP_COLLECTION.equals(collection)) {
+            query.append(CacheEvictionRepository.SOURCE_VERSION_FIELD, sourceVersion);
+        }
+
+        if (genes != null && GENE_FIELDS.containsKey(collection)) {
+            // the genes of compressed documents can only be checked once expanded
+            query.append("$or", Arrays.asList(
+                new Document(String.join(".", GENE_FIELDS.get(collection)), new Document("$in", new ArrayList<>(genes))),
+                new Document(CompressedDocumentCodec.COMPRESSED_FIELD, new Document("$exists", true))
+            ));
+        }
+
+        return query;
+    }
+
+    static boolean matches(String collection, Document document, String sourceVersion, Set<String> genes)
+    {
+        if (sourceVersion != null && VEP_COLLECTION.equals(collection) &&
+            !sourceVersion.equals(document.get(CacheEvictionRepository.SOURCE_VERSION_FIELD)))
+        {
+            return false;
+        }
+
+        if (genes != null && GENE_FIELDS.containsKey(collection)) {
+            Document expanded = CompressedDocumentCodec.isCompressed(document) ?
+                CompressedDocumentCodec.decompress(document) : document;
+
+            return hasGene(expanded, GENE_FIELDS.get(collection), 0, genes);
+        }
+
+        return true;
+    }
+
+    private static boolean hasGene(Object value, String[] path, int depth, Set<String> genes)
+    {
+        if (value instanceof List) {
+            for (Object item: (List<?>) value) {
+                if (hasGene(item, path, depth, genes)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        if (depth == path.length) {
+            return genes.contains(value);
+        }
+
+        return value instanceof Document && hasGene(((Document) value).get(path[depth]), path, depth + 1, genes);
+    }
+
+    private static Path progressFile(Path file, String suffix)
+    {
+        return file.resolveSibling(file.getFileName() + suffix);
+    }
+
+    private static Properties loadProgress(Path progressFile) throws IOException
+    {
+        Properties progress = new Properties();
+
+        if (Files.exists(progressFile)) {
+            try (InputStream input = Files.newInputStream(progressFile)) {
+                progress.load(input);
+            }
+        }
+
+        return progress;
+    }
+
+    private static void saveProgress(Path progressFile, Properties progress) throws IOException
+    {
+        Path temporary = progressFile.resolveSibling(progressFile.getFileName() + ".tmp");
+
+        try (OutputStream output = Files.newOutputStream(temporary)) {
+            progress.store(output, null);
+        }
+
+        Files.move(temporary, progressFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void saveExportProgress(
+        Path progressFile,
+        Properties progress,
+        CacheArchiveWriter writer,
+        long previousDocuments
+    ) throws IOException {
+        // the blocks must be on disk before the progress refers to them
+        writer.flush();
+
+        progress.setProperty(POSITION, String.valueOf(writer.getPosition()));
+        progress.setProperty(DOCUMENTS, String.valueOf(previousDocuments + writer.getDocuments()));
+        saveProgress(progressFile, progress);
+    }
+
+    private static void awaitTermination(ExecutorService executor)
+    {
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                LOG.info("Waiting for the pending cache imports");
+            }
+        }
+        catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Counters of a transfer, updated by the import threads.
+     */
+    private static class Transfer
+    {
+        private final Map<String, LongAdder> documents = new ConcurrentHashMap<>();
+        private final LongAdder documentsFiltered = new LongAdder();
+        private final LongAdder blocks = new LongAdder();
+        private final LongAdder compressedBytes = new LongAdder();
+
+        List<Document> filter(String collection, List<Document> documents, String sourceVersion, Set<String> genes)
+        {
+            List<Document> selected = documents;
+
+            if (sourceVersion != null || genes != null) {
+                selected = documents.stream()
+                    .filter(document -> matches(collection, document, sourceVersion, genes))
+                    .collect(Collectors.toList());
+            }
+
+            this.documentsFiltered.add(documents.size() - selected.size());
+
+            return selected;
+        }
+
+        void write(CacheArchiveWriter writer, String collection, List<Document> documents) throws IOException
+        {
+            if (documents.isEmpty()) {
+                return;
+            }
+
+            long position = writer.getPosition();
+            writer.writeBlock(collection, documents);
+            this.count(collection, documents.size(), writer.getPosition() - position);
+        }
+
+        void count(String collection, int documents, long compressedBytes)
+        {
+            this.documents.computeIfAbsent(collection, c -> new LongAdder()).add(documents);
+            this.blocks.increment();
+            this.compressedBytes.add(compressedBytes);
+        }
+
+        long getDocuments(String collection)
+        {
+            LongAdder documents = this.documents.get(collection);
+
+            return documents == null ? 0 : documents.sum();
+        }
+
+        CacheTransferReport report(Path file, boolean resumed, long start)
+        {
+            CacheTransferReport report = new CacheTransferReport();
+            report.setFile(file.toString());
+            report.setResumed(resumed);
+            report.setDocuments(this.documents.entrySet().stream().collect(
+                Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().sum(), (a, b) -> a, TreeMap::new)));
+            report.setDocumentsFiltered(this.documentsFiltered.sum());
+            report.setBlocks(this.blocks.sum());
+            report.setCompressedBytes(this.compressedBytes.sum());
+            report.setMillis(System.currentTimeMillis() - start);
+
+            return report;
+        }
+    }
+
+    /**
+     * Position of the first block not imported yet: blocks complete out of order, the position only moves past
+     * a block once every block before it is imported.
+     */
+    private static class ImportProgress
+    {
+        private final Path progressFile;
+        private final Map<Long, Long> completedEnds = new HashMap<>();
+        private long nextSequence;
+        private long position;
+
+        ImportProgress(Path progressFile, long position)
+        {
+            this.progressFile = progressFile;
+            this.position = position;
+        }
+
+        synchronized long getPosition()
+        {
+            return this.position;
+        }
+
+        synchronized void complete(long sequence, long end) throws IOException
+        {
+            this.completedEnds.put(sequence, end);
+
+            if (!this.completedEnds.containsKey(this.nextSequence)) {
+                return;
+            }
+
+            while (this.completedEnds.containsKey(this.nextSequence)) {
+                this.position = this.completedEnds.remove(this.nextSequence++);
+            }
+
+            Properties progress = new Properties();
+            progress.setProperty(POSITION, String.valueOf(this.position));
+            saveProgress(this.progressFile, progress);
+        }
+    }
+}
@@ -0,0 +1,515 @@
+package org.cbioportal.genome_nexus.service.internal;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.cbioportal.genome_nexus.component.annotation.NotationConverter;
+import org.cbioportal.genome_nexus.model.AnnotationField;
+import org.cbioportal.genome_nexus.model.CacheWarmingStatus;
+import org.cbioportal.genome_nexus.model.GenomicLocation;
+import org.cbioportal.genome_nexus.model.Hotspot;
+import org.cbioportal.genome_nexus.model.Index;
+import org.cbioportal.genome_nexus.model.SignalMutation;
+import org.cbioportal.genome_nexus.persistence.CacheEvictionRepository;
+import org.cbioportal.genome_nexus.persistence.HotspotRepository;
+import org.cbioportal.genome_nexus.persistence.IndexRepository;
+import org.cbioportal.genome_nexus.persistence.SignalMutationRepository;
+import org.cbioportal.genome_nexus.persistence.internal.VariantAnnotationRepositoryImpl;
+import org.cbioportal.genome_nexus.service.AnnotationAdmissionService;
+import org.cbioportal.genome_nexus.service.CacheWarmingService;
+import org.cbioportal.genome_nexus.service.SourceVersionService;
+import org.cbioportal.genome_nexus.service.VariantAnnotationService;
+import org.cbioportal.genome_nexus.service.cached.CacheAccessTracker;
+import org.cbioportal.genome_nexus.service.cached.CacheStorage;
+import org.cbioportal.genome_nexus.service.cached.CachedVariantAnnotationFetcher;
+import org.cbioportal.genome_nexus.service.cached.EmbeddedCacheStorage;
+import org.cbioportal.genome_nexus.service.exception.AnnotationAdmissionRejectedException;
+import org.cbioportal.genome_nexus.service.exception.ResourceMappingException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Annotates the variants most likely to be queried through the regular annotation service, so that they are cached
+ * before they are requested:
+ *
+ * - requests: the most recently accessed HGVS annotations (recorded by the cache access tracking)
+ * - files: variant lists, one variant per line (first tab separated column)
+ * - hotspots: the known variants (search index) of the cancer hotspot residues, most frequent first
+ * - signal: the SIGNAL germline mutations
+ *
+ * Batches go through the admission control as a separate client and are paced to a maximum rate, so that live
+ * requests come first. Variants cached from another VEP version are fetched again, and their cached annotation is only
+ * replaced once the new one is fetched. The most recently accessed annotations are checked periodically: the first
+ * check which finds outdated annotations after a VEP upgrade warms every source, the later checks only refresh the
+ * annotations which are still outdated.
+ *
+ * The requests source and the VEP upgrade check read the access time and the VEP version of the annotations cached in
+ * Mongo, they are disabled when the embedded cache storage keeps the annotations.
+ */
+@Service
+public class CacheWarmingServiceImpl implements CacheWarmingService
+{
+    private static final Log LOG = LogFactory.getLog(CacheWarmingServiceImpl.class);
+
+    public static final String REQUESTS = "requests";
+    public static final String FILES = "files";
+    public static final String HOTSPOTS = "hotspots";
+    public static final String SIGNAL = "signal";
+    public static final List<String> SOURCES = Arrays.asList(REQUESTS, FILES, HOTSPOTS, SIGNAL);
+
+    // the outdated annotations found by the VEP upgrade check, warmed before the sources
+    public static final String OUTDATED = "outdated";
+
+    private static final String CLIENT_ID = "cache-warming";
+    private static final String VEP_COLLECTION = VariantAnnotationRepositoryImpl.COLLECTION;
+
+    // single residue hotspots, for example V600
+    private static final Pattern RESIDUE = Pattern.compile("[A-Z*]\\d+");
+
+    private final VariantAnnotationService variantAnnotationService;
+    private final CachedVariantAnnotationFetcher cachedVariantAnnotationFetcher;
+    private final AnnotationAdmissionService annotationAdmissionService;
+    private final SourceVersionService sourceVersionService;
+    private final CacheEvictionRepository cacheEvictionRepository;
+    private final HotspotRepository hotspotRepository;
+    private final SignalMutationRepository signalMutationRepository;
+    private final IndexRepository indexRepository;
+    private final ObjectProvider<CacheStorage> cacheStorage;
+    private final NotationConverter notationConverter;
+    private final List<String> sources;
+    private final List<String> files;
+    private final List<AnnotationField> fields;
+    private final int recentRequests;
+    private final int maxVariants;
+    private final int batchSize;
+    private final double variantsPerSecond;
+    private final long intervalMinutes;
+    private final long upgradeCheckMinutes;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "cache-warming");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile CacheWarmingStatus warmingStatus;
+    private volatile String upgradeVepVersion;
+
+    @Autowired
+    public CacheWarmingServiceImpl(
+        VariantAnnotationService verifiedHgvsVariantAnnotationService,
+        CachedVariantAnnotationFetcher cachedVariantAnnotationFetcher,
+        AnnotationAdmissionService annotationAdmissionService,
+        SourceVersionService sourceVersionService,
+        CacheEvictionRepository cacheEvictionRepository,
+        HotspotRepository hotspotRepository,
+        SignalMutationRepository signalMutationRepository,
+        IndexRepository indexRepository,
+        ObjectProvider<CacheStorage> cacheStorage,
+        NotationConverter notationConverter,
+        @Value("${annotation.cache.warming.sources:requests,files,hotspots,signal}") String sources,
+        @Value("${annotation.cache.warming.files:}") String files,
+        @Value("${annotation.cache.warming.fields:}") String fields,
+        @Value("${annotation.cache.warming.recent_requests:10000}") int recentRequests,
+        @Value("${annotation.cache.warming.max_variants:100000}") int maxVariants,
+        @Value("${annotation.cache.warming.batch_size:200}") int batchSize,
+        @Value("${annotation.cache.warming.variants_per_second:50}") double variantsPerSecond,
+        @Value("${annotation.cache.warming.interval_minutes:0}") long intervalMinutes,
+        @Value("${annotation.cache.warming.upgrade_check_minutes:10}") long upgradeCheckMinutes
+    ) {
+        this.variantAnnotationService = verifiedHgvsVariantAnnotationService;
+        this.cachedVariantAnnotationFetcher = cachedVariantAnnotationFetcher;
+        this.annotationAdmissionService = annotationAdmissionService;
+        this.sourceVersionService = sourceVersionService;
+        this.cacheEvictionRepository = cacheEvictionRepository;
+        this.hotspotRepository = hotspotRepository;
+        this.signalMutationRepository = signalMutationRepository;
+        this.indexRepository = indexRepository;
+        this.cacheStorage = cacheStorage;
+        this.notationConverter = notationConverter;
+        this.sources = split(sources);
+        this.files = split(files);
+        this.fields = split(fields).stream()
+            .map(field -> AnnotationField.valueOf(field.toUpperCase()))
+            .collect(Collectors.toList());
+        this.recentRequests = recentRequests;
+        this.maxVariants = maxVariants;
+        this.batchSize = batchSize;
+        this.variantsPerSecond = variantsPerSecond;
+        this.intervalMinutes = intervalMinutes;
+        this.upgradeCheckMinutes = upgradeCheckMinutes;
+
+        this.validateSources(this.sources);
+    }
+
+    @PostConstruct
+    public void scheduleWarming()
+    {
+        if (!this.isAccessTracked() && (this.upgradeCheckMinutes > 0 || this.sources.contains(REQUESTS))) {
+            LOG.warn("The embedded cache storage keeps " + VEP_COLLECTION + ", the access time and the VEP version " +
+                "of its annotations are not tracked: the requests source and the VEP upgrade check are disabled");
+        }
+
+        if (this.intervalMinutes > 0) {
+            this.executor.scheduleWithFixedDelay(() -> this.warmVariants(this.sources, CacheWarmingStatus.SCHEDULED),
+                this.intervalMinutes, this.intervalMinutes, TimeUnit.MINUTES);
+        }
+
+        if (this.upgradeCheckMinutes > 0 && this.isAccessTracked()) {
+            this.executor.scheduleWithFixedDelay(this::checkVepUpgrade,
+                this.upgradeCheckMinutes, this.upgradeCheckMinutes, TimeUnit.MINUTES);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        this.executor.shutdownNow();
+    }
+
+    @Override
+    public CacheWarmingStatus getWarmingStatus()
+    {
+        return this.warmingStatus;
+    }
+
+    @Override
+    public Future<CacheWarmingStatus> warm(List<String> sources)
+    {
+        this.validateSources(sources);
+
+        return this.executor.submit(() -> this.warmVariants(sources, CacheWarmingStatus.MANUAL));
+    }
+
+    /**
+     * Warms the cache when the most recently accessed annotations were fetched from another VEP version. The sources
+     * are warmed once per VEP version, the outdated annotations are refreshed by every check which finds them.
+     */
+    void checkVepUpgrade()
+    {
+        if (!this.isAccessTracked()) {
+            return;
+        }
+
+        try {
+            String vepVersion = this.sourceVersionService.getVepVersion();
+
+            if (vepVersion == null) {
+                return;
+            }
+
+            List<String> outdated = this.findOutdated(vepVersion,
+                this.cacheEvictionRepository.findMostRecentlyAccessedIds(VEP_COLLECTION, this.recentRequests));
+
+            if (!outdated.isEmpty()) {
+                boolean upgraded = !vepVersion.equals(this.upgradeVepVersion);
+                this.upgradeVepVersion = vepVersion;
+
+                LOG.info(outdated.size() + " recently requested annotations were fetched from another VEP version than " +
+                    vepVersion + (upgraded ? ", warming the cache" : ", refreshing them"));
+                this.warmVariants(upgraded ? this.sources : Collections.emptyList(), outdated,
+                    CacheWarmingStatus.VEP_UPGRADE);
+            }
+        }
+        catch (RuntimeException e) {
+            LOG.warn("Failed to check the VEP version of the cache: " + e.getMessage());
+        }
+    }
+
+    CacheWarmingStatus warmVariants(List<String> sources, String trigger)
+    {
+        return this.warmVariants(sources, Collections.emptyList(), trigger);
+    }
+
+    /**
+     * @param outdated variants warmed before the variants of the sources
+     */
+    CacheWarmingStatus warmVariants(List<String> sources, List<String> outdated, String trigger)
+    {
+        Progress progress = new Progress(trigger, this.sourceVersionService.getVepVersion());
+        this.warmingStatus = progress.toStatus(CacheWarmingStatus.RUNNING, null);
+
+        try {
+            Set<String> variants = new LinkedHashSet<>(outdated);
+
+            if (!outdated.isEmpty()) {
+                progress.variantsBySource.put(OUTDATED, (long) variants.size());
+            }
+
+            for (String source: sources) {
+                int selected = variants.size();
+                this.collectVariants(source, variants);
+                progress.variantsBySource.put(source, (long) (variants.size() - selected));
+            }
+
+            progress.total = variants.size();
+            this.warmingStatus = progress.toStatus(CacheWarmingStatus.RUNNING, null);
+
+            LOG.info("Warming the cache with " + variants.size() + " variants " + progress.variantsBySource);
+
+            List<String> batch = new ArrayList<>(this.batchSize);
+
+            for (String variant: variants) {
+                batch.add(variant);
+
+                if (batch.size() == this.batchSize) {
+                    this.warmBatch(batch, progress);
+                    batch = new ArrayList<>(this.batchSize);
+                }
+            }
+
+            if (!batch.isEmpty()) {
+                this.warmBatch(batch, progress);
+            }
+
+            LOG.info("Warmed the cache with " + progress.warmed + " variants, " + progress.refreshed +
+                " refreshed, " + progress.failed + " failed");
+            this.warmingStatus = progress.toStatus(CacheWarmingStatus.COMPLETED, null);
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            this.warmingStatus = progress.toStatus(CacheWarmingStatus.FAILED, "interrupted");
+        }
+        catch (RuntimeException e) {
+            LOG.error("Failed to warm the cache", e);
+            this.warmingStatus = progress.toStatus(CacheWarmingStatus.FAILED, e.getMessage());
+        }
+
+        return this.warmingStatus;
+    }
+
+    private void collectVariants(String source, Set<String> variants)
+    {
+        Stream<String> selected;
+
+        switch (source) {
+            case REQUESTS:
+                if (!this.isAccessTracked()) {
+                    LOG.warn("Skipping the requests source, the embedded cache storage does not track the " +
+                        "access time of " + VEP_COLLECTION);
+                    selected = Stream.empty();
+                    break;
+                }
+
+                // the dbSNP id and region annotations share the collection, only HGVS variants are warmed
+                selected = this.cacheEvictionRepository.findMostRecentlyAccessedIds(VEP_COLLECTION, this.recentRequests)
+                    .stream()
+                    .filter(CacheWarmingServiceImpl::isHgvsFormat);
+                break;
+            case FILES:
+                selected = this.files.stream().flatMap(CacheWarmingServiceImpl::readVariants);
+                break;
+            case HOTSPOTS:
+                selected = this.hotspotRepository.findAll().stream()
+                    .filter(hotspot -> hotspot.getHugoSymbol() != null && hotspot.getResidue() != null &&
+                        RESIDUE.matcher(hotspot.getResidue()).matches())
+                    .sorted(Comparator.comparing(Hotspot::getTumorCount,
+                        Comparator.nullsLast(Comparator.reverseOrder())))
+                    .flatMap(hotspot -> this.indexRepository.findByHugoSymbolAndHgvspShortRegex(
+                        hotspot.getHugoSymbol(), "^p\\." + hotspot.getResidue() + "[^0-9]").stream())
+                    .map(Index::getvariant);
+                break;
+            case SIGNAL:
+                selected = this.signalMutationRepository.findAll().stream().map(this::toHgvs);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown cache warming source " + source);
+        }
+
+        Iterator<String> iterator = selected.filter(Objects::nonNull).iterator();
+
+        while (iterator.hasNext() && variants.size() < this.maxVariants) {
+            variants.add(iterator.next());
+        }
+    }
+
+    private void warmBatch(List<String> batch, Progress progress) throws InterruptedException
+    {
+        long start = System.nanoTime();
+
+        // the warmed variants are not requested, they must not look recently accessed to the eviction
+        CacheAccessTracker.startBackgroundAccess();
+
+        try {
+            try (AnnotationAdmissionService.Admission admission = this.admit(batch.size())) {
+                // the cached fetcher would return the annotations of the previous VEP version
+                if (progress.sourceVersion != null && this.isAccessTracked()) {
+                    List<String> outdated = this.findOutdated(progress.sourceVersion, batch);
+
+                    if (!outdated.isEmpty()) {
+                        progress.refreshed += this.cachedVariantAnnotationFetcher.refresh(outdated).size();
+                    }
+                }
+
+                // also updates the index documents of the refreshed annotations
+                this.variantAnnotationService.getAnnotations(batch, null, null, this.fields);
+            }
+
+            progress.warmed += batch.size();
+        }
+        catch (ResourceMappingException | RuntimeException e) {
+            LOG.warn("Failed to warm the cache with " + batch.size() + " variants: " + e.getMessage());
+            progress.failed += batch.size();
+        }
+        finally {
+            CacheAccessTracker.clearBackgroundAccess();
+        }
+
+        this.warmingStatus = progress.toStatus(CacheWarmingStatus.RUNNING, null);
+
+        if (this.variantsPerSecond > 0) {
+            long minNanos = (long) (batch.size() * TimeUnit.SECONDS.toNanos(1) / this.variantsPerSecond);
+            long remainingNanos = minNanos - (System.nanoTime() - start);
+
+            if (remainingNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(remainingNanos);
+            }
+        }
+    }
+
+    private boolean isAccessTracked()
+    {
+        CacheStorage storage = this.cacheStorage.getIfAvailable();
+
+        // the embedded storage has no access time nor source version
+        return !(storage instanceof EmbeddedCacheStorage && storage.supports(VEP_COLLECTION));
+    }
+
+    /**
+     * @return the HGVS variants cached from another VEP version
+     */
+    private List<String> findOutdated(String vepVersion, List<String> variants)
+    {
+        return this.cacheEvictionRepository.findIdsWithOtherSourceVersion(VEP_COLLECTION, vepVersion, variants)
+            .stream()
+            .filter(CacheWarmingServiceImpl::isHgvsFormat)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Waits for the admission control, retrying as long as the batch is rejected.
+     */
+    private AnnotationAdmissionService.Admission admit(int variantCount) throws InterruptedException
+    {
+        while (true) {
+            try {
+                return this.annotationAdmissionService.admit(CLIENT_ID, variantCount, this.fields);
+            }
+            catch (AnnotationAdmissionRejectedException e) {
+                TimeUnit.SECONDS.sleep(Math.max(e.getRetryAfterSeconds(), 1));
+            }
+        }
+    }
+
+    private String toHgvs(SignalMutation mutation)
+    {
+        if (mutation.getChromosome() == null || mutation.getStartPosition() == null ||
+            mutation.getEndPosition() == null || mutation.getReferenceAllele() == null ||
+            mutation.getVariantAllele() == null)
+        {
+            return null;
+        }
+
+        GenomicLocation genomicLocation = new GenomicLocation();
+        genomicLocation.setChromosome(mutation.getChromosome());
+        genomicLocation.setStart(mutation.getStartPosition().intValue());
+        genomicLocation.setEnd(mutation.getEndPosition().intValue());
+        genomicLocation.setReferenceAllele(mutation.getReferenceAllele());
+        genomicLocation.setVariantAllele(mutation.getVariantAllele());
+
+        return this.notationConverter.genomicToHgvs(genomicLocation);
+    }
+
+    private static Stream<String> readVariants(String file)
+    {
+        try {
+            return Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8).stream()
+                .map(line -> line.split("\t", 2)[0].trim())
+                .filter(variant -> !variant.isEmpty() && !variant.startsWith("#"));
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the variants of " + file, e);
+        }
+    }
+
+    private void validateSources(List<String> sources)
+    {
+        for (String source: sources) {
+            if (!SOURCES.contains(source)) {
+                throw new IllegalArgumentException("Unknown cache warming source " + source + ", expected one of " +
+                    SOURCES);
+            }
+        }
+    }
+
+    private static boolean isHgvsFormat(String variant)
+    {
+        // same check as SelectedAnnotationServiceImpl
+        return variant.contains("g.");
+    }
+
+    private static List<String> split(String values)
+    {
+        return Stream.of(values.split(","))
+            .map(String::trim)
+            .filter(value -> !value.isEmpty())
+            .collect(Collectors.toList());
+    }
+
+    private static class Progress
+    {
+        private final String trigger;
+        private final String sourceVersion;
+        private final Date startedAt = new Date();
+        private final long startNanos = System.nanoTime();
+        private final Map<String, Long> variantsBySource = new LinkedHashMap<>();
+        private long total;
+        private long warmed;
+        private long refreshed;
+        private long failed;
+
+        Progress(String trigger, String sourceVersion)
+        {
+            this.trigger = trigger;
+            this.sourceVersion = sourceVersion;
+        }
+
+        CacheWarmingStatus toStatus(String state, String error)
+        {
+            double seconds = (System.nanoTime() - this.startNanos) / 1e9;
+
+            CacheWarmingStatus status = new CacheWarmingStatus();
+            status.setState(state);
+            status.setTrigger(this.trigger);
+            status.setStartedAt(this.startedAt);
+            status.setFinishedAt(CacheWarmingStatus.RUNNING.equals(state) ? null : new Date());
+            status.setSourceVersion(this.sourceVersion);
+            status.setVariantsBySource(new LinkedHashMap<>(this.variantsBySource));
+            status.setVariantsTotal(this.total);
+            status.setVariantsWarmed(this.warmed);
+            status.setVariantsRefreshed(this.refreshed);
+            status.setVariantsFailed(this.failed);
+            status.setVariantsPerSecond(seconds > 0 ? this.warmed / seconds : null);
+            status.setError(error);
+
+            return status;
+        }
+    }
+}
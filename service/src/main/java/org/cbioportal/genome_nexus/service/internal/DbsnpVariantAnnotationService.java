@@ -65,6 +65,7 @@ public class DbsnpVariantAnnotationService extends BaseVariantAnnotationServiceI
         @Lazy OncokbService oncokbService,
         @Lazy ClinvarVariantAnnotationService clinvarVariantAnnotationService,
         IndexRepository indexRepository,
+        @Lazy IndexSearchService indexSearchService,
         ProteinChangeResolver proteinChangeResolver,
         HugoGeneSymbolResolver hugoGeneSymbolResolver
     ) {
@@ -81,6 +82,7 @@ public class DbsnpVariantAnnotationService extends BaseVariantAnnotationServiceI
             oncokbService,
             clinvarVariantAnnotationService,
             indexRepository,
+            indexSearchService,
             proteinChangeResolver,
             hugoGeneSymbolResolver
         );
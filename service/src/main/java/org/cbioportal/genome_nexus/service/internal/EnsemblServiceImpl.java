@@ -4,6 +4,7 @@ import org.cbioportal.genome_nexus.model.EnsemblGene;
 import org.cbioportal.genome_nexus.model.EnsemblTranscript;
 import org.cbioportal.genome_nexus.persistence.EnsemblRepository;
 import org.cbioportal.genome_nexus.service.EnsemblService;
+import org.cbioportal.genome_nexus.service.ReloadableDataset;
 import org.cbioportal.genome_nexus.service.exception.EnsemblTranscriptNotFoundException;
 import org.cbioportal.genome_nexus.service.exception.NoEnsemblGeneIdForEntrezGeneIdException;
 import org.cbioportal.genome_nexus.service.exception.NoEnsemblGeneIdForHugoSymbolException;
@@ -20,10 +21,10 @@ import java.util.Map;
 import java.util.Set;
 
 @Service
-public class EnsemblServiceImpl implements EnsemblService
+public class EnsemblServiceImpl implements EnsemblService, ReloadableDataset
 {
     private final EnsemblRepository ensemblRepository;
-    private Map<String, String> transcriptToUniprotMap = new HashMap<>();
+    private volatile Map<String, String> transcriptToUniprotMap;
     private static final Log LOG = LogFactory.getLog(SignalQueryServiceImpl.class);
 
     @Autowired
@@ -68,18 +69,8 @@ public class EnsemblServiceImpl implements EnsemblService
 
     @Override
     public List<EnsemblGene> getCanonicalEnsemblGeneIdByHugoSymbols(List<String> hugoSymbols) {
-        List<EnsemblGene> ensemblGenes = new ArrayList<>();
-
-        for (String hugoSymbol : hugoSymbols)
-        {
-            try {
-                ensemblGenes.add(this.getCanonicalEnsemblGeneIdByHugoSymbol(hugoSymbol));
-            } catch (NoEnsemblGeneIdForHugoSymbolException e) {
-                // ignore the exception for this hugo symbol
-            }
-        }
-
-        return ensemblGenes;
+        // symbols without a canonical gene are ignored
+        return this.ensemblRepository.getCanonicalEnsemblGeneIdsByHugoSymbols(hugoSymbols);
     }
 
     @Override
@@ -113,18 +104,8 @@ public class EnsemblServiceImpl implements EnsemblService
 
     @Override
     public List<EnsemblTranscript> getCanonicalEnsemblTranscriptsByHugoSymbols(List<String> hugoSymbols, String isoformOverrideSource) {
-        List<EnsemblTranscript> transcripts = new ArrayList<>();
-
-        for (String hugoSymbol : hugoSymbols)
-        {
-            try {
-                transcripts.add(this.getCanonicalEnsemblTranscriptByHugoSymbol(hugoSymbol, isoformOverrideSource));
-            } catch (EnsemblTranscriptNotFoundException e) {
-                // ignore the exception for this transcript
-            }
-        }
-
-        return transcripts;
+        // symbols without a canonical transcript are ignored
+        return this.ensemblRepository.findCanonicalTranscriptsByHugoSymbols(hugoSymbols, isoformOverrideSource);
     }
 
     @Override
@@ -199,11 +180,23 @@ public class EnsemblServiceImpl implements EnsemblService
         return this.ensemblRepository.findCanonicalTranscriptIdsBySource(isoformOverrideSource);
     }
 
+    @Override
+    public String getDatasetName() {
+        return "ensembl";
+    }
+
+    @Override
+    public void reloadDataset() {
+        this.ensemblRepository.reloadCanonicalTranscripts();
+        this.transcriptToUniprotMap = this.buildMap();
+    }
+
     private Map<String, String> buildMap()
     {
+        Map<String, String> transcriptToUniprotMap = new HashMap<>();
         List<EnsemblTranscript> transcripts = this.ensemblRepository.findAll();
         for (EnsemblTranscript transcript : transcripts) {
-            this.transcriptToUniprotMap.put(transcript.getTranscriptId(), transcript.getUniprotId());
+            transcriptToUniprotMap.put(transcript.getTranscriptId(), transcript.getUniprotId());
         }
         return transcriptToUniprotMap;
     }
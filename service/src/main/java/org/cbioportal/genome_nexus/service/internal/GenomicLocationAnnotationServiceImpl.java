@@ -37,17 +37,16 @@ import org.apache.commons.logging.LogFactory;
 import org.cbioportal.genome_nexus.model.*;
 import org.cbioportal.genome_nexus.service.*;
 
+import org.cbioportal.genome_nexus.component.annotation.ConvertedGenomicLocation;
 import org.cbioportal.genome_nexus.component.annotation.NotationConverter;
 import org.cbioportal.genome_nexus.service.cached.CachedVariantRegionAnnotationFetcher;
 import org.cbioportal.genome_nexus.service.exception.VariantAnnotationNotFoundException;
 import org.cbioportal.genome_nexus.service.exception.VariantAnnotationWebServiceException;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.stereotype.Service;
-import com.google.gson.Gson;
 import org.springframework.beans.factory.annotation.*;
 
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 public class GenomicLocationAnnotationServiceImpl implements GenomicLocationAnnotationService
@@ -59,7 +58,7 @@ public class GenomicLocationAnnotationServiceImpl implements GenomicLocationAnno
     private final VariantAnnotationService variantAnnotationService;
     private final GenomicLocationToVariantFormat genomicLocationToVariantFormat;
     private final GenomicLocationStringToVariantFormat genomicLocationStringToVariantFormat;
-    private final GenomicLocationsToVariantFormats genomicLocationsToVariantFormats;
+    private final NotationConverter.VariantNotation variantNotation;
 
     @Autowired
     public GenomicLocationAnnotationServiceImpl(CachedVariantRegionAnnotationFetcher cachedVariantRegionAnnotationFetcher,
@@ -76,12 +75,12 @@ public class GenomicLocationAnnotationServiceImpl implements GenomicLocationAnno
             this.variantAnnotationService = regionVariantAnnotationService;
             this.genomicLocationToVariantFormat = notationConverter::genomicToEnsemblRestRegion;
             this.genomicLocationStringToVariantFormat = notationConverter::genomicToEnsemblRestRegion;
-            this.genomicLocationsToVariantFormats = notationConverter::genomicToEnsemblRestRegion;
+            this.variantNotation = NotationConverter.VariantNotation.ENSEMBL_REST_REGION;
         } else {
             this.variantAnnotationService = verifiedHgvsVariantAnnotationService;
             this.genomicLocationToVariantFormat = notationConverter::genomicToHgvs;
             this.genomicLocationStringToVariantFormat = notationConverter::genomicToHgvs;
-            this.genomicLocationsToVariantFormats = notationConverter::genomicToHgvs;
+            this.variantNotation = NotationConverter.VariantNotation.HGVS;
         }
     }
 
@@ -108,33 +107,11 @@ public class GenomicLocationAnnotationServiceImpl implements GenomicLocationAnno
     @Override
     public List<VariantAnnotation> getAnnotations(List<GenomicLocation> genomicLocations)
     {
-        Map<String, Set<String>> convertedVarsToOrigVarQueryMap = mapConvertedVarsToOrigVarQuery(genomicLocations);
-        List<VariantAnnotation> variantAnnotations = new ArrayList<>();
-        this.variantAnnotationService.getAnnotations(
-                this.genomicLocationsToVariantFormats.convert(genomicLocations)
-        ).stream().forEachOrdered((a) -> {
-            if (convertedVarsToOrigVarQueryMap.get(a.getVariant()).size() == 1) {
-                String origVarQuery = convertedVarsToOrigVarQueryMap.get(a.getVariant()).toArray(new String[0])[0];
-                a.setOriginalVariantQuery(origVarQuery);
-                variantAnnotations.add(a);
-            }
-            else {
-                for (String origVarQuery : convertedVarsToOrigVarQueryMap.get(a.getVariant())) {
-                    // if query multiple "identical" variants
-                    // for example "12,25398284,25398284,C,A" and "12,25398283,25398284,AC,AA"
-                    // both variants should be returned
-                    Gson gson = new Gson();
-                    VariantAnnotation tempAnnotation = gson.fromJson(gson.toJson(a), VariantAnnotation.class);
-                    tempAnnotation.setOriginalVariantQuery(origVarQuery);
-                    variantAnnotations.add(tempAnnotation);
-                }
-            }
-        });
-        variantAnnotations.stream().map((VariantAnnotation variantAnnotation) -> {
-            variantAnnotation.setGenomicLocationExplanation(this.notationConverter.getGenomicLocationExplanation(variantAnnotation.getOriginalVariantQuery()));
-            return variantAnnotation;
-        }).collect(Collectors.toList());
-        return variantAnnotations;
+        List<ConvertedGenomicLocation> conversions = this.convertGenomicLocations(genomicLocations);
+        return this.mapToOriginalVariantQueries(
+            this.variantAnnotationService.getAnnotations(this.getVariants(conversions)),
+            conversions
+        );
     }
 
     @Override
@@ -160,14 +137,74 @@ public class GenomicLocationAnnotationServiceImpl implements GenomicLocationAnno
                                                   Map<String, String> token,
                                                   List<AnnotationField> fields)
     {
-        Map<String, Set<String>> convertedVarsToOrigVarQueryMap = mapConvertedVarsToOrigVarQuery(genomicLocations);
-        List<VariantAnnotation> variantAnnotations = new ArrayList<>();
-        this.variantAnnotationService.getAnnotations(
-                this.genomicLocationsToVariantFormats.convert(genomicLocations),
+        List<ConvertedGenomicLocation> conversions = this.convertGenomicLocations(genomicLocations);
+        return this.mapToOriginalVariantQueries(
+            this.variantAnnotationService.getAnnotations(
+                this.getVariants(conversions),
                 isoformOverrideSource,
                 token,
                 fields
-        ).stream().forEachOrdered((a) -> {
+            ),
+            conversions
+        );
+    }
+
+    @Override
+    public List<VariantAnnotation> getAnnotations(List<GenomicLocation> genomicLocations,
+                                                  String isoformOverrideSource,
+                                                  Map<String, String> token,
+                                                  List<AnnotationField> fields,
+                                                  AnnotationProjection projection)
+    {
+        List<ConvertedGenomicLocation> conversions = this.convertGenomicLocations(genomicLocations);
+        return this.mapToOriginalVariantQueries(
+            this.variantAnnotationService.getAnnotations(
+                this.getVariants(conversions),
+                isoformOverrideSource,
+                token,
+                fields,
+                projection
+            ),
+            conversions
+        );
+    }
+
+    private List<ConvertedGenomicLocation> convertGenomicLocations(List<GenomicLocation> genomicLocations)
+    {
+        // each location is normalized only once for the variant notation and the explanation
+        List<ConvertedGenomicLocation> conversions =
+            this.notationConverter.convertGenomicLocations(genomicLocations, this.variantNotation);
+        for (int i = 0; i < genomicLocations.size(); i++) {
+            genomicLocations.get(i).setOriginalInput(conversions.get(i).getOriginalInput());
+        }
+        return conversions;
+    }
+
+    private List<String> getVariants(List<ConvertedGenomicLocation> conversions)
+    {
+        List<String> variants = new ArrayList<>();
+        for (ConvertedGenomicLocation conversion : conversions) {
+            if (conversion.getVariant() != null) {
+                variants.add(conversion.getVariant());
+            }
+        }
+        return variants;
+    }
+
+    private List<VariantAnnotation> mapToOriginalVariantQueries(List<VariantAnnotation> annotations,
+                                                                List<ConvertedGenomicLocation> conversions)
+    {
+        Map<String, Set<String>> convertedVarsToOrigVarQueryMap = new HashMap<>();
+        Map<String, String> explanationByOrigVarQuery = new HashMap<>();
+        for (ConvertedGenomicLocation conversion : conversions) {
+            // If there are multiple identical genomic locations in the "genomicLocations" list
+            // For example: 12,25398284,25398284,C,A and 12,25398283,25398284,AC,AA
+            // We should keep all records in the "convertedVarsToOrigVarQueryMap"
+            convertedVarsToOrigVarQueryMap.computeIfAbsent(conversion.getVariant(), k -> new HashSet<>()).add(conversion.getOriginalInput());
+            explanationByOrigVarQuery.put(conversion.getOriginalInput(), conversion.getExplanation());
+        }
+        List<VariantAnnotation> variantAnnotations = new ArrayList<>();
+        annotations.stream().forEachOrdered((a) -> {
             if (convertedVarsToOrigVarQueryMap.get(a.getVariant()).size() == 1) {
                 String origVarQuery = convertedVarsToOrigVarQueryMap.get(a.getVariant()).toArray(new String[0])[0];
                 a.setOriginalVariantQuery(origVarQuery);
@@ -177,33 +214,18 @@ public class GenomicLocationAnnotationServiceImpl implements GenomicLocationAnno
                 for (String origVarQuery : convertedVarsToOrigVarQueryMap.get(a.getVariant())) {
                     // if query multiple "identical" variants
                     // for example "12,25398284,25398284,C,A" and "12,25398283,25398284,AC,AA"
-                    // both variants should be returned
-                    Gson gson = new Gson();
-                    VariantAnnotation tempAnnotation = gson.fromJson(gson.toJson(a), VariantAnnotation.class);
+                    // both variants should be returned, sharing the same nested annotations
+                    VariantAnnotation tempAnnotation = new VariantAnnotation(a);
                     tempAnnotation.setOriginalVariantQuery(origVarQuery);
                     variantAnnotations.add(tempAnnotation);
                 }
             }
         });
-        variantAnnotations.stream().map((VariantAnnotation variantAnnotation) -> {
-            variantAnnotation.setGenomicLocationExplanation(this.notationConverter.getGenomicLocationExplanation(variantAnnotation.getOriginalVariantQuery()));
-            return variantAnnotation;
-        }).collect(Collectors.toList());
+        variantAnnotations.forEach(variantAnnotation -> variantAnnotation.setGenomicLocationExplanation(
+            explanationByOrigVarQuery.get(variantAnnotation.getOriginalVariantQuery())));
         return variantAnnotations;
     }
 
-    private Map<String, Set<String>> mapConvertedVarsToOrigVarQuery(List<GenomicLocation> genomicLocations) {
-        Map<String, Set<String>> convertedVarsToOrigVarQueryMap = new HashMap<>();
-        genomicLocations.forEach((gl) -> {
-            gl.setOriginalInput(gl.toString());
-            // If there are multiple identical genomic locations in the "genomicLocations" list
-            // For example: 12,25398284,25398284,C,A and 12,25398283,25398284,AC,AA
-            // We should keep all records in the "convertedVarsToOrigVarQueryMap"
-            convertedVarsToOrigVarQueryMap.computeIfAbsent(this.genomicLocationToVariantFormat.convert(gl), k -> new HashSet<>()).add(gl.getOriginalInput());
-        });
-        return convertedVarsToOrigVarQueryMap;
-    }
-
     @FunctionalInterface
     private static interface GenomicLocationToVariantFormat {
         String convert(GenomicLocation genomicLocation);
@@ -214,11 +236,6 @@ public class GenomicLocationAnnotationServiceImpl implements GenomicLocationAnno
         String convert(String genomicLocation);
     }
 
-    @FunctionalInterface
-    private static interface GenomicLocationsToVariantFormats {
-        List<String> convert(List<GenomicLocation> genomicLocation);
-    }
-
     @Override
     public String getVariantFormat(GenomicLocation genomicLocation) {
         return genomicLocationToVariantFormat.convert(genomicLocation);
@@ -67,6 +67,7 @@ public class HgvsVariantAnnotationService extends BaseVariantAnnotationServiceIm
         @Lazy OncokbService oncokbService,
         @Lazy ClinvarVariantAnnotationService clinvarVariantAnnotationService,
         IndexRepository indexRepository,
+        @Lazy IndexSearchService indexSearchService,
         ProteinChangeResolver proteinChangeResolver,
         HugoGeneSymbolResolver hugoGeneSymbolResolver
     ) {
@@ -83,6 +84,7 @@ public class HgvsVariantAnnotationService extends BaseVariantAnnotationServiceIm
             oncokbService,
             clinvarVariantAnnotationService,
             indexRepository,
+            indexSearchService,
             proteinChangeResolver,
             hugoGeneSymbolResolver
         );
@@ -3,16 +3,21 @@ package org.cbioportal.genome_nexus.service.internal;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Stream;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
+import org.cbioportal.genome_nexus.component.search.IndexSearchEngine;
 import org.cbioportal.genome_nexus.model.Index;
 import org.cbioportal.genome_nexus.model.IndexSearch;
 import org.cbioportal.genome_nexus.model.IndexSearchType;
 import org.cbioportal.genome_nexus.persistence.IndexRepository;
 import org.cbioportal.genome_nexus.service.IndexSearchService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+
 @Service
 public class IndexSearchServiceImpl implements IndexSearchService{
     private static final Log LOG = LogFactory.getLog(IndexSearchServiceImpl.class);
@@ -21,10 +26,46 @@ public class IndexSearchServiceImpl implements IndexSearchService{
     public static final Integer QUERY_MIN_LENGTH = 2;
 
     private final IndexRepository indexRepository;
+    private final IndexSearchEngine searchEngine;
+    private final boolean inMemorySearchEnabled;
+
+    // set once the in memory index is fully loaded, until then we search the DB
+    private volatile boolean inMemorySearchReady = false;
 
     @Autowired
-    public IndexSearchServiceImpl(IndexRepository indexRepository) {
+    public IndexSearchServiceImpl(
+        IndexRepository indexRepository,
+        IndexSearchEngine searchEngine,
+        @Value("${search.index.in_memory:false}") Boolean inMemorySearchEnabled
+    ) {
         this.indexRepository = indexRepository;
+        this.searchEngine = searchEngine;
+        this.inMemorySearchEnabled = Boolean.TRUE.equals(inMemorySearchEnabled);
+    }
+
+    @PostConstruct
+    public void startLoading()
+    {
+        if (this.inMemorySearchEnabled) {
+            // the index collection may contain millions of documents, do not block the startup
+            Thread loader = new Thread(this::loadSearchIndex, "index-search-loader");
+            loader.setDaemon(true);
+            loader.start();
+        }
+    }
+
+    @Override
+    public void index(String variant, Index index) {
+        if (this.inMemorySearchEnabled) {
+            this.searchEngine.index(variant, index);
+        }
+    }
+
+    @Override
+    public void remove(String variant) {
+        if (this.inMemorySearchEnabled) {
+            this.searchEngine.remove(variant);
+        }
     }
 
     @Override
@@ -39,8 +80,13 @@ public class IndexSearchServiceImpl implements IndexSearchService{
 
         // TODO support multiple keywords?
         String queryString = keyword.trim();
+        int returnSize = limit == null || limit < 1 ? DEFAULT_RETURN_SIZE: limit.intValue();
 
-        if (queryString.length() >= QUERY_MIN_LENGTH)
+        if (queryString.length() >= QUERY_MIN_LENGTH && this.inMemorySearchReady)
+        {
+            queries.addAll(this.searchEngine.search(queryString, returnSize));
+        }
+        else if (queryString.length() >= QUERY_MIN_LENGTH)
         {
             if (queryString.contains("c.")) {
                 // search by cdna
@@ -68,12 +114,29 @@ public class IndexSearchServiceImpl implements IndexSearchService{
 
             }
         }
-        int returnSize = limit == null || limit < 1 ? DEFAULT_RETURN_SIZE: limit.intValue();
+
         int toIndex = Math.min(queries.size(), returnSize);
 
         return queries.size() > 0 ? queries.subList(0, toIndex): queries;
     }
 
+    private void loadSearchIndex()
+    {
+        LOG.info("Building in memory search index");
+        long start = System.currentTimeMillis();
+
+        try (Stream<Index> indexes = this.indexRepository.streamAll()) {
+            // documents indexed by index() since the load started are newer than the streamed ones
+            indexes.forEach(index -> this.searchEngine.indexIfAbsent(index.getvariant(), index));
+            this.inMemorySearchReady = true;
+            LOG.info("Finished building in memory search index: " + this.searchEngine.size() +
+                " variants in " + (System.currentTimeMillis() - start) + " ms");
+        }
+        catch (Exception e) {
+            LOG.error("Failed to build in memory search index, falling back to DB search", e);
+        }
+    }
+
     private List<IndexSearch> searchByVariant(
         String queryString
     ) {
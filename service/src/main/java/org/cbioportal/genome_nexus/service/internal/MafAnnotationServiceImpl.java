@@ -0,0 +1,271 @@
+package org.cbioportal.genome_nexus.service.internal;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.cbioportal.genome_nexus.model.AnnotationField;
+import org.cbioportal.genome_nexus.model.GenomicLocation;
+import org.cbioportal.genome_nexus.model.TranscriptConsequenceSummary;
+import org.cbioportal.genome_nexus.model.VariantAnnotation;
+import org.cbioportal.genome_nexus.model.VariantAnnotationSummary;
+import org.cbioportal.genome_nexus.service.GenomicLocationAnnotationService;
+import org.cbioportal.genome_nexus.service.MafAnnotationService;
+import org.cbioportal.genome_nexus.util.MafColumnMapping;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Annotates MAF files through the verified genomic location annotation, the same way as the
+ * genomic location endpoints, and fills in the vcf2maf style annotation columns.
+ */
+@Service
+public class MafAnnotationServiceImpl implements MafAnnotationService
+{
+    private static final Log LOG = LogFactory.getLog(MafAnnotationServiceImpl.class);
+
+    public static final String ANNOTATION_STATUS = "Annotation_Status";
+    public static final String SUCCESS = "SUCCESS";
+    public static final String FAILED = "FAILED";
+
+    // annotation columns, taken from the canonical transcript of the annotation summary
+    private static final Map<String, Function<VariantAnnotationSummary, String>> ANNOTATION_COLUMNS = new LinkedHashMap<>();
+
+    static {
+        ANNOTATION_COLUMNS.put("Hugo_Symbol", transcript(TranscriptConsequenceSummary::getHugoGeneSymbol));
+        ANNOTATION_COLUMNS.put("Entrez_Gene_Id", transcript(TranscriptConsequenceSummary::getEntrezGeneId));
+        ANNOTATION_COLUMNS.put("Variant_Classification", transcript(TranscriptConsequenceSummary::getVariantClassification));
+        ANNOTATION_COLUMNS.put("Variant_Type", VariantAnnotationSummary::getVariantType);
+        ANNOTATION_COLUMNS.put("HGVSc", transcript(TranscriptConsequenceSummary::getHgvsc));
+        ANNOTATION_COLUMNS.put("HGVSp", transcript(TranscriptConsequenceSummary::getHgvsp));
+        ANNOTATION_COLUMNS.put("HGVSp_Short", transcript(TranscriptConsequenceSummary::getHgvspShort));
+        ANNOTATION_COLUMNS.put("Transcript_ID", transcript(TranscriptConsequenceSummary::getTranscriptId));
+        ANNOTATION_COLUMNS.put("RefSeq", transcript(TranscriptConsequenceSummary::getRefSeq));
+        ANNOTATION_COLUMNS.put("Protein_position", transcript(t ->
+            t.getProteinPosition() == null || t.getProteinPosition().getStart() == null ?
+                null : t.getProteinPosition().getStart().toString()));
+        ANNOTATION_COLUMNS.put("Codons", transcript(TranscriptConsequenceSummary::getCodonChange));
+        ANNOTATION_COLUMNS.put("Exon_Number", transcript(TranscriptConsequenceSummary::getExon));
+        ANNOTATION_COLUMNS.put("Consequence", transcript(TranscriptConsequenceSummary::getConsequenceTerms));
+    }
+
+    private final GenomicLocationAnnotationService genomicLocationAnnotationService;
+    private final int windowSize;
+
+    @Autowired
+    public MafAnnotationServiceImpl(
+        GenomicLocationAnnotationService verifiedGenomicLocationAnnotationServiceImpl,
+        @Value("${annotation.maf.window_size:200}") Integer windowSize
+    ) {
+        this.genomicLocationAnnotationService = verifiedGenomicLocationAnnotationServiceImpl;
+        this.windowSize = windowSize == null || windowSize < 1 ? 200 : windowSize;
+    }
+
+    @Override
+    public long annotate(BufferedReader maf,
+                         Writer annotatedMaf,
+                         String isoformOverrideSource,
+                         Map<String, String> token,
+                         List<AnnotationField> fields) throws IOException
+    {
+        List<AnnotationField> annotationFields = withAnnotationSummary(fields);
+        MafColumnMapping columns = null;
+        OutputColumns outputColumns = null;
+        List<String[]> window = new ArrayList<>(this.windowSize);
+        long count = 0;
+        String line;
+
+        while ((line = maf.readLine()) != null)
+        {
+            if (columns == null) {
+                if (line.startsWith("#") || line.trim().isEmpty()) {
+                    // version and comment lines before the header are kept as is
+                    annotatedMaf.write(line);
+                    annotatedMaf.write('\n');
+                }
+                else {
+                    columns = MafColumnMapping.fromHeader(line);
+                    outputColumns = new OutputColumns(columns);
+                    writeRow(annotatedMaf, outputColumns.header);
+                }
+                continue;
+            }
+
+            if (line.trim().isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+
+            window.add(line.split("\t", -1));
+
+            if (window.size() == this.windowSize) {
+                count += this.annotateWindow(window, columns, outputColumns,
+                    annotatedMaf, isoformOverrideSource, token, annotationFields);
+                window.clear();
+            }
+        }
+
+        if (!window.isEmpty()) {
+            count += this.annotateWindow(window, columns, outputColumns,
+                annotatedMaf, isoformOverrideSource, token, annotationFields);
+        }
+
+        annotatedMaf.flush();
+
+        return count;
+    }
+
+    private int annotateWindow(List<String[]> rows,
+                               MafColumnMapping columns,
+                               OutputColumns outputColumns,
+                               Writer annotatedMaf,
+                               String isoformOverrideSource,
+                               Map<String, String> token,
+                               List<AnnotationField> fields) throws IOException
+    {
+        List<String> locations = new ArrayList<>(rows.size());
+        // rows with the same genomic location are annotated once
+        Map<String, GenomicLocation> distinctLocations = new LinkedHashMap<>();
+
+        for (String[] row: rows)
+        {
+            GenomicLocation location = null;
+
+            try {
+                location = columns.toGenomicLocation(row);
+            } catch (IllegalArgumentException e) {
+                LOG.debug("Skipping invalid MAF row: " + e.getMessage());
+            }
+
+            String key = location == null ? null : location.toString();
+            locations.add(key);
+
+            if (key != null) {
+                distinctLocations.putIfAbsent(key, location);
+            }
+        }
+
+        Map<String, VariantAnnotation> annotations = new HashMap<>();
+
+        if (!distinctLocations.isEmpty()) {
+            try {
+                // annotations are mapped back to the rows by their original genomic location query
+                for (VariantAnnotation annotation: this.genomicLocationAnnotationService.getAnnotations(
+                    new ArrayList<>(distinctLocations.values()), isoformOverrideSource, token, fields))
+                {
+                    annotations.put(annotation.getOriginalVariantQuery(), annotation);
+                }
+            } catch (RuntimeException e) {
+                // the rows of the window are written as failed, the following windows are still annotated
+                LOG.warn("Failed to annotate " + distinctLocations.size() + " MAF locations: " + e.getMessage());
+            }
+        }
+
+        for (int i = 0; i < rows.size(); i++)
+        {
+            String location = locations.get(i);
+            writeRow(annotatedMaf, outputColumns.annotate(rows.get(i), location == null ? null : annotations.get(location)));
+        }
+
+        return rows.size();
+    }
+
+    private static void writeRow(Writer writer, String[] values) throws IOException
+    {
+        for (int i = 0; i < values.length; i++)
+        {
+            if (i > 0) {
+                writer.write('\t');
+            }
+            if (values[i] != null) {
+                writer.write(values[i]);
+            }
+        }
+
+        writer.write('\n');
+    }
+
+    private static List<AnnotationField> withAnnotationSummary(List<AnnotationField> fields)
+    {
+        if (fields == null || fields.isEmpty()) {
+            return Collections.singletonList(AnnotationField.ANNOTATION_SUMMARY);
+        }
+
+        Set<AnnotationField> annotationFields = new LinkedHashSet<>(fields);
+        annotationFields.add(AnnotationField.ANNOTATION_SUMMARY);
+
+        return new ArrayList<>(annotationFields);
+    }
+
+    private static Function<VariantAnnotationSummary, String> transcript(
+        Function<TranscriptConsequenceSummary, String> value)
+    {
+        return summary -> summary.getTranscriptConsequenceSummary() == null ?
+            null : value.apply(summary.getTranscriptConsequenceSummary());
+    }
+
+    /**
+     * Position of each annotation column in the output rows, existing input columns are reused.
+     */
+    private static class OutputColumns
+    {
+        private final String[] header;
+        private final Map<String, Integer> annotationColumns = new LinkedHashMap<>();
+        private final int statusColumn;
+
+        OutputColumns(MafColumnMapping columns)
+        {
+            List<String> header = new ArrayList<>(Arrays.asList(columns.getHeader()));
+
+            for (String column: ANNOTATION_COLUMNS.keySet()) {
+                this.annotationColumns.put(column, indexOrAppend(columns, header, column));
+            }
+
+            this.statusColumn = indexOrAppend(columns, header, ANNOTATION_STATUS);
+            this.header = header.toArray(new String[0]);
+        }
+
+        String[] annotate(String[] row, VariantAnnotation annotation)
+        {
+            String[] output = Arrays.copyOf(row, Math.max(row.length, this.header.length));
+            boolean success = annotation != null &&
+                Boolean.TRUE.equals(annotation.isSuccessfullyAnnotated()) &&
+                annotation.getAnnotationSummary() != null;
+
+            if (success) {
+                for (Map.Entry<String, Integer> column: this.annotationColumns.entrySet()) {
+                    String value = ANNOTATION_COLUMNS.get(column.getKey()).apply(annotation.getAnnotationSummary());
+                    output[column.getValue()] = value == null ? "" : value;
+                }
+            }
+
+            output[this.statusColumn] = success ? SUCCESS : FAILED;
+
+            return output;
+        }
+
+        private static int indexOrAppend(MafColumnMapping columns, List<String> header, String column)
+        {
+            int index = columns.indexOf(column);
+
+            if (index < 0) {
+                header.add(column);
+                index = header.size() - 1;
+            }
+
+            return index;
+        }
+    }
+}
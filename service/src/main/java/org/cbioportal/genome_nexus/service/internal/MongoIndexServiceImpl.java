@@ -0,0 +1,233 @@
+package org.cbioportal.genome_nexus.service.internal;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.bson.Document;
+import org.cbioportal.genome_nexus.model.MongoIndexStatus;
+import org.cbioportal.genome_nexus.persistence.MongoIndexRepository;
+import org.cbioportal.genome_nexus.persistence.RequiredIndex;
+import org.cbioportal.genome_nexus.persistence.RequiredIndexes;
+import org.cbioportal.genome_nexus.service.MongoIndexService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Verifies that the indexes required by the repositories exist, since the collections loaded by the importer
+ * may lack them and the queries then silently fall back to collection scans.
+ *
+ * The verification runs in the background at startup. Missing indexes are created when enabled, and a query
+ * built from a sampled document is explained for each index to detect the collection scans and slow plans
+ * which remain.
+ */
+@Service
+public class MongoIndexServiceImpl implements MongoIndexService
+{
+    private static final Log LOG = LogFactory.getLog(MongoIndexServiceImpl.class);
+
+    private final MongoIndexRepository mongoIndexRepository;
+    private final List<RequiredIndex> requiredIndexes;
+    private final boolean verifyOnStartup;
+    private final boolean createMissing;
+    private final boolean explainSampling;
+    private final long slowQueryMillis;
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "mongo-index-verification");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile List<MongoIndexStatus> indexStatus = Collections.emptyList();
+
+    @Autowired
+    public MongoIndexServiceImpl(
+        MongoIndexRepository mongoIndexRepository,
+        @Value("${mongo.indexes.verify_on_startup:true}") boolean verifyOnStartup,
+        @Value("${mongo.indexes.create_missing:true}") boolean createMissing,
+        @Value("${mongo.indexes.explain_sampling:true}") boolean explainSampling,
+        @Value("${mongo.indexes.slow_query_millis:100}") long slowQueryMillis
+    ) {
+        this(mongoIndexRepository, RequiredIndexes.all(), verifyOnStartup, createMissing, explainSampling, slowQueryMillis);
+    }
+
+    MongoIndexServiceImpl(
+        MongoIndexRepository mongoIndexRepository,
+        List<RequiredIndex> requiredIndexes,
+        boolean verifyOnStartup,
+        boolean createMissing,
+        boolean explainSampling,
+        long slowQueryMillis
+    ) {
+        this.mongoIndexRepository = mongoIndexRepository;
+        this.requiredIndexes = requiredIndexes;
+        this.verifyOnStartup = verifyOnStartup;
+        this.createMissing = createMissing;
+        this.explainSampling = explainSampling;
+        this.slowQueryMillis = slowQueryMillis;
+    }
+
+    @PostConstruct
+    public void verifyOnStartup()
+    {
+        if (this.verifyOnStartup) {
+            this.verify();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        this.executor.shutdownNow();
+    }
+
+    @Override
+    public List<MongoIndexStatus> getIndexStatus()
+    {
+        return this.indexStatus;
+    }
+
+    @Override
+    public Future<List<MongoIndexStatus>> verify()
+    {
+        return this.executor.submit(this::verifyIndexes);
+    }
+
+    List<MongoIndexStatus> verifyIndexes()
+    {
+        List<MongoIndexStatus> statuses = new ArrayList<>();
+
+        for (RequiredIndex index: this.requiredIndexes) {
+            statuses.add(this.verifyIndex(index));
+        }
+
+        this.indexStatus = Collections.unmodifiableList(statuses);
+
+        return this.indexStatus;
+    }
+
+    private MongoIndexStatus verifyIndex(RequiredIndex index)
+    {
+        MongoIndexStatus status = new MongoIndexStatus();
+        status.setRepository(index.getRepository());
+        status.setCollection(index.getCollection());
+        status.setName(index.getName());
+        status.setKeys(index.getKeys());
+        status.setCheckedAt(new Date());
+
+        try {
+            if (!this.mongoIndexRepository.collectionExists(index.getCollection())) {
+                status.setStatus(MongoIndexStatus.NO_COLLECTION);
+                return status;
+            }
+
+            if (this.isCovered(index)) {
+                status.setStatus(MongoIndexStatus.PRESENT);
+            }
+            else if (this.createMissing) {
+                LOG.info("Creating missing index " + index);
+                this.mongoIndexRepository.createIndex(index);
+                status.setStatus(MongoIndexStatus.CREATED);
+            }
+            else {
+                LOG.warn("Missing index " + index + ", queries of " + index.getRepository() + " scan the collection");
+                status.setStatus(MongoIndexStatus.MISSING);
+            }
+
+            if (this.explainSampling) {
+                this.explainSample(index, status);
+            }
+        }
+        catch (Exception e) {
+            LOG.error("Failed to verify index " + index + ": " + e.getLocalizedMessage());
+            status.setStatus(MongoIndexStatus.FAILED);
+            status.setError(e.getLocalizedMessage());
+        }
+
+        return status;
+    }
+
+    private boolean isCovered(RequiredIndex index)
+    {
+        for (List<String> indexKeys: this.mongoIndexRepository.findIndexKeys(index.getCollection())) {
+            if (index.isCoveredBy(indexKeys)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private void explainSample(RequiredIndex index, MongoIndexStatus status)
+    {
+        Document query = this.mongoIndexRepository.sampleQuery(index);
+
+        if (query == null || query.isEmpty()) {
+            // empty collection, nothing to sample
+            return;
+        }
+
+        Document explain = this.mongoIndexRepository.explain(index.getCollection(), query);
+        Document queryPlanner = explain.get("queryPlanner", Document.class);
+        Document executionStats = explain.get("executionStats", Document.class);
+
+        if (queryPlanner != null) {
+            Set<String> stages = new LinkedHashSet<>();
+            collectStages(queryPlanner.get("winningPlan", Document.class), stages);
+
+            status.setWinningPlan(String.join(" < ", stages));
+            status.setCollectionScan(stages.contains("COLLSCAN"));
+        }
+
+        if (executionStats != null) {
+            status.setDocsExamined(toLong(executionStats.get("totalDocsExamined")));
+            status.setExecutionTimeMillis(toLong(executionStats.get("executionTimeMillis")));
+        }
+
+        status.setSlow(Boolean.TRUE.equals(status.getCollectionScan()) ||
+            (status.getExecutionTimeMillis() != null && status.getExecutionTimeMillis() >= this.slowQueryMillis));
+
+        if (status.getSlow()) {
+            LOG.warn("Slow query plan for " + index + ": " + status.getWinningPlan() + ", " +
+                status.getDocsExamined() + " documents examined in " + status.getExecutionTimeMillis() + " ms");
+        }
+    }
+
+    // stages from the root of the plan down to the stage reading the collection
+    private static void collectStages(Document plan, Set<String> stages)
+    {
+        if (plan == null) {
+            return;
+        }
+
+        stages.add(plan.getString("stage"));
+        collectStages(plan.get("inputStage", Document.class), stages);
+
+        List<?> inputStages = plan.get("inputStages", List.class);
+
+        if (inputStages != null) {
+            for (Object inputStage: inputStages) {
+                if (inputStage instanceof Document) {
+                    collectStages((Document) inputStage, stages);
+                }
+            }
+        }
+    }
+
+    private static Long toLong(Object value)
+    {
+        return value instanceof Number ? ((Number) value).longValue() : null;
+    }
+}
@@ -9,6 +9,7 @@ import org.apache.commons.logging.LogFactory;
 import org.cbioportal.genome_nexus.model.Alteration;
 import org.cbioportal.genome_nexus.persistence.OncokbCancerGenesListRepository;
 import org.cbioportal.genome_nexus.service.OncokbService;
+import org.cbioportal.genome_nexus.service.ReloadableDataset;
 import org.cbioportal.genome_nexus.service.exception.OncokbNotFoundException;
 import org.cbioportal.genome_nexus.service.exception.OncokbWebServiceException;
 import org.cbioportal.genome_nexus.service.exception.ResourceMappingException;
@@ -22,12 +23,17 @@ import org.oncokb.client.CancerGene;
 import org.oncokb.client.IndicatorQueryResp;
 
 @Service
-public class OncokbServiceImpl implements OncokbService {
+public class OncokbServiceImpl implements OncokbService, ReloadableDataset {
     private static final Log LOG = LogFactory.getLog(OncokbServiceImpl.class);
 
     private final OncokbDataFetcher oncokbDataFetcher;
     private final OncokbCancerGenesListRepository oncokbCancerGenesListRepository;
 
+    // loaded on first use and kept until the oncokb_cancer_genes dataset is reloaded (POST /admin/reload or the
+    // version polling), instead of being read from the database for every annotation. the list only changes when
+    // the database is reimported
+    private volatile List<CancerGene> oncokbCancerGenesList;
+
     @Autowired
     public OncokbServiceImpl(OncokbDataFetcher oncokbDataFetcher, OncokbCancerGenesListRepository oncokbCancerGenesListRepository) {
         this.oncokbDataFetcher = oncokbDataFetcher;
@@ -104,6 +110,23 @@ public class OncokbServiceImpl implements OncokbService {
     }
 
     public List<CancerGene> getOncokbCancerGenesList() {
-        return this.oncokbCancerGenesListRepository.getOncokbCancerGenesList();
+        List<CancerGene> cancerGenes = this.oncokbCancerGenesList;
+
+        if (cancerGenes == null) {
+            cancerGenes = this.oncokbCancerGenesListRepository.getOncokbCancerGenesList();
+            this.oncokbCancerGenesList = cancerGenes;
+        }
+
+        return cancerGenes;
+    }
+
+    @Override
+    public String getDatasetName() {
+        return "oncokb_cancer_genes";
+    }
+
+    @Override
+    public void reloadDataset() {
+        this.oncokbCancerGenesList = this.oncokbCancerGenesListRepository.getOncokbCancerGenesList();
     }
 }
@@ -0,0 +1,230 @@
+package org.cbioportal.genome_nexus.service.internal;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.cbioportal.genome_nexus.model.DatasetReloadStatus;
+import org.cbioportal.genome_nexus.persistence.AnnotationVersionRepository;
+import org.cbioportal.genome_nexus.service.ReferenceDataReloadService;
+import org.cbioportal.genome_nexus.service.ReloadableDataset;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Rebuilds the in memory reference datasets without a restart.
+ *
+ * Reloads run one at a time on a dedicated thread, requests keep being served from the
+ * current datasets until each new dataset is swapped in. When a version check interval
+ * is configured the version collection is polled, and every dataset is reloaded
+ * as soon as the imported data versions change.
+ */
+@Service
+public class ReferenceDataReloadServiceImpl implements ReferenceDataReloadService
+{
+    private static final Log LOG = LogFactory.getLog(ReferenceDataReloadServiceImpl.class);
+
+    private final Map<String, ReloadableDataset> datasets = new LinkedHashMap<>();
+    private final Map<String, DatasetReloadStatus> reloadStatus = new ConcurrentHashMap<>();
+    private final AnnotationVersionRepository annotationVersionRepository;
+    private final Optional<CacheManager> cacheManager;
+    private final long versionCheckIntervalSeconds;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "reference-data-reload");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // only accessed from the reload thread
+    private String sourceVersions;
+
+    @Autowired
+    public ReferenceDataReloadServiceImpl(
+        List<ReloadableDataset> reloadableDatasets,
+        AnnotationVersionRepository annotationVersionRepository,
+        Optional<CacheManager> cacheManager,
+        @Value("${reload.version_check.interval_seconds:0}") long versionCheckIntervalSeconds
+    ) {
+        for (ReloadableDataset dataset: reloadableDatasets) {
+            this.datasets.put(dataset.getDatasetName(), dataset);
+        }
+
+        this.annotationVersionRepository = annotationVersionRepository;
+        this.cacheManager = cacheManager;
+        this.versionCheckIntervalSeconds = versionCheckIntervalSeconds;
+    }
+
+    @PostConstruct
+    public void scheduleVersionCheck()
+    {
+        if (this.versionCheckIntervalSeconds > 0) {
+            this.executor.scheduleWithFixedDelay(this::checkSourceVersions,
+                0, this.versionCheckIntervalSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown()
+    {
+        this.executor.shutdownNow();
+    }
+
+    @Override
+    public List<String> getDatasetNames()
+    {
+        return new ArrayList<>(this.datasets.keySet());
+    }
+
+    @Override
+    public List<DatasetReloadStatus> getReloadStatus()
+    {
+        return this.datasets.keySet()
+            .stream()
+            .map(this.reloadStatus::get)
+            .filter(status -> status != null)
+            .collect(Collectors.toList());
+    }
+
+    @Override
+    public Map<String, String> getDatasetVersions()
+    {
+        // a failed reload keeps serving, and reporting the version of, the previous data
+        Map<String, String> versions = new TreeMap<>();
+
+        for (ReloadableDataset dataset: this.datasets.values()) {
+            String version = dataset.getDatasetVersion();
+
+            if (version != null) {
+                versions.put(dataset.getDatasetName(), version);
+            }
+        }
+
+        return versions;
+    }
+
+    /**
+     * Schedules a reload of the given datasets, or of all datasets when the list is null or empty.
+     *
+     * @throws IllegalArgumentException if a dataset name is not known
+     */
+    @Override
+    public Future<List<DatasetReloadStatus>> reload(List<String> datasetNames)
+    {
+        List<ReloadableDataset> selected = this.selectDatasets(datasetNames);
+        return this.executor.submit(() -> this.reloadDatasets(selected));
+    }
+
+    private List<ReloadableDataset> selectDatasets(List<String> datasetNames)
+    {
+        if (datasetNames == null || datasetNames.isEmpty()) {
+            return new ArrayList<>(this.datasets.values());
+        }
+
+        List<ReloadableDataset> selected = new ArrayList<>();
+
+        for (String datasetName: datasetNames) {
+            ReloadableDataset dataset = this.datasets.get(datasetName);
+
+            if (dataset == null) {
+                throw new IllegalArgumentException("Unknown dataset: " + datasetName +
+                    ", available datasets: " + this.datasets.keySet());
+            }
+
+            selected.add(dataset);
+        }
+
+        return selected;
+    }
+
+    private List<DatasetReloadStatus> reloadDatasets(List<ReloadableDataset> selected)
+    {
+        List<DatasetReloadStatus> statuses = new ArrayList<>();
+
+        for (ReloadableDataset dataset: selected) {
+            statuses.add(this.reloadDataset(dataset));
+        }
+
+        // cached query results may refer to the previous data
+        this.cacheManager.ifPresent(manager -> {
+            for (String cacheName: manager.getCacheNames()) {
+                Cache cache = manager.getCache(cacheName);
+
+                if (cache != null) {
+                    cache.clear();
+                }
+            }
+        });
+
+        return statuses;
+    }
+
+    private DatasetReloadStatus reloadDataset(ReloadableDataset dataset)
+    {
+        DatasetReloadStatus status = new DatasetReloadStatus();
+        status.setDatasetName(dataset.getDatasetName());
+
+        Runtime runtime = Runtime.getRuntime();
+        long usedBefore = runtime.totalMemory() - runtime.freeMemory();
+        long start = System.nanoTime();
+
+        try {
+            dataset.reloadDataset();
+        } catch (RuntimeException e) {
+            // the previous dataset is still in use
+            LOG.error("Failed to reload dataset " + dataset.getDatasetName(), e);
+            status.setError(e.getMessage());
+        }
+
+        status.setDurationMillis(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        status.setMemoryDeltaBytes((runtime.totalMemory() - runtime.freeMemory()) - usedBefore);
+        status.setReloadedAt(new Date());
+
+        LOG.info("Reloaded dataset " + status.getDatasetName() + " in " + status.getDurationMillis() +
+            " ms, heap delta " + status.getMemoryDeltaBytes() + " bytes" +
+            (status.getError() != null ? ", error: " + status.getError() : ""));
+
+        this.reloadStatus.put(status.getDatasetName(), status);
+
+        return status;
+    }
+
+    private void checkSourceVersions()
+    {
+        try {
+            String versions = this.annotationVersionRepository.findAll()
+                .stream()
+                .map(info -> info.getId() + ":" + info.getName() + ":" + info.getVersion())
+                .sorted()
+                .collect(Collectors.joining(","));
+
+            // nothing to reload on the first check, datasets are built at startup
+            if (this.sourceVersions != null && !this.sourceVersions.equals(versions)) {
+                LOG.info("Source versions changed, reloading reference datasets");
+                this.reloadDatasets(new ArrayList<>(this.datasets.values()));
+            }
+
+            this.sourceVersions = versions;
+        } catch (RuntimeException e) {
+            // keep the schedule alive, try again on the next check
+            LOG.warn("Failed to check source versions: " + e.getMessage());
+        }
+    }
+}
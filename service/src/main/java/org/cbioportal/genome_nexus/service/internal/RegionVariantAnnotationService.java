@@ -65,6 +65,7 @@ public class RegionVariantAnnotationService extends BaseVariantAnnotationService
         @Lazy OncokbService oncokbService,
         @Lazy ClinvarVariantAnnotationService clinvarVariantAnnotationService,
         IndexRepository indexRepository,
+        @Lazy IndexSearchService indexSearchService,
         ProteinChangeResolver proteinChangeResolver,
         HugoGeneSymbolResolver hugoGeneSymbolResolver
     ) {
@@ -81,6 +82,7 @@ public class RegionVariantAnnotationService extends BaseVariantAnnotationService
             oncokbService,
             clinvarVariantAnnotationService,
             indexRepository,
+            indexSearchService,
             proteinChangeResolver,
             hugoGeneSymbolResolver
         );
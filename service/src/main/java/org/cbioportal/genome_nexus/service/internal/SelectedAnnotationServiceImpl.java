@@ -34,6 +34,7 @@ package org.cbioportal.genome_nexus.service.internal;
 
 import org.cbioportal.genome_nexus.component.annotation.NotationConverter;
 import org.cbioportal.genome_nexus.model.AnnotationField;
+import org.cbioportal.genome_nexus.model.AnnotationProjection;
 import org.cbioportal.genome_nexus.model.GenomicLocation;
 import org.cbioportal.genome_nexus.model.VariantAnnotation;
 import org.cbioportal.genome_nexus.service.GenomicLocationAnnotationService;
@@ -105,6 +106,21 @@ public class SelectedAnnotationServiceImpl implements SelectedAnnotationService
         }
     }
 
+    @Override
+    public List<VariantAnnotation> getAnnotations(
+        List<String> variants,
+        String isoformOverrideSource,
+        Map<String, String> token,
+        List<AnnotationField> fields,
+        AnnotationProjection projection) throws VariantAnnotationNotFoundException, VariantAnnotationQueryMixedFormatException, VariantAnnotationWebServiceException {
+        if (needToConvertHgvsToRegionForAnnotation(variants)) {
+            List<GenomicLocation> variantsAsGenomicLocations = notationConverter.hgvsgToGenomicLocations(variants);
+            return genomicLocationAnnotationService.getAnnotations(variantsAsGenomicLocations, isoformOverrideSource, token, fields, projection);
+        } else {
+            return verifiedHgvsVariantAnnotationService.getAnnotations(variants, isoformOverrideSource, token, fields, projection);
+        }
+    }
+
     private boolean isHgvsFormat(String variant) {
         return variant.contains("g.");
     }
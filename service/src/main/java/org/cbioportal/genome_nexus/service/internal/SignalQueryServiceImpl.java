@@ -7,15 +7,21 @@ import org.cbioportal.genome_nexus.component.search.SignalSearchEngine;
 import org.cbioportal.genome_nexus.model.*;
 import org.cbioportal.genome_nexus.persistence.SignalMutationRepository;
 import org.cbioportal.genome_nexus.persistence.VariantAnnotationRepository;
+import org.cbioportal.genome_nexus.persistence.internal.VariantAnnotationRepositoryImpl;
+import org.cbioportal.genome_nexus.service.ReloadableDataset;
 import org.cbioportal.genome_nexus.service.SignalQueryService;
+import org.cbioportal.genome_nexus.service.cached.CacheStorage;
+import org.cbioportal.genome_nexus.service.cached.CompressedDocumentCodec;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Service
-public class SignalQueryServiceImpl implements SignalQueryService
+public class SignalQueryServiceImpl implements SignalQueryService, ReloadableDataset
 {
     private static final Log LOG = LogFactory.getLog(SignalQueryServiceImpl.class);
 
@@ -26,20 +32,23 @@ public class SignalQueryServiceImpl implements SignalQueryService
     private final VariantAnnotationRepository variantAnnotationRepository;
     private final SignalSearchEngine searchEngine;
     private final SignalIndexBuilder indexBuilder;
+    private final ObjectProvider<CacheStorage> cacheStorage;
 
-    private final List<SignalQuery> signalIndex;
+    private volatile List<SignalQuery> signalIndex;
 
     @Autowired
     public SignalQueryServiceImpl(
         SignalMutationRepository signalMutationRepository,
         VariantAnnotationRepository variantAnnotationRepository,
         SignalSearchEngine searchEngine,
-        SignalIndexBuilder indexBuilder
+        SignalIndexBuilder indexBuilder,
+        ObjectProvider<CacheStorage> cacheStorage
     ) {
         this.signalMutationRepository = signalMutationRepository;
         this.variantAnnotationRepository = variantAnnotationRepository;
         this.searchEngine = searchEngine;
         this.indexBuilder = indexBuilder;
+        this.cacheStorage = cacheStorage;
 
         LOG.info("Building Signal index");
         this.signalIndex = this.buildIndex();
@@ -55,17 +64,19 @@ public class SignalQueryServiceImpl implements SignalQueryService
     public List<SignalQuery> search(String keyword, Integer limit)
     {
         List<SignalQuery> queries = new ArrayList<>();
+        // use the same index for all searches even if it is reloaded meanwhile
+        List<SignalQuery> signalIndex = this.signalIndex;
 
         String queryString = keyword.trim();
 
         if (queryString.length() >= QUERY_MIN_LENGTH)
         {
-            queries.addAll(this.searchEngine.searchByHugoSymbol(this.signalIndex, queryString));
-            queries.addAll(this.searchEngine.searchByRegion(this.signalIndex, queryString));
+            queries.addAll(this.searchEngine.searchByHugoSymbol(signalIndex, queryString));
+            queries.addAll(this.searchEngine.searchByRegion(signalIndex, queryString));
 
             // TODO these may not be 100% accurate because we don't use pre-annotated data yet
-            queries.addAll(this.searchEngine.searchByVariant(this.signalIndex, queryString));
-            queries.addAll(this.searchEngine.searchByAlteration(this.signalIndex, queryString));
+            queries.addAll(this.searchEngine.searchByVariant(signalIndex, queryString));
+            queries.addAll(this.searchEngine.searchByAlteration(signalIndex, queryString));
         }
 
         int returnSize = limit == null || limit < 1 ? DEFAULT_RETURN_SIZE: limit.intValue();
@@ -74,16 +85,39 @@ public class SignalQueryServiceImpl implements SignalQueryService
         return queries.size() > 0 ? queries.subList(0, toIndex): queries;
     }
 
+    @Override
+    public String getDatasetName() {
+        return "signal";
+    }
+
+    @Override
+    public void reloadDataset() {
+        this.signalIndex = this.buildIndex();
+    }
+
     private List<SignalQuery> buildIndex()
     {
         List<SignalMutation> mutations = this.signalMutationRepository.findAll();
 
         // this only works if the variant has already been annotated and
         // there is a corresponding entity in the DB.
-        List<VariantAnnotation> annotations = this.variantAnnotationRepository.findByVariantIn(
-            this.indexBuilder.findUniqueVariants(mutations)
-        );
+        List<VariantAnnotation> annotations = this.findAnnotations(this.indexBuilder.findUniqueVariants(mutations));
 
         return this.indexBuilder.buildQueryIndex(mutations, annotations);
     }
+
+    private List<VariantAnnotation> findAnnotations(List<String> variants)
+    {
+        CacheStorage storage = this.cacheStorage.getIfAvailable();
+
+        // read the same way as the cached variant annotation fetcher, the storage may return compressed documents
+        if (storage != null && storage.supports(VariantAnnotationRepositoryImpl.COLLECTION)) {
+            return storage.findAllById(VariantAnnotationRepositoryImpl.COLLECTION, variants).stream()
+                .map(CompressedDocumentCodec::expand)
+                .map(document -> storage.read(VariantAnnotation.class, document))
+                .collect(Collectors.toList());
+        }
+
+        return this.variantAnnotationRepository.findByVariantIn(variants);
+    }
 }
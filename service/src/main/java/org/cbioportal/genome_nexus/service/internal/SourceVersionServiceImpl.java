@@ -0,0 +1,122 @@
+package org.cbioportal.genome_nexus.service.internal;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.cbioportal.genome_nexus.model.AggregateSourceInfo;
+import org.cbioportal.genome_nexus.model.Version;
+import org.cbioportal.genome_nexus.service.ReferenceDataReloadService;
+import org.cbioportal.genome_nexus.service.SourceVersionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * The fingerprint covers the Genome Nexus and VEP versions, the imported data versions of the version
+ * collection and the version of the data served by the in memory reference datasets (for example a hash
+ * of the reVUE data), so that instances serving the same data have the same fingerprint.
+ * The version collection is read at most once per check interval.
+ */
+@Service
+public class SourceVersionServiceImpl implements SourceVersionService
+{
+    private static final Log LOG = LogFactory.getLog(SourceVersionServiceImpl.class);
+
+    private final InfoServiceImpl infoService;
+    private final ReferenceDataReloadService referenceDataReloadService;
+    private final long versionCheckIntervalNanos;
+
+    private volatile String sourceVersions;
+    private volatile String vepVersion;
+    private volatile long sourceVersionsCheckedAt;
+
+    @Autowired
+    public SourceVersionServiceImpl(
+        InfoServiceImpl infoService,
+        ReferenceDataReloadService referenceDataReloadService,
+        @Value("${annotation.etag.version_check_interval_seconds:60}") long versionCheckIntervalSeconds
+    ) {
+        this.infoService = infoService;
+        this.referenceDataReloadService = referenceDataReloadService;
+        this.versionCheckIntervalNanos = TimeUnit.SECONDS.toNanos(versionCheckIntervalSeconds);
+    }
+
+    @Override
+    public String getFingerprint()
+    {
+        // dataset versions are kept in memory, no need to cache them
+        String datasetVersions = this.referenceDataReloadService.getDatasetVersions()
+            .entrySet()
+            .stream()
+            .map(dataset -> dataset.getKey() + "@" + dataset.getValue())
+            .collect(Collectors.joining(","));
+
+        String fingerprint = this.getSourceVersions() + "|" + datasetVersions;
+
+        return DigestUtils.md5DigestAsHex(fingerprint.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public String getVepVersion()
+    {
+        this.getSourceVersions();
+
+        return this.vepVersion;
+    }
+
+    private String getSourceVersions()
+    {
+        long now = System.nanoTime();
+
+        if (this.sourceVersions == null || now - this.sourceVersionsCheckedAt > this.versionCheckIntervalNanos)
+        {
+            try {
+                this.sourceVersions = this.readSourceVersions();
+            } catch (RuntimeException e) {
+                // keep the previous versions, try again on the next check
+                LOG.warn("Failed to read source versions: " + e.getMessage());
+
+                if (this.sourceVersions == null) {
+                    throw e;
+                }
+            }
+
+            this.sourceVersionsCheckedAt = now;
+        }
+
+        return this.sourceVersions;
+    }
+
+    private String readSourceVersions()
+    {
+        AggregateSourceInfo info = this.infoService.getAggregateSourceInfo();
+        String vepServer = version(info.getVep() == null ? null : info.getVep().server);
+        String vepCache = version(info.getVep() == null ? null : info.getVep().cache);
+
+        this.vepVersion = vepServer == null && vepCache == null ? null : vepServer + "/" + vepCache;
+
+        StringBuilder versions = new StringBuilder()
+            .append(version(info.getGenomeNexus() == null ? null : info.getGenomeNexus().server)).append(',')
+            .append(vepServer).append(',')
+            .append(vepCache);
+
+        if (info.getAnnotationSourcesInfo() != null) {
+            versions.append(',').append(info.getAnnotationSourcesInfo()
+                .stream()
+                .map(source -> source.getId() + ":" + source.getName() + ":" + source.getVersion())
+                .sorted()
+                .collect(Collectors.joining(",")));
+        }
+
+        return versions.toString();
+    }
+
+    private static String version(Version version)
+    {
+        return version == null ? null : version.getVersion();
+    }
+}
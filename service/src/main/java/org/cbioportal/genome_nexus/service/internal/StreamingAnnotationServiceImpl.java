@@ -0,0 +1,178 @@
+package org.cbioportal.genome_nexus.service.internal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.cbioportal.genome_nexus.model.AnnotationField;
+import org.cbioportal.genome_nexus.model.VariantAnnotation;
+import org.cbioportal.genome_nexus.service.SelectedAnnotationService;
+import org.cbioportal.genome_nexus.service.StreamingAnnotationService;
+import org.cbioportal.genome_nexus.service.exception.VariantAnnotationNotFoundException;
+import org.cbioportal.genome_nexus.service.exception.VariantAnnotationQueryMixedFormatException;
+import org.cbioportal.genome_nexus.service.exception.VariantAnnotationWebServiceException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Annotates an unbounded stream of variants through the regular annotation pipeline
+ * (cache, VEP and enrichment), one window of variants at a time.
+ */
+@Service
+public class StreamingAnnotationServiceImpl implements StreamingAnnotationService
+{
+    private static final Log LOG = LogFactory.getLog(StreamingAnnotationServiceImpl.class);
+
+    private static final ObjectMapper JSON_STRING_READER = new ObjectMapper();
+
+    private final SelectedAnnotationService selectedAnnotationService;
+    private final int windowSize;
+
+    @Autowired
+    public StreamingAnnotationServiceImpl(
+        SelectedAnnotationService selectedAnnotationService,
+        @Value("${annotation.stream.window_size:200}") Integer windowSize
+    ) {
+        this.selectedAnnotationService = selectedAnnotationService;
+        this.windowSize = windowSize == null || windowSize < 1 ? 200 : windowSize;
+    }
+
+    @Override
+    public long annotate(BufferedReader variants,
+                         String isoformOverrideSource,
+                         Map<String, String> token,
+                         List<AnnotationField> fields,
+                         AnnotationWindowWriter writer) throws IOException
+    {
+        List<String> window = new ArrayList<>(this.windowSize);
+        long count = 0;
+        String line;
+
+        while ((line = variants.readLine()) != null)
+        {
+            String variant = parseVariant(line);
+
+            if (variant == null) {
+                continue;
+            }
+
+            window.add(variant);
+
+            if (window.size() == this.windowSize) {
+                count += this.annotateWindow(window, isoformOverrideSource, token, fields, writer);
+                window.clear();
+            }
+        }
+
+        if (!window.isEmpty()) {
+            count += this.annotateWindow(window, isoformOverrideSource, token, fields, writer);
+        }
+
+        return count;
+    }
+
+    @Override
+    public List<VariantAnnotation> annotateWindow(List<String> window,
+                                                  String isoformOverrideSource,
+                                                  Map<String, String> token,
+                                                  List<AnnotationField> fields)
+    {
+        List<VariantAnnotation> annotations = new ArrayList<>(window.size());
+        int from = 0;
+
+        // a single annotation request cannot mix HGVS and non-HGVS variants,
+        // so each run of variants of the same format is annotated separately
+        for (int i = 1; i <= window.size(); i++)
+        {
+            if (i == window.size() || isHgvsFormat(window.get(i)) != isHgvsFormat(window.get(from))) {
+                annotations.addAll(this.getAnnotations(window.subList(from, i), isoformOverrideSource, token, fields));
+                from = i;
+            }
+        }
+
+        return annotations;
+    }
+
+    private long annotateWindow(List<String> window,
+                                String isoformOverrideSource,
+                                Map<String, String> token,
+                                List<AnnotationField> fields,
+                                AnnotationWindowWriter writer) throws IOException
+    {
+        List<VariantAnnotation> annotations = this.annotateWindow(window, isoformOverrideSource, token, fields);
+        writer.write(annotations);
+
+        return annotations.size();
+    }
+
+    private List<VariantAnnotation> getAnnotations(List<String> variants,
+                                                   String isoformOverrideSource,
+                                                   Map<String, String> token,
+                                                   List<AnnotationField> fields)
+    {
+        try {
+            List<VariantAnnotation> annotations = this.selectedAnnotationService.getAnnotations(
+                new ArrayList<>(variants), isoformOverrideSource, token, fields);
+            return annotations == null ? Collections.emptyList() : annotations;
+        } catch (VariantAnnotationNotFoundException |
+                 VariantAnnotationQueryMixedFormatException |
+                 VariantAnnotationWebServiceException e) {
+            // the results of the other windows are still delivered, continue with the next window
+            LOG.warn("Failed to annotate " + variants.size() + " variants: " + e.getLocalizedMessage());
+            return this.createFailedAnnotations(variants, e.getLocalizedMessage());
+        } catch (RuntimeException e) {
+            // unexpected failures (upstream errors, timeouts) must not cut the stream off either
+            LOG.error("Failed to annotate " + variants.size() + " variants", e);
+            return this.createFailedAnnotations(variants, e.getLocalizedMessage());
+        }
+    }
+
+    /**
+     * One failed annotation per variant, so that the clients receive a record for every variant they sent.
+     */
+    private List<VariantAnnotation> createFailedAnnotations(List<String> variants, String errorMessage)
+    {
+        List<VariantAnnotation> annotations = new ArrayList<>(variants.size());
+
+        for (String variant: variants) {
+            VariantAnnotation annotation = new VariantAnnotation(variant);
+            annotation.setOriginalVariantQuery(variant);
+            annotation.setSuccessfullyAnnotated(false);
+            annotation.setErrorMessage("Failed to annotate " + variant + ": " + errorMessage);
+            annotations.add(annotation);
+        }
+
+        return annotations;
+    }
+
+    /**
+     * @return the variant of a plain text or JSON string line, null for blank lines
+     */
+    static String parseVariant(String line) throws IOException
+    {
+        String value = line.trim();
+
+        if (value.isEmpty()) {
+            return null;
+        }
+
+        if (value.charAt(0) == '"') {
+            value = JSON_STRING_READER.readValue(value, String.class).trim();
+        }
+
+        return value.isEmpty() ? null : value;
+    }
+
+    private static boolean isHgvsFormat(String variant)
+    {
+        // same check as SelectedAnnotationServiceImpl
+        return variant.contains("g.");
+    }
+}
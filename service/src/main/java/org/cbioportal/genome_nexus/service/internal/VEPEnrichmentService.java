@@ -37,6 +37,7 @@ import org.apache.commons.logging.LogFactory;
 import org.cbioportal.genome_nexus.model.VariantAnnotation;
 import org.cbioportal.genome_nexus.service.AnnotationEnricher;
 import org.cbioportal.genome_nexus.service.EnrichmentService;
+import org.cbioportal.genome_nexus.util.RequestDeadline;
 
 import org.springframework.stereotype.Service;
 
@@ -57,11 +58,28 @@ public class VEPEnrichmentService implements EnrichmentService {
         // modify JSON returned by VEP
         if (enrichers != null) {
             for (AnnotationEnricher enricher: this.enrichers.values()) {
+                if (enricher == null) {
+                    continue;
+                }
+
+                // remaining enrichments are skipped once the request deadline is exceeded
+                if (RequestDeadline.skip()) {
+                    variantAnnotation.addSkippedEnrichment(enricher.getId());
+                    continue;
+                }
+
+                int skippedCount = RequestDeadline.getSkippedCount();
+
                 try {
                     enricher.enrich(variantAnnotation);
                 } catch (Exception e) {
                     LOG.warn("Failed to enrich with " + enricher.getId() + ": " + variantAnnotation.getVariant() + " " + e.getLocalizedMessage());
                 }
+
+                if (RequestDeadline.getSkippedCount() > skippedCount) {
+                    // the enricher ran out of time while fetching its data
+                    variantAnnotation.addSkippedEnrichment(enricher.getId());
+                }
             }
         }
     }
@@ -71,11 +89,28 @@ public class VEPEnrichmentService implements EnrichmentService {
         // modify JSON returned by VEP
         if (enrichers != null) {
             for (AnnotationEnricher enricher: this.enrichers.values()) {
+                if (enricher == null) {
+                    continue;
+                }
+
+                // remaining enrichments are skipped once the request deadline is exceeded
+                if (RequestDeadline.skip()) {
+                    variantAnnotations.forEach(annotation -> annotation.addSkippedEnrichment(enricher.getId()));
+                    continue;
+                }
+
+                int skippedCount = RequestDeadline.getSkippedCount();
+
                 try {
                     enricher.enrich(variantAnnotations);
                 } catch (Exception e) {
                     LOG.warn("Error while enriching " + variantAnnotations.size() + " annotations with " + enricher.getId());
                 }
+
+                if (RequestDeadline.getSkippedCount() > skippedCount) {
+                    // some of the annotations may be complete, but the skipped ones cannot be told apart
+                    variantAnnotations.forEach(annotation -> annotation.addSkippedEnrichment(enricher.getId()));
+                }
             }
         }
     }
@@ -1,5 +1,6 @@
 package org.cbioportal.genome_nexus.service.internal;
 
+import com.google.gson.Gson;
 import org.cbioportal.genome_nexus.component.annotation.*;
 import org.cbioportal.genome_nexus.model.TranscriptConsequenceSummary;
 import org.cbioportal.genome_nexus.model.VariantAnnotationSummary;
@@ -9,6 +10,7 @@ import org.cbioportal.genome_nexus.model.RevisedProteinEffectJsonRecord;
 import org.cbioportal.genome_nexus.model.TranscriptConsequence;
 import org.cbioportal.genome_nexus.model.VariantAnnotation;
 import org.cbioportal.genome_nexus.service.EnsemblService;
+import org.cbioportal.genome_nexus.service.ReloadableDataset;
 import org.cbioportal.genome_nexus.service.VariantAnnotationService;
 import org.cbioportal.genome_nexus.service.VariantAnnotationSummaryService;
 import org.cbioportal.genome_nexus.service.annotation.EntrezGeneIdResolver;
@@ -20,8 +22,10 @@ import org.jetbrains.annotations.Nullable;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -32,7 +36,7 @@ import org.cbioportal.genome_nexus.model.Vues;
 import org.cbioportal.genome_nexus.model.VuesJsonRecord;
 
 @Service
-public class VariantAnnotationSummaryServiceImpl implements VariantAnnotationSummaryService
+public class VariantAnnotationSummaryServiceImpl implements VariantAnnotationSummaryService, ReloadableDataset
 {
     private final VariantAnnotationService variantAnnotationService;
     private final EnsemblService ensemblService;
@@ -51,7 +55,9 @@ public class VariantAnnotationSummaryServiceImpl implements VariantAnnotationSum
     private final VariantClassificationResolver variantClassificationResolver;
     private final VariantTypeResolver variantTypeResolver;
     private final ExonResolver exonResolver;
-    private final Map<String, Vues> vuesMap;
+    private final String vuesUrl;
+    private volatile Map<String, Vues> vuesMap;
+    private volatile String vuesVersion;
     private final Boolean overwriteByConfirmedRevueOnly;
 
     @Autowired
@@ -93,7 +99,10 @@ public class VariantAnnotationSummaryServiceImpl implements VariantAnnotationSum
         this.variantClassificationResolver = variantClassificationResolver;
         this.variantTypeResolver = variantTypeResolver;
         this.exonResolver = exonResolver;
-        this.vuesMap = this.buildVuesMap(RevueDataFetcher.getRevueData(vuesUrl));
+        this.vuesUrl = vuesUrl;
+        VuesJsonRecord[] vuesArray = RevueDataFetcher.getRevueData(vuesUrl);
+        this.vuesMap = this.buildVuesMap(vuesArray);
+        this.vuesVersion = vuesVersion(vuesArray);
         this.overwriteByConfirmedRevueOnly = Boolean.parseBoolean(overwriteByConfirmedRevueOnlyValue);
     }
 
@@ -111,6 +120,7 @@ public class VariantAnnotationSummaryServiceImpl implements VariantAnnotationSum
     {
         VariantAnnotationSummary annotationSummary = this.getVariantAnnotationSummary(annotation);
         TranscriptConsequence canonicalTranscript = this.canonicalTranscriptResolver.resolve(annotation);
+        Map<String, Vues> vuesMap = this.vuesMap;
 
         if (annotationSummary != null) {
             if (canonicalTranscript == null && annotation.getIntergenicConsequences() != null && !annotation.getIntergenicConsequences().isEmpty()) {
@@ -139,7 +149,7 @@ public class VariantAnnotationSummaryServiceImpl implements VariantAnnotationSum
                 if (annotationSummary.getTranscriptConsequenceSummary() != null && 
                     annotationSummary.getTranscriptConsequenceSummary().getIsVue() != null && 
                     annotationSummary.getTranscriptConsequenceSummary().getIsVue()) {
-                    annotationSummary.setVues(this.vuesMap.get(annotationSummary.getTranscriptConsequenceSummary().getTranscriptId()));
+                    annotationSummary.setVues(vuesMap.get(annotationSummary.getTranscriptConsequenceSummary().getTranscriptId()));
                 }
             }
         }
@@ -194,6 +204,7 @@ public class VariantAnnotationSummaryServiceImpl implements VariantAnnotationSum
 
         if (annotationSummary != null)
         {
+            Map<String, Vues> vuesMap = this.vuesMap;
             List<TranscriptConsequenceSummary> summaries = new ArrayList<>();
             List<TranscriptConsequence> transcriptConsequences = annotation.getTranscriptConsequences();
             if (transcriptConsequences != null) {
@@ -208,7 +219,7 @@ public class VariantAnnotationSummaryServiceImpl implements VariantAnnotationSum
             if (annotationSummary.getTranscriptConsequenceSummary() != null &&
                 annotationSummary.getTranscriptConsequenceSummary().getIsVue() != null &&
                 annotationSummary.getTranscriptConsequenceSummary().getIsVue() == true) {
-                annotationSummary.setVues(this.vuesMap.get(annotationSummary.getTranscriptConsequenceSummary().getTranscriptId() + "-" + annotationSummary.getVariant()));
+                annotationSummary.setVues(vuesMap.get(annotationSummary.getTranscriptConsequenceSummary().getTranscriptId() + "-" + annotationSummary.getVariant()));
             }
         }
 
@@ -248,6 +259,35 @@ public class VariantAnnotationSummaryServiceImpl implements VariantAnnotationSum
         return summary;
     }
 
+    @Override
+    public String getDatasetName() {
+        return "revue";
+    }
+
+    @Override
+    public void reloadDataset() {
+        VuesJsonRecord[] vuesArray = RevueDataFetcher.getRevueData(this.vuesUrl);
+
+        // keep serving the current VUEs if the new data cannot be parsed
+        if (vuesArray == null) {
+            throw new IllegalStateException("Failed to fetch reVUE data from " + this.vuesUrl);
+        }
+
+        this.vuesMap = this.buildVuesMap(vuesArray);
+        this.vuesVersion = vuesVersion(vuesArray);
+    }
+
+    @Override
+    public String getDatasetVersion() {
+        return this.vuesVersion;
+    }
+
+    // hash of the parsed records, independent of the formatting of the fetched file
+    private static String vuesVersion(VuesJsonRecord[] vuesArray) {
+        return vuesArray == null ? null :
+            DigestUtils.md5DigestAsHex(new Gson().toJson(vuesArray).getBytes(StandardCharsets.UTF_8));
+    }
+
     // Read VUES.json and build Vues map
     // key is transcript id, value is Vues that contians more information of each VUE variant
     private Map <String, Vues> buildVuesMap(VuesJsonRecord[] vuesArray) {
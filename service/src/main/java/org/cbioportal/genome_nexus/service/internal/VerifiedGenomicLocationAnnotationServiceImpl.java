@@ -119,6 +119,22 @@ public class VerifiedGenomicLocationAnnotationServiceImpl implements GenomicLoca
         return annotations;
     }
 
+    @Override
+    public List<VariantAnnotation> getAnnotations(List<GenomicLocation> genomicLocations,
+                                                  String isoformOverrideSource,
+                                                  Map<String, String> token,
+                                                  List<AnnotationField> fields,
+                                                  AnnotationProjection projection)
+    {
+        List<VariantAnnotation> annotations = genomicLocationAnnotationService.getAnnotations(genomicLocations, isoformOverrideSource, token, fields, projection);
+        for (int index = 0; index < annotations.size(); index = index + 1) {
+            VariantAnnotation annotation = annotations.get(index);
+            VariantAnnotation verifiedAnnotation = verifyOrFailAnnotation(annotation);
+            annotations.set(index, verifiedAnnotation);
+        }
+        return annotations;
+    }
+
     @Override
     public String getVariantFormat(GenomicLocation genomicLocation) {
         return genomicLocationAnnotationService.getVariantFormat(genomicLocation);
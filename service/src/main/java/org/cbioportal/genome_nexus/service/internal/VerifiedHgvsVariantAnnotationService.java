@@ -36,6 +36,7 @@ import java.util.*;
 import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.cbioportal.genome_nexus.model.AnnotationField;
+import org.cbioportal.genome_nexus.model.AnnotationProjection;
 import org.cbioportal.genome_nexus.model.VariantAnnotation;
 import org.cbioportal.genome_nexus.service.*;
 import org.cbioportal.genome_nexus.service.exception.VariantAnnotationNotFoundException;
@@ -99,6 +100,18 @@ public class VerifiedHgvsVariantAnnotationService implements VariantAnnotationSe
         return annotations;
     }
 
+    @Override
+    public List<VariantAnnotation> getAnnotations(List<String> variants, String isoformOverrideSource, Map<String, String> token, List<AnnotationField> fields, AnnotationProjection projection)
+    {
+        List<VariantAnnotation> annotations = hgvsVariantAnnotationService.getAnnotations(variants, isoformOverrideSource, token, fields, projection);
+        for (int index = 0; index < annotations.size(); index = index + 1) {
+            VariantAnnotation annotation = annotations.get(index);
+            VariantAnnotation verifiedAnnotation = verifyOrFailAnnotation(annotation);
+            annotations.set(index, verifiedAnnotation);
+        }
+        return annotations;
+    }
+
     private VariantAnnotation verifyOrFailAnnotation(VariantAnnotation annotation)
     {
         String originalVariantQuery = annotation.getOriginalVariantQuery(); // save for failed response
@@ -4,6 +4,8 @@ import com.mongodb.BasicDBList;
 import com.mongodb.DBObject;
 import org.cbioportal.genome_nexus.service.ExternalResourceFetcher;
 import org.cbioportal.genome_nexus.service.exception.ResourceMappingException;
+import org.cbioportal.genome_nexus.util.RequestDeadline;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
@@ -88,7 +90,7 @@ public abstract class BaseExternalResourceFetcher<T> implements ExternalResource
      */
     protected DBObject getForObject(String uri, Map<String, String> queryParams)
     {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = this.createRestTemplate();
 
         return restTemplate.getForObject(uri, BasicDBList.class);
     }
@@ -98,8 +100,29 @@ public abstract class BaseExternalResourceFetcher<T> implements ExternalResource
      */
     protected DBObject postForObject(String uri, Object requestBody)
     {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = this.createRestTemplate();
 
         return restTemplate.postForObject(uri, requestBody, BasicDBList.class);
     }
+
+    /**
+     * @return a rest template whose connect and read timeouts end at the deadline of the current request
+     */
+    protected RestTemplate createRestTemplate()
+    {
+        if (!RequestDeadline.isSet()) {
+            return new RestTemplate();
+        }
+
+        if (RequestDeadline.skip()) {
+            throw new ResourceAccessException("Request deadline exceeded before calling " + this.URI);
+        }
+
+        int timeoutMillis = RequestDeadline.timeoutMillis(0);
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(timeoutMillis);
+        requestFactory.setReadTimeout(timeoutMillis);
+
+        return new RestTemplate(requestFactory);
+    }
 }
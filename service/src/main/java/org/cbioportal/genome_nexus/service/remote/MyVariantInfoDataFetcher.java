@@ -56,7 +56,7 @@ public class MyVariantInfoDataFetcher extends BaseExternalResourceFetcher<MyVari
      */
     @Override
     protected DBObject getForObject(String uri, Map<String, String> queryParams) {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = this.createRestTemplate();
 
         return restTemplate.getForObject(uri, BasicDBObject.class);
     }
@@ -67,7 +67,7 @@ public class MyVariantInfoDataFetcher extends BaseExternalResourceFetcher<MyVari
         HttpHeaders httpHeaders = new HttpHeaders();
         httpHeaders.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
 
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = this.createRestTemplate();
         HttpEntity<Object> request = new HttpEntity<>(requestBody, httpHeaders);
 
         return restTemplate.postForObject(uri, request, BasicDBList.class);
@@ -49,7 +49,7 @@ public class NucleotideContextDataFetcher extends BaseExternalResourceFetcher<Nu
 
     @Override
     protected DBObject getForObject(String uri, Map<String, String> queryParams) {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = this.createRestTemplate();
 
         return restTemplate.getForObject(uri, BasicDBObject.class);
     }
@@ -89,7 +89,7 @@ public class OncokbDataFetcher extends BaseExternalResourceFetcher<IndicatorQuer
         httpHeaders.add("Authorization", "Bearer " + this.oncokbToken);
         httpHeaders.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
         HttpEntity<String> entity = new HttpEntity<String>(queryParams.toString(), httpHeaders);
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = this.createRestTemplate();
         ResponseEntity<BasicDBObject> response = restTemplate.exchange(
             uri, HttpMethod.GET, entity, BasicDBObject.class);
         return response.getBody();
@@ -107,7 +107,7 @@ public class OncokbDataFetcher extends BaseExternalResourceFetcher<IndicatorQuer
         httpHeaders.add("Authorization", "Bearer " + this.oncokbToken);
         httpHeaders.setContentType(MediaType.APPLICATION_FORM_URLENCODED);      
         
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = this.createRestTemplate();
         HttpEntity<String> request = new HttpEntity<String>(requestBody.toString(), httpHeaders);
         return restTemplate.postForObject(uri, request, BasicDBObject.class);
     }
@@ -55,7 +55,7 @@ public class PdbHeaderDataFetcher extends BaseExternalResourceFetcher<PdbHeader>
     @Override
     protected DBObject getForObject(String uri, Map<String, String> queryParams)
     {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = this.createRestTemplate();
 
         // read to string as plain text
         String response = restTemplate.getForObject(uri, String.class);
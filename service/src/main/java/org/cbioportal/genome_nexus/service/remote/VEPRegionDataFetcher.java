@@ -3,6 +3,7 @@ package org.cbioportal.genome_nexus.service.remote;
 import org.cbioportal.genome_nexus.model.VariantAnnotation;
 import org.cbioportal.genome_nexus.service.exception.ResourceMappingException;
 import org.cbioportal.genome_nexus.service.transformer.ExternalResourceTransformer;
+import org.cbioportal.genome_nexus.util.RequestDeadline;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -12,6 +13,7 @@ import org.springframework.web.client.RestTemplate;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import com.mongodb.BasicDBObject;
 import com.mongodb.DBObject;
@@ -58,7 +60,7 @@ public class VEPRegionDataFetcher extends BaseExternalResourceFetcher<VariantAnn
     @Override
     protected DBObject getForObject(String uri, Map<String, String> queryParams)
     {
-        RestTemplate restTemplate = new RestTemplate();
+        RestTemplate restTemplate = this.createRestTemplate();
         return (DBObject) restTemplate.getForObject(uri + getOptionalQueryString(), BasicDBObject.class);
     }
 
@@ -74,10 +76,15 @@ public class VEPRegionDataFetcher extends BaseExternalResourceFetcher<VariantAnn
     }
 
     private String getOptionalQueryString() {
-        if (timeoutSeconds == 0) {
+        // the configured timeout is reduced to the time left before the deadline of the current request
+        int responseTimeoutSeconds = RequestDeadline.isSet() ?
+            (int) Math.max(TimeUnit.MILLISECONDS.toSeconds(RequestDeadline.timeoutMillis(timeoutSeconds * 1000)), 1) :
+            timeoutSeconds;
+
+        if (responseTimeoutSeconds == 0) {
             return "";
         }
-        return "?" + RESPONSE_TIMEOUT_FIELD_NAME + "=" + timeoutSeconds;
+        return "?" + RESPONSE_TIMEOUT_FIELD_NAME + "=" + responseTimeoutSeconds;
     }
 
 }
@@ -1,9 +1,11 @@
 package org.cbioportal.genome_nexus.service.transformer;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.databind.DeserializationFeature;
 import com.fasterxml.jackson.databind.MapperFeature;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
 import com.mongodb.DBObject;
 import org.cbioportal.genome_nexus.service.ResourceTransformer;
 import org.cbioportal.genome_nexus.service.exception.ResourceMappingException;
@@ -12,25 +14,34 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 @Component
 public class ExternalResourceTransformer<T> implements ResourceTransformer<T>
 {
-    private final ObjectMapper externalResourceObjectMapper;
+    private final ObjectMapper objectMapper;
+
+    // one reader per target type, ObjectReader instances are immutable and thread safe
+    private final ConcurrentMap<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
 
     @Autowired
     public ExternalResourceTransformer(
         @Qualifier("defaultExternalResourceObjectMapper") ObjectMapper externalResourceObjectMapper)
     {
-        this.externalResourceObjectMapper = externalResourceObjectMapper;
+        // configure a private copy once, the shared mapper is never modified
+        this.objectMapper = externalResourceObjectMapper.copy();
+        this.objectMapper.enable(MapperFeature.ACCEPT_CASE_INSENSITIVE_ENUMS);
+        this.objectMapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
     }
 
     @Override
     public List<T> transform(DBObject json, Class<T> type) throws ResourceMappingException
     {
-        return this.mapJsonToInstance(json, type, this.externalResourceObjectMapper);
+        return this.mapJsonToInstance(json, type);
     }
 
     @Override
@@ -44,23 +55,20 @@ public class ExternalResourceTransformer<T> implements ResourceTransformer<T>
      *
      * @param rawJson       raw JSON value
      * @param type          object class
-     * @param objectMapper  custom object mapper
      * @return a list of instances of the provided class
      * @throws ResourceMappingException
      */
-    private List<T> mapJsonToInstance(DBObject rawJson, Class<T> type, ObjectMapper objectMapper)
+    private List<T> mapJsonToInstance(DBObject rawJson, Class<T> type)
         throws ResourceMappingException
     {
         List<T> list = new ArrayList<>();
-        ObjectMapper mapper = objectMapper;
-        mapper.enable(MapperFeature.ACCEPT_CASE_INSENSITIVE_ENUMS);
-        mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        ObjectReader reader = this.getReader(type);
 
         try {
             for (DBObject dbObject: Transformer.convertToDbObjectList(rawJson))
             {
                 // convert DBObject to a proper instance of the given class type
-                list.add(mapper.convertValue(dbObject, type));
+                list.add(this.convertValue(dbObject, reader));
             }
         } catch (Exception e) {
             throw new ResourceMappingException(e.getMessage());
@@ -68,4 +76,23 @@ public class ExternalResourceTransformer<T> implements ResourceTransformer<T>
 
         return list;
     }
+
+    private ObjectReader getReader(Class<T> type)
+    {
+        // the root deserializer is resolved when the reader is created, not for each conversion
+        return this.readers.computeIfAbsent(type, this.objectMapper::readerFor);
+    }
+
+    /**
+     * Same as ObjectMapper.convertValue, but using the precompiled reader for the target type.
+     */
+    private T convertValue(DBObject dbObject, ObjectReader reader) throws IOException
+    {
+        TokenBuffer buffer = new TokenBuffer(this.objectMapper, false);
+        this.objectMapper.writeValue(buffer, dbObject);
+
+        try (JsonParser parser = buffer.asParser()) {
+            return reader.readValue(parser);
+        }
+    }
 }
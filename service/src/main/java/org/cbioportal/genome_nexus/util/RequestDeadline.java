@@ -0,0 +1,112 @@
+package org.cbioportal.genome_nexus.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deadline of the request processed by the current thread. Annotation services, enrichers and fetchers
+ * check it before starting work that cannot be completed in time, and record the work they skipped so
+ * that incomplete annotations can be marked.
+ *
+ * There is no deadline unless one is started, whoever starts a deadline is responsible for clearing it.
+ */
+public final class RequestDeadline
+{
+    private static final ThreadLocal<RequestDeadline> CURRENT = new ThreadLocal<>();
+
+    private final long deadlineNanos;
+    private int skippedCount;
+
+    private RequestDeadline(long deadlineNanos)
+    {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    public static void start(long timeoutMillis)
+    {
+        CURRENT.set(new RequestDeadline(System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(Math.max(timeoutMillis, 0))));
+    }
+
+    public static void clear()
+    {
+        CURRENT.remove();
+    }
+
+    public static boolean isSet()
+    {
+        return CURRENT.get() != null;
+    }
+
+    /**
+     * @return remaining time in nanoseconds, 0 if the deadline has passed, Long.MAX_VALUE if there is no deadline
+     */
+    public static long remainingNanos()
+    {
+        RequestDeadline deadline = CURRENT.get();
+
+        if (deadline == null) {
+            return Long.MAX_VALUE;
+        }
+
+        return Math.max(deadline.deadlineNanos - System.nanoTime(), 0);
+    }
+
+    /**
+     * @return remaining time in milliseconds, 0 if the deadline has passed, Long.MAX_VALUE if there is no deadline
+     */
+    public static long remainingMillis()
+    {
+        long remainingNanos = remainingNanos();
+
+        return remainingNanos == Long.MAX_VALUE ? Long.MAX_VALUE : TimeUnit.NANOSECONDS.toMillis(remainingNanos);
+    }
+
+    public static boolean isExpired()
+    {
+        return remainingNanos() == 0;
+    }
+
+    /**
+     * Records skipped work when the deadline has passed.
+     *
+     * @return true if the work should be skipped
+     */
+    public static boolean skip()
+    {
+        RequestDeadline deadline = CURRENT.get();
+
+        if (deadline == null || !isExpired()) {
+            return false;
+        }
+
+        deadline.skippedCount++;
+
+        return true;
+    }
+
+    /**
+     * @return number of times work was skipped since the deadline was started
+     */
+    public static int getSkippedCount()
+    {
+        RequestDeadline deadline = CURRENT.get();
+
+        return deadline == null ? 0 : deadline.skippedCount;
+    }
+
+    /**
+     * @param timeoutMillis configured timeout, 0 for no timeout
+     * @return the configured timeout reduced to the remaining time, at least 1 millisecond
+     */
+    public static int timeoutMillis(int timeoutMillis)
+    {
+        long remainingMillis = remainingMillis();
+
+        if (remainingMillis == Long.MAX_VALUE) {
+            return timeoutMillis;
+        }
+
+        long timeout = timeoutMillis > 0 ? Math.min(timeoutMillis, remainingMillis) : remainingMillis;
+
+        return (int) Math.max(Math.min(timeout, Integer.MAX_VALUE), 1);
+    }
+}
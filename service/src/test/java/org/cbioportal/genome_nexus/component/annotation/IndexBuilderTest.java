@@ -0,0 +1,52 @@
+package org.cbioportal.genome_nexus.component.annotation;
+
+import com.google.gson.Gson;
+import com.mongodb.BasicDBObject;
+import org.cbioportal.genome_nexus.model.Index;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class IndexBuilderTest
+{
+    @InjectMocks
+    private IndexBuilder indexBuilder;
+
+    @Mock
+    private ProteinChangeResolver proteinChangeResolver;
+
+    @Mock
+    private HugoGeneSymbolResolver hugoGeneSymbolResolver;
+
+    @Test
+    public void buildIndexDocument()
+    {
+        Index index = new Index();
+        index.setVariant("7:g.140453136A>T");
+        index.setHugoSymbol(Collections.singletonList("BRAF"));
+        index.setHgvspShort(Arrays.asList("p.V600E", "p.V640E"));
+        index.setHgvsp(Arrays.asList("ENSP00000288602.6:p.Val600Glu", null));
+        index.setCdna(Collections.emptyList());
+        index.setHgvsc(Collections.singletonList("ENST00000288602.6:c.1799T>A"));
+
+        assertSameAsJson(index);
+
+        // null fields are omitted
+        assertSameAsJson(new Index());
+    }
+
+    // the index document was previously parsed from the Gson serialization of the Index
+    private void assertSameAsJson(Index index)
+    {
+        Gson gson = new Gson();
+        assertEquals(BasicDBObject.parse(gson.toJson(index)), this.indexBuilder.buildIndexDocument(index));
+    }
+}
@@ -5,8 +5,12 @@ import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.runners.MockitoJUnitRunner;
 
+import java.util.Arrays;
+import java.util.List;
+
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 @RunWith(MockitoJUnitRunner.class)
 public class NotationConverterTest
@@ -22,6 +26,12 @@ public class NotationConverterTest
         assertNull("Invalid genomic location input string -> Null output",
             this.notationConverter.parseGenomicLocation("6,6,6"));
 
+        assertNull("Trailing empty fields are not counted",
+            this.notationConverter.parseGenomicLocation("6,6,6,A,,,"));
+
+        assertEquals("Extra fields are ignored", "A",
+            this.notationConverter.parseGenomicLocation("6,6,6,A,,T").getReferenceAllele());
+
         GenomicLocation location = this.notationConverter.parseGenomicLocation("4,9784947,9784948,-,AGA");
 
         assertEquals("4", location.getChromosome());
@@ -224,4 +234,37 @@ public class NotationConverterTest
             "17:7577121-7577122:1/A",
             this.notationConverter.genomicToEnsemblRestRegion(" 17 , 7577121 , 7577122 , GG , A "));
     }
+
+    @Test
+    public void convertGenomicLocations()
+    {
+        GenomicLocation insertion = this.notationConverter.parseGenomicLocation("4,9784947,9784948,-,AGA");
+        GenomicLocation vcfStyle = this.notationConverter.parseGenomicLocation("12,25398283,25398284,AC,AA");
+        GenomicLocation duplicate = this.notationConverter.parseGenomicLocation("12,25398283,25398284,AC,AA");
+        GenomicLocation invalid = this.notationConverter.parseGenomicLocation("1,0,0,A,T");
+        List<GenomicLocation> locations = Arrays.asList(insertion, vcfStyle, duplicate, invalid);
+
+        List<ConvertedGenomicLocation> hgvs = this.notationConverter.convertGenomicLocations(
+            locations, NotationConverter.VariantNotation.HGVS);
+
+        assertEquals(4, hgvs.size());
+        assertEquals("4:g.9784947_9784948insAGA", hgvs.get(0).getVariant());
+        assertEquals("12:g.25398284C>A", hgvs.get(1).getVariant());
+        assertNull(hgvs.get(3).getVariant());
+        // identical locations are only converted once
+        assertSame(hgvs.get(1), hgvs.get(2));
+
+        for (int i = 0; i < locations.size(); i++) {
+            assertEquals(locations.get(i).toString(), hgvs.get(i).getOriginalInput());
+            assertEquals(this.notationConverter.genomicToHgvs(locations.get(i)), hgvs.get(i).getVariant());
+            assertEquals(this.notationConverter.getGenomicLocationExplanation(locations.get(i)), hgvs.get(i).getExplanation());
+        }
+
+        List<ConvertedGenomicLocation> regions = this.notationConverter.convertGenomicLocations(
+            locations, NotationConverter.VariantNotation.ENSEMBL_REST_REGION);
+
+        for (int i = 0; i < locations.size(); i++) {
+            assertEquals(this.notationConverter.genomicToEnsemblRestRegion(locations.get(i)), regions.get(i).getVariant());
+        }
+    }
 }
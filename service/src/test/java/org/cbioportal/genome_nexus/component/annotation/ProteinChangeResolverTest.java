@@ -11,14 +11,22 @@ import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 
 @RunWith(MockitoJUnitRunner.Silent.class)
 public class ProteinChangeResolverTest
 {
+    private static final Pattern CDNA_EXTRACTOR = Pattern.compile(".*[cn].-?\\*?(\\d+).*");
+
     @InjectMocks
     private ProteinChangeResolver proteinChangeResolver;
 
@@ -198,4 +206,94 @@ public class ProteinChangeResolverTest
             )
         );
     }
+
+    @Test
+    public void translateAminoAcidCodes()
+    {
+        assertEquals("p.V600E", ProteinChangeResolver.translateAminoAcidCodes("p.Val600Glu"));
+        assertEquals("p.R273C", ProteinChangeResolver.translateAminoAcidCodes("p.Arg273Cys"));
+        assertEquals("p.E746_A750del", ProteinChangeResolver.translateAminoAcidCodes("p.Glu746_Ala750del"));
+        assertEquals("p.Q61*", ProteinChangeResolver.translateAminoAcidCodes("p.Gln61Ter"));
+        assertEquals("p.G12fs*3", ProteinChangeResolver.translateAminoAcidCodes("p.Gly12fs*3"));
+
+        // nothing to translate
+        String hgvsp = "p.=";
+        assertSame(hgvsp, ProteinChangeResolver.translateAminoAcidCodes(hgvsp));
+    }
+
+    @Test
+    public void translateAminoAcidCodesEquivalence()
+    {
+        List<String> tokens = new ArrayList<>();
+        for (String[] code : ProteinChangeResolver.AA3TO1) {
+            tokens.add(code[0]);
+            tokens.add(code[1]);
+        }
+        // fragments that form a new code together with a translated letter, e.g. "L" + "ys"
+        tokens.addAll(Arrays.asList("ys", "eu", "la", "er", "al", "fs", "del", "ins", "dup", "ext",
+            "p.", "600", "_", "=", "?", "*", "a", ""));
+
+        // every sequence of up to 3 tokens
+        for (String t1 : tokens) {
+            for (String t2 : tokens) {
+                for (String t3 : tokens) {
+                    String hgvsp = t1 + t2 + t3;
+                    assertEquals(hgvsp, translateAminoAcidCodesWithReplaceAll(hgvsp),
+                        ProteinChangeResolver.translateAminoAcidCodes(hgvsp));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void extractCdnaPosition()
+    {
+        assertEquals("1799", ProteinChangeResolver.extractCdnaPosition("ENST00000288602.6:c.1799T>A"));
+        assertEquals("2", ProteinChangeResolver.extractCdnaPosition("ENST00000269305.4:c.-2A>G"));
+        assertEquals("42", ProteinChangeResolver.extractCdnaPosition("ENST00000269305.4:c.*42del"));
+        assertEquals("1350", ProteinChangeResolver.extractCdnaPosition("ENST00000366794.5:n.1350+1G>A"));
+        assertNull(ProteinChangeResolver.extractCdnaPosition("ENST00000288602.6:c.?"));
+    }
+
+    @Test
+    public void extractCdnaPositionEquivalence()
+    {
+        List<String> tokens = Arrays.asList("c", "n", ".", ":", "-", "*", "+", "1", "42", "A", "T>A", "del",
+            "ENST00000288602.6", "\n", "");
+
+        // every sequence of up to 5 tokens
+        List<String> values = Arrays.asList("");
+        for (int length = 0; length < 5; length++) {
+            List<String> next = new ArrayList<>();
+            for (String value : values) {
+                for (String token : tokens) {
+                    String hgvsc = value + token;
+                    next.add(hgvsc);
+                    assertEquals(hgvsc, extractCdnaPositionWithPattern(hgvsc),
+                        ProteinChangeResolver.extractCdnaPosition(hgvsc));
+                }
+            }
+            values = next;
+        }
+    }
+
+    // the original implementation of ProteinChangeResolver.resolveHgvspShortFromHgvsp
+    private static String translateAminoAcidCodesWithReplaceAll(String hgvsp)
+    {
+        String hgvspShort = hgvsp;
+
+        for (int i = 0; i < 24; i++) {
+            if (hgvsp.contains(ProteinChangeResolver.AA3TO1[i][0])) {
+                hgvspShort = hgvspShort.replaceAll(ProteinChangeResolver.AA3TO1[i][0], ProteinChangeResolver.AA3TO1[i][1]);
+            }
+        }
+
+        return hgvspShort;
+    }
+
+    private static String extractCdnaPositionWithPattern(String hgvsc)
+    {
+        Matcher m = CDNA_EXTRACTOR.matcher(hgvsc);
+        return m.matches() ? m.group(1) : null;
+    }
 }
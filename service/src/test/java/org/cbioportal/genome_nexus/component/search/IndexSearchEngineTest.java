@@ -0,0 +1,197 @@
+package org.cbioportal.genome_nexus.component.search;
+
+import org.cbioportal.genome_nexus.model.Index;
+import org.cbioportal.genome_nexus.model.IndexSearch;
+import org.cbioportal.genome_nexus.model.IndexSearchType;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IndexSearchEngineTest
+{
+    private IndexSearchEngine searchEngine;
+
+    @Before
+    public void setupTests()
+    {
+        this.searchEngine = new IndexSearchEngine();
+
+        this.searchEngine.index("7:g.140453136A>T", this.createIndex(
+            "7:g.140453136A>T",
+            "BRAF",
+            "p.V600E",
+            "ENSP00000288602.6:p.Val600Glu",
+            "c.1799T>A",
+            "ENST00000288602.6:c.1799T>A"
+        ));
+        this.searchEngine.index("7:g.140453137C>T", this.createIndex(
+            "7:g.140453137C>T",
+            "BRAF",
+            "p.V600M",
+            "ENSP00000288602.6:p.Val600Met",
+            "c.1798G>A",
+            "ENST00000288602.6:c.1798G>A"
+        ));
+        this.searchEngine.index("17:g.7577121G>A", this.createIndex(
+            "17:g.7577121G>A",
+            "TP53",
+            "p.R273C",
+            "ENSP00000269305.4:p.Arg273Cys",
+            "c.817C>T",
+            "ENST00000269305.4:c.817C>T"
+        ));
+    }
+
+    @Test
+    public void searchByVariant()
+    {
+        List<IndexSearch> exact = this.searchEngine.search("7:g.140453136A>T", 10);
+        assertEquals(1, exact.size());
+        assertEquals(IndexSearchType.HGVSG, exact.get(0).getQueryType());
+        assertEquals(Arrays.asList("7:g.140453136A>T"), this.variants(exact.get(0)));
+
+        // case insensitive prefix match, exact match ranks first
+        List<IndexSearch> prefix = this.searchEngine.search("7:G.14045313", 10);
+        assertEquals(Arrays.asList("7:g.140453136A>T", "7:g.140453137C>T"), this.variants(prefix.get(0)));
+
+        // limit
+        assertEquals(1, this.searchEngine.search("7:g.14045313", 1).get(0).getResults().size());
+
+        // typo tolerant match (1 substitution)
+        List<IndexSearch> fuzzy = this.searchEngine.search("17:g.7578121G>A", 10);
+        assertEquals(Arrays.asList("17:g.7577121G>A"), this.variants(fuzzy.get(0)));
+
+        assertTrue(this.searchEngine.search("18:g.1234A>T", 10).isEmpty());
+    }
+
+    @Test
+    public void searchByHgvsc()
+    {
+        List<IndexSearch> queries = this.searchEngine.search("ENST00000288602.6:c.179", 10);
+        assertEquals(IndexSearchType.HGVSC, queries.get(0).getQueryType());
+        assertEquals(Arrays.asList("7:g.140453137C>T", "7:g.140453136A>T"), this.variants(queries.get(0)));
+    }
+
+    @Test
+    public void searchByGeneAndProteinChange()
+    {
+        List<IndexSearch> hgvspShort = this.searchEngine.search("BRAF p.V600E", 10);
+        assertEquals(IndexSearchType.GENE_HGVSPSHORT, hgvspShort.get(0).getQueryType());
+        assertEquals(Arrays.asList("7:g.140453136A>T"), this.variants(hgvspShort.get(0)));
+
+        // "p." prefix is optional, gene symbol is case insensitive
+        List<IndexSearch> prefix = this.searchEngine.search("braf V600", 10);
+        assertEquals(Arrays.asList("7:g.140453136A>T", "7:g.140453137C>T"), this.variants(prefix.get(0)));
+
+        // gene scoped: TP53 mutations should not match BRAF
+        assertTrue(this.searchEngine.search("TP53 p.V600E", 10).isEmpty());
+
+        // hgvsp without the protein id
+        List<IndexSearch> hgvsp = this.searchEngine.search("TP53 p.Arg273", 10);
+        assertEquals(IndexSearchType.GENE_HGVSP, hgvsp.get(0).getQueryType());
+        assertEquals(Arrays.asList("17:g.7577121G>A"), this.variants(hgvsp.get(0)));
+
+        // typo in the gene symbol
+        List<IndexSearch> fuzzyGene = this.searchEngine.search("BRAFF p.V600M", 10);
+        assertEquals(Arrays.asList("7:g.140453137C>T"), this.variants(fuzzyGene.get(0)));
+    }
+
+    @Test
+    public void searchByGeneAndCdna()
+    {
+        List<IndexSearch> queries = this.searchEngine.search("TP53 c.817C>T", 10);
+        assertEquals(1, queries.size());
+        assertEquals(IndexSearchType.GENE_CDNA, queries.get(0).getQueryType());
+        assertEquals(Arrays.asList("17:g.7577121G>A"), this.variants(queries.get(0)));
+    }
+
+    @Test
+    public void reindex()
+    {
+        this.searchEngine.index("17:g.7577121G>A", this.createIndex(
+            "17:g.7577121G>A",
+            "TP53",
+            "p.R273H",
+            "ENSP00000269305.4:p.Arg273His",
+            "c.818G>A",
+            "ENST00000269305.4:c.818G>A"
+        ));
+
+        assertEquals(3, this.searchEngine.size());
+        assertTrue(this.searchEngine.search("TP53 p.R273C", 10).get(0).getResults()
+            .stream().noneMatch(index -> index.getHgvspShort().contains("p.R273C")));
+        assertEquals(Arrays.asList("17:g.7577121G>A"),
+            this.variants(this.searchEngine.search("TP53 p.R273H", 10).get(0)));
+    }
+
+    @Test
+    public void indexIfAbsent()
+    {
+        // a document streamed by the bulk load does not replace the one indexed since
+        Index stale = this.createIndex(
+            "7:g.140453136A>T", "BRAF", "p.V600K", "ENSP00000288602.6:p.Val600Lys", "c.1798_1799delinsAA", "c.1798_1799delinsAA");
+
+        assertFalse(this.searchEngine.indexIfAbsent("7:g.140453136A>T", stale));
+        assertEquals(Arrays.asList("7:g.140453136A>T"),
+            this.variants(this.searchEngine.search("BRAF p.V600E", 10).get(0)));
+        assertTrue(this.searchEngine.search("BRAF p.V600K", 10).get(0).getResults()
+            .stream().noneMatch(index -> index == stale));
+
+        assertTrue(this.searchEngine.indexIfAbsent("12:g.25398284C>T", this.createIndex(
+            "12:g.25398284C>T", "KRAS", "p.G12D", "ENSP00000256078.4:p.Gly12Asp", "c.35G>A", "ENST00000256078.4:c.35G>A")));
+        assertEquals(4, this.searchEngine.size());
+    }
+
+    @Test
+    public void remove()
+    {
+        this.searchEngine.remove("7:g.140453136A>T");
+        this.searchEngine.remove("7:g.140453136A>T");
+
+        assertEquals(Arrays.asList("7:g.140453137C>T"), this.variants(this.searchEngine.search("BRAF p.V600", 10).get(0)));
+        assertTrue(this.searchEngine.search("7:g.140453136A>T", 10).stream()
+            .allMatch(query -> this.variants(query).stream().noneMatch("7:g.140453136A>T"::equals)));
+        assertEquals(2, this.searchEngine.size());
+    }
+
+    @Test
+    public void editDistance()
+    {
+        assertEquals(0, IndexSearchEngine.editDistance("braf", "braf", 1, false));
+        assertEquals(1, IndexSearchEngine.editDistance("braff", "braf", 1, false));
+        assertEquals(2, IndexSearchEngine.editDistance("kras", "braf", 1, false));
+        assertEquals(0, IndexSearchEngine.editDistance("bra", "braf", 1, true));
+        assertEquals(1, IndexSearchEngine.editDistance("brx", "braf", 1, true));
+    }
+
+    private List<String> variants(IndexSearch query)
+    {
+        return query.getResults().stream().map(Index::getvariant).collect(Collectors.toList());
+    }
+
+    private Index createIndex(String variant,
+                              String hugoSymbol,
+                              String hgvspShort,
+                              String hgvsp,
+                              String cdna,
+                              String hgvsc)
+    {
+        Index index = new Index();
+
+        index.setVariant(variant);
+        index.setHugoSymbol(Arrays.asList(hugoSymbol));
+        index.setHgvspShort(Arrays.asList(hgvspShort));
+        index.setHgvsp(Arrays.asList(hgvsp));
+        index.setCdna(Arrays.asList(cdna));
+        index.setHgvsc(Arrays.asList(hgvsc));
+
+        return index;
+    }
+}
@@ -0,0 +1,66 @@
+package org.cbioportal.genome_nexus.persistence.internal;
+
+import com.mongodb.MongoNamespace;
+import com.mongodb.ReadPreference;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import org.bson.Document;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.mongodb.MongoDbFactory;
+import org.springframework.data.mongodb.core.MongoExceptionTranslator;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class CacheDocumentRepositoryImplTest
+{
+    @Mock
+    private MongoDbFactory mongoDbFactory;
+
+    @Mock
+    private MongoDatabase database;
+
+    @Mock
+    private MongoCollection<Document> collection;
+
+    @Mock
+    private MongoCollection<Document> routedCollection;
+
+    private ReadPreferenceRoutingMongoTemplate mongoTemplate;
+
+    @Before
+    public void setupTests()
+    {
+        Mockito.when(this.mongoDbFactory.getExceptionTranslator()).thenReturn(new MongoExceptionTranslator());
+        Mockito.when(this.mongoDbFactory.getDb()).thenReturn(this.database);
+        Mockito.when(this.database.getCollection("hotspot.mutation", Document.class)).thenReturn(this.collection);
+        Mockito.when(this.collection.getNamespace()).thenReturn(new MongoNamespace("annotator", "hotspot.mutation"));
+        Mockito.when(this.collection.withReadPreference(ReadPreference.nearest())).thenReturn(this.routedCollection);
+        Mockito.when(this.routedCollection.estimatedDocumentCount()).thenReturn(42L);
+
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        converter.afterPropertiesSet();
+
+        this.mongoTemplate = new ReadPreferenceRoutingMongoTemplate(this.mongoDbFactory, converter,
+            Collections.singletonMap("hotspot.mutation", ReadPreference.nearest()));
+    }
+
+    @Test
+    public void readWithRoutedReadPreference()
+    {
+        assertEquals(42L, new CacheDocumentRepositoryImpl(this.mongoTemplate).count("hotspot.mutation"));
+        assertEquals(42L, new CacheEvictionRepositoryImpl(this.mongoTemplate).count("hotspot.mutation"));
+
+        Mockito.verify(this.collection, Mockito.never()).estimatedDocumentCount();
+    }
+}
@@ -0,0 +1,87 @@
+package org.cbioportal.genome_nexus.persistence.internal;
+
+import org.cbioportal.genome_nexus.model.EnsemblCanonical;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+@RunWith(MockitoJUnitRunner.class)
+public class EnsemblRepositoryImplTest
+{
+    @Mock
+    private MongoTemplate mongoTemplate;
+
+    private EnsemblRepositoryImpl ensemblRepository;
+
+    @Before
+    public void setupTests()
+    {
+        Mockito.when(this.mongoTemplate.findAll(EnsemblCanonical.class,
+            EnsemblRepositoryImpl.CANONICAL_TRANSCRIPTS_COLLECTION)).thenReturn(Arrays.asList(
+                // listed first, but its synonym MLL loses to the previous symbol of CDKN2A
+                this.createCanonical("ENSG00000118058", "KMT2A", "ALL1", "MLL, HRX"),
+                this.createCanonical("ENSG00000147889", "CDKN2A", "MLL", "P16 ARF"),
+                // approved symbol P16 wins over the synonym of CDKN2A
+                this.createCanonical("ENSG00000000001", "P16", null, null),
+                // same previous symbol as KMT2A, the first record wins
+                this.createCanonical("ENSG00000000002", "MLLT1", "ALL1", null),
+                // synonym equal to the approved symbol of KMT2A
+                this.createCanonical("ENSG00000000003", "MLLT3", null, "KMT2A")
+            ));
+
+        this.ensemblRepository = new EnsemblRepositoryImpl(this.mongoTemplate);
+    }
+
+    @Test
+    public void approvedSymbolsTakePrecedence()
+    {
+        assertEquals("KMT2A", this.hugoSymbol("KMT2A"));
+        assertEquals("P16", this.hugoSymbol("P16"));
+        assertEquals("CDKN2A", this.hugoSymbol("cdkn2a"));
+    }
+
+    @Test
+    public void previousSymbolsTakePrecedenceOverSynonyms()
+    {
+        assertEquals("CDKN2A", this.hugoSymbol("MLL"));
+        assertEquals("CDKN2A", this.hugoSymbol("mll"));
+        assertEquals("KMT2A", this.hugoSymbol("ALL1"));
+    }
+
+    @Test
+    public void synonyms()
+    {
+        // comma and space separated
+        assertEquals("KMT2A", this.hugoSymbol("HRX"));
+        assertEquals("CDKN2A", this.hugoSymbol("ARF"));
+        assertNull(this.ensemblRepository.getCanonicalEnsemblGeneIdByHugoSymbol("UNKNOWN"));
+        assertNull(this.ensemblRepository.getCanonicalEnsemblGeneIdByHugoSymbol(null));
+    }
+
+    private String hugoSymbol(String symbol)
+    {
+        return this.ensemblRepository.getCanonicalEnsemblGeneIdByHugoSymbol(symbol).getHugoSymbol();
+    }
+
+    private EnsemblCanonical createCanonical(String geneId, String hugoSymbol, String previousSymbols, String synonyms)
+    {
+        EnsemblCanonical canonical = new EnsemblCanonical();
+
+        canonical.setEnsemblCanonicalGeneId(geneId);
+        canonical.setHugoSymbol(hugoSymbol);
+        // the imported collection has empty strings for missing aliases
+        canonical.setPreviousSymbols(previousSymbols == null ? "" : previousSymbols);
+        canonical.setSynonyms(synonyms == null ? "" : synonyms);
+
+        return canonical;
+    }
+}
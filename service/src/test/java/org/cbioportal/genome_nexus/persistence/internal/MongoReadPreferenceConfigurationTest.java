@@ -0,0 +1,114 @@
+package org.cbioportal.genome_nexus.persistence.internal;
+
+import com.mongodb.ReadPreference;
+import org.cbioportal.genome_nexus.persistence.EnsemblRepository;
+import org.cbioportal.genome_nexus.persistence.HotspotRepository;
+import org.cbioportal.genome_nexus.persistence.ReadRoute;
+import org.cbioportal.genome_nexus.persistence.ReadRoutes;
+import org.cbioportal.genome_nexus.persistence.VariantAnnotationRepository;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MongoReadPreferenceConfigurationTest
+{
+    private static final List<ReadRoute> ROUTES = Arrays.asList(
+        ReadRoute.reference(EnsemblRepository.class, "ensembl.biomart_transcripts", "ensembl.canonical_transcript_per_hgnc"),
+        ReadRoute.reference(HotspotRepository.class, "hotspot.mutation"),
+        ReadRoute.cache(VariantAnnotationRepository.class, "vep.annotation")
+    );
+
+    @Test
+    public void parseRepositoryReadPreferences()
+    {
+        Map<String, String> expected = new HashMap<>();
+        expected.put("EnsemblRepository", "nearest");
+        expected.put("HotspotRepository", "secondaryPreferred");
+
+        assertEquals(expected, MongoReadPreferenceConfiguration.parseRepositoryReadPreferences(
+            " EnsemblRepository : nearest,,HotspotRepository:secondaryPreferred "));
+        assertTrue(MongoReadPreferenceConfiguration.parseRepositoryReadPreferences("").isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void parseInvalidRepositoryReadPreference()
+    {
+        MongoReadPreferenceConfiguration.parseRepositoryReadPreferences("EnsemblRepository=nearest");
+    }
+
+    @Test
+    public void routeByCollection()
+    {
+        Map<String, ReadPreference> readPreferences = MongoReadPreferenceConfiguration.collectionReadPreferences(
+            ROUTES, "secondaryPreferred", Collections.singletonMap("EnsemblRepository", "nearest"), 0);
+
+        // every collection of the overridden repository is routed, other reference collections use
+        // the reference read preference, and the cache collections always read from the primary
+        assertEquals(ReadPreference.nearest(), readPreferences.get("ensembl.biomart_transcripts"));
+        assertEquals(ReadPreference.nearest(), readPreferences.get("ensembl.canonical_transcript_per_hgnc"));
+        assertEquals(ReadPreference.secondaryPreferred(), readPreferences.get("hotspot.mutation"));
+        assertEquals(ReadPreference.primary(), readPreferences.get("vep.annotation"));
+        assertEquals(4, readPreferences.size());
+    }
+
+    @Test
+    public void maxStalenessOnlyAppliesToSecondaryReads()
+    {
+        Map<String, ReadPreference> readPreferences = MongoReadPreferenceConfiguration.collectionReadPreferences(
+            ROUTES, "nearest", Collections.singletonMap("HotspotRepository", "primary"), 120);
+
+        assertEquals(ReadPreference.nearest(120, TimeUnit.SECONDS), readPreferences.get("ensembl.biomart_transcripts"));
+        assertEquals(ReadPreference.primary(), readPreferences.get("hotspot.mutation"));
+        assertEquals(ReadPreference.primary(), readPreferences.get("vep.annotation"));
+    }
+
+    @Test
+    public void everyCacheCollectionReadsFromThePrimary()
+    {
+        Map<String, ReadPreference> readPreferences = MongoReadPreferenceConfiguration.collectionReadPreferences(
+            ReadRoutes.all(), "nearest", Collections.emptyMap(), 0);
+
+        for (ReadRoute route: ReadRoutes.all()) {
+            for (String collection: route.getCollections()) {
+                assertEquals(collection, route.isReference() ? ReadPreference.nearest() : ReadPreference.primary(),
+                    readPreferences.get(collection));
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownRepository()
+    {
+        MongoReadPreferenceConfiguration.collectionReadPreferences(
+            ROUTES, "primary", Collections.singletonMap("EnsembleRepository", "nearest"), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void cacheRepository()
+    {
+        MongoReadPreferenceConfiguration.collectionReadPreferences(
+            ROUTES, "primary", Collections.singletonMap("VariantAnnotationRepository", "nearest"), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void maxStalenessBelowTheDriverMinimum()
+    {
+        MongoReadPreferenceConfiguration.collectionReadPreferences(
+            ROUTES, "nearest", Collections.emptyMap(), 30);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void invalidReadPreference()
+    {
+        MongoReadPreferenceConfiguration.collectionReadPreferences(
+            ROUTES, "closest", Collections.emptyMap(), 0);
+    }
+}
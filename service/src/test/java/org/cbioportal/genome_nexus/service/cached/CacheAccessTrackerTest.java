@@ -0,0 +1,85 @@
+package org.cbioportal.genome_nexus.service.cached;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import org.cbioportal.genome_nexus.persistence.CacheEvictionRepository;
+import org.cbioportal.genome_nexus.service.SourceVersionService;
+import org.junit.After;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+
+public class CacheAccessTrackerTest
+{
+    private final CacheEvictionRepository repository = Mockito.mock(CacheEvictionRepository.class);
+
+    // no scheduled flush, only the early flushes
+    private final CacheAccessTracker tracker = new CacheAccessTracker(this.repository,
+        Mockito.mock(SourceVersionService.class), "vep.annotation", 0);
+
+    @After
+    public void shutdown()
+    {
+        this.tracker.shutdown();
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void flushEarlyWhenTooManyIdsArePending()
+    {
+        List<String> ids = new ArrayList<>();
+
+        for (int i = 0; i < CacheAccessTracker.MAX_PENDING; i++) {
+            ids.add("variant" + i);
+        }
+
+        this.tracker.recordHits("vep.annotation", ids.subList(0, 10));
+        Mockito.verifyZeroInteractions(this.repository);
+
+        this.tracker.recordHits("vep.annotation", ids);
+
+        ArgumentCaptor<Collection<String>> accessed = ArgumentCaptor.forClass(Collection.class);
+        Mockito.verify(this.repository, Mockito.timeout(5000))
+            .markAccessed(eq("vep.annotation"), accessed.capture(), any(Date.class));
+
+        // every hit is kept, none is dropped
+        assertEquals(CacheAccessTracker.MAX_PENDING, accessed.getValue().size());
+        assertEquals(CacheAccessTracker.MAX_PENDING + 10, this.tracker.getHits("vep.annotation"));
+    }
+
+    @Test
+    public void keepTheAccessTimeOfRefreshedDocuments()
+    {
+        Date accessedAt = new Date(0);
+        DBObject refreshed = new BasicDBObject("_id", "7:g.140453136A>T");
+        DBObject created = new BasicDBObject("_id", "12:g.25398285C>A");
+
+        this.tracker.stamp("vep.annotation", refreshed, accessedAt);
+        this.tracker.stamp("vep.annotation", created);
+
+        assertEquals(accessedAt, refreshed.get(CacheEvictionRepository.ACCESSED_AT_FIELD));
+        assertEquals(created.get(CacheEvictionRepository.CACHED_AT_FIELD),
+            created.get(CacheEvictionRepository.ACCESSED_AT_FIELD));
+    }
+
+    @Test
+    public void ignoreUntrackedCollections()
+    {
+        this.tracker.recordHits("hotspot.mutation", Collections.singletonList("variant"));
+        this.tracker.flush();
+
+        Mockito.verify(this.repository, Mockito.never()).findCachedAt(any(), anyList());
+        assertEquals(0, this.tracker.getHits("hotspot.mutation"));
+    }
+}
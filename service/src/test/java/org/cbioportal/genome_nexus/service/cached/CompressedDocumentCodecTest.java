@@ -0,0 +1,96 @@
+package org.cbioportal.genome_nexus.service.cached;
+
+import org.bson.Document;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CompressedDocumentCodecTest
+{
+    private final CompressedDocumentCodec codec = new CompressedDocumentCodec("vep.annotation", "input, most_severe_consequence");
+
+    @Test
+    public void compressAnnotation()
+    {
+        Document annotation = annotation("7:g.140453136A>T", 20);
+        Document compressed = this.codec.compress(annotation);
+
+        assertTrue(CompressedDocumentCodec.isCompressed(compressed));
+        assertFalse(CompressedDocumentCodec.isCompressed(annotation));
+
+        // the top-level fields stay queryable
+        assertEquals(Arrays.asList("_id", "input", "most_severe_consequence",
+            CompressedDocumentCodec.FORMAT_FIELD, CompressedDocumentCodec.COMPRESSED_FIELD),
+            new ArrayList<>(compressed.keySet()));
+        assertEquals("7:g.140453136A>T", compressed.getString("input"));
+
+        assertEquals(annotation, CompressedDocumentCodec.decompress(compressed));
+
+        // the transcript consequences repeat the same keys
+        int expandedSize = CompressedDocumentCodec.encodedSize(annotation);
+        int compressedSize = CompressedDocumentCodec.encodedSize(compressed);
+
+        assertTrue(expandedSize + " / " + compressedSize, expandedSize > 4 * compressedSize);
+    }
+
+    @Test
+    public void compressSmallDocument()
+    {
+        Document document = new Document("_id", "rs113488022").append("input", "rs113488022");
+
+        assertEquals(document, CompressedDocumentCodec.decompress(this.codec.compress(document)));
+        assertTrue(this.codec.supports("vep.annotation"));
+        assertFalse(this.codec.supports("my_variant_info.annotation"));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectUnknownFormat()
+    {
+        Document compressed = this.codec.compress(annotation("12:g.25398285C>A", 1));
+        compressed.put(CompressedDocumentCodec.FORMAT_FIELD, CompressedDocumentCodec.FORMAT + 1);
+
+        CompressedDocumentCodec.decompress(compressed);
+    }
+
+    static Document annotation(String id, int transcriptCount)
+    {
+        List<Document> transcriptConsequences = new ArrayList<>();
+
+        for (int i = 0; i < transcriptCount; i++) {
+            transcriptConsequences.add(new Document()
+                .append("transcript_id", "ENST0000028860" + i)
+                .append("gene_id", "ENSG00000157764")
+                .append("gene_symbol", "BRAF")
+                .append("gene_symbol_source", "HGNC")
+                .append("hgnc_id", "HGNC:1097")
+                .append("biotype", i == 0 ? "protein_coding" : "nonsense_mediated_decay")
+                .append("consequence_terms", Collections.singletonList(i == 0 ? "missense_variant" : "intron_variant"))
+                .append("impact", i == 0 ? "MODERATE" : "MODIFIER")
+                .append("variant_allele", "T")
+                .append("strand", -1)
+                .append("hgvsc", "ENST0000028860" + i + ".2:c.1799T>A")
+                .append("polyphen_prediction", "probably_damaging")
+                .append("polyphen_score", 0.97)
+                .append("sift_prediction", "deleterious")
+                .append("sift_score", 0.0));
+        }
+
+        return new Document("_id", id)
+            .append("id", id)
+            .append("input", id)
+            .append("assembly_name", "GRCh37")
+            .append("seq_region_name", "7")
+            .append("start", 140453136)
+            .append("end", 140453136)
+            .append("allele_string", "A/T")
+            .append("most_severe_consequence", "missense_variant")
+            .append("transcript_consequences", transcriptConsequences);
+    }
+}
@@ -0,0 +1,215 @@
+package org.cbioportal.genome_nexus.service.cached;
+
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import org.bson.Document;
+import org.cbioportal.genome_nexus.model.VariantAnnotation;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class EmbeddedCacheStorageTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void reopenStore() throws IOException
+    {
+        Path directory = this.folder.getRoot().toPath();
+
+        MappedKeyValueStore store = new MappedKeyValueStore(directory, "vep.annotation");
+        store.put("7:g.140453136A>T", utf8("BRAF V600E"));
+        store.put("12:g.25398285C>A", utf8("KRAS G12C"));
+        store.put("7:g.140453136A>T", utf8("BRAF p.V600E"));
+        store.close();
+
+        store = new MappedKeyValueStore(directory, "vep.annotation");
+
+        assertEquals(2, store.size());
+        assertEquals("BRAF p.V600E", string(store.get("7:g.140453136A>T")));
+        assertEquals("KRAS G12C", string(store.get("12:g.25398285C>A")));
+        assertNull(store.get("17:g.7577120C>T"));
+
+        store.close();
+    }
+
+    @Test
+    public void growStoreAcrossSegments() throws IOException
+    {
+        Path directory = this.folder.getRoot().toPath();
+        int count = 5000;
+
+        // small segments and many keys, so that both the data file and the index grow
+        MappedKeyValueStore store = new MappedKeyValueStore(directory, "index", 4096);
+
+        for (int i = 0; i < count; i++) {
+            store.put("variant" + i, utf8("value of variant " + i));
+        }
+
+        for (int i = 0; i < count; i += 7) {
+            store.put("variant" + i, utf8("new value of variant " + i));
+        }
+
+        store.close();
+
+        // the segment size of the existing files is kept
+        store = new MappedKeyValueStore(directory, "index");
+
+        assertEquals(count, store.size());
+
+        for (int i = 0; i < count; i++) {
+            assertEquals((i % 7 == 0 ? "new value of variant " : "value of variant ") + i, string(store.get("variant" + i)));
+        }
+
+        Map<String, ByteBuffer> values = store.getAll(Arrays.asList("variant3", "missing", "variant1"));
+
+        assertEquals(Arrays.asList("variant3", "variant1"), Arrays.asList(values.keySet().toArray()));
+        assertEquals("value of variant 1", string(values.get("variant1")));
+
+        store.close();
+    }
+
+    @Test(expected = IOException.class)
+    public void lockStore() throws IOException
+    {
+        Path directory = this.folder.getRoot().toPath();
+
+        try (MappedKeyValueStore store = new MappedKeyValueStore(directory, "vep.annotation")) {
+            new MappedKeyValueStore(directory, "vep.annotation");
+        }
+    }
+
+    @Test
+    public void ignoreInvalidRecords() throws IOException
+    {
+        Path directory = this.folder.getRoot().toPath();
+
+        MappedKeyValueStore store = new MappedKeyValueStore(directory, "vep.annotation", 4096);
+        store.put("7:g.140453136A>T", utf8("BRAF V600E"));
+        store.put("12:g.25398285C>A", utf8("KRAS G12C"));
+        store.close();
+
+        // a value which was not written back, while its index slot was
+        Path dataPath = directory.resolve("vep.annotation.data");
+        byte[] data = Files.readAllBytes(dataPath);
+        int position = new String(data, StandardCharsets.ISO_8859_1).indexOf("KRAS G12C");
+        Arrays.fill(data, position, position + "KRAS G12C".length(), (byte) 0);
+        Files.write(dataPath, data);
+
+        store = new MappedKeyValueStore(directory, "vep.annotation");
+
+        assertEquals("BRAF V600E", string(store.get("7:g.140453136A>T")));
+        assertNull(store.get("12:g.25398285C>A"));
+        assertEquals(Collections.singleton("7:g.140453136A>T"),
+            store.getAll(Arrays.asList("7:g.140453136A>T", "12:g.25398285C>A")).keySet());
+
+        // put again, the record is valid
+        store.put("12:g.25398285C>A", utf8("KRAS G12C"));
+        assertEquals("KRAS G12C", string(store.get("12:g.25398285C>A")));
+        assertEquals(2, store.size());
+
+        store.close();
+    }
+
+    @Test
+    public void saveAndReadDocuments()
+    {
+        this.saveAndReadDocuments(true);
+        this.saveAndReadDocuments(false);
+    }
+
+    private void saveAndReadDocuments(boolean compression)
+    {
+        EmbeddedCacheStorage storage = new EmbeddedCacheStorage(
+            converter(),
+            new File(this.folder.getRoot(), "compression_" + compression).getPath(),
+            "vep.annotation, pdb.header",
+            compression
+        );
+
+        assertTrue(storage.supports("vep.annotation"));
+        assertTrue(storage.supports("pdb.header"));
+        assertFalse(storage.supports("index"));
+
+        storage.saveAll("vep.annotation", Arrays.asList(
+            annotation("7:g.140453136A>T", "missense_variant"),
+            annotation("12:g.25398285C>A", "missense_variant")
+        ));
+        storage.save("pdb.header", new BasicDBObject("_id", "1a37").append("value", "HEADER    TRANSFERASE"));
+
+        List<Document> documents = storage.findAllById("vep.annotation",
+            Arrays.asList("12:g.25398285C>A", "17:g.7577120C>T", "7:g.140453136A>T"));
+
+        assertEquals(2, documents.size());
+
+        VariantAnnotation annotation = storage.read(VariantAnnotation.class, documents.get(1));
+
+        assertEquals("7:g.140453136A>T", annotation.getVariant());
+        assertEquals("7:g.140453136A>T", annotation.getVariantId());
+        assertEquals("GRCh37", annotation.getAssemblyName());
+        assertEquals("missense_variant", annotation.getMostSevereConsequence());
+        assertEquals(1, annotation.getTranscriptConsequences().size());
+        assertEquals("BRAF", annotation.getTranscriptConsequences().get(0).getGeneSymbol());
+
+        assertEquals("HEADER    TRANSFERASE", storage.findById("pdb.header", "1a37").get().getString("value"));
+        assertFalse(storage.findById("pdb.header", "1a38").isPresent());
+        assertEquals(Integer.valueOf(1), storage.getDocumentCounts().get("pdb.header"));
+
+        storage.close();
+    }
+
+    private static DBObject annotation(String id, String consequence)
+    {
+        BasicDBObject transcriptConsequence = new BasicDBObject("transcript_id", "ENST00000288602")
+            .append("gene_symbol", "BRAF")
+            .append("consequence_terms", Collections.singletonList(consequence));
+
+        return new BasicDBObject("_id", id)
+            .append("id", id)
+            .append("input", id)
+            .append("assembly_name", "GRCh37")
+            .append("most_severe_consequence", consequence)
+            .append("transcript_consequences", Collections.singletonList(transcriptConsequence));
+    }
+
+    private static MappingMongoConverter converter()
+    {
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        converter.afterPropertiesSet();
+
+        return converter;
+    }
+
+    private static ByteBuffer utf8(String value)
+    {
+        return ByteBuffer.wrap(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String string(ByteBuffer value)
+    {
+        byte[] bytes = new byte[value.remaining()];
+        value.duplicate().get(bytes);
+
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
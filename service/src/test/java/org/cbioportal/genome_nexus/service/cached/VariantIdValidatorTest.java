@@ -0,0 +1,109 @@
+package org.cbioportal.genome_nexus.service.cached;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class VariantIdValidatorTest
+{
+    private static final int FUZZ_ITERATIONS = 100000;
+    private static final String[] FRAGMENTS = {"1", "17", "X", "Y", "MT", "M", "rs", "COSM", ":", ":", "-", "-",
+        "/", "1/", "-1/", "g.", "g.0", "c.", "A", "T>A", "del", "ins", "undefined", "206811015", "0", "\n", " ", ""};
+
+    private final Random random = new Random(20190702);
+
+    @Test
+    public void validateRegion()
+    {
+        assertNull(VariantIdValidator.REGION.validate("17:36002278-36002277:1/A"));
+        assertNull(VariantIdValidator.REGION.validate("1:206811015-206811016:1/-"));
+        assertNull(VariantIdValidator.REGION.validate("MT:100-100:1/C"));
+
+        assertNotNull(VariantIdValidator.REGION.validate("17:36002278-36002277:-1/A"));
+        assertNotNull(VariantIdValidator.REGION.validate("17:g.36002278A>T"));
+        assertNotNull(VariantIdValidator.REGION.validate("undefined:36002278-36002277:1/A"));
+        assertNotNull(VariantIdValidator.REGION.validate("17:36002278-36002277:"));
+    }
+
+    @Test
+    public void validateHgvs()
+    {
+        assertNull(VariantIdValidator.HGVS.validate("7:g.140453136A>T"));
+        assertNull(VariantIdValidator.HGVS.validate("X:g.1000_1001insT"));
+
+        assertNotNull(VariantIdValidator.HGVS.validate("7:g.0A>T"));
+        assertNotNull(VariantIdValidator.HGVS.validate("7:g.undefinedA>T"));
+        assertNotNull(VariantIdValidator.HGVS.validate("7:36002278-36002277:1/A"));
+        assertNotNull(VariantIdValidator.HGVS.validate("7:"));
+    }
+
+    @Test
+    public void validateDbsnp()
+    {
+        assertNull(VariantIdValidator.DBSNP.validate("rs113488022"));
+        assertNull(VariantIdValidator.DBSNP.validate("COSM476"));
+
+        assertNotNull(VariantIdValidator.DBSNP.validate("rs"));
+        assertNotNull(VariantIdValidator.DBSNP.validate("rs12a"));
+        assertNotNull(VariantIdValidator.DBSNP.validate("7:g.140453136A>T"));
+    }
+
+    @Test
+    public void fuzzAgainstPreviousChecks()
+    {
+        for (int i = 0; i < FUZZ_ITERATIONS; i++)
+        {
+            StringBuilder builder = new StringBuilder();
+            int fragments = this.random.nextInt(9);
+
+            for (int j = 0; j < fragments; j++) {
+                builder.append(FRAGMENTS[this.random.nextInt(FRAGMENTS.length)]);
+            }
+
+            String id = builder.toString();
+
+            assertEquals(id, isValidRegion(id), VariantIdValidator.REGION.isValid(id));
+            assertEquals(id, isValidHgvs(id), VariantIdValidator.HGVS.isValid(id));
+            assertEquals(id, isValidDbsnp(id), VariantIdValidator.DBSNP.isValid(id));
+        }
+    }
+
+    // the previous CachedVariantRegionAnnotationFetcher.isValidId, failing on some malformed ids
+    private static boolean isValidRegion(String id)
+    {
+        try {
+            return (
+                !id.contains("undefined") && !id.contains("g.") &&
+                id.contains("-") &&
+                (id.length() - id.replace(":","").length() == 2) &&
+                (id.length() - id.replace("/","").length() == 1) &&
+                (id.split(":")[0].matches("\\d+") || id.split(":")[0].contains("X") || id.split(":")[0].contains("Y") || id.split(":")[0].contains("MT")) &&
+                id.split(":")[1].split("-")[0].matches("\\d+") &&
+                id.split(":")[1].split("-")[1].matches("\\d+") &&
+                id.split(":")[2].startsWith("1/")
+            );
+        } catch (ArrayIndexOutOfBoundsException e) {
+            return false;
+        }
+    }
+
+    // the previous CachedVariantAnnotationFetcher.isValidId
+    private static boolean isValidHgvs(String id)
+    {
+        try {
+            return !id.contains("-") && !id.contains("undefined") && !id.contains("g.0") && id.contains(":") && id.split(":")[1].matches(".*\\d+.*");
+        } catch (ArrayIndexOutOfBoundsException e) {
+            return false;
+        }
+    }
+
+    // the previous CachedVariantIdAnnotationFetcher.isValidId
+    private static boolean isValidDbsnp(String id)
+    {
+        return id.matches("rs\\d+") || id.matches("COSM\\d+");
+    }
+}
@@ -0,0 +1,118 @@
+package org.cbioportal.genome_nexus.service.internal;
+
+import org.cbioportal.genome_nexus.model.AnnotationField;
+import org.cbioportal.genome_nexus.service.AnnotationAdmissionService.Admission;
+import org.cbioportal.genome_nexus.service.exception.AnnotationAdmissionRejectedException;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class AnnotationAdmissionServiceTest
+{
+    @Test
+    public void costDependsOnVariantsAndFields()
+    {
+        assertEquals(10, AnnotationAdmissionServiceImpl.cost(10, null));
+        assertEquals(30, AnnotationAdmissionServiceImpl.cost(10,
+            Arrays.asList(AnnotationField.ANNOTATION_SUMMARY, AnnotationField.ONCOKB)));
+    }
+
+    @Test
+    public void weightedFairOrder() throws Exception
+    {
+        // one slot, two interactive requests for each bulk request
+        AnnotationAdmissionServiceImpl service = service(1, 1, 10, 10, 2, 0, 30);
+        List<String> order = Collections.synchronizedList(new ArrayList<>());
+        List<Thread> threads = new ArrayList<>();
+
+        Admission first = service.admit("client", 1000, null);
+
+        for (String request: Arrays.asList("i1", "b1", "i2", "b2", "i3")) {
+            Thread thread = new Thread(() -> {
+                try (Admission admission = service.admit(request, request.startsWith("b") ? 1000 : 1, null)) {
+                    order.add(request);
+                } catch (AnnotationAdmissionRejectedException e) {
+                    order.add("rejected " + request);
+                }
+            });
+            thread.start();
+            threads.add(thread);
+
+            // queue the requests in the given order
+            waitForQueued(service, threads.size());
+        }
+
+        first.close();
+
+        for (Thread thread: threads) {
+            thread.join(5000);
+        }
+
+        assertEquals(Arrays.asList("i1", "i2", "b1", "i3", "b2"), order);
+    }
+
+    @Test
+    public void shedLoad() throws Exception
+    {
+        AnnotationAdmissionServiceImpl service = service(1, 1, 0, 0, 4, 1, 0);
+
+        try (Admission admission = service.admit("client1", 1, null)) {
+            assertRejected(service, "client1", 1, "too many concurrent requests from client client1");
+            assertRejected(service, "client2", 1, "interactive queue is full");
+            assertRejected(service, "client2", 1000, "bulk queue is full");
+        }
+
+        // the slot and the client quota are released
+        service.admit("client1", 1, null).close();
+    }
+
+    @Test
+    public void rejectAfterMaxWait() throws Exception
+    {
+        AnnotationAdmissionServiceImpl service = service(1, 1, 10, 10, 4, 0, 0);
+
+        try (Admission admission = service.admit("client1", 1, null)) {
+            assertRejected(service, "client2", 1, "waited for more than 0 seconds");
+            assertEquals(0, service.getQueuedCount());
+        }
+    }
+
+    private static void assertRejected(AnnotationAdmissionServiceImpl service, String clientId, int variantCount, String reason)
+    {
+        try {
+            service.admit(clientId, variantCount, null);
+            fail("request should be rejected: " + reason);
+        } catch (AnnotationAdmissionRejectedException e) {
+            assertEquals(reason, e.getReason());
+            assertTrue(e.getRetryAfterSeconds() >= 1);
+        }
+    }
+
+    private static void waitForQueued(AnnotationAdmissionServiceImpl service, int count) throws InterruptedException
+    {
+        long deadline = System.currentTimeMillis() + 5000;
+
+        while (service.getQueuedCount() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static AnnotationAdmissionServiceImpl service(int maxRunning,
+                                                          int maxRunningBulk,
+                                                          int interactiveQueueSize,
+                                                          int bulkQueueSize,
+                                                          int interactiveWeight,
+                                                          int perClientLimit,
+                                                          long maxWaitSeconds)
+    {
+        return new AnnotationAdmissionServiceImpl(true, maxRunning, maxRunningBulk, interactiveQueueSize,
+            bulkQueueSize, interactiveWeight, 100, perClientLimit, maxWaitSeconds);
+    }
+}
@@ -0,0 +1,373 @@
+package org.cbioportal.genome_nexus.service.internal;
+
+import org.cbioportal.genome_nexus.component.annotation.NotationConverter;
+import org.cbioportal.genome_nexus.model.AnnotationJob;
+import org.cbioportal.genome_nexus.model.AnnotationJobChunk;
+import org.cbioportal.genome_nexus.model.AnnotationJobResult;
+import org.cbioportal.genome_nexus.model.AnnotationJobStatus;
+import org.cbioportal.genome_nexus.model.VariantAnnotation;
+import org.cbioportal.genome_nexus.persistence.AnnotationJobChunkRepository;
+import org.cbioportal.genome_nexus.persistence.AnnotationJobRepository;
+import org.cbioportal.genome_nexus.persistence.AnnotationJobResultRepository;
+import org.cbioportal.genome_nexus.service.StreamingAnnotationService;
+import org.cbioportal.genome_nexus.service.exception.AnnotationJobFailedException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class AnnotationJobServiceTest
+{
+    @Mock
+    private AnnotationJobRepository annotationJobRepository;
+
+    @Mock
+    private AnnotationJobChunkRepository annotationJobChunkRepository;
+
+    @Mock
+    private AnnotationJobResultRepository annotationJobResultRepository;
+
+    @Mock
+    private StreamingAnnotationService streamingAnnotationService;
+
+    // in memory stand-ins for the job collections
+    private final Map<String, AnnotationJob> jobs = new ConcurrentHashMap<>();
+    private final Map<String, AnnotationJobChunk> chunks = new ConcurrentHashMap<>();
+    private final Map<String, AnnotationJobResult> results = new ConcurrentHashMap<>();
+
+    private AnnotationJobServiceImpl service;
+
+    @Before
+    public void setUp()
+    {
+        Mockito.when(this.annotationJobRepository.save(any())).thenAnswer(invocation -> {
+            AnnotationJob job = invocation.getArgument(0);
+            this.jobs.put(job.getId(), job);
+            return job;
+        });
+        Mockito.when(this.annotationJobRepository.findById(anyString()))
+            .thenAnswer(invocation -> Optional.ofNullable(this.jobs.get(invocation.<String>getArgument(0))));
+        Mockito.when(this.annotationJobRepository.claim(anyString(), anyString(), any(), any())).thenAnswer(invocation -> {
+            AnnotationJob job = this.jobs.get(invocation.<String>getArgument(0));
+            String owner = invocation.getArgument(1);
+            Date now = invocation.getArgument(2);
+
+            if (job == null ||
+                job.getStatus() == AnnotationJobStatus.COMPLETED ||
+                job.getStatus() == AnnotationJobStatus.FAILED ||
+                (job.getOwner() != null && !job.getOwner().equals(owner) && job.getLeaseExpiresAt().after(now)))
+            {
+                return null;
+            }
+
+            job.setOwner(owner);
+            job.setLeaseExpiresAt(invocation.getArgument(3));
+            return job;
+        });
+        Mockito.when(this.annotationJobRepository.saveIfOwner(any())).thenAnswer(invocation -> {
+            AnnotationJob job = invocation.getArgument(0);
+            AnnotationJob stored = this.jobs.get(job.getId());
+
+            if (stored != null && !job.getOwner().equals(stored.getOwner())) {
+                return false;
+            }
+
+            this.jobs.put(job.getId(), job);
+            return true;
+        });
+        Mockito.when(this.annotationJobChunkRepository.save(any())).thenAnswer(invocation -> {
+            AnnotationJobChunk chunk = invocation.getArgument(0);
+            this.chunks.put(chunk.getId(), chunk);
+            return chunk;
+        });
+        Mockito.when(this.annotationJobChunkRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<AnnotationJobChunk> saved = invocation.getArgument(0);
+            saved.forEach(chunk -> this.chunks.put(chunk.getId(), chunk));
+            return saved;
+        });
+        Mockito.when(this.annotationJobChunkRepository.findById(anyString()))
+            .thenAnswer(invocation -> Optional.ofNullable(this.chunks.get(invocation.<String>getArgument(0))));
+        Mockito.doAnswer(invocation -> this.chunks.values().removeIf(
+            chunk -> chunk.getJobId().equals(invocation.getArgument(0))))
+            .when(this.annotationJobChunkRepository).deleteByJobId(anyString());
+        Mockito.when(this.annotationJobResultRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<AnnotationJobResult> saved = invocation.getArgument(0);
+            saved.forEach(result -> this.results.put(result.getId(), result));
+            return saved;
+        });
+        Mockito.when(this.annotationJobResultRepository.findByJobIdAndChunkIndexOrderByPositionAsc(anyString(), any()))
+            .thenAnswer(invocation -> this.results.values()
+                .stream()
+                .filter(result -> result.getJobId().equals(invocation.getArgument(0)) &&
+                    result.getChunkIndex().equals(invocation.getArgument(1)))
+                .sorted(Comparator.comparing(AnnotationJobResult::getPosition))
+                .collect(Collectors.toList()));
+        Mockito.doAnswer(invocation -> this.results.values().removeIf(
+            result -> result.getJobId().equals(invocation.getArgument(0))))
+            .when(this.annotationJobResultRepository).deleteByJobId(anyString());
+        Mockito.when(this.streamingAnnotationService.annotateWindow(anyList(), any(), any(), any()))
+            .thenAnswer(invocation -> invocation.<List<String>>getArgument(0)
+                .stream()
+                .map(VariantAnnotation::new)
+                .collect(Collectors.toList()));
+
+        this.service = new AnnotationJobServiceImpl(this.annotationJobRepository, this.annotationJobChunkRepository,
+            this.annotationJobResultRepository, this.streamingAnnotationService, new NotationConverter(), 2, 1, 24, 300);
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.service.shutdown();
+    }
+
+    @Test
+    public void annotateVariantList() throws Exception
+    {
+        AnnotationJob job = this.service.submit(
+            Arrays.asList("7:g.140453136A>T", "12:g.25398285C>A", "17:g.41242962_41242963insGA"), null, null, null);
+
+        assertEquals(Long.valueOf(3), job.getTotalVariants());
+        assertEquals(Integer.valueOf(2), job.getChunkCount());
+
+        job = this.awaitCompletion(job.getId());
+
+        assertEquals(Long.valueOf(3), job.getProcessedVariants());
+        assertEquals(Long.valueOf(3), job.getAnnotatedVariants());
+        assertNotNull(job.getVariantsPerSecond());
+        // no estimate once the job is completed
+        assertNull(job.getEtaSeconds());
+
+        assertEquals(Arrays.asList("7:g.140453136A>T", "12:g.25398285C>A"), this.variants(job.getId(), 0));
+        assertEquals(Arrays.asList("17:g.41242962_41242963insGA"), this.variants(job.getId(), 1));
+    }
+
+    @Test
+    public void annotateMaf() throws Exception
+    {
+        String maf = String.join("\n",
+            "Chromosome\tStart_Position\tEnd_Position\tReference_Allele\tTumor_Seq_Allele2",
+            "7\t140453136\t140453136\tA\tT",
+            "17\t41242962\t41242963\t-\tGA"
+        );
+
+        AnnotationJob job = this.service.submit(new BufferedReader(new StringReader(maf)), null, null, null);
+        job = this.awaitCompletion(job.getId());
+
+        // genomic locations are annotated as HGVS variants
+        assertEquals(Long.valueOf(2), job.getTotalVariants());
+        assertEquals(Arrays.asList("7:g.140453136A>T", "17:g.41242962_41242963insGA"), this.variants(job.getId(), 0));
+    }
+
+    @Test
+    public void resumeJobs() throws Exception
+    {
+        // a job interrupted by a restart after its first chunk
+        AnnotationJob job = new AnnotationJob();
+        job.setId("interrupted");
+        job.setStatus(AnnotationJobStatus.RUNNING);
+        job.setTotalVariants(3L);
+        job.setProcessedVariants(2L);
+        job.setAnnotatedVariants(2L);
+        job.setChunkCount(2);
+        job.setProcessedChunks(1);
+        this.jobs.put(job.getId(), job);
+
+        AnnotationJobChunk processed = new AnnotationJobChunk("interrupted", 0, Arrays.asList("a", "b"));
+        this.chunks.put(processed.getId(), processed);
+        AnnotationJobChunk remaining = new AnnotationJobChunk("interrupted", 1, Arrays.asList("7:g.140453136A>T"));
+        this.chunks.put(remaining.getId(), remaining);
+
+        Mockito.when(this.annotationJobRepository.findByStatusInOrderByCreatedAtAsc(anyList()))
+            .thenReturn(Arrays.asList(job));
+
+        this.service.resumeJobs();
+        job = this.awaitCompletion("interrupted");
+
+        assertEquals(Long.valueOf(3), job.getProcessedVariants());
+        // processed chunks are not annotated again
+        assertNull(this.service.getResults("interrupted", 0));
+        assertEquals(Arrays.asList("7:g.140453136A>T"), this.variants("interrupted", 1));
+    }
+
+    @Test
+    public void resumeOnlyJobsWithoutValidLease() throws Exception
+    {
+        AnnotationJob leased = this.createStoredJob("leased", "other-instance", new Date(System.currentTimeMillis() + 60000));
+        AnnotationJob expired = this.createStoredJob("expired", "stopped-instance", new Date(System.currentTimeMillis() - 1000));
+
+        Mockito.when(this.annotationJobRepository.findByStatusInOrderByCreatedAtAsc(anyList()))
+            .thenReturn(Arrays.asList(leased, expired));
+
+        this.service.resumeJobs();
+
+        // the job of a stopped instance is taken over
+        assertEquals(AnnotationJobStatus.COMPLETED, this.awaitCompletion("expired").getStatus());
+        assertEquals(Arrays.asList("7:g.140453136A>T"), this.variants("expired", 0));
+
+        // the job leased by a running instance is left to it
+        Thread.sleep(50);
+        assertEquals(AnnotationJobStatus.QUEUED, this.jobs.get("leased").getStatus());
+        assertNull(this.service.getResults("leased", 0));
+    }
+
+    @Test
+    public void stopWhenTakenOver() throws Exception
+    {
+        AnnotationJob job = this.createStoredJob("taken-over", null, null);
+        job.setTotalVariants(2L);
+        job.setChunkCount(2);
+        this.chunks.put("taken-over_1", new AnnotationJobChunk("taken-over", 1, Arrays.asList("12:g.25398285C>A")));
+
+        // another instance takes the job over while the first chunk is annotated
+        Mockito.when(this.streamingAnnotationService.annotateWindow(anyList(), any(), any(), any()))
+            .thenAnswer(invocation -> {
+                AnnotationJob stolen = new AnnotationJob();
+                stolen.setId("taken-over");
+                stolen.setStatus(AnnotationJobStatus.RUNNING);
+                stolen.setOwner("other-instance");
+                this.jobs.put("taken-over", stolen);
+
+                return invocation.<List<String>>getArgument(0)
+                    .stream()
+                    .map(VariantAnnotation::new)
+                    .collect(Collectors.toList());
+            });
+
+        this.service.run("taken-over");
+
+        // the progress of the other instance is not overwritten, and the next chunk is left to it
+        assertEquals("other-instance", this.jobs.get("taken-over").getOwner());
+        assertEquals(AnnotationJobStatus.RUNNING, this.jobs.get("taken-over").getStatus());
+        assertFalse(Boolean.TRUE.equals(this.chunks.get("taken-over_1").getAnnotated()));
+    }
+
+    @Test
+    public void failedJobResults() throws Exception
+    {
+        AnnotationJob job = this.createStoredJob("failed", null, null);
+        job.setTotalVariants(2L);
+        job.setChunkCount(2);
+        this.chunks.put("failed_1", new AnnotationJobChunk("failed", 1, Arrays.asList("12:g.25398285C>A")));
+
+        // the second chunk fails the job
+        Mockito.when(this.streamingAnnotationService.annotateWindow(anyList(), any(), any(), any()))
+            .thenAnswer(invocation -> {
+                List<String> variants = invocation.getArgument(0);
+
+                if (variants.contains("12:g.25398285C>A")) {
+                    throw new IllegalStateException("Missing annotation fields");
+                }
+
+                return variants.stream().map(VariantAnnotation::new).collect(Collectors.toList());
+            });
+
+        this.service.run("failed");
+
+        assertEquals(AnnotationJobStatus.FAILED, this.jobs.get("failed").getStatus());
+        // the chunk annotated before the failure is still available
+        assertEquals(Arrays.asList("7:g.140453136A>T"), this.variants("failed", 0));
+
+        try {
+            this.service.getResults("failed", 1);
+            fail("the chunk left by the failed job should never be reported as pending");
+        }
+        catch (AnnotationJobFailedException e) {
+            assertEquals("failed", e.getJobId());
+            assertEquals("Missing annotation fields", e.getError());
+        }
+    }
+
+    @Test
+    public void deleteExpiredJobs() throws Exception
+    {
+        AnnotationJob expired = this.service.submit(Arrays.asList("7:g.140453136A>T"), null, null, null);
+        expired = this.awaitCompletion(expired.getId());
+        AnnotationJob recent = this.service.submit(Arrays.asList("12:g.25398285C>A"), null, null, null);
+        recent = this.awaitCompletion(recent.getId());
+
+        // each annotation is stored in its own document
+        assertEquals(2, this.results.size());
+
+        expired.setFinishedAt(new Date(System.currentTimeMillis() - 25 * 3600 * 1000L));
+        Mockito.when(this.annotationJobRepository.findByFinishedAtBefore(any())).thenReturn(Arrays.asList(expired));
+
+        this.service.deleteExpiredJobs();
+
+        Mockito.verify(this.annotationJobRepository).deleteById(expired.getId());
+        String expiredId = expired.getId();
+        assertTrue(this.chunks.values().stream().noneMatch(chunk -> chunk.getJobId().equals(expiredId)));
+        assertTrue(this.results.values().stream().noneMatch(result -> result.getJobId().equals(expiredId)));
+        assertFalse(this.results.isEmpty());
+        assertEquals(Arrays.asList("12:g.25398285C>A"), this.variants(recent.getId(), 0));
+    }
+
+    private AnnotationJob createStoredJob(String jobId, String owner, Date leaseExpiresAt)
+    {
+        AnnotationJob job = new AnnotationJob();
+        job.setId(jobId);
+        job.setStatus(AnnotationJobStatus.QUEUED);
+        job.setTotalVariants(1L);
+        job.setProcessedVariants(0L);
+        job.setAnnotatedVariants(0L);
+        job.setChunkCount(1);
+        job.setProcessedChunks(0);
+        job.setOwner(owner);
+        job.setLeaseExpiresAt(leaseExpiresAt);
+        this.jobs.put(jobId, job);
+
+        AnnotationJobChunk chunk = new AnnotationJobChunk(jobId, 0, Arrays.asList("7:g.140453136A>T"));
+        this.chunks.put(chunk.getId(), chunk);
+
+        return job;
+    }
+
+    private AnnotationJob awaitCompletion(String jobId) throws Exception
+    {
+        for (int i = 0; i < 500; i++)
+        {
+            AnnotationJob job = this.service.getJob(jobId);
+
+            if (job.getStatus() == AnnotationJobStatus.COMPLETED) {
+                return job;
+            }
+
+            Thread.sleep(10);
+        }
+
+        throw new AssertionError("Annotation job " + jobId + " did not complete");
+    }
+
+    private List<String> variants(String jobId, int chunkIndex) throws Exception
+    {
+        return this.service.getResults(jobId, chunkIndex)
+            .stream()
+            .map(VariantAnnotation::getVariant)
+            .collect(Collectors.toList());
+    }
+}
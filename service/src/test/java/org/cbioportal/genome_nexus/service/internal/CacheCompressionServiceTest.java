@@ -0,0 +1,148 @@
+package org.cbioportal.genome_nexus.service.internal;
+
+import org.bson.Document;
+import org.cbioportal.genome_nexus.model.CacheCompressionStatus;
+import org.cbioportal.genome_nexus.persistence.CacheDocumentRepository;
+import org.cbioportal.genome_nexus.service.cached.CacheStorage;
+import org.cbioportal.genome_nexus.service.cached.CompressedDocumentCodec;
+import org.cbioportal.genome_nexus.service.cached.CompressedMongoCacheStorage;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CacheCompressionServiceTest
+{
+    private final CompressedDocumentCodec codec = new CompressedDocumentCodec("vep.annotation", "input");
+
+    @Test
+    public void compressCollectionInBatches()
+    {
+        InMemoryCacheDocumentRepository repository = new InMemoryCacheDocumentRepository();
+
+        for (int i = 0; i < 25; i++) {
+            repository.save("vep.annotation", new Document("_id", "7:g." + (140453100 + i) + "A>T")
+                .append("input", "7:g." + (140453100 + i) + "A>T")
+                .append("most_severe_consequence", "missense_variant")
+                .append("assembly_name", "GRCh37"));
+        }
+
+        // already saved compressed by the application
+        Document compressed = this.codec.compress(new Document("_id", "12:g.25398285C>A"));
+        repository.save("vep.annotation", compressed);
+
+        CacheCompressionStatus status = this.service(repository).compressCollection("vep.annotation");
+
+        assertEquals(CacheCompressionStatus.COMPLETED, status.getState());
+        assertEquals(Long.valueOf(25), status.getDocumentsCompressed());
+        assertEquals(Long.valueOf(0), status.getDocumentsSkipped());
+        assertTrue(status.getExpandedBytes() > 0 && status.getCompressedBytes() > 0);
+        assertTrue(status.getCompressedReadMicros() != null);
+
+        for (Document document: repository.documents.values()) {
+            assertTrue(CompressedDocumentCodec.isCompressed(document));
+        }
+
+        assertEquals("missense_variant",
+            CompressedDocumentCodec.decompress(repository.findById("vep.annotation", "7:g.140453100A>T"))
+                .getString("most_severe_consequence"));
+        assertEquals(compressed, repository.findById("vep.annotation", "12:g.25398285C>A"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectCollectionNotStoredCompressed()
+    {
+        this.service(new InMemoryCacheDocumentRepository()).compress("my_variant_info.annotation");
+    }
+
+    @SuppressWarnings("unchecked")
+    private CacheCompressionServiceImpl service(CacheDocumentRepository repository)
+    {
+        ObjectProvider<CacheStorage> cacheStorage = Mockito.mock(ObjectProvider.class);
+        Mockito.when(cacheStorage.getIfAvailable()).thenReturn(
+            new CompressedMongoCacheStorage(repository, this.codec, null));
+
+        return new CacheCompressionServiceImpl(repository, this.codec, cacheStorage, 10, 0);
+    }
+
+    // a single collection, in id order
+    private static class InMemoryCacheDocumentRepository implements CacheDocumentRepository
+    {
+        private final Map<String, Document> documents = new TreeMap<>();
+
+        @Override
+        public Document findById(String collection, String id)
+        {
+            return this.documents.get(id);
+        }
+
+        @Override
+        public List<Document> findAllById(String collection, Collection<String> ids)
+        {
+            return ids.stream().map(this.documents::get).filter(d -> d != null).collect(Collectors.toList());
+        }
+
+        @Override
+        public void save(String collection, Document document)
+        {
+            this.documents.put(document.getString("_id"), document);
+        }
+
+        @Override
+        public List<Document> findWithoutField(String collection, String field, String afterId, int limit)
+        {
+            List<Document> found = new ArrayList<>();
+
+            for (Map.Entry<String, Document> entry: this.documents.entrySet()) {
+                if ((afterId == null || entry.getKey().compareTo(afterId) > 0) &&
+                    !entry.getValue().containsKey(field) && found.size() < limit)
+                {
+                    found.add(entry.getValue());
+                }
+            }
+
+            return found;
+        }
+
+        @Override
+        public boolean replaceWithoutField(String collection, String field, Document document)
+        {
+            Document existing = this.documents.get(document.getString("_id"));
+
+            if (existing == null || existing.containsKey(field)) {
+                return false;
+            }
+
+            this.documents.put(document.getString("_id"), document);
+
+            return true;
+        }
+
+        @Override
+        public List<Document> findAfterId(String collection, Document query, String afterId, int limit)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void upsertAll(String collection, List<Document> documents)
+        {
+            documents.forEach(document -> this.save(collection, document));
+        }
+
+        @Override
+        public long count(String collection)
+        {
+            return this.documents.size();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package org.cbioportal.genome_nexus.service.internal;
+
+import org.cbioportal.genome_nexus.model.CacheCollectionStats;
+import org.cbioportal.genome_nexus.persistence.CacheEvictionRepository;
+import org.cbioportal.genome_nexus.service.IndexSearchService;
+import org.cbioportal.genome_nexus.service.SourceVersionService;
+import org.cbioportal.genome_nexus.service.cached.CacheAccessTracker;
+import org.cbioportal.genome_nexus.service.cached.CacheStorage;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CacheEvictionServiceTest
+{
+    private static final long DAY = TimeUnit.DAYS.toMillis(1);
+
+    private final InMemoryCacheEvictionRepository repository = new InMemoryCacheEvictionRepository();
+    private final IndexSearchService indexSearchService = Mockito.mock(IndexSearchService.class);
+
+    @Test
+    public void evictExpiredAndLeastRecentlyAccessedDocuments()
+    {
+        long now = System.currentTimeMillis();
+
+        for (int i = 0; i < 10; i++) {
+            // accessed i days ago
+            this.repository.add("vep.annotation", "variant" + i, new Date(now - i * DAY), "110/110");
+            this.repository.add("index", "variant" + i, null, null);
+        }
+
+        // cached before access tracking
+        this.repository.add("vep.annotation", "legacy", null, null);
+
+        CacheEvictionServiceImpl service = this.service("110/110", 7, 5, false);
+        service.evictCollections();
+
+        // variant7 to variant9 expired, then the 3 least recently accessed of the 8 left
+        assertEquals(new HashSet<>(Arrays.asList("variant0", "variant1", "legacy", "variant2", "variant3")),
+            this.repository.ids("vep.annotation"));
+        assertEquals(new HashSet<>(Arrays.asList("variant0", "variant1", "variant2", "variant3")),
+            this.repository.ids("index"));
+        // and from the in memory search index
+        Mockito.verify(this.indexSearchService).remove("variant9");
+        Mockito.verify(this.indexSearchService).remove("variant4");
+        Mockito.verify(this.indexSearchService, Mockito.never()).remove("legacy");
+
+        CacheCollectionStats stats = service.getCacheStats().get(0);
+        assertEquals("vep.annotation", stats.getCollection());
+        assertEquals(Long.valueOf(3), stats.getEvictedExpired());
+        assertEquals(Long.valueOf(3), stats.getEvictedOverCapacity());
+        assertEquals(Long.valueOf(5), stats.getDocuments());
+        assertTrue(stats.getEvictable());
+    }
+
+    @Test
+    public void purgeDocumentsOfOtherSourceVersions()
+    {
+        Date now = new Date();
+
+        this.repository.add("vep.annotation", "current", now, "110/110");
+        this.repository.add("vep.annotation", "outdated", now, "109/109");
+        this.repository.add("vep.annotation", "unversioned", now, null);
+        this.repository.add("my_variant_info.annotation", "myvariant", now, null);
+
+        CacheEvictionServiceImpl service = this.service("110/110", 0, 0, true);
+        service.evictCollections();
+
+        assertEquals(new HashSet<>(Arrays.asList("current", "unversioned")), this.repository.ids("vep.annotation"));
+        assertFalse(this.repository.ids("my_variant_info.annotation").isEmpty());
+        assertEquals(Long.valueOf(1), service.getCacheStats().get(0).getEvictedSourceVersion());
+    }
+
+    @SuppressWarnings("unchecked")
+    private CacheEvictionServiceImpl service(
+        String vepVersion,
+        long ttlDays,
+        long maxDocuments,
+        boolean purgeOtherSourceVersions
+    ) {
+        SourceVersionService sourceVersionService = Mockito.mock(SourceVersionService.class);
+        Mockito.when(sourceVersionService.getVepVersion()).thenReturn(vepVersion);
+
+        CacheAccessTracker tracker = new CacheAccessTracker(this.repository, sourceVersionService,
+            "vep.annotation,my_variant_info.annotation", 0);
+        ObjectProvider<CacheStorage> cacheStorage = Mockito.mock(ObjectProvider.class);
+
+        return new CacheEvictionServiceImpl(this.repository, tracker, this.indexSearchService, cacheStorage, ttlDays, maxDocuments, 0,
+            purgeOtherSourceVersions, 2, 0, 100, 0);
+    }
+
+    private static class InMemoryCacheEvictionRepository implements CacheEvictionRepository
+    {
+        private final Map<String, Map<String, Date>> accessedAt = new HashMap<>();
+        private final Map<String, Map<String, String>> sourceVersions = new HashMap<>();
+
+        void add(String collection, String id, Date accessedAt, String sourceVersion)
+        {
+            this.accessedAt.computeIfAbsent(collection, c -> new HashMap<>()).put(id, accessedAt);
+            this.sourceVersions.computeIfAbsent(collection, c -> new HashMap<>()).put(id, sourceVersion);
+        }
+
+        Set<String> ids(String collection)
+        {
+            return this.accessedAt.getOrDefault(collection, Collections.emptyMap()).keySet();
+        }
+
+        @Override
+        public Map<String, Date> findCachedAt(String collection, Collection<String> ids)
+        {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public Map<String, Date> findAccessedAt(String collection, Collection<String> ids)
+        {
+            return Collections.emptyMap();
+        }
+
+        @Override
+        public void markAccessed(String collection, Collection<String> ids, Date accessedAt)
+        {
+            ids.forEach(id -> this.accessedAt.get(collection).replace(id, accessedAt));
+        }
+
+        @Override
+        public int markUntracked(String collection, Date accessedAt, int limit)
+        {
+            List<String> untracked = this.ids(collection).stream()
+                .filter(id -> this.accessedAt.get(collection).get(id) == null)
+                .limit(limit)
+                .collect(Collectors.toList());
+            this.markAccessed(collection, untracked, accessedAt);
+
+            return untracked.size();
+        }
+
+        @Override
+        public List<String> findIdsAccessedBefore(String collection, Date accessedAt, int limit)
+        {
+            return this.ids(collection).stream()
+                .filter(id -> this.accessedAt.get(collection).get(id).before(accessedAt))
+                .limit(limit)
+                .collect(Collectors.toList());
+        }
+
+        @Override
+        public List<String> findLeastRecentlyAccessedIds(String collection, int limit)
+        {
+            return this.ids(collection).stream()
+                .sorted(Comparator.comparing(id -> this.accessedAt.get(collection).get(id)))
+                .limit(limit)
+                .collect(Collectors.toList());
+        }
+
+        @Override
+        public List<String> findMostRecentlyAccessedIds(String collection, int limit)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<String> findIdsWithOtherSourceVersion(String collection, String sourceVersion, Collection<String> ids)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<String> findIdsWithOtherSourceVersion(String collection, String sourceVersion, int limit)
+        {
+            return this.ids(collection).stream()
+                .filter(id -> {
+                    String version = this.sourceVersions.get(collection).get(id);
+                    return version != null && !version.equals(sourceVersion);
+                })
+                .limit(limit)
+                .collect(Collectors.toList());
+        }
+
+        @Override
+        public long deleteByIds(String collection, Collection<String> ids)
+        {
+            Map<String, Date> documents = this.accessedAt.getOrDefault(collection, new HashMap<>());
+            long deleted = ids.stream().filter(id -> documents.remove(id) != null || documents.containsKey(id)).count();
+            ids.forEach(documents::remove);
+
+            return deleted;
+        }
+
+        @Override
+        public long count(String collection)
+        {
+            return this.ids(collection).size();
+        }
+
+        @Override
+        public long dataSize(String collection)
+        {
+            return this.count(collection) * 1000;
+        }
+    }
+}
@@ -0,0 +1,304 @@
+package org.cbioportal.genome_nexus.service.internal;
+
+import org.bson.Document;
+import org.cbioportal.genome_nexus.model.CacheTransferReport;
+import org.cbioportal.genome_nexus.persistence.CacheDocumentRepository;
+import org.cbioportal.genome_nexus.persistence.CacheEvictionRepository;
+import org.cbioportal.genome_nexus.service.cached.CacheStorage;
+import org.cbioportal.genome_nexus.service.cached.CompressedDocumentCodec;
+import org.cbioportal.genome_nexus.service.cached.CompressedMongoCacheStorage;
+import org.cbioportal.genome_nexus.service.cached.EmbeddedCacheStorage;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CacheTransferServiceTest
+{
+    private static final List<String> COLLECTIONS =
+        Arrays.asList("vep.annotation", "index", "my_variant_info.annotation");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final CompressedDocumentCodec codec = new CompressedDocumentCodec("vep.annotation", "input");
+
+    @Test
+    public void exportAndImportTheDocumentsOfGenes() throws IOException
+    {
+        InMemoryCacheDocumentRepository source = this.populatedRepository();
+        InMemoryCacheDocumentRepository target = new InMemoryCacheDocumentRepository();
+        Path file = this.folder.getRoot().toPath().resolve("cache.gncache");
+        Set<String> genes = Collections.singleton("BRAF");
+
+        CacheTransferReport exported = this.service(source, null, 2, 2)
+            .exportCache(file, COLLECTIONS, null, genes, false);
+
+        // BRAF variants 0, 2, 4 and the compressed one, with their index documents
+        assertEquals(Long.valueOf(4), exported.getDocuments().get("vep.annotation"));
+        assertEquals(Long.valueOf(4), exported.getDocuments().get("index"));
+        assertEquals(Long.valueOf(1), exported.getDocuments().get("my_variant_info.annotation"));
+        assertFalse(Files.exists(file.resolveSibling("cache.gncache.export-progress")));
+
+        CacheTransferReport imported = this.service(target, null, 2, 2)
+            .importCache(file, COLLECTIONS, null, null, false);
+
+        assertEquals(exported.getDocuments(), imported.getDocuments());
+        assertEquals(source.find("vep.annotation", "variant2").get("transcript_consequences"),
+            target.find("vep.annotation", "variant2").get("transcript_consequences"));
+        // the target has no compressed storage
+        assertEquals(CompressedDocumentCodec.decompress(source.find("vep.annotation", "compressed")),
+            target.find("vep.annotation", "compressed"));
+        assertTrue(target.find("vep.annotation", "variant1") == null);
+        assertTrue(target.find("index", "variant1") == null);
+    }
+
+    @Test
+    public void exportAndImportTheAnnotationsOfSourceVersion() throws IOException
+    {
+        Path file = this.folder.getRoot().toPath().resolve("cache.gncache");
+        this.service(this.populatedRepository(), null, 100, 1)
+            .exportCache(file, COLLECTIONS, null, null, false);
+
+        InMemoryCacheDocumentRepository target = new InMemoryCacheDocumentRepository();
+        CacheTransferReport imported = this.service(target, null, 100, 1)
+            .importCache(file, Collections.singletonList("vep.annotation"), "110/110", null, false);
+
+        // the even variants and the compressed one are from VEP 110
+        assertEquals(Long.valueOf(4), imported.getDocuments().get("vep.annotation"));
+        assertEquals(Long.valueOf(3), imported.getDocumentsFiltered());
+        assertTrue(target.collection("index").isEmpty());
+        // imported documents start aging at the import
+        assertTrue(((Date) target.find("vep.annotation", "variant0").get(CacheEvictionRepository.ACCESSED_AT_FIELD))
+            .getTime() > 0);
+    }
+
+    @Test
+    public void resumeAnInterruptedImport() throws IOException
+    {
+        Path file = this.folder.getRoot().toPath().resolve("cache.gncache");
+        this.service(this.populatedRepository(), null, 2, 1)
+            .exportCache(file, COLLECTIONS, null, null, false);
+
+        InMemoryCacheDocumentRepository target = new InMemoryCacheDocumentRepository();
+        target.failOnceAfter = 3;
+
+        try {
+            this.service(target, null, 2, 1).importCache(file, COLLECTIONS, null, null, true);
+            fail("the import should fail");
+        }
+        catch (IOException e) {
+            assertTrue(Files.exists(file.resolveSibling("cache.gncache.import-progress")));
+        }
+
+        CacheTransferReport resumed = this.service(target, null, 2, 1)
+            .importCache(file, COLLECTIONS, null, null, true);
+
+        assertTrue(resumed.getResumed());
+        assertEquals(7, target.collection("vep.annotation").size());
+        assertEquals(7, target.collection("index").size());
+        assertEquals(2, target.collection("my_variant_info.annotation").size());
+        // the blocks imported before the failure were not imported again
+        assertTrue(resumed.getBlocks() < 8);
+    }
+
+    @Test
+    public void rejectACorruptedArchive() throws IOException
+    {
+        Path file = this.folder.getRoot().toPath().resolve("cache.gncache");
+        this.service(this.populatedRepository(), null, 100, 1)
+            .exportCache(file, COLLECTIONS, null, null, false);
+
+        try (RandomAccessFile archive = new RandomAccessFile(file.toFile(), "rw")) {
+            archive.seek(archive.length() / 2);
+            int value = archive.read();
+            archive.seek(archive.length() / 2);
+            archive.write(value ^ 0xff);
+        }
+
+        try {
+            this.service(new InMemoryCacheDocumentRepository(), null, 100, 1)
+                .importCache(file, COLLECTIONS, null, null, false);
+            fail("the import should fail");
+        }
+        catch (IOException e) {
+            assertTrue(e.getMessage().contains("Checksum mismatch"));
+        }
+    }
+
+    @Test
+    public void importInTheFormatOfTheTargetStorage() throws IOException
+    {
+        Path file = this.folder.getRoot().toPath().resolve("cache.gncache");
+        this.service(this.populatedRepository(), null, 100, 1)
+            .exportCache(file, COLLECTIONS, null, null, false);
+
+        // compressed Mongo storage, the uncompressed annotations are compressed and the other collections kept as is
+        InMemoryCacheDocumentRepository compressedTarget = new InMemoryCacheDocumentRepository();
+        this.service(compressedTarget, new CompressedMongoCacheStorage(compressedTarget, this.codec, null), 100, 1)
+            .importCache(file, COLLECTIONS, null, null, false);
+
+        assertTrue(compressedTarget.collection("vep.annotation").values().stream()
+            .allMatch(CompressedDocumentCodec::isCompressed));
+        assertEquals("BRAF", geneSymbol(CompressedDocumentCodec.decompress(compressedTarget.find("vep.annotation", "variant0"))));
+        assertTrue(compressedTarget.find("vep.annotation", "variant0").get(CacheEvictionRepository.ACCESSED_AT_FIELD) != null);
+        assertFalse(CompressedDocumentCodec.isCompressed(compressedTarget.find("index", "variant0")));
+
+        // embedded storage, the annotations are expanded into the local files instead of Mongo
+        InMemoryCacheDocumentRepository mongo = new InMemoryCacheDocumentRepository();
+        EmbeddedCacheStorage embedded = new EmbeddedCacheStorage(null,
+            this.folder.newFolder("embedded").getPath(), "vep.annotation", true);
+
+        try {
+            this.service(mongo, embedded, 100, 1).importCache(file, COLLECTIONS, null, null, false);
+
+            assertTrue(mongo.collection("vep.annotation").isEmpty());
+            assertEquals(7, mongo.collection("index").size());
+            assertEquals(7, embedded.getDocumentCounts().get("vep.annotation").intValue());
+
+            Document expanded = embedded.findById("vep.annotation", "compressed").get();
+            assertFalse(CompressedDocumentCodec.isCompressed(expanded));
+            assertEquals("BRAF", geneSymbol(expanded));
+        }
+        finally {
+            embedded.close();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private CacheTransferServiceImpl service(CacheDocumentRepository repository,
+                                             CacheStorage storage,
+                                             int batchSize,
+                                             int importThreads)
+    {
+        ObjectProvider<CacheStorage> cacheStorage = Mockito.mock(ObjectProvider.class);
+        Mockito.when(cacheStorage.getIfAvailable()).thenReturn(storage);
+
+        return new CacheTransferServiceImpl(repository, this.codec, cacheStorage, batchSize, importThreads);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String geneSymbol(Document annotation)
+    {
+        return ((List<Document>) annotation.get("transcript_consequences")).get(0).getString("gene_symbol");
+    }
+
+    private InMemoryCacheDocumentRepository populatedRepository()
+    {
+        InMemoryCacheDocumentRepository repository = new InMemoryCacheDocumentRepository();
+        Date accessedAt = new Date(0);
+
+        for (int i = 0; i < 6; i++) {
+            String gene = i % 2 == 0 ? "BRAF" : "KRAS";
+
+            repository.save("vep.annotation", new Document("_id", "variant" + i)
+                .append("transcript_consequences", Collections.singletonList(new Document("gene_symbol", gene)))
+                .append(CacheEvictionRepository.ACCESSED_AT_FIELD, accessedAt)
+                .append(CacheEvictionRepository.SOURCE_VERSION_FIELD, i % 2 == 0 ? "110/110" : "109/109"));
+            repository.save("index", new Document("_id", "variant" + i)
+                .append("hugoSymbol", Collections.singletonList(gene)));
+        }
+
+        repository.save("vep.annotation", this.codec.compress(new Document("_id", "compressed")
+            .append("transcript_consequences", Collections.singletonList(new Document("gene_symbol", "BRAF")))
+            .append(CacheEvictionRepository.SOURCE_VERSION_FIELD, "110/110")));
+        repository.save("index", new Document("_id", "compressed")
+            .append("hugoSymbol", Collections.singletonList("BRAF")));
+
+        repository.save("my_variant_info.annotation", new Document("_id", "myvariant0")
+            .append("dbsnp", new Document("gene", Arrays.asList(new Document("symbol", "BRAF")))));
+        repository.save("my_variant_info.annotation", new Document("_id", "myvariant1")
+            .append("dbsnp", new Document("gene", new Document("symbol", "TP53"))));
+
+        return repository;
+    }
+
+    // ignores the queries, the export filters the documents again
+    private static class InMemoryCacheDocumentRepository implements CacheDocumentRepository
+    {
+        private final Map<String, TreeMap<String, Document>> collections = new HashMap<>();
+        private int failOnceAfter = -1;
+
+        synchronized TreeMap<String, Document> collection(String collection)
+        {
+            return this.collections.computeIfAbsent(collection, c -> new TreeMap<>());
+        }
+
+        Document find(String collection, String id)
+        {
+            return this.collection(collection).get(id);
+        }
+
+        @Override
+        public Document findById(String collection, String id)
+        {
+            return this.find(collection, id);
+        }
+
+        @Override
+        public List<Document> findAllById(String collection, Collection<String> ids)
+        {
+            return ids.stream().map(id -> this.find(collection, id)).filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        }
+
+        @Override
+        public void save(String collection, Document document)
+        {
+            this.collection(collection).put(document.getString("_id"), document);
+        }
+
+        @Override
+        public List<Document> findWithoutField(String collection, String field, String afterId, int limit)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean replaceWithoutField(String collection, String field, Document document)
+        {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public List<Document> findAfterId(String collection, Document query, String afterId, int limit)
+        {
+            TreeMap<String, Document> documents = this.collection(collection);
+
+            return (afterId == null ? documents : documents.tailMap(afterId, false)).values().stream()
+                .limit(limit)
+                .collect(Collectors.toList());
+        }
+
+        @Override
+        public synchronized void upsertAll(String collection, List<Document> documents)
+        {
+            if (this.failOnceAfter == 0) {
+                this.failOnceAfter = -1;
+                throw new IllegalStateException("connection lost");
+            }
+
+            this.failOnceAfter--;
+            documents.forEach(document -> this.save(collection, document));
+        }
+
+        @Override
+        public long count(String collection)
+        {
+            return this.collection(collection).size();
+        }
+    }
+}
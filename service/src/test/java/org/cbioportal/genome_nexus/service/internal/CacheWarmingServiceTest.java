@@ -0,0 +1,286 @@
+package org.cbioportal.genome_nexus.service.internal;
+
+import org.cbioportal.genome_nexus.component.annotation.NotationConverter;
+import org.cbioportal.genome_nexus.model.CacheWarmingStatus;
+import org.cbioportal.genome_nexus.model.Hotspot;
+import org.cbioportal.genome_nexus.model.Index;
+import org.cbioportal.genome_nexus.model.SignalMutation;
+import org.cbioportal.genome_nexus.persistence.CacheEvictionRepository;
+import org.cbioportal.genome_nexus.persistence.HotspotRepository;
+import org.cbioportal.genome_nexus.persistence.IndexRepository;
+import org.cbioportal.genome_nexus.persistence.SignalMutationRepository;
+import org.cbioportal.genome_nexus.service.AnnotationAdmissionService;
+import org.cbioportal.genome_nexus.service.SourceVersionService;
+import org.cbioportal.genome_nexus.service.VariantAnnotationService;
+import org.cbioportal.genome_nexus.service.cached.CacheAccessTracker;
+import org.cbioportal.genome_nexus.service.cached.CacheStorage;
+import org.cbioportal.genome_nexus.service.cached.CachedVariantAnnotationFetcher;
+import org.cbioportal.genome_nexus.service.cached.EmbeddedCacheStorage;
+import org.cbioportal.genome_nexus.service.exception.AnnotationAdmissionRejectedException;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+
+public class CacheWarmingServiceTest
+{
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private final VariantAnnotationService variantAnnotationService = Mockito.mock(VariantAnnotationService.class);
+    private final CachedVariantAnnotationFetcher cachedVariantAnnotationFetcher =
+        Mockito.mock(CachedVariantAnnotationFetcher.class);
+    private final AnnotationAdmissionService annotationAdmissionService = Mockito.mock(AnnotationAdmissionService.class);
+    private final SourceVersionService sourceVersionService = Mockito.mock(SourceVersionService.class);
+    private final CacheEvictionRepository cacheEvictionRepository = Mockito.mock(CacheEvictionRepository.class);
+    private final HotspotRepository hotspotRepository = Mockito.mock(HotspotRepository.class);
+    private final SignalMutationRepository signalMutationRepository = Mockito.mock(SignalMutationRepository.class);
+    private final IndexRepository indexRepository = Mockito.mock(IndexRepository.class);
+    @SuppressWarnings("unchecked")
+    private final ObjectProvider<CacheStorage> cacheStorage = Mockito.mock(ObjectProvider.class);
+
+    @Test
+    public void warmTheVariantsOfAllSourcesInOrder() throws Exception
+    {
+        Path file = this.folder.newFile("variants.txt").toPath();
+        Files.write(file, Arrays.asList("#variant\tcount", "12:g.25398285C>A\t30", "", "7:g.140453136A>T\t12"));
+
+        Mockito.when(this.sourceVersionService.getVepVersion()).thenReturn("110/110");
+        // the dbSNP id and region annotations of the same collection are not warmed
+        Mockito.when(this.cacheEvictionRepository.findMostRecentlyAccessedIds("vep.annotation", 100))
+            .thenReturn(Arrays.asList("rs116035550", "7:g.140453136A>T", "17:36002278-36002277:1/A"));
+        Mockito.when(this.cacheEvictionRepository.findIdsWithOtherSourceVersion(
+            eq("vep.annotation"), eq("110/110"), anyList())).thenAnswer(invocation ->
+            ((List<?>) invocation.getArgument(2)).contains("7:g.140453136A>T") ?
+                Collections.singletonList("7:g.140453136A>T") : Collections.emptyList());
+        Mockito.when(this.cachedVariantAnnotationFetcher.refresh(anyList())).thenAnswer(invocation ->
+            new LinkedHashSet<>(invocation.getArgument(0)));
+        Mockito.when(this.hotspotRepository.findAll()).thenReturn(Arrays.asList(
+            hotspot("KRAS", "G12", 100), hotspot("TP53", "X125_splice", 20)));
+        Mockito.when(this.indexRepository.findByHugoSymbolAndHgvspShortRegex("KRAS", "^p\\.G12[^0-9]"))
+            .thenReturn(Arrays.asList(index("12:g.25398284C>T"), index("12:g.25398285C>A")));
+        Mockito.when(this.signalMutationRepository.findAll()).thenReturn(Collections.singletonList(
+            signalMutation("13", 32914438L, 32914438L, "T", "-")));
+        Mockito.when(this.annotationAdmissionService.admit(any(), anyInt(), any()))
+            .thenThrow(new AnnotationAdmissionRejectedException("bulk queue full", 0))
+            .thenReturn(() -> {});
+
+        CacheWarmingStatus status = this.service("requests,files,hotspots,signal", file.toString(), 2)
+            .warmVariants(CacheWarmingServiceImpl.SOURCES, CacheWarmingStatus.MANUAL);
+
+        assertEquals(CacheWarmingStatus.COMPLETED, status.getState());
+        assertEquals(Long.valueOf(1), status.getVariantsBySource().get("requests"));
+        assertEquals(Long.valueOf(1), status.getVariantsBySource().get("files"));
+        assertEquals(Long.valueOf(1), status.getVariantsBySource().get("hotspots"));
+        assertEquals(Long.valueOf(1), status.getVariantsBySource().get("signal"));
+        assertEquals(Long.valueOf(4), status.getVariantsWarmed());
+        assertEquals(Long.valueOf(1), status.getVariantsRefreshed());
+
+        // the outdated annotation is fetched again instead of being deleted
+        Mockito.verify(this.cachedVariantAnnotationFetcher).refresh(Collections.singletonList("7:g.140453136A>T"));
+        Mockito.verify(this.cacheEvictionRepository, Mockito.never()).deleteByIds(any(), anyList());
+
+        ArgumentCaptor<List<String>> batches = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(this.variantAnnotationService, Mockito.times(2))
+            .getAnnotations(batches.capture(), isNull(), isNull(), eq(Collections.emptyList()));
+
+        List<String> annotated = new ArrayList<>();
+        batches.getAllValues().forEach(annotated::addAll);
+        assertEquals(Arrays.asList("7:g.140453136A>T", "12:g.25398285C>A", "12:g.25398284C>T", "13:g.32914438del"),
+            annotated);
+    }
+
+    @Test
+    public void warmWhenRecentAnnotationsAreFromAnotherVepVersion()
+    {
+        Mockito.when(this.sourceVersionService.getVepVersion()).thenReturn("110/110");
+        Mockito.when(this.cacheEvictionRepository.findMostRecentlyAccessedIds("vep.annotation", 100))
+            .thenReturn(Collections.singletonList("7:g.140453136A>T"));
+        CacheWarmingServiceImpl service = this.service("requests,files,hotspots,signal", "", 2);
+
+        service.checkVepUpgrade();
+        assertEquals(null, service.getWarmingStatus());
+
+        Mockito.when(this.cacheEvictionRepository.findIdsWithOtherSourceVersion(
+            eq("vep.annotation"), eq("110/110"), anyList()))
+            .thenReturn(Collections.singletonList("7:g.140453136A>T"));
+
+        service.checkVepUpgrade();
+        assertEquals(CacheWarmingStatus.VEP_UPGRADE, service.getWarmingStatus().getTrigger());
+    }
+
+    @Test
+    public void refreshOutdatedAnnotationsWithoutTheRequestsSource() throws Exception
+    {
+        Mockito.when(this.sourceVersionService.getVepVersion()).thenReturn("110/110");
+        Mockito.when(this.cacheEvictionRepository.findMostRecentlyAccessedIds("vep.annotation", 100))
+            .thenReturn(Arrays.asList("7:g.140453136A>T", "rs116035550"));
+        Mockito.when(this.cacheEvictionRepository.findIdsWithOtherSourceVersion(
+            eq("vep.annotation"), eq("110/110"), anyList())).thenAnswer(invocation ->
+            ((List<?>) invocation.getArgument(2)).contains("7:g.140453136A>T") ?
+                Arrays.asList("7:g.140453136A>T", "rs116035550") : Collections.singletonList("rs116035550"));
+        Mockito.when(this.hotspotRepository.findAll()).thenReturn(Collections.emptyList());
+        Mockito.when(this.annotationAdmissionService.admit(any(), anyInt(), any())).thenReturn(() -> {});
+        // VEP is down: the outdated annotation is kept, and refreshed again by the next check
+        Mockito.when(this.cachedVariantAnnotationFetcher.refresh(anyList())).thenReturn(Collections.emptySet());
+
+        CacheWarmingServiceImpl service = this.service("hotspots", "", 2);
+
+        service.checkVepUpgrade();
+        CacheWarmingStatus status = service.getWarmingStatus();
+
+        assertEquals(CacheWarmingStatus.COMPLETED, status.getState());
+        assertEquals(Long.valueOf(1), status.getVariantsBySource().get("outdated"));
+        assertEquals(Long.valueOf(0), status.getVariantsBySource().get("hotspots"));
+        assertEquals(Long.valueOf(0), status.getVariantsRefreshed());
+
+        // only the sources of the first check after the upgrade are warmed
+        service.checkVepUpgrade();
+        assertEquals(Collections.singletonList("outdated"),
+            new ArrayList<>(service.getWarmingStatus().getVariantsBySource().keySet()));
+
+        Mockito.verify(this.hotspotRepository, Mockito.times(1)).findAll();
+        Mockito.verify(this.cachedVariantAnnotationFetcher, Mockito.times(2))
+            .refresh(Collections.singletonList("7:g.140453136A>T"));
+        Mockito.verify(this.variantAnnotationService, Mockito.times(2)).getAnnotations(
+            eq(Collections.singletonList("7:g.140453136A>T")), isNull(), isNull(), eq(Collections.emptyList()));
+        Mockito.verify(this.cacheEvictionRepository, Mockito.never()).deleteByIds(any(), anyList());
+    }
+
+    @Test
+    public void ignoreOutdatedAnnotationsOfOtherIdFormats()
+    {
+        Mockito.when(this.sourceVersionService.getVepVersion()).thenReturn("110/110");
+        Mockito.when(this.cacheEvictionRepository.findIdsWithOtherSourceVersion(
+            eq("vep.annotation"), eq("110/110"), anyList()))
+            .thenReturn(Arrays.asList("rs116035550", "17:36002278-36002277:1/A"));
+        CacheWarmingServiceImpl service = this.service("requests", "", 2);
+
+        service.checkVepUpgrade();
+        assertEquals(null, service.getWarmingStatus());
+    }
+
+    @Test
+    public void warmingLeavesTheAccessTimeUnchanged() throws Exception
+    {
+        CacheAccessTracker tracker = new CacheAccessTracker(
+            this.cacheEvictionRepository, this.sourceVersionService, "vep.annotation", 0);
+
+        Mockito.when(this.sourceVersionService.getVepVersion()).thenReturn("110/110");
+        Mockito.when(this.cacheEvictionRepository.findMostRecentlyAccessedIds("vep.annotation", 100))
+            .thenReturn(Arrays.asList("7:g.140453136A>T", "12:g.25398285C>A"));
+        Mockito.when(this.annotationAdmissionService.admit(any(), anyInt(), any())).thenReturn(() -> {});
+        // the warmed variants are already cached
+        Mockito.when(this.variantAnnotationService.getAnnotations(anyList(), isNull(), isNull(), anyList()))
+            .thenAnswer(invocation -> {
+                tracker.recordHits("vep.annotation", invocation.getArgument(0));
+                return Collections.emptyList();
+            });
+
+        try {
+            CacheWarmingStatus status = this.service("requests", "", 2)
+                .warmVariants(CacheWarmingServiceImpl.SOURCES, CacheWarmingStatus.MANUAL);
+            tracker.flush();
+
+            assertEquals(Long.valueOf(2), status.getVariantsWarmed());
+            assertEquals(0, tracker.getHits("vep.annotation"));
+            Mockito.verify(this.cacheEvictionRepository, Mockito.never()).markAccessed(any(), anyList(), any());
+
+            // the requests after the warming are hits again
+            tracker.recordHits("vep.annotation", Collections.singletonList("7:g.140453136A>T"));
+            assertEquals(1, tracker.getHits("vep.annotation"));
+        }
+        finally {
+            tracker.shutdown();
+        }
+    }
+
+    @Test
+    public void disableTheRequestsSourceWithTheEmbeddedStorage() throws Exception
+    {
+        EmbeddedCacheStorage storage = Mockito.mock(EmbeddedCacheStorage.class);
+        Mockito.when(storage.supports("vep.annotation")).thenReturn(true);
+        Mockito.when(this.cacheStorage.getIfAvailable()).thenReturn(storage);
+        Mockito.when(this.sourceVersionService.getVepVersion()).thenReturn("110/110");
+        Mockito.when(this.hotspotRepository.findAll())
+            .thenReturn(Collections.singletonList(hotspot("KRAS", "G12", 100)));
+        Mockito.when(this.indexRepository.findByHugoSymbolAndHgvspShortRegex("KRAS", "^p\\.G12[^0-9]"))
+            .thenReturn(Collections.singletonList(index("12:g.25398285C>A")));
+        Mockito.when(this.annotationAdmissionService.admit(any(), anyInt(), any())).thenReturn(() -> {});
+
+        CacheWarmingServiceImpl service = this.service("requests,hotspots", "", 2);
+        service.checkVepUpgrade();
+        assertEquals(null, service.getWarmingStatus());
+
+        // the other sources are still warmed
+        CacheWarmingStatus status = service.warmVariants(CacheWarmingServiceImpl.SOURCES, CacheWarmingStatus.MANUAL);
+        assertEquals(Long.valueOf(0), status.getVariantsBySource().get("requests"));
+        assertEquals(Long.valueOf(1), status.getVariantsBySource().get("hotspots"));
+        assertEquals(Long.valueOf(1), status.getVariantsWarmed());
+
+        Mockito.verifyZeroInteractions(this.cacheEvictionRepository, this.cachedVariantAnnotationFetcher);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectUnknownSource()
+    {
+        this.service("requests", "", 2).warm(Collections.singletonList("studies"));
+    }
+
+    private CacheWarmingServiceImpl service(String sources, String files, int batchSize)
+    {
+        return new CacheWarmingServiceImpl(this.variantAnnotationService, this.cachedVariantAnnotationFetcher,
+            this.annotationAdmissionService, this.sourceVersionService, this.cacheEvictionRepository,
+            this.hotspotRepository, this.signalMutationRepository, this.indexRepository, this.cacheStorage,
+            new NotationConverter(),
+            sources, files, "", 100, 1000, batchSize, 0, 0, 0);
+    }
+
+    private static Hotspot hotspot(String hugoSymbol, String residue, int tumorCount)
+    {
+        Hotspot hotspot = new Hotspot();
+        hotspot.setHugoSymbol(hugoSymbol);
+        hotspot.setResidue(residue);
+        hotspot.setTumorCount(tumorCount);
+
+        return hotspot;
+    }
+
+    private static Index index(String variant)
+    {
+        Index index = new Index();
+        index.setVariant(variant);
+
+        return index;
+    }
+
+    private static SignalMutation signalMutation(String chromosome, Long start, Long end, String ref, String alt)
+    {
+        SignalMutation mutation = new SignalMutation();
+        mutation.setChromosome(chromosome);
+        mutation.setStartPosition(start);
+        mutation.setEndPosition(end);
+        mutation.setReferenceAllele(ref);
+        mutation.setVariantAllele(alt);
+
+        return mutation;
+    }
+}
@@ -0,0 +1,84 @@
+package org.cbioportal.genome_nexus.service.internal;
+
+import org.cbioportal.genome_nexus.component.annotation.NotationConverter;
+import org.cbioportal.genome_nexus.model.GenomicLocation;
+import org.cbioportal.genome_nexus.model.TranscriptConsequence;
+import org.cbioportal.genome_nexus.model.VariantAnnotation;
+import org.cbioportal.genome_nexus.service.VariantAnnotationService;
+import org.cbioportal.genome_nexus.service.cached.CachedVariantRegionAnnotationFetcher;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class GenomicLocationAnnotationServiceTest
+{
+    private final NotationConverter notationConverter = new NotationConverter();
+
+    @Mock
+    private CachedVariantRegionAnnotationFetcher cachedVariantRegionAnnotationFetcher;
+
+    @Mock
+    private VariantAnnotationService verifiedHgvsVariantAnnotationService;
+
+    @Mock
+    private VariantAnnotationService regionVariantAnnotationService;
+
+    @Test
+    public void getAnnotationsForIdenticalGenomicLocations()
+    {
+        Mockito.when(this.cachedVariantRegionAnnotationFetcher.hasValidURI()).thenReturn(false);
+
+        VariantAnnotation annotation = new VariantAnnotation("12:g.25398284C>A");
+        annotation.setTranscriptConsequences(new ArrayList<>(Collections.singletonList(new TranscriptConsequence())));
+        annotation.setDynamicProp("key", "value");
+
+        Mockito.when(this.verifiedHgvsVariantAnnotationService.getAnnotations(Mockito.anyList()))
+            .thenReturn(Collections.singletonList(annotation));
+
+        GenomicLocationAnnotationServiceImpl service = new GenomicLocationAnnotationServiceImpl(
+            this.cachedVariantRegionAnnotationFetcher,
+            this.notationConverter,
+            this.verifiedHgvsVariantAnnotationService,
+            this.regionVariantAnnotationService
+        );
+
+        List<GenomicLocation> genomicLocations = Arrays.asList(
+            this.notationConverter.parseGenomicLocation("12,25398284,25398284,C,A"),
+            this.notationConverter.parseGenomicLocation("12,25398283,25398284,AC,AA")
+        );
+
+        List<VariantAnnotation> annotations = service.getAnnotations(genomicLocations);
+
+        assertEquals(2, annotations.size());
+        assertNotSame(annotations.get(0), annotations.get(1));
+        assertEquals(
+            new HashSet<>(Arrays.asList("12,25398284,25398284,C,A", "12,25398283,25398284,AC,AA")),
+            new HashSet<>(Arrays.asList(annotations.get(0).getOriginalVariantQuery(), annotations.get(1).getOriginalVariantQuery()))
+        );
+
+        for (VariantAnnotation variantAnnotation : annotations) {
+            assertEquals("12:g.25398284C>A", variantAnnotation.getVariant());
+            // nested annotations are shared instead of copied
+            assertSame(annotation.getTranscriptConsequences(), variantAnnotation.getTranscriptConsequences());
+            assertEquals("value", variantAnnotation.getDynamicProps().get("key"));
+            assertEquals(
+                this.notationConverter.getGenomicLocationExplanation(
+                    this.notationConverter.parseGenomicLocation(variantAnnotation.getOriginalVariantQuery())),
+                variantAnnotation.getGenomicLocationExplanation()
+            );
+        }
+    }
+}
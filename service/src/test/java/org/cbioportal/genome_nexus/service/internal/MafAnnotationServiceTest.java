@@ -0,0 +1,148 @@
+package org.cbioportal.genome_nexus.service.internal;
+
+import org.cbioportal.genome_nexus.model.GenomicLocation;
+import org.cbioportal.genome_nexus.model.IntegerRange;
+import org.cbioportal.genome_nexus.model.TranscriptConsequenceSummary;
+import org.cbioportal.genome_nexus.model.VariantAnnotation;
+import org.cbioportal.genome_nexus.model.VariantAnnotationSummary;
+import org.cbioportal.genome_nexus.service.GenomicLocationAnnotationService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class MafAnnotationServiceTest
+{
+    @Mock
+    private GenomicLocationAnnotationService genomicLocationAnnotationService;
+
+    @Test
+    public void annotateMaf() throws Exception
+    {
+        List<Integer> requestSizes = new ArrayList<>();
+
+        Mockito.when(this.genomicLocationAnnotationService.getAnnotations(anyList(), any(), any(), any()))
+            .thenAnswer(invocation -> {
+                List<GenomicLocation> locations = invocation.getArgument(0);
+                requestSizes.add(locations.size());
+                // the second location fails, results are not in the query order
+                List<VariantAnnotation> annotations = locations.stream()
+                    .map(MafAnnotationServiceTest::annotation)
+                    .collect(Collectors.toList());
+                Collections.reverse(annotations);
+                return annotations;
+            });
+
+        MafAnnotationServiceImpl service = new MafAnnotationServiceImpl(this.genomicLocationAnnotationService, 2);
+
+        String maf = String.join("\n",
+            "#version 2.4",
+            "Hugo_Symbol\tChromosome\tStart_Position\tEnd_Position\tReference_Allele\tTumor_Seq_Allele2\tTumor_Sample_Barcode",
+            "X\t7\t140453136\t140453136\tA\tT\tS1",
+            "X\t12\t25398285\t25398285\tC\tA\tS1",
+            "X\t7\t140453136\t140453136\tA\tT\tS2",
+            "X\t17\tNA\t41242963\t-\tGA\tS2"
+        );
+        StringWriter output = new StringWriter();
+
+        long count = service.annotate(new BufferedReader(new StringReader(maf)), output, null, null, null);
+
+        assertEquals(4, count);
+        // windows of 2 rows, the same location is annotated once per window, invalid rows are not annotated
+        assertEquals(Arrays.asList(2, 1), requestSizes);
+
+        String[] lines = output.toString().split("\n");
+        String annotationColumns = "Entrez_Gene_Id\tVariant_Classification\tVariant_Type\tHGVSc\tHGVSp\tHGVSp_Short\t" +
+            "Transcript_ID\tRefSeq\tProtein_position\tCodons\tExon_Number\tConsequence\tAnnotation_Status";
+
+        assertEquals(6, lines.length);
+        assertEquals("#version 2.4", lines[0]);
+        // existing columns are overwritten, missing columns are appended
+        assertEquals("Hugo_Symbol\tChromosome\tStart_Position\tEnd_Position\tReference_Allele\tTumor_Seq_Allele2\t" +
+            "Tumor_Sample_Barcode\t" + annotationColumns, lines[1]);
+        assertEquals("BRAF\t7\t140453136\t140453136\tA\tT\tS1\t673\tMissense_Mutation\tSNP\t\t\tp.V600E\t" +
+            "ENST00000288602\t\t600\t\t\t\tSUCCESS", lines[2]);
+        assertEquals("X\t12\t25398285\t25398285\tC\tA\tS1\t\t\t\t\t\t\t\t\t\t\t\t\tFAILED", lines[3]);
+        assertEquals("BRAF\t7\t140453136\t140453136\tA\tT\tS2\t673\tMissense_Mutation\tSNP\t\t\tp.V600E\t" +
+            "ENST00000288602\t\t600\t\t\t\tSUCCESS", lines[4]);
+        assertEquals("X\t17\tNA\t41242963\t-\tGA\tS2\t\t\t\t\t\t\t\t\t\t\t\t\tFAILED", lines[5]);
+    }
+
+    @Test
+    public void failedWindowsAreWrittenAsFailedRows() throws Exception
+    {
+        Mockito.when(this.genomicLocationAnnotationService.getAnnotations(anyList(), any(), any(), any()))
+            .thenAnswer(invocation -> {
+                List<GenomicLocation> locations = invocation.getArgument(0);
+
+                if (locations.stream().anyMatch(location -> location.getChromosome().equals("12"))) {
+                    throw new IllegalStateException("VEP returned 503");
+                }
+
+                return locations.stream().map(MafAnnotationServiceTest::annotation).collect(Collectors.toList());
+            });
+
+        MafAnnotationServiceImpl service = new MafAnnotationServiceImpl(this.genomicLocationAnnotationService, 1);
+
+        String maf = String.join("\n",
+            "Chromosome\tStart_Position\tEnd_Position\tReference_Allele\tTumor_Seq_Allele2",
+            "12\t25398285\t25398285\tC\tA",
+            "7\t140453136\t140453136\tA\tT"
+        );
+        StringWriter output = new StringWriter();
+
+        long count = service.annotate(new BufferedReader(new StringReader(maf)), output, null, null, null);
+
+        // the output is complete, the row of the failed window is not annotated
+        String[] lines = output.toString().split("\n");
+
+        assertEquals(2, count);
+        assertEquals(3, lines.length);
+        assertTrue(lines[1].startsWith("12\t25398285\t") && lines[1].endsWith("\tFAILED"));
+        assertTrue(lines[2].startsWith("7\t140453136\t") && lines[2].endsWith("\tSUCCESS"));
+    }
+
+    private static VariantAnnotation annotation(GenomicLocation location)
+    {
+        VariantAnnotation annotation = new VariantAnnotation(location.toString());
+        annotation.setOriginalVariantQuery(location.toString());
+
+        if (location.getChromosome().equals("12")) {
+            annotation.setSuccessfullyAnnotated(false);
+            return annotation;
+        }
+
+        TranscriptConsequenceSummary transcript = new TranscriptConsequenceSummary();
+        transcript.setHugoGeneSymbol("BRAF");
+        transcript.setEntrezGeneId("673");
+        transcript.setVariantClassification("Missense_Mutation");
+        transcript.setHgvspShort("p.V600E");
+        transcript.setTranscriptId("ENST00000288602");
+        transcript.setProteinPosition(new IntegerRange(600, 600));
+
+        VariantAnnotationSummary summary = new VariantAnnotationSummary();
+        summary.setVariantType("SNP");
+        summary.setTranscriptConsequenceSummary(transcript);
+
+        annotation.setSuccessfullyAnnotated(true);
+        annotation.setAnnotationSummary(summary);
+
+        return annotation;
+    }
+}
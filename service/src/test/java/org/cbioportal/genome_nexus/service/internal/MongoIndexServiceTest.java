@@ -0,0 +1,113 @@
+package org.cbioportal.genome_nexus.service.internal;
+
+import org.bson.Document;
+import org.cbioportal.genome_nexus.model.MongoIndexStatus;
+import org.cbioportal.genome_nexus.persistence.ClinvarVariantAnnotationRepository;
+import org.cbioportal.genome_nexus.persistence.HotspotRepository;
+import org.cbioportal.genome_nexus.persistence.MongoIndexRepository;
+import org.cbioportal.genome_nexus.persistence.RequiredIndex;
+import org.cbioportal.genome_nexus.persistence.SignalMutationRepository;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class MongoIndexServiceTest
+{
+    private static final RequiredIndex CLINVAR = RequiredIndex.on(ClinvarVariantAnnotationRepository.class,
+        "clinvar.mutation", "chromosome", "start_position", "end_position", "reference_allele", "alternate_allele");
+    private static final RequiredIndex HOTSPOT = RequiredIndex.on(HotspotRepository.class,
+        "hotspot.mutation", "transcript_id");
+    private static final RequiredIndex SIGNAL = RequiredIndex.on(SignalMutationRepository.class,
+        "signal.mutation", "chromosome");
+
+    @Mock
+    private MongoIndexRepository mongoIndexRepository;
+
+    @Test
+    public void createMissingIndexes()
+    {
+        Mockito.when(this.mongoIndexRepository.collectionExists("clinvar.mutation")).thenReturn(true);
+        Mockito.when(this.mongoIndexRepository.collectionExists("hotspot.mutation")).thenReturn(true);
+        Mockito.when(this.mongoIndexRepository.collectionExists("signal.mutation")).thenReturn(false);
+        // the existing clinvar index only covers the position, the hotspot index has more keys
+        Mockito.when(this.mongoIndexRepository.findIndexKeys("clinvar.mutation")).thenReturn(Arrays.asList(
+            Collections.singletonList("_id"),
+            Arrays.asList("chromosome", "start_position", "end_position")));
+        Mockito.when(this.mongoIndexRepository.findIndexKeys("hotspot.mutation")).thenReturn(Arrays.asList(
+            Collections.singletonList("_id"),
+            Arrays.asList("transcript_id", "residue")));
+
+        List<MongoIndexStatus> statuses = this.service(true).verifyIndexes();
+
+        assertEquals(3, statuses.size());
+        assertEquals(MongoIndexStatus.CREATED, statuses.get(0).getStatus());
+        assertEquals("chromosome_1_start_position_1_end_position_1_reference_allele_1_alternate_allele_1",
+            statuses.get(0).getName());
+        assertEquals(MongoIndexStatus.PRESENT, statuses.get(1).getStatus());
+        assertEquals(MongoIndexStatus.NO_COLLECTION, statuses.get(2).getStatus());
+
+        Mockito.verify(this.mongoIndexRepository).createIndex(CLINVAR);
+        Mockito.verify(this.mongoIndexRepository, Mockito.never()).createIndex(HOTSPOT);
+        Mockito.verify(this.mongoIndexRepository, Mockito.never()).createIndex(SIGNAL);
+    }
+
+    @Test
+    public void reportCollectionScans()
+    {
+        Document query = new Document("transcript_id", "ENST00000288602");
+
+        Mockito.when(this.mongoIndexRepository.collectionExists(any())).thenReturn(true);
+        Mockito.when(this.mongoIndexRepository.findIndexKeys(any())).thenReturn(
+            Collections.singletonList(Collections.singletonList("_id")));
+        Mockito.when(this.mongoIndexRepository.sampleQuery(CLINVAR)).thenReturn(null);
+        Mockito.when(this.mongoIndexRepository.sampleQuery(HOTSPOT)).thenReturn(query);
+        Mockito.when(this.mongoIndexRepository.sampleQuery(SIGNAL)).thenReturn(new Document("chromosome", "7"));
+        Mockito.when(this.mongoIndexRepository.explain(eq("hotspot.mutation"), eq(query))).thenReturn(
+            explain(new Document("stage", "COLLSCAN"), 40000, 25));
+        Mockito.when(this.mongoIndexRepository.explain(eq("signal.mutation"), any())).thenReturn(
+            explain(new Document("stage", "FETCH").append("inputStage", new Document("stage", "IXSCAN")), 3, 0));
+
+        List<MongoIndexStatus> statuses = this.service(false).verifyIndexes();
+
+        // nothing is created, the clinvar collection is empty
+        Mockito.verify(this.mongoIndexRepository, Mockito.never()).createIndex(any());
+        assertEquals(MongoIndexStatus.MISSING, statuses.get(0).getStatus());
+        assertNull(statuses.get(0).getWinningPlan());
+
+        assertEquals("COLLSCAN", statuses.get(1).getWinningPlan());
+        assertTrue(statuses.get(1).getCollectionScan());
+        assertTrue(statuses.get(1).getSlow());
+        assertEquals(Long.valueOf(40000), statuses.get(1).getDocsExamined());
+
+        assertEquals("FETCH < IXSCAN", statuses.get(2).getWinningPlan());
+        assertFalse(statuses.get(2).getCollectionScan());
+        assertFalse(statuses.get(2).getSlow());
+    }
+
+    private MongoIndexServiceImpl service(boolean createMissing)
+    {
+        return new MongoIndexServiceImpl(this.mongoIndexRepository, Arrays.asList(CLINVAR, HOTSPOT, SIGNAL),
+            false, createMissing, true, 100);
+    }
+
+    private static Document explain(Document winningPlan, int docsExamined, int executionTimeMillis)
+    {
+        return new Document("queryPlanner", new Document("winningPlan", winningPlan))
+            .append("executionStats", new Document("totalDocsExamined", docsExamined)
+                .append("executionTimeMillis", executionTimeMillis));
+    }
+}
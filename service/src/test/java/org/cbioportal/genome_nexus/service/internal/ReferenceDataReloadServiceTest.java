@@ -0,0 +1,99 @@
+package org.cbioportal.genome_nexus.service.internal;
+
+import org.cbioportal.genome_nexus.model.DatasetReloadStatus;
+import org.cbioportal.genome_nexus.persistence.AnnotationVersionRepository;
+import org.cbioportal.genome_nexus.service.ReloadableDataset;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+@RunWith(MockitoJUnitRunner.class)
+public class ReferenceDataReloadServiceTest
+{
+    @Mock
+    private ReloadableDataset signal;
+    @Mock
+    private ReloadableDataset revue;
+    @Mock
+    private AnnotationVersionRepository annotationVersionRepository;
+
+    private ConcurrentMapCacheManager cacheManager;
+    private ReferenceDataReloadServiceImpl service;
+
+    @Before
+    public void setupTests()
+    {
+        Mockito.when(signal.getDatasetName()).thenReturn("signal");
+        Mockito.when(revue.getDatasetName()).thenReturn("revue");
+
+        this.cacheManager = new ConcurrentMapCacheManager("hotspotsByTranscriptId");
+        this.service = new ReferenceDataReloadServiceImpl(
+            Arrays.asList(signal, revue), annotationVersionRepository, Optional.of(cacheManager), 0);
+    }
+
+    @After
+    public void tearDown()
+    {
+        this.service.shutdown();
+    }
+
+    @Test
+    public void reloadSelectedDatasets() throws Exception
+    {
+        Cache cache = this.cacheManager.getCache("hotspotsByTranscriptId");
+        cache.put("ENST00000288602", "cached");
+
+        List<DatasetReloadStatus> statuses = this.service.reload(Collections.singletonList("signal")).get();
+
+        assertEquals(1, statuses.size());
+        assertEquals("signal", statuses.get(0).getDatasetName());
+        assertNotNull(statuses.get(0).getDurationMillis());
+        assertNull(statuses.get(0).getError());
+        Mockito.verify(signal).reloadDataset();
+        Mockito.verify(revue, Mockito.never()).reloadDataset();
+
+        // caches are cleared after a reload
+        assertNull(cache.get("ENST00000288602"));
+
+        assertEquals(1, this.service.getReloadStatus().size());
+    }
+
+    @Test
+    public void reloadAllDatasets() throws Exception
+    {
+        Mockito.when(revue.getDatasetVersion()).thenReturn("d41d8");
+        Mockito.doThrow(new IllegalStateException("Failed to fetch reVUE data")).when(revue).reloadDataset();
+
+        List<DatasetReloadStatus> statuses = this.service.reload(null).get();
+
+        // a failing dataset does not prevent the others from reloading
+        assertEquals(2, statuses.size());
+        assertNull(statuses.get(0).getError());
+        assertEquals("Failed to fetch reVUE data", statuses.get(1).getError());
+        Mockito.verify(signal).reloadDataset();
+
+        // the failed dataset keeps the version of the data it still serves
+        assertEquals(Collections.singletonMap("revue", "d41d8"), this.service.getDatasetVersions());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void reloadUnknownDataset()
+    {
+        this.service.reload(Collections.singletonList("unknown"));
+    }
+}
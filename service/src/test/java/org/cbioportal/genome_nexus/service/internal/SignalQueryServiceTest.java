@@ -0,0 +1,125 @@
+package org.cbioportal.genome_nexus.service.internal;
+
+import org.bson.Document;
+import org.cbioportal.genome_nexus.component.search.SignalIndexBuilder;
+import org.cbioportal.genome_nexus.component.search.SignalSearchEngine;
+import org.cbioportal.genome_nexus.model.SignalMutation;
+import org.cbioportal.genome_nexus.model.VariantAnnotation;
+import org.cbioportal.genome_nexus.persistence.CacheDocumentRepository;
+import org.cbioportal.genome_nexus.persistence.SignalMutationRepository;
+import org.cbioportal.genome_nexus.persistence.VariantAnnotationRepository;
+import org.cbioportal.genome_nexus.service.cached.CacheStorage;
+import org.cbioportal.genome_nexus.service.cached.CompressedDocumentCodec;
+import org.cbioportal.genome_nexus.service.cached.CompressedMongoCacheStorage;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class SignalQueryServiceTest
+{
+    @Mock
+    private SignalMutationRepository signalMutationRepository;
+
+    @Mock
+    private VariantAnnotationRepository variantAnnotationRepository;
+
+    @Mock
+    private SignalSearchEngine searchEngine;
+
+    @Mock
+    private SignalIndexBuilder indexBuilder;
+
+    @Mock
+    private CacheDocumentRepository cacheDocumentRepository;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void buildIndexFromCompressedStorage()
+    {
+        CompressedDocumentCodec codec = new CompressedDocumentCodec("vep.annotation", "input");
+        List<String> variants = Arrays.asList("7:g.140453136A>T", "12:g.25398285C>A");
+
+        Mockito.when(this.signalMutationRepository.findAll()).thenReturn(Collections.singletonList(new SignalMutation()));
+        Mockito.when(this.indexBuilder.findUniqueVariants(anyList())).thenReturn(variants);
+        // one document compressed by the storage, one saved before the storage was configured
+        Mockito.when(this.cacheDocumentRepository.findAllById(eq("vep.annotation"), eq(variants))).thenReturn(Arrays.asList(
+            codec.compress(annotation("7:g.140453136A>T", "BRAF")),
+            annotation("12:g.25398285C>A", "KRAS")
+        ));
+
+        ObjectProvider<CacheStorage> cacheStorage = Mockito.mock(ObjectProvider.class);
+        Mockito.when(cacheStorage.getIfAvailable()).thenReturn(
+            new CompressedMongoCacheStorage(this.cacheDocumentRepository, codec, converter()));
+
+        new SignalQueryServiceImpl(this.signalMutationRepository, this.variantAnnotationRepository,
+            this.searchEngine, this.indexBuilder, cacheStorage);
+
+        ArgumentCaptor<List<VariantAnnotation>> annotations = ArgumentCaptor.forClass(List.class);
+        Mockito.verify(this.indexBuilder).buildQueryIndex(anyList(), annotations.capture());
+        Mockito.verify(this.variantAnnotationRepository, Mockito.never()).findByVariantIn(any());
+
+        assertEquals(2, annotations.getValue().size());
+
+        for (int i = 0; i < variants.size(); i++) {
+            VariantAnnotation annotation = annotations.getValue().get(i);
+
+            assertEquals(variants.get(i), annotation.getVariantId());
+            assertEquals(1, annotation.getTranscriptConsequences().size());
+        }
+
+        assertEquals("BRAF", annotations.getValue().get(0).getTranscriptConsequences().get(0).getGeneSymbol());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void buildIndexFromMongo()
+    {
+        List<String> variants = Collections.singletonList("7:g.140453136A>T");
+        List<VariantAnnotation> annotations = Collections.singletonList(new VariantAnnotation("7:g.140453136A>T"));
+
+        Mockito.when(this.signalMutationRepository.findAll()).thenReturn(Collections.singletonList(new SignalMutation()));
+        Mockito.when(this.indexBuilder.findUniqueVariants(anyList())).thenReturn(variants);
+        Mockito.when(this.variantAnnotationRepository.findByVariantIn(variants)).thenReturn(annotations);
+
+        ObjectProvider<CacheStorage> cacheStorage = Mockito.mock(ObjectProvider.class);
+
+        new SignalQueryServiceImpl(this.signalMutationRepository, this.variantAnnotationRepository,
+            this.searchEngine, this.indexBuilder, cacheStorage);
+
+        Mockito.verify(this.indexBuilder).buildQueryIndex(anyList(), eq(annotations));
+    }
+
+    private static Document annotation(String id, String geneSymbol)
+    {
+        return new Document("_id", id)
+            .append("id", id)
+            .append("input", id)
+            .append("transcript_consequences", Collections.singletonList(
+                new Document("transcript_id", "ENST00000288602").append("gene_symbol", geneSymbol)));
+    }
+
+    private static MappingMongoConverter converter()
+    {
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        converter.afterPropertiesSet();
+
+        return converter;
+    }
+}
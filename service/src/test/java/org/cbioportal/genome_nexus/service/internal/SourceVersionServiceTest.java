@@ -0,0 +1,72 @@
+package org.cbioportal.genome_nexus.service.internal;
+
+import org.cbioportal.genome_nexus.model.AggregateSourceInfo;
+import org.cbioportal.genome_nexus.model.GenomeNexusInfo;
+import org.cbioportal.genome_nexus.model.SourceVersionInfo;
+import org.cbioportal.genome_nexus.model.VEPInfo;
+import org.cbioportal.genome_nexus.service.ReferenceDataReloadService;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class SourceVersionServiceTest
+{
+    @Mock
+    private InfoServiceImpl infoService;
+
+    @Mock
+    private ReferenceDataReloadService referenceDataReloadService;
+
+    @Test
+    public void fingerprintFollowsSourceVersions()
+    {
+        Mockito.when(this.infoService.getAggregateSourceInfo())
+            .thenReturn(sourceInfo("v3.0.0"), sourceInfo("v3.0.1"));
+        Mockito.when(this.referenceDataReloadService.getDatasetVersions())
+            .thenReturn(Collections.singletonMap("revue", "d41d8"));
+
+        SourceVersionServiceImpl cached = new SourceVersionServiceImpl(this.infoService, this.referenceDataReloadService, 3600);
+        String fingerprint = cached.getFingerprint();
+
+        // the version collection is not read again within the check interval
+        assertEquals(fingerprint, cached.getFingerprint());
+
+        // another instance serving the same data has the same fingerprint, whenever its datasets were loaded
+        SourceVersionServiceImpl other = new SourceVersionServiceImpl(this.infoService, this.referenceDataReloadService, 3600);
+        Mockito.when(this.infoService.getAggregateSourceInfo()).thenReturn(sourceInfo("v3.0.0"));
+        assertEquals(fingerprint, other.getFingerprint());
+
+        // but a reload which changed the data of a reference dataset is taken into account right away
+        Mockito.when(this.referenceDataReloadService.getDatasetVersions())
+            .thenReturn(Collections.singletonMap("revue", "9e107"));
+
+        String reloaded = cached.getFingerprint();
+        assertNotEquals(fingerprint, reloaded);
+
+        Mockito.when(this.infoService.getAggregateSourceInfo()).thenReturn(sourceInfo("v3.0.1"));
+        SourceVersionServiceImpl uncached = new SourceVersionServiceImpl(this.infoService, this.referenceDataReloadService, 0);
+        assertNotEquals(reloaded, uncached.getFingerprint());
+    }
+
+    private static AggregateSourceInfo sourceInfo(String oncokbVersion)
+    {
+        SourceVersionInfo oncokb = new SourceVersionInfo();
+        oncokb.setid("oncokb");
+        oncokb.setName("OncoKB");
+        oncokb.setVersion(oncokbVersion);
+
+        AggregateSourceInfo info = new AggregateSourceInfo(
+            new GenomeNexusInfo("1.0", "4.0"), new VEPInfo("104", "104", "http://localhost:6060"));
+        info.setAnnotationSourcesInfo(Collections.singletonList(oncokb));
+
+        return info;
+    }
+}
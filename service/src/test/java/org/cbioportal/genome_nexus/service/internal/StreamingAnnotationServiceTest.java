@@ -0,0 +1,114 @@
+package org.cbioportal.genome_nexus.service.internal;
+
+import org.cbioportal.genome_nexus.model.VariantAnnotation;
+import org.cbioportal.genome_nexus.service.SelectedAnnotationService;
+import org.cbioportal.genome_nexus.service.exception.VariantAnnotationWebServiceException;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+
+@RunWith(MockitoJUnitRunner.Silent.class)
+public class StreamingAnnotationServiceTest
+{
+    @Mock
+    private SelectedAnnotationService selectedAnnotationService;
+
+    @Test
+    public void annotateInWindows() throws Exception
+    {
+        List<List<String>> requests = new ArrayList<>();
+
+        Mockito.when(this.selectedAnnotationService.getAnnotations(anyList(), any(), any(), any()))
+            .thenAnswer(invocation -> {
+                List<String> variants = invocation.getArgument(0);
+                requests.add(variants);
+                return variants.stream().map(VariantAnnotation::new).collect(Collectors.toList());
+            });
+
+        StreamingAnnotationServiceImpl service = new StreamingAnnotationServiceImpl(this.selectedAnnotationService, 3);
+
+        String input = String.join("\n",
+            "7:g.140453136A>T",
+            "",
+            "\"12:g.25398285C>A\"",
+            "  17:g.41242962_41242963insGA  ",
+            "rs116035550",
+            "X:g.66937331T>A"
+        );
+
+        List<List<String>> windows = new ArrayList<>();
+        long count = service.annotate(new BufferedReader(new StringReader(input)), null, null, null,
+            annotations -> windows.add(annotations.stream().map(VariantAnnotation::getVariant).collect(Collectors.toList())));
+
+        assertEquals(5, count);
+
+        // blank lines are skipped, JSON strings are unquoted
+        assertEquals(Arrays.asList(
+            Arrays.asList("7:g.140453136A>T", "12:g.25398285C>A", "17:g.41242962_41242963insGA"),
+            Arrays.asList("rs116035550", "X:g.66937331T>A")
+        ), windows);
+
+        // HGVS and non-HGVS variants are never sent in the same request
+        assertEquals(Arrays.asList(
+            Arrays.asList("7:g.140453136A>T", "12:g.25398285C>A", "17:g.41242962_41242963insGA"),
+            Arrays.asList("rs116035550"),
+            Arrays.asList("X:g.66937331T>A")
+        ), requests);
+    }
+
+    @Test
+    public void failedWindowsYieldErrorRecords() throws Exception
+    {
+        Mockito.when(this.selectedAnnotationService.getAnnotations(anyList(), any(), any(), any()))
+            .thenAnswer(invocation -> {
+                List<String> variants = invocation.getArgument(0);
+
+                if (variants.contains("rs116035550")) {
+                    throw new VariantAnnotationWebServiceException("rs116035550", null);
+                }
+
+                if (variants.contains("12:g.25398285C>A")) {
+                    throw new IllegalStateException("VEP timed out");
+                }
+
+                return variants.stream().map(variant -> {
+                    VariantAnnotation annotation = new VariantAnnotation(variant);
+                    annotation.setSuccessfullyAnnotated(true);
+                    return annotation;
+                }).collect(Collectors.toList());
+            });
+
+        StreamingAnnotationServiceImpl service = new StreamingAnnotationServiceImpl(this.selectedAnnotationService, 2);
+        List<VariantAnnotation> streamed = new ArrayList<>();
+
+        long count = service.annotate(new BufferedReader(new StringReader(
+                "7:g.140453136A>T\nrs116035550\nrs1057519745\n12:g.25398285C>A\n17:g.41242962_41242963insGA")),
+            null, null, null, streamed::addAll);
+
+        // every variant sent gets a record, the variants of the failed requests are not successfully annotated,
+        // and the following windows are still annotated
+        assertEquals(5, count);
+        assertEquals(Arrays.asList("7:g.140453136A>T", "rs116035550", "rs1057519745", "12:g.25398285C>A",
+                "17:g.41242962_41242963insGA"),
+            streamed.stream().map(VariantAnnotation::getVariant).collect(Collectors.toList()));
+        assertEquals(Arrays.asList(true, false, true, false, true),
+            streamed.stream().map(VariantAnnotation::isSuccessfullyAnnotated).collect(Collectors.toList()));
+        assertNotNull(streamed.get(1).getErrorMessage());
+        assertEquals("rs116035550", streamed.get(1).getOriginalVariantQuery());
+        assertEquals("Failed to annotate 12:g.25398285C>A: VEP timed out", streamed.get(3).getErrorMessage());
+    }
+}
@@ -0,0 +1,106 @@
+package org.cbioportal.genome_nexus.service.internal;
+
+import org.cbioportal.genome_nexus.model.VariantAnnotation;
+import org.cbioportal.genome_nexus.service.enricher.BaseAnnotationEnricher;
+import org.cbioportal.genome_nexus.util.RequestDeadline;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class VEPEnrichmentServiceTest
+{
+    @After
+    public void clearDeadline()
+    {
+        RequestDeadline.clear();
+    }
+
+    @Test
+    public void enrichWithoutDeadline()
+    {
+        List<String> enriched = new ArrayList<>();
+        VEPEnrichmentService service = new VEPEnrichmentService();
+        service.registerEnricher(new RecordingEnricher("first", enriched, false));
+        service.registerEnricher(new RecordingEnricher("second", enriched, false));
+
+        VariantAnnotation annotation = new VariantAnnotation("7:g.140453136A>T");
+        service.enrichAnnotation(annotation);
+
+        assertEquals(Arrays.asList("first", "second"), enriched);
+        assertNull(annotation.getSkippedEnrichments());
+    }
+
+    @Test
+    public void skipEnrichmentsAfterDeadline()
+    {
+        List<String> enriched = new ArrayList<>();
+        VEPEnrichmentService service = new VEPEnrichmentService();
+        // the first enricher runs until the deadline, the second one is not started
+        service.registerEnricher(new RecordingEnricher("slow", enriched, true));
+        service.registerEnricher(new RecordingEnricher("skipped", enriched, false));
+
+        RequestDeadline.start(50);
+
+        List<VariantAnnotation> annotations = Arrays.asList(
+            new VariantAnnotation("7:g.140453136A>T"),
+            new VariantAnnotation("12:g.25398285C>A")
+        );
+        service.enrichAnnotations(annotations);
+
+        // the slow enricher gave up on the second annotation
+        assertEquals(Collections.singletonList("slow"), enriched);
+        assertEquals(Arrays.asList("slow", "skipped"), annotations.get(0).getSkippedEnrichments());
+        assertEquals(Arrays.asList("slow", "skipped"), annotations.get(1).getSkippedEnrichments());
+        assertEquals(2, RequestDeadline.getSkippedCount());
+    }
+
+    @Test
+    public void timeoutLimitedByDeadline()
+    {
+        assertEquals(3000, RequestDeadline.timeoutMillis(3000));
+        assertEquals(0, RequestDeadline.timeoutMillis(0));
+
+        RequestDeadline.start(1000);
+
+        int timeout = RequestDeadline.timeoutMillis(3000);
+        assertEquals(true, timeout > 0 && timeout <= 1000);
+        assertEquals(true, RequestDeadline.timeoutMillis(0) <= 1000);
+        assertEquals(500, RequestDeadline.timeoutMillis(500));
+    }
+
+    private static class RecordingEnricher extends BaseAnnotationEnricher
+    {
+        private final List<String> enriched;
+        private final boolean waitForDeadline;
+
+        RecordingEnricher(String id, List<String> enriched, boolean waitForDeadline)
+        {
+            super(id);
+            this.enriched = enriched;
+            this.waitForDeadline = waitForDeadline;
+        }
+
+        @Override
+        public void enrich(VariantAnnotation annotation)
+        {
+            this.enriched.add(this.getId());
+
+            while (this.waitForDeadline && !RequestDeadline.isExpired()) {
+                try {
+                    Thread.sleep(5);
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
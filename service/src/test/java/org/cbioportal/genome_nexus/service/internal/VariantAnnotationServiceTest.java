@@ -15,6 +15,7 @@ import org.cbioportal.genome_nexus.model.*;
 import org.cbioportal.genome_nexus.model.my_variant_info_model.MyVariantInfo;
 import org.cbioportal.genome_nexus.persistence.IndexRepository;
 import org.cbioportal.genome_nexus.service.EnsemblService;
+import org.cbioportal.genome_nexus.service.IndexSearchService;
 import org.cbioportal.genome_nexus.service.MutationAssessorService;
 import org.cbioportal.genome_nexus.service.MyVariantInfoService;
 import org.cbioportal.genome_nexus.component.annotation.HugoGeneSymbolResolver;
@@ -54,6 +55,8 @@ public class VariantAnnotationServiceTest
     private HugoGeneSymbolResolver hugoGeneSymbolResolver;
     @Mock
     private IndexRepository indexRepository;
+    @Mock
+    private IndexSearchService indexSearchService;
 
     @Mock
     private CachedVariantAnnotationFetcher fetcher;
@@ -0,0 +1,104 @@
+package org.cbioportal.genome_nexus.service.transformer;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.mongodb.BasicDBList;
+import com.mongodb.BasicDBObject;
+import com.mongodb.DBObject;
+import org.cbioportal.genome_nexus.model.VariantAnnotation;
+import org.cbioportal.genome_nexus.service.config.ExternalResourceObjectMapper;
+import org.cbioportal.genome_nexus.service.exception.ResourceMappingException;
+import org.junit.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ExternalResourceTransformerTest
+{
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 200;
+
+    @Test
+    public void transformVariantAnnotation() throws IOException, ResourceMappingException
+    {
+        ExternalResourceObjectMapper objectMapper = new ExternalResourceObjectMapper();
+        ExternalResourceTransformer<VariantAnnotation> transformer = new ExternalResourceTransformer<>(objectMapper);
+
+        DBObject rawValue = this.readVariantAnnotation("1_g.65325832_65325833insG.json");
+        // unknown properties are ignored
+        rawValue.put("unknown_property", "value");
+
+        List<VariantAnnotation> annotations = transformer.transform(rawValue, VariantAnnotation.class);
+
+        assertEquals(1, annotations.size());
+        assertVariantAnnotation(annotations.get(0));
+
+        // the injected mapper is not modified
+        assertTrue(objectMapper.isEnabled(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES));
+        assertFalse(objectMapper.isEnabled(MapperFeature.ACCEPT_CASE_INSENSITIVE_ENUMS));
+    }
+
+    @Test
+    public void transformConcurrently() throws Exception
+    {
+        ExternalResourceTransformer<VariantAnnotation> transformer =
+            new ExternalResourceTransformer<>(new ExternalResourceObjectMapper());
+
+        BasicDBList rawValue = new BasicDBList();
+        rawValue.add(this.readVariantAnnotation("1_g.65325832_65325833insG.json"));
+        rawValue.add(this.readVariantAnnotation("1_g.65325832_65325833insG.json"));
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Integer>> results = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                results.add(executor.submit((Callable<Integer>) () -> {
+                    int count = 0;
+                    for (int j = 0; j < ITERATIONS; j++) {
+                        for (VariantAnnotation annotation: transformer.transform(rawValue, VariantAnnotation.class)) {
+                            assertVariantAnnotation(annotation);
+                            count++;
+                        }
+                    }
+                    return count;
+                }));
+            }
+
+            for (Future<Integer> result: results) {
+                // rethrows any assertion failure of the worker thread
+                assertEquals(Integer.valueOf(ITERATIONS * 2), result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void assertVariantAnnotation(VariantAnnotation annotation)
+    {
+        assertEquals("1:g.65325832_65325833insG", annotation.getVariantId());
+        assertEquals("GRCh37", annotation.getAssemblyName());
+        assertEquals((Integer) 65325833, annotation.getStart());
+        assertEquals("frameshift_variant", annotation.getMostSevereConsequence());
+        assertEquals(2, annotation.getTranscriptConsequences().size());
+        assertEquals("ENST00000342505", annotation.getTranscriptConsequences().get(0).getTranscriptId());
+    }
+
+    private DBObject readVariantAnnotation(String resourceName) throws IOException
+    {
+        return BasicDBObject.parse(StreamUtils.copyToString(
+            new ClassPathResource("variant/" + resourceName).getInputStream(), StandardCharsets.UTF_8));
+    }
+}
@@ -32,6 +32,8 @@
 
 package org.cbioportal.genome_nexus;
 
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
 import org.cbioportal.genome_nexus.web.config.ApiObjectMapper;
 import org.cbioportal.genome_nexus.web.config.InternalApi;
 import org.cbioportal.genome_nexus.web.config.PublicApi;
@@ -42,7 +44,9 @@ import org.springframework.boot.web.servlet.error.ErrorController;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseStatus;
@@ -106,6 +110,18 @@ public class GenomeNexusAnnotation extends SpringBootServletInitializer implemen
         return new MappingJackson2HttpMessageConverter(new ApiObjectMapper());
     }
 
+    // binary encodings of the same API model, for clients sending an Accept header
+    // with application/x-jackson-smile or application/cbor
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileMessageConverter() {
+        return new MappingJackson2SmileHttpMessageConverter(new ApiObjectMapper(new SmileFactory()));
+    }
+
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborMessageConverter() {
+        return new MappingJackson2CborHttpMessageConverter(new ApiObjectMapper(new CBORFactory()));
+    }
+
     private ApiInfo apiInfo() {
         return new ApiInfoBuilder()
             .title("Genome Nexus API")
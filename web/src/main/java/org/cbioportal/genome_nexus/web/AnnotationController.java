@@ -32,23 +32,40 @@
 
 package org.cbioportal.genome_nexus.web;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.swagger.annotations.*;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
+import javax.servlet.http.HttpServletRequest;
 
 import org.cbioportal.genome_nexus.model.AnnotationField;
+import org.cbioportal.genome_nexus.model.AnnotationProjection;
 import org.cbioportal.genome_nexus.model.GenomicLocation;
 import org.cbioportal.genome_nexus.model.VariantAnnotation;
+import org.cbioportal.genome_nexus.service.AnnotationAdmissionService;
 import org.cbioportal.genome_nexus.service.GenomicLocationAnnotationService;
 import org.cbioportal.genome_nexus.service.SelectedAnnotationService;
+import org.cbioportal.genome_nexus.service.StreamingAnnotationService;
 import org.cbioportal.genome_nexus.service.VariantAnnotationService;
+import org.cbioportal.genome_nexus.service.exception.AnnotationAdmissionRejectedException;
 import org.cbioportal.genome_nexus.service.exception.VariantAnnotationNotFoundException;
 import org.cbioportal.genome_nexus.service.exception.VariantAnnotationQueryMixedFormatException;
 import org.cbioportal.genome_nexus.service.exception.VariantAnnotationWebServiceException;
 import org.cbioportal.genome_nexus.util.TokenMapConverter;
+import org.cbioportal.genome_nexus.web.config.ApiMediaTypes;
+import org.cbioportal.genome_nexus.web.config.ConditionalGet;
+import org.cbioportal.genome_nexus.web.config.ProjectionResponseBodyAdvice;
 import org.cbioportal.genome_nexus.web.config.PublicApi;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * @author Benjamin Gross
@@ -63,24 +80,40 @@ public class AnnotationController
     private final VariantAnnotationService dbsnpAnnotationService;
     private final GenomicLocationAnnotationService verifiedGenomicLocationAnnotationService;
     private final SelectedAnnotationService selectedAnnotationService;
+    private final StreamingAnnotationService streamingAnnotationService;
+    private final AnnotationAdmissionService annotationAdmissionService;
+    private final ObjectWriter annotationWriter;
     private final TokenMapConverter tokenMapConverter;
 
+    public static final String NDJSON = "application/x-ndjson";
+
     @Autowired
     public AnnotationController(VariantAnnotationService dbsnpVariantAnnotationService,
                                 GenomicLocationAnnotationService verifiedGenomicLocationAnnotationServiceImpl,
-                                SelectedAnnotationService selectedAnnotationService)
+                                SelectedAnnotationService selectedAnnotationService,
+                                StreamingAnnotationService streamingAnnotationService,
+                                AnnotationAdmissionService annotationAdmissionService,
+                                MappingJackson2HttpMessageConverter messageConverter)
     {
         this.dbsnpAnnotationService = dbsnpVariantAnnotationService;
         this.verifiedGenomicLocationAnnotationService = verifiedGenomicLocationAnnotationServiceImpl;
         this.selectedAnnotationService = selectedAnnotationService;
+        this.streamingAnnotationService = streamingAnnotationService;
+        this.annotationAdmissionService = annotationAdmissionService;
+        // same serialization as the regular JSON responses, flushed once per window instead of per annotation
+        this.annotationWriter = messageConverter.getObjectMapper()
+            .writerFor(VariantAnnotation.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
         this.tokenMapConverter = new TokenMapConverter();
     }
 
     // TODO remove this endpoint after all internal dependencies are resolved
     @ApiOperation(value = "Retrieves VEP annotation for the provided list of variants", hidden = true, nickname = "getVariantAnnotation")
-    @RequestMapping(value = "/hgvs/{variants:.+}", method = RequestMethod.GET, produces = "application/json")
+    @RequestMapping(value = "/hgvs/{variants:.+}", method = RequestMethod.GET, produces = {ApiMediaTypes.JSON, ApiMediaTypes.SMILE, ApiMediaTypes.CBOR})
     @Deprecated
     public List<VariantAnnotation> getVariantAnnotation(
+            @ApiParam(hidden = true)
+            HttpServletRequest request,
             @PathVariable
             @ApiParam(value="Comma separated list of variants. For example X:g.66937331T>A,17:g.41242962_41242963insGA " +
                     "(GRCh37) or 1:g.182712A>C,2:g.265023C>T,3:g.319781del,19:g.110753dup,1:g.1385015_1387562del (GRCh38)",
@@ -97,16 +130,18 @@ public class AnnotationController
                 "Valid values: {annotation_summary, clinvar, hotspots, mutation_assessor, my_variant_info, nucleotide_context, oncokb, ptms, signal}",
                 required = false, defaultValue = "annotation_summary")
             @RequestParam(required = false)
-            List<AnnotationField> fields) throws VariantAnnotationNotFoundException, VariantAnnotationQueryMixedFormatException, VariantAnnotationWebServiceException
+            List<AnnotationField> fields) throws VariantAnnotationNotFoundException, VariantAnnotationQueryMixedFormatException, VariantAnnotationWebServiceException, AnnotationAdmissionRejectedException
     {
-        return this.fetchVariantAnnotationPOST(variants, isoformOverrideSource, token, fields);
+        return this.fetchVariantAnnotationPOST(request, variants, isoformOverrideSource, token, fields, null);
     }
 
     // TODO remove this endpoint after all internal dependencies are resolved
     @ApiOperation(value = "Retrieves VEP annotation for the provided list of variants", hidden = true, nickname = "postVariantAnnotation")
-    @RequestMapping(value = "/hgvs", method = RequestMethod.POST, produces = "application/json")
+    @RequestMapping(value = "/hgvs", method = RequestMethod.POST, produces = {ApiMediaTypes.JSON, ApiMediaTypes.SMILE, ApiMediaTypes.CBOR})
     @Deprecated
     public List<VariantAnnotation> postVariantAnnotation(
+            @ApiParam(hidden = true)
+            HttpServletRequest request,
             @RequestParam
             @ApiParam(value="Comma separated list of variants. For example X:g.66937331T>A,17:g.41242962_41242963insGA " +
                     "(GRCh37) or 1:g.182712A>C,2:g.265023C>T,3:g.319781del,19:g.110753dup,1:g.1385015_1387562del (GRCh38)",
@@ -122,14 +157,16 @@ public class AnnotationController
                 "Valid values: {annotation_summary, clinvar, hotspots, mutation_assessor, my_variant_info, nucleotide_context, oncokb, ptms, signal}",
                 required = false, defaultValue = "annotation_summary")
             @RequestParam(required = false)
-            List<AnnotationField> fields) throws VariantAnnotationNotFoundException, VariantAnnotationQueryMixedFormatException, VariantAnnotationWebServiceException
+            List<AnnotationField> fields) throws VariantAnnotationNotFoundException, VariantAnnotationQueryMixedFormatException, VariantAnnotationWebServiceException, AnnotationAdmissionRejectedException
     {
-        return this.fetchVariantAnnotationPOST(variants, isoformOverrideSource, token, fields);
+        return this.fetchVariantAnnotationPOST(request, variants, isoformOverrideSource, token, fields, null);
     }
 
     @ApiOperation(value = "Retrieves VEP annotation for the provided list of variants", nickname = "fetchVariantAnnotationPOST")
-    @RequestMapping(value = "/annotation", method = RequestMethod.POST, produces = "application/json")
+    @RequestMapping(value = "/annotation", method = RequestMethod.POST, produces = {ApiMediaTypes.JSON, ApiMediaTypes.SMILE, ApiMediaTypes.CBOR})
     public List<VariantAnnotation> fetchVariantAnnotationPOST(
+            @ApiParam(hidden = true)
+            HttpServletRequest request,
             @ApiParam(value="List of variants. For example [\"X:g.66937331T>A\",\"17:g.41242962_41242963insGA\"] (GRCh37) " +
                     "or [\"1:g.182712A>C\", \"2:g.265023C>T\", \"3:g.319781del\", \"19:g.110753dup\", " +
                     "\"1:g.1385015_1387562del\"] (GRCh38)", required = true)
@@ -145,14 +182,68 @@ public class AnnotationController
                 "Valid values: {annotation_summary, clinvar, hotspots, mutation_assessor, my_variant_info, nucleotide_context, oncokb, ptms, signal}",
                 required = false, defaultValue = "annotation_summary")
             @RequestParam(required = false)
-            List<AnnotationField> fields) throws VariantAnnotationNotFoundException, VariantAnnotationQueryMixedFormatException, VariantAnnotationWebServiceException
+            List<AnnotationField> fields,
+            @ApiParam(value="Comma separated list of response fields to return, nested fields are separated by dots. " +
+                "For example variant,annotation_summary.transcriptConsequenceSummary. Defaults to all fields if no value passed.",
+                required = false)
+            @RequestParam(value = ProjectionResponseBodyAdvice.INCLUDE, required = false)
+            String include) throws VariantAnnotationNotFoundException, VariantAnnotationQueryMixedFormatException, VariantAnnotationWebServiceException, AnnotationAdmissionRejectedException
     {
-        return this.selectedAnnotationService.getAnnotations(variants, isoformOverrideSource, tokenMapConverter.convertToMap(token), fields);
+        try (AnnotationAdmissionService.Admission admission =
+                 this.annotationAdmissionService.admit(request.getRemoteAddr(), variants.size(), fields)) {
+            return this.selectedAnnotationService.getAnnotations(variants, isoformOverrideSource, tokenMapConverter.convertToMap(token), fields,
+                AnnotationProjection.parse(include));
+        }
+    }
+
+    @ApiOperation(value = "Retrieves VEP annotation for a stream of variants as newline delimited JSON, " +
+        "one annotation per line, written while the variants are annotated", nickname = "fetchVariantAnnotationStreamPOST")
+    @RequestMapping(value = "/annotation/stream", method = RequestMethod.POST,
+        consumes = {NDJSON, "text/plain"}, produces = NDJSON)
+    public StreamingResponseBody fetchVariantAnnotationStreamPOST(
+            @ApiParam(hidden = true)
+            HttpServletRequest request,
+            @ApiParam(value="Isoform override source. For example uniprot", required = false)
+            @RequestParam(required = false)
+            String isoformOverrideSource,
+            @ApiParam(value="Map of tokens. For example {\"source1\":\"put-your-token1-here\",\"source2\":\"put-your-token2-here\"}", required = false)
+            @RequestParam(required = false)
+            String token,
+            @ApiParam(value="Comma separated list of fields to include in the annotation (case-sensitive!). Defaults to \"annotation_summary\" if no value passed. " +
+                "Valid values: {annotation_summary, clinvar, hotspots, mutation_assessor, my_variant_info, nucleotide_context, oncokb, ptms, signal}",
+                required = false, defaultValue = "annotation_summary")
+            @RequestParam(required = false)
+            List<AnnotationField> fields)
+    {
+        Map<String, String> tokenMap = tokenMapConverter.convertToMap(token);
+
+        // the request body is read line by line while the response is written,
+        // one variant per line, either plain text or a JSON string
+        return outputStream -> {
+            BufferedReader variants = new BufferedReader(
+                new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
+            JsonGenerator generator = this.annotationWriter.getFactory().createGenerator(outputStream);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+
+            this.streamingAnnotationService.annotate(variants, isoformOverrideSource, tokenMap, fields, annotations -> {
+                for (VariantAnnotation annotation: annotations) {
+                    this.annotationWriter.writeValue(generator, annotation);
+                    generator.writeRaw('\n');
+                }
+                generator.flush();
+            });
+
+            generator.close();
+        };
     }
 
     @ApiOperation(value = "Retrieves VEP annotation for the provided variant", nickname = "fetchVariantAnnotationGET")
-    @RequestMapping(value = "/annotation/{variant:.+}", method = RequestMethod.GET, produces = "application/json")
+    @ConditionalGet
+    @RequestMapping(value = "/annotation/{variant:.+}", method = RequestMethod.GET, produces = {ApiMediaTypes.JSON, ApiMediaTypes.SMILE, ApiMediaTypes.CBOR})
     public VariantAnnotation fetchVariantAnnotationGET(
+            @ApiParam(hidden = true)
+            HttpServletRequest request,
             @ApiParam(value="Variant. For example 17:g.41242962_41242963insGA", required = true)
             @PathVariable
             String variant,
@@ -166,14 +257,25 @@ public class AnnotationController
                 "Valid values: {annotation_summary, clinvar, hotspots, mutation_assessor, my_variant_info, nucleotide_context, oncokb, ptms, signal}",
                 required = false, defaultValue = "annotation_summary")
             @RequestParam(required = false)
-            List<AnnotationField> fields) throws VariantAnnotationNotFoundException, VariantAnnotationWebServiceException
+            List<AnnotationField> fields,
+            @ApiParam(value="Comma separated list of response fields to return, nested fields are separated by dots. " +
+                "For example variant,annotation_summary.transcriptConsequenceSummary. Defaults to all fields if no value passed.",
+                required = false)
+            @RequestParam(value = ProjectionResponseBodyAdvice.INCLUDE, required = false)
+            String include) throws VariantAnnotationNotFoundException, VariantAnnotationWebServiceException, AnnotationAdmissionRejectedException
     {
-        return this.selectedAnnotationService.getAnnotation(variant, isoformOverrideSource, tokenMapConverter.convertToMap(token), fields);
+        try (AnnotationAdmissionService.Admission admission =
+                 this.annotationAdmissionService.admit(request.getRemoteAddr(), 1, fields)) {
+            return this.selectedAnnotationService.getAnnotation(variant, isoformOverrideSource, tokenMapConverter.convertToMap(token),
+                restrictFields(fields, include));
+        }
     }
 
     @ApiOperation(value = "Retrieves VEP annotation for the provided list of genomic locations", nickname = "fetchVariantAnnotationByGenomicLocationPOST")
-    @RequestMapping(value = "/annotation/genomic", method = RequestMethod.POST, produces = "application/json")
+    @RequestMapping(value = "/annotation/genomic", method = RequestMethod.POST, produces = {ApiMediaTypes.JSON, ApiMediaTypes.SMILE, ApiMediaTypes.CBOR})
     public List<VariantAnnotation> fetchVariantAnnotationByGenomicLocationPOST(
+            @ApiParam(hidden = true)
+            HttpServletRequest request,
             @ApiParam(value="List of Genomic Locations", required = true)
             @RequestBody
             List<GenomicLocation> genomicLocations,
@@ -187,15 +289,26 @@ public class AnnotationController
                 "Valid values: {annotation_summary, clinvar, hotspots, mutation_assessor, my_variant_info, nucleotide_context, oncokb, ptms, signal}",
                 required = false, defaultValue = "annotation_summary")
             @RequestParam(required = false)
-            List<AnnotationField> fields)
+            List<AnnotationField> fields,
+            @ApiParam(value="Comma separated list of response fields to return, nested fields are separated by dots. " +
+                "For example variant,annotation_summary.transcriptConsequenceSummary. Defaults to all fields if no value passed.",
+                required = false)
+            @RequestParam(value = ProjectionResponseBodyAdvice.INCLUDE, required = false)
+            String include) throws AnnotationAdmissionRejectedException
     {
-        return this.verifiedGenomicLocationAnnotationService.getAnnotations(
-            genomicLocations, isoformOverrideSource, tokenMapConverter.convertToMap(token), fields);
+        try (AnnotationAdmissionService.Admission admission =
+                 this.annotationAdmissionService.admit(request.getRemoteAddr(), genomicLocations.size(), fields)) {
+            return this.verifiedGenomicLocationAnnotationService.getAnnotations(
+                genomicLocations, isoformOverrideSource, tokenMapConverter.convertToMap(token), fields, AnnotationProjection.parse(include));
+        }
     }
 
     @ApiOperation(value = "Retrieves VEP annotation for the provided genomic location", nickname = "fetchVariantAnnotationByGenomicLocationGET")
-    @RequestMapping(value = "/annotation/genomic/{genomicLocation:.+}", method = RequestMethod.GET, produces = "application/json")
+    @ConditionalGet
+    @RequestMapping(value = "/annotation/genomic/{genomicLocation:.+}", method = RequestMethod.GET, produces = {ApiMediaTypes.JSON, ApiMediaTypes.SMILE, ApiMediaTypes.CBOR})
     public VariantAnnotation fetchVariantAnnotationByGenomicLocationGET(
+            @ApiParam(hidden = true)
+            HttpServletRequest request,
             @ApiParam(value="A genomic location. For example 7,140453136,140453136,A,T", required = true)
             @PathVariable
             String genomicLocation,
@@ -209,14 +322,25 @@ public class AnnotationController
                 "Valid values: {annotation_summary, clinvar, hotspots, mutation_assessor, my_variant_info, nucleotide_context, oncokb, ptms, signal}",
                 required = false, defaultValue = "annotation_summary")
             @RequestParam(required = false)
-            List<AnnotationField> fields) throws VariantAnnotationNotFoundException, VariantAnnotationWebServiceException
+            List<AnnotationField> fields,
+            @ApiParam(value="Comma separated list of response fields to return, nested fields are separated by dots. " +
+                "For example variant,annotation_summary.transcriptConsequenceSummary. Defaults to all fields if no value passed.",
+                required = false)
+            @RequestParam(value = ProjectionResponseBodyAdvice.INCLUDE, required = false)
+            String include) throws VariantAnnotationNotFoundException, VariantAnnotationWebServiceException, AnnotationAdmissionRejectedException
     {
-        return this.verifiedGenomicLocationAnnotationService.getAnnotation(genomicLocation, isoformOverrideSource, tokenMapConverter.convertToMap(token), fields);
+        try (AnnotationAdmissionService.Admission admission =
+                 this.annotationAdmissionService.admit(request.getRemoteAddr(), 1, fields)) {
+            return this.verifiedGenomicLocationAnnotationService.getAnnotation(genomicLocation, isoformOverrideSource, tokenMapConverter.convertToMap(token),
+                restrictFields(fields, include));
+        }
     }
 
     @ApiOperation(value = "Retrieves VEP annotation for the provided list of dbSNP ids", nickname = "fetchVariantAnnotationByIdPOST")
-    @RequestMapping(value = "/annotation/dbsnp/", method = RequestMethod.POST, produces = "application/json")
+    @RequestMapping(value = "/annotation/dbsnp/", method = RequestMethod.POST, produces = {ApiMediaTypes.JSON, ApiMediaTypes.SMILE, ApiMediaTypes.CBOR})
     public List<VariantAnnotation> fetchVariantbyDbSnpIdAnnotationPOST(
+            @ApiParam(hidden = true)
+            HttpServletRequest request,
             @ApiParam(value="List of variant IDs. For example [\"rs116035550\"]", required = true)
             @RequestBody
             List<String> variantIds,
@@ -230,14 +354,26 @@ public class AnnotationController
                 "Valid values: {annotation_summary, clinvar, hotspots, mutation_assessor, my_variant_info, nucleotide_context, oncokb, ptms, signal}",
                 required = false, defaultValue = "annotation_summary")
             @RequestParam(required = false)
-            List<AnnotationField> fields)
+            List<AnnotationField> fields,
+            @ApiParam(value="Comma separated list of response fields to return, nested fields are separated by dots. " +
+                "For example variant,annotation_summary.transcriptConsequenceSummary. Defaults to all fields if no value passed.",
+                required = false)
+            @RequestParam(value = ProjectionResponseBodyAdvice.INCLUDE, required = false)
+            String include) throws AnnotationAdmissionRejectedException
     {
-        return this.dbsnpAnnotationService.getAnnotations(variantIds, isoformOverrideSource, tokenMapConverter.convertToMap(token), fields);
+        try (AnnotationAdmissionService.Admission admission =
+                 this.annotationAdmissionService.admit(request.getRemoteAddr(), variantIds.size(), fields)) {
+            return this.dbsnpAnnotationService.getAnnotations(variantIds, isoformOverrideSource, tokenMapConverter.convertToMap(token), fields,
+                AnnotationProjection.parse(include));
+        }
     }
 
     @ApiOperation(value = "Retrieves VEP annotation for the give dbSNP id", nickname = "fetchVariantAnnotationByIdGET")
-    @RequestMapping(value = "/annotation/dbsnp/{variantId:.+}", method = RequestMethod.GET, produces = "application/json")
+    @ConditionalGet
+    @RequestMapping(value = "/annotation/dbsnp/{variantId:.+}", method = RequestMethod.GET, produces = {ApiMediaTypes.JSON, ApiMediaTypes.SMILE, ApiMediaTypes.CBOR})
     public VariantAnnotation fetchVariantAnnotationByDbSnpIdGET(
+            @ApiParam(hidden = true)
+            HttpServletRequest request,
             @ApiParam(value="dbSNP id. For example rs116035550.", required = true)
             @PathVariable
             String variantId,
@@ -251,10 +387,25 @@ public class AnnotationController
                 "Valid values: {annotation_summary, clinvar, hotspots, mutation_assessor, my_variant_info, nucleotide_context, oncokb, ptms, signal}",
                 required = false, defaultValue = "annotation_summary")
             @RequestParam(required = false)
-            List<AnnotationField> fields) throws VariantAnnotationNotFoundException, VariantAnnotationWebServiceException
+            List<AnnotationField> fields,
+            @ApiParam(value="Comma separated list of response fields to return, nested fields are separated by dots. " +
+                "For example variant,annotation_summary.transcriptConsequenceSummary. Defaults to all fields if no value passed.",
+                required = false)
+            @RequestParam(value = ProjectionResponseBodyAdvice.INCLUDE, required = false)
+            String include) throws VariantAnnotationNotFoundException, VariantAnnotationWebServiceException, AnnotationAdmissionRejectedException
     {
-        return this.dbsnpAnnotationService.getAnnotation(variantId, isoformOverrideSource, tokenMapConverter.convertToMap(token), fields);
+        try (AnnotationAdmissionService.Admission admission =
+                 this.annotationAdmissionService.admit(request.getRemoteAddr(), 1, fields)) {
+            return this.dbsnpAnnotationService.getAnnotation(variantId, isoformOverrideSource, tokenMapConverter.convertToMap(token),
+                restrictFields(fields, include));
+        }
     }
 
-}
+    // fields which are not included in the response are not annotated at all
+    private static List<AnnotationField> restrictFields(List<AnnotationField> fields, String include)
+    {
+        AnnotationProjection projection = AnnotationProjection.parse(include);
 
+        return projection == null ? fields : projection.restrictFields(fields);
+    }
+}
@@ -0,0 +1,129 @@
+package org.cbioportal.genome_nexus.web;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+import org.cbioportal.genome_nexus.model.AnnotationField;
+import org.cbioportal.genome_nexus.model.AnnotationJob;
+import org.cbioportal.genome_nexus.model.VariantAnnotation;
+import org.cbioportal.genome_nexus.service.AnnotationJobService;
+import org.cbioportal.genome_nexus.service.exception.AnnotationJobFailedException;
+import org.cbioportal.genome_nexus.service.exception.AnnotationJobNotFoundException;
+import org.cbioportal.genome_nexus.util.TokenMapConverter;
+import org.cbioportal.genome_nexus.web.config.PublicApi;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+@PublicApi
+@RestController
+@CrossOrigin(origins="*") // allow all cross-domain requests
+@RequestMapping(value= "/")
+@Api(tags = "annotation-job-controller", description = "Annotation Job Controller")
+public class AnnotationJobController
+{
+    private final AnnotationJobService annotationJobService;
+    private final TokenMapConverter tokenMapConverter;
+
+    @Autowired
+    public AnnotationJobController(AnnotationJobService annotationJobService)
+    {
+        this.annotationJobService = annotationJobService;
+        this.tokenMapConverter = new TokenMapConverter();
+    }
+
+    @ApiOperation(value = "Submits a list of variants for asynchronous annotation", nickname = "submitAnnotationJobPOST")
+    @RequestMapping(value = "/annotation/jobs", method = RequestMethod.POST, produces = "application/json")
+    public AnnotationJob submitAnnotationJobPOST(
+            @ApiParam(value="List of variants. For example [\"X:g.66937331T>A\",\"17:g.41242962_41242963insGA\"]", required = true)
+            @RequestBody
+            List<String> variants,
+            @ApiParam(value="Isoform override source. For example uniprot", required = false)
+            @RequestParam(required = false)
+            String isoformOverrideSource,
+            @ApiParam(value="Map of tokens. For example {\"source1\":\"put-your-token1-here\",\"source2\":\"put-your-token2-here\"}", required = false)
+            @RequestParam(required = false)
+            String token,
+            @ApiParam(value="Comma separated list of fields to include in the annotation (case-sensitive!). Defaults to \"annotation_summary\" if no value passed. " +
+                "Valid values: {annotation_summary, clinvar, hotspots, mutation_assessor, my_variant_info, nucleotide_context, oncokb, ptms, signal}",
+                required = false, defaultValue = "annotation_summary")
+            @RequestParam(required = false)
+            List<AnnotationField> fields)
+    {
+        return this.annotationJobService.submit(variants, isoformOverrideSource, this.tokenMapConverter.convertToMap(token), fields);
+    }
+
+    @ApiOperation(value = "Submits the variants of a MAF or VCF file for asynchronous annotation", nickname = "submitAnnotationJobFilePOST")
+    @RequestMapping(value = "/annotation/jobs/file", method = RequestMethod.POST,
+        consumes = MediaType.MULTIPART_FORM_DATA_VALUE, produces = "application/json")
+    public AnnotationJob submitAnnotationJobFilePOST(
+            @ApiParam(value="MAF or VCF file. The format is detected from the file content", required = true)
+            @RequestParam
+            MultipartFile file,
+            @ApiParam(value="Isoform override source. For example uniprot", required = false)
+            @RequestParam(required = false)
+            String isoformOverrideSource,
+            @ApiParam(value="Map of tokens. For example {\"source1\":\"put-your-token1-here\",\"source2\":\"put-your-token2-here\"}", required = false)
+            @RequestParam(required = false)
+            String token,
+            @ApiParam(value="Comma separated list of fields to include in the annotation (case-sensitive!). Defaults to \"annotation_summary\" if no value passed. " +
+                "Valid values: {annotation_summary, clinvar, hotspots, mutation_assessor, my_variant_info, nucleotide_context, oncokb, ptms, signal}",
+                required = false, defaultValue = "annotation_summary")
+            @RequestParam(required = false)
+            List<AnnotationField> fields) throws IOException
+    {
+        BufferedReader variantFile = new BufferedReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8));
+
+        try {
+            return this.annotationJobService.submit(variantFile, isoformOverrideSource, this.tokenMapConverter.convertToMap(token), fields);
+        }
+        catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    @ApiOperation(value = "Retrieves the status, progress and estimated remaining time of an annotation job", nickname = "fetchAnnotationJobGET")
+    @RequestMapping(value = "/annotation/jobs/{jobId}", method = RequestMethod.GET, produces = "application/json")
+    public AnnotationJob fetchAnnotationJobGET(
+            @ApiParam(value="Job id returned when the job was submitted", required = true)
+            @PathVariable
+            String jobId) throws AnnotationJobNotFoundException
+    {
+        return this.annotationJobService.getJob(jobId);
+    }
+
+    @ApiOperation(value = "Retrieves the annotations of a processed chunk of an annotation job", nickname = "fetchAnnotationJobResultsGET")
+    @RequestMapping(value = "/annotation/jobs/{jobId}/results", method = RequestMethod.GET, produces = "application/json")
+    public List<VariantAnnotation> fetchAnnotationJobResultsGET(
+            @ApiParam(value="Job id returned when the job was submitted", required = true)
+            @PathVariable
+            String jobId,
+            @ApiParam(value="Chunk index, from 0 to the chunk count of the job minus one", required = true)
+            @RequestParam
+            Integer chunk) throws AnnotationJobNotFoundException, AnnotationJobFailedException
+    {
+        List<VariantAnnotation> annotations;
+
+        try {
+            annotations = this.annotationJobService.getResults(jobId, chunk);
+        }
+        catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        if (annotations == null) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Chunk " + chunk + " is not annotated yet");
+        }
+
+        return annotations;
+    }
+}
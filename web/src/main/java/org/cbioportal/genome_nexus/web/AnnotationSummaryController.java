@@ -6,6 +6,8 @@ import org.cbioportal.genome_nexus.model.VariantAnnotationSummary;
 import org.cbioportal.genome_nexus.service.VariantAnnotationSummaryService;
 import org.cbioportal.genome_nexus.service.exception.VariantAnnotationNotFoundException;
 import org.cbioportal.genome_nexus.service.exception.VariantAnnotationWebServiceException;
+import org.cbioportal.genome_nexus.web.config.ApiMediaTypes;
+import org.cbioportal.genome_nexus.web.config.ConditionalGet;
 import org.cbioportal.genome_nexus.web.config.InternalApi;
 import org.cbioportal.genome_nexus.web.param.TranscriptSummaryProjection;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -31,7 +33,7 @@ public class AnnotationSummaryController
         nickname = "fetchVariantAnnotationSummaryPOST")
     @RequestMapping(value = "/annotation/summary",
         method = RequestMethod.POST,
-        produces = "application/json")
+        produces = {ApiMediaTypes.JSON, ApiMediaTypes.SMILE, ApiMediaTypes.CBOR})
     public List<VariantAnnotationSummary> fetchVariantAnnotationSummaryPOST(
         @ApiParam(value="List of variants. For example [\"X:g.66937331T>A\",\"17:g.41242962_41242963insGA\"] (GRCh37) " +
             "or [\"1:g.182712A>C\", \"2:g.265023C>T\", \"3:g.319781del\", \"19:g.110753dup\", " +
@@ -53,9 +55,10 @@ public class AnnotationSummaryController
 
     @ApiOperation(value = "Retrieves VEP annotation summary for the provided variant",
         nickname = "fetchVariantAnnotationSummaryGET")
+    @ConditionalGet
     @RequestMapping(value = "/annotation/summary/{variant:.+}",
         method = RequestMethod.GET,
-        produces = "application/json")
+        produces = {ApiMediaTypes.JSON, ApiMediaTypes.SMILE, ApiMediaTypes.CBOR})
     public VariantAnnotationSummary fetchVariantAnnotationSummaryGET(
         @ApiParam(value="Variant. For example 17:g.41242962_41242963insGA",
             required = true)
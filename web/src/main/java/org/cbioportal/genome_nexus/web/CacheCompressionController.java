@@ -0,0 +1,61 @@
+package org.cbioportal.genome_nexus.web;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+import org.cbioportal.genome_nexus.model.CacheCompressionStatus;
+import org.cbioportal.genome_nexus.service.CacheCompressionService;
+import org.cbioportal.genome_nexus.web.config.InternalApi;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+@InternalApi
+@RestController
+@RequestMapping(value= "/")
+@Api(tags = "cache-compression-controller", description = "Cache Compression Controller")
+public class CacheCompressionController
+{
+    private final CacheCompressionService cacheCompressionService;
+
+    @Autowired
+    public CacheCompressionController(CacheCompressionService cacheCompressionService)
+    {
+        this.cacheCompressionService = cacheCompressionService;
+    }
+
+    @ApiOperation(value = "Retrieves the progress of the cache compression migrations, " +
+        "with the measured compression ratio and read latency",
+        nickname = "fetchCacheCompressionStatusGET")
+    @RequestMapping(value = "/admin/cache/compression",
+        method = RequestMethod.GET,
+        produces = "application/json")
+    public List<CacheCompressionStatus> fetchCacheCompressionStatusGET()
+    {
+        return this.cacheCompressionService.getCompressionStatus();
+    }
+
+    @ApiOperation(value = "Starts compressing the existing documents of a cache collection in the background, " +
+        "the collection remains in use meanwhile",
+        nickname = "compressCachePOST")
+    @RequestMapping(value = "/admin/cache/compression",
+        method = RequestMethod.POST,
+        produces = "application/json")
+    public List<CacheCompressionStatus> compressCachePOST(
+        @ApiParam(value = "Cache collection to compress", defaultValue = "vep.annotation")
+        @RequestParam(defaultValue = "vep.annotation") String collection
+    )
+    {
+        try {
+            this.cacheCompressionService.compress(collection);
+        }
+        catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        return this.cacheCompressionService.getCompressionStatus();
+    }
+}
@@ -0,0 +1,55 @@
+package org.cbioportal.genome_nexus.web;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import org.cbioportal.genome_nexus.model.CacheCollectionStats;
+import org.cbioportal.genome_nexus.service.CacheEvictionService;
+import org.cbioportal.genome_nexus.web.config.InternalApi;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+@InternalApi
+@RestController
+@RequestMapping(value= "/")
+@Api(tags = "cache-eviction-controller", description = "Cache Eviction Controller")
+public class CacheEvictionController
+{
+    private final CacheEvictionService cacheEvictionService;
+
+    @Autowired
+    public CacheEvictionController(CacheEvictionService cacheEvictionService)
+    {
+        this.cacheEvictionService = cacheEvictionService;
+    }
+
+    @ApiOperation(value = "Retrieves the size, hits, age of the hits and evictions of the cache collections",
+        nickname = "fetchCacheStatsGET")
+    @RequestMapping(value = "/admin/cache/stats",
+        method = RequestMethod.GET,
+        produces = "application/json")
+    public List<CacheCollectionStats> fetchCacheStatsGET()
+    {
+        return this.cacheEvictionService.getCacheStats();
+    }
+
+    @ApiOperation(value = "Evicts the expired, outdated and least recently used cached documents now, " +
+        "according to the configured eviction policies",
+        nickname = "evictCachePOST")
+    @RequestMapping(value = "/admin/cache/eviction",
+        method = RequestMethod.POST,
+        produces = "application/json")
+    public List<CacheCollectionStats> evictCachePOST() throws InterruptedException
+    {
+        try {
+            return this.cacheEvictionService.evict().get();
+        }
+        catch (ExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, e.getCause().getMessage());
+        }
+    }
+}
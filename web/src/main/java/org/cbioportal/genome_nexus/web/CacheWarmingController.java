@@ -0,0 +1,61 @@
+package org.cbioportal.genome_nexus.web;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+import org.cbioportal.genome_nexus.model.CacheWarmingStatus;
+import org.cbioportal.genome_nexus.service.CacheWarmingService;
+import org.cbioportal.genome_nexus.web.config.InternalApi;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+@InternalApi
+@RestController
+@RequestMapping(value= "/")
+@Api(tags = "cache-warming-controller", description = "Cache Warming Controller")
+public class CacheWarmingController
+{
+    private final CacheWarmingService cacheWarmingService;
+
+    @Autowired
+    public CacheWarmingController(CacheWarmingService cacheWarmingService)
+    {
+        this.cacheWarmingService = cacheWarmingService;
+    }
+
+    @ApiOperation(value = "Retrieves the progress of the running cache warming, or the result of the previous one",
+        nickname = "fetchCacheWarmingStatusGET")
+    @RequestMapping(value = "/admin/cache/warming",
+        method = RequestMethod.GET,
+        produces = "application/json")
+    public CacheWarmingStatus fetchCacheWarmingStatusGET()
+    {
+        return this.cacheWarmingService.getWarmingStatus();
+    }
+
+    @ApiOperation(value = "Starts annotating the variants of the sources in the background, " +
+        "at a limited rate and after the live requests",
+        nickname = "warmCachePOST")
+    @RequestMapping(value = "/admin/cache/warming",
+        method = RequestMethod.POST,
+        produces = "application/json")
+    public CacheWarmingStatus warmCachePOST(
+        @ApiParam(value = "Sources of the variants in order of priority: requests, files, hotspots, signal",
+            defaultValue = "requests,files,hotspots,signal")
+        @RequestParam(defaultValue = "requests,files,hotspots,signal") List<String> sources
+    )
+    {
+        try {
+            this.cacheWarmingService.warm(sources);
+        }
+        catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+
+        return this.cacheWarmingService.getWarmingStatus();
+    }
+}
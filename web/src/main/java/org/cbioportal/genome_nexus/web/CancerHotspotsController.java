@@ -11,6 +11,7 @@ import org.cbioportal.genome_nexus.service.CancerHotspotService;
 import org.cbioportal.genome_nexus.service.exception.CancerHotspotsWebServiceException;
 import org.cbioportal.genome_nexus.service.exception.VariantAnnotationNotFoundException;
 import org.cbioportal.genome_nexus.service.exception.VariantAnnotationWebServiceException;
+import org.cbioportal.genome_nexus.web.config.ApiMediaTypes;
 import org.cbioportal.genome_nexus.web.config.InternalApi;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.*;
@@ -36,7 +37,7 @@ public class CancerHotspotsController
         nickname = "fetchHotspotAnnotationByHgvsGET")
     @RequestMapping(value = "/cancer_hotspots/hgvs/{variant:.+}",
         method = RequestMethod.GET,
-        produces = "application/json")
+        produces = {ApiMediaTypes.JSON, ApiMediaTypes.SMILE, ApiMediaTypes.CBOR})
     public List<Hotspot> fetchHotspotAnnotationByHgvsGET(
         @ApiParam(value="A variant. For example 7:g.140453136A>T",
             required = true,
@@ -52,7 +53,7 @@ public class CancerHotspotsController
         nickname = "fetchHotspotAnnotationByHgvsPOST")
     @RequestMapping(value = "/cancer_hotspots/hgvs",
         method = RequestMethod.POST,
-        produces = "application/json")
+        produces = {ApiMediaTypes.JSON, ApiMediaTypes.SMILE, ApiMediaTypes.CBOR})
     public List<AggregatedHotspots> fetchHotspotAnnotationByHgvsPOST(
         @ApiParam(value="List of variants. For example [\"7:g.140453136A>T\",\"12:g.25398285C>A\"]",
             required = true,
@@ -66,7 +67,7 @@ public class CancerHotspotsController
         nickname = "fetchHotspotAnnotationByGenomicLocationGET")
     @RequestMapping(value = "/cancer_hotspots/genomic/{genomicLocation:.+}",
         method = RequestMethod.GET,
-        produces = "application/json")
+        produces = {ApiMediaTypes.JSON, ApiMediaTypes.SMILE, ApiMediaTypes.CBOR})
     public List<Hotspot> fetchHotspotAnnotationByGenomicLocationGET(
         @ApiParam(value="A genomic location. For example 7,140453136,140453136,A,T",
             required = true,
@@ -82,7 +83,7 @@ public class CancerHotspotsController
         nickname = "fetchHotspotAnnotationByGenomicLocationPOST")
     @RequestMapping(value = "/cancer_hotspots/genomic",
         method = RequestMethod.POST,
-        produces = "application/json")
+        produces = {ApiMediaTypes.JSON, ApiMediaTypes.SMILE, ApiMediaTypes.CBOR})
     public List<AggregatedHotspots> fetchHotspotAnnotationByGenomicLocationPOST(
         @ApiParam(value="List of genomic locations.",
             required = true,
@@ -96,7 +97,7 @@ public class CancerHotspotsController
         nickname = "fetchHotspotAnnotationByTranscriptIdGET")
     @RequestMapping(value = "/cancer_hotspots/transcript/{transcriptId}",
         method = RequestMethod.GET,
-        produces = "application/json")
+        produces = {ApiMediaTypes.JSON, ApiMediaTypes.SMILE, ApiMediaTypes.CBOR})
     public List<Hotspot> fetchHotspotAnnotationByTranscriptIdGET(
         @ApiParam(value="A Transcript Id. For example ENST00000288602",
             required = true,
@@ -112,7 +113,7 @@ public class CancerHotspotsController
         nickname = "fetchHotspotAnnotationByTranscriptIdPOST")
     @RequestMapping(value = "/cancer_hotspots/transcript",
         method = RequestMethod.POST,
-        produces = "application/json")
+        produces = {ApiMediaTypes.JSON, ApiMediaTypes.SMILE, ApiMediaTypes.CBOR})
     public List<AggregatedHotspots> fetchHotspotAnnotationByTranscriptIdPOST(
         @ApiParam(value="List of transcript Id. For example [\"ENST00000288602\",\"ENST00000256078\"]",
             required = true,
@@ -127,7 +128,7 @@ public class CancerHotspotsController
         nickname = "fetchHotspotAnnotationByProteinLocationsPOST")
     @RequestMapping(value = "/cancer_hotspots/proteinLocations",
         method = RequestMethod.POST,
-        produces = "application/json")
+        produces = {ApiMediaTypes.JSON, ApiMediaTypes.SMILE, ApiMediaTypes.CBOR})
     public List<AggregatedHotspots> fetchHotspotAnnotationByProteinLocationsPOST(
         @ApiParam(value="List of transcript id, protein start location, protein end location, mutation type. The mutation types are limited to 'Missense_Mutation', 'In_Frame_Ins', 'In_Frame_Del', 'Splice_Site', and 'Splice_Region'",
             required = true,
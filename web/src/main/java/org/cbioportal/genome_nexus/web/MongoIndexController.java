@@ -0,0 +1,56 @@
+package org.cbioportal.genome_nexus.web;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import org.cbioportal.genome_nexus.model.MongoIndexStatus;
+import org.cbioportal.genome_nexus.service.MongoIndexService;
+import org.cbioportal.genome_nexus.web.config.InternalApi;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+@InternalApi
+@RestController
+@RequestMapping(value= "/")
+@Api(tags = "mongo-index-controller", description = "Mongo Index Controller")
+public class MongoIndexController
+{
+    private final MongoIndexService mongoIndexService;
+
+    @Autowired
+    public MongoIndexController(MongoIndexService mongoIndexService)
+    {
+        this.mongoIndexService = mongoIndexService;
+    }
+
+    @ApiOperation(value = "Retrieves the status of the indexes required by the queries, " +
+        "and the collection scans and slow plans detected by explaining sampled queries",
+        nickname = "fetchIndexStatusGET")
+    @RequestMapping(value = "/admin/indexes",
+        method = RequestMethod.GET,
+        produces = "application/json")
+    public List<MongoIndexStatus> fetchIndexStatusGET()
+    {
+        return this.mongoIndexService.getIndexStatus();
+    }
+
+    @ApiOperation(value = "Verifies the required indexes again, for example after an import, " +
+        "and creates the missing ones if enabled",
+        nickname = "verifyIndexesPOST")
+    @RequestMapping(value = "/admin/indexes",
+        method = RequestMethod.POST,
+        produces = "application/json")
+    public List<MongoIndexStatus> verifyIndexesPOST() throws InterruptedException
+    {
+        try {
+            return this.mongoIndexService.verify().get();
+        }
+        catch (ExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, e.getCause().getMessage());
+        }
+    }
+}
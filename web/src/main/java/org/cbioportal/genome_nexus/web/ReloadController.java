@@ -0,0 +1,62 @@
+package org.cbioportal.genome_nexus.web;
+
+import io.swagger.annotations.Api;
+import io.swagger.annotations.ApiOperation;
+import io.swagger.annotations.ApiParam;
+import org.cbioportal.genome_nexus.model.DatasetReloadStatus;
+import org.cbioportal.genome_nexus.service.ReferenceDataReloadService;
+import org.cbioportal.genome_nexus.web.config.InternalApi;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+@InternalApi
+@RestController
+@RequestMapping(value= "/")
+@Api(tags = "reload-controller", description = "Reference Data Reload Controller")
+public class ReloadController
+{
+    private final ReferenceDataReloadService referenceDataReloadService;
+
+    @Autowired
+    public ReloadController(ReferenceDataReloadService referenceDataReloadService)
+    {
+        this.referenceDataReloadService = referenceDataReloadService;
+    }
+
+    @ApiOperation(value = "Retrieves the status of the last reload of each reference dataset",
+        nickname = "fetchReloadStatusGET")
+    @RequestMapping(value = "/admin/reload",
+        method = RequestMethod.GET,
+        produces = "application/json")
+    public List<DatasetReloadStatus> fetchReloadStatusGET()
+    {
+        return this.referenceDataReloadService.getReloadStatus();
+    }
+
+    @ApiOperation(value = "Reloads the in memory reference datasets without restarting the server",
+        nickname = "reloadPOST")
+    @RequestMapping(value = "/admin/reload",
+        method = RequestMethod.POST,
+        produces = "application/json")
+    public List<DatasetReloadStatus> reloadPOST(
+        @ApiParam(value = "Datasets to reload, all datasets are reloaded if not specified. " +
+            "For example signal, ensembl, revue, oncokb_cancer_genes")
+        @RequestParam(required = false) List<String> datasets
+    ) throws InterruptedException
+    {
+        try {
+            return this.referenceDataReloadService.reload(datasets).get();
+        }
+        catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        catch (ExecutionException e) {
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, e.getCause().getMessage());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package org.cbioportal.genome_nexus.web.cli;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.cbioportal.genome_nexus.model.CacheTransferReport;
+import org.cbioportal.genome_nexus.service.CacheTransferService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Exports the cache collections to an archive, or imports them from one, from the command line and exits,
+ * for example:
+ *
+ * java -jar genome-nexus.jar --spring.main.web-application-type=none \
+ *     --annotation.cache.transfer.mode=export --annotation.cache.transfer.file=cache.gncache
+ *
+ * java -jar genome-nexus.jar --spring.main.web-application-type=none \
+ *     --annotation.cache.transfer.mode=import --annotation.cache.transfer.file=cache.gncache \
+ *     --spring.data.mongodb.uri=mongodb://new-host:27017/annotator
+ */
+@Component
+@ConditionalOnProperty(name = "annotation.cache.transfer.mode")
+public class CacheTransferRunner implements CommandLineRunner
+{
+    private static final Log LOG = LogFactory.getLog(CacheTransferRunner.class);
+
+    private final CacheTransferService cacheTransferService;
+    private final ApplicationContext applicationContext;
+    private final String mode;
+    private final String file;
+    private final String collections;
+    private final String sourceVersion;
+    private final String genes;
+    private final boolean resume;
+
+    @Autowired
+    public CacheTransferRunner(
+        CacheTransferService cacheTransferService,
+        ApplicationContext applicationContext,
+        @Value("${annotation.cache.transfer.mode}") String mode,
+        @Value("${annotation.cache.transfer.file}") String file,
+        @Value("${annotation.cache.transfer.collections:vep.annotation,index,my_variant_info.annotation}") String collections,
+        @Value("${annotation.cache.transfer.source_version:}") String sourceVersion,
+        @Value("${annotation.cache.transfer.genes:}") String genes,
+        @Value("${annotation.cache.transfer.resume:false}") boolean resume
+    ) {
+        this.cacheTransferService = cacheTransferService;
+        this.applicationContext = applicationContext;
+        this.mode = mode;
+        this.file = file;
+        this.collections = collections;
+        this.sourceVersion = sourceVersion.isEmpty() ? null : sourceVersion;
+        this.genes = genes;
+        this.resume = resume;
+    }
+
+    @Override
+    public void run(String... args)
+    {
+        int exitCode = 0;
+        Path path = Paths.get(this.file);
+
+        try {
+            CacheTransferReport report;
+
+            if ("export".equals(this.mode)) {
+                report = this.cacheTransferService.exportCache(
+                    path, this.parseCollections(), this.sourceVersion, this.parseGenes(), this.resume);
+            }
+            else if ("import".equals(this.mode)) {
+                report = this.cacheTransferService.importCache(
+                    path, this.parseCollections(), this.sourceVersion, this.parseGenes(), this.resume);
+            }
+            else {
+                throw new IllegalArgumentException("Unknown cache transfer mode " + this.mode +
+                    ", expected export or import");
+            }
+
+            LOG.info("Cache " + this.mode + " of " + this.file + (report.getResumed() ? " (resumed)" : "") +
+                " done in " + report.getMillis() + " ms: " + report.getDocuments() + " documents in " +
+                report.getBlocks() + " blocks (" + report.getCompressedBytes() + " bytes), " +
+                report.getDocumentsFiltered() + " documents filtered out");
+        }
+        catch (Exception e) {
+            LOG.error("Failed to " + this.mode + " the cache " + this.file +
+                (this.resume ? "" : ", rerun with --annotation.cache.transfer.resume=true to continue"), e);
+            exitCode = 1;
+        }
+
+        int status = exitCode;
+        System.exit(SpringApplication.exit(this.applicationContext, () -> status));
+    }
+
+    private List<String> parseCollections()
+    {
+        return Stream.of(this.collections.split(","))
+            .map(String::trim)
+            .filter(collection -> !collection.isEmpty())
+            .collect(Collectors.toList());
+    }
+
+    private Set<String> parseGenes()
+    {
+        if (this.genes.isEmpty()) {
+            return null;
+        }
+
+        return Stream.of(this.genes.split(","))
+            .map(String::trim)
+            .filter(gene -> !gene.isEmpty())
+            .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
+}
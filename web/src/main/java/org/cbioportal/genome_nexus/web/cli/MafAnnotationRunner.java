@@ -0,0 +1,100 @@
+package org.cbioportal.genome_nexus.web.cli;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.cbioportal.genome_nexus.model.AnnotationField;
+import org.cbioportal.genome_nexus.service.MafAnnotationService;
+import org.cbioportal.genome_nexus.util.TokenMapConverter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Annotates a MAF file from the command line and exits, for example:
+ *
+ * java -jar genome-nexus.jar --spring.main.web-application-type=none \
+ *     --annotation.maf.input=input.maf --annotation.maf.output=annotated.maf
+ */
+@Component
+@ConditionalOnProperty(name = "annotation.maf.input")
+public class MafAnnotationRunner implements CommandLineRunner
+{
+    private static final Log LOG = LogFactory.getLog(MafAnnotationRunner.class);
+
+    private final MafAnnotationService mafAnnotationService;
+    private final ApplicationContext applicationContext;
+    private final String input;
+    private final String output;
+    private final String isoformOverrideSource;
+    private final String token;
+    private final String fields;
+
+    @Autowired
+    public MafAnnotationRunner(
+        MafAnnotationService mafAnnotationService,
+        ApplicationContext applicationContext,
+        @Value("${annotation.maf.input}") String input,
+        @Value("${annotation.maf.output:}") String output,
+        @Value("${annotation.maf.isoform_override_source:}") String isoformOverrideSource,
+        @Value("${annotation.maf.token:}") String token,
+        @Value("${annotation.maf.fields:}") String fields
+    ) {
+        this.mafAnnotationService = mafAnnotationService;
+        this.applicationContext = applicationContext;
+        this.input = input;
+        this.output = output.isEmpty() ? input + ".annotated" : output;
+        this.isoformOverrideSource = isoformOverrideSource.isEmpty() ? null : isoformOverrideSource;
+        this.token = token.isEmpty() ? null : token;
+        this.fields = fields;
+    }
+
+    @Override
+    public void run(String... args)
+    {
+        int exitCode = 0;
+        long start = System.currentTimeMillis();
+
+        try (BufferedReader maf = Files.newBufferedReader(Paths.get(this.input), StandardCharsets.UTF_8);
+             BufferedWriter annotatedMaf = Files.newBufferedWriter(Paths.get(this.output), StandardCharsets.UTF_8))
+        {
+            long rows = this.mafAnnotationService.annotate(maf, annotatedMaf,
+                this.isoformOverrideSource, new TokenMapConverter().convertToMap(this.token), this.parseFields());
+            long millis = Math.max(System.currentTimeMillis() - start, 1);
+
+            LOG.info("Annotated " + rows + " rows of " + this.input + " in " + millis + " ms (" +
+                Math.round(rows * 1000.0 / millis) + " rows per second), written to " + this.output);
+        }
+        catch (Exception e) {
+            LOG.error("Failed to annotate " + this.input, e);
+            exitCode = 1;
+        }
+
+        int status = exitCode;
+        System.exit(SpringApplication.exit(this.applicationContext, () -> status));
+    }
+
+    private List<AnnotationField> parseFields()
+    {
+        if (this.fields.isEmpty()) {
+            return null;
+        }
+
+        return Stream.of(this.fields.split(","))
+            .map(String::trim)
+            .map(field -> AnnotationField.valueOf(field.toUpperCase()))
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,14 @@
+package org.cbioportal.genome_nexus.web.config;
+
+/**
+ * Media types of the API responses. The binary encodings use the same field names as JSON,
+ * endpoints listing them return the requested encoding based on the Accept header.
+ */
+public final class ApiMediaTypes
+{
+    public static final String JSON = "application/json";
+    public static final String SMILE = "application/x-jackson-smile";
+    public static final String CBOR = "application/cbor";
+
+    private ApiMediaTypes() {}
+}
@@ -1,6 +1,12 @@
 package org.cbioportal.genome_nexus.web.config;
 
+import com.fasterxml.jackson.core.JsonFactory;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.Annotated;
+import com.fasterxml.jackson.databind.introspect.AnnotatedClass;
+import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
 import org.cbioportal.genome_nexus.web.mixin.*;
 import org.cbioportal.genome_nexus.web.mixin.my_variant_info_mixin.*;
 import org.cbioportal.genome_nexus.model.*;
@@ -16,8 +22,22 @@ import java.util.Map;
 
 public class ApiObjectMapper extends ObjectMapper
 {
+    // id of the property filter of the model classes, replaced per request to serialize only the requested fields
+    public static final String PROJECTION_FILTER = "projection";
+
     public ApiObjectMapper()
     {
+        this(null);
+    }
+
+    /**
+     * @param jsonFactory factory of the encoding, for example a SmileFactory or a CBORFactory,
+     *                    the default JSON factory is used when null
+     */
+    public ApiObjectMapper(JsonFactory jsonFactory)
+    {
+        super(jsonFactory);
+
         Map<Class<?>, Class<?>> mixinMap = new HashMap<>();
 
         mixinMap.put(GeneXref.class, GeneXrefMixin.class);
@@ -66,5 +86,25 @@ public class ApiObjectMapper extends ObjectMapper
         mixinMap.put(SignalPopulationStats.class, SignalPopulationStatsMixin.class);
         mixinMap.put(HrdScore.class, HrdScoreMixin.class);
         super.setMixIns(mixinMap);
+
+        // all fields are serialized unless a response provides its own projection filter
+        super.setAnnotationIntrospector(new ModelFilterIntrospector());
+        super.setFilterProvider(new SimpleFilterProvider()
+            .addFilter(PROJECTION_FILTER, SimpleBeanPropertyFilter.serializeAll()));
+    }
+
+    private static class ModelFilterIntrospector extends JacksonAnnotationIntrospector
+    {
+        @Override
+        public Object findFilterId(Annotated annotated)
+        {
+            if (annotated instanceof AnnotatedClass &&
+                annotated.getRawType().getName().startsWith(VariantAnnotation.class.getPackage().getName()))
+            {
+                return PROJECTION_FILTER;
+            }
+
+            return super.findFilterId(annotated);
+        }
     }
 }
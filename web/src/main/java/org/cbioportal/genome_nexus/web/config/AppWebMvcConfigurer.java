@@ -1,13 +1,25 @@
 package org.cbioportal.genome_nexus.web.config;
 import org.cbioportal.genome_nexus.web.converters.AnnotationFieldEnumConverter;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.autoconfigure.web.format.WebConversionService;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.format.FormatterRegistry;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 
 @Configuration
 public class AppWebMvcConfigurer implements WebMvcConfigurer {
+    private final ConditionalGetInterceptor conditionalGetInterceptor;
+    private final RequestDeadlineInterceptor requestDeadlineInterceptor;
+
+    @Autowired
+    public AppWebMvcConfigurer(ConditionalGetInterceptor conditionalGetInterceptor,
+                               RequestDeadlineInterceptor requestDeadlineInterceptor) {
+        this.conditionalGetInterceptor = conditionalGetInterceptor;
+        this.requestDeadlineInterceptor = requestDeadlineInterceptor;
+    }
+
     /**
      * Add custom converters to the default WebConversionService.
      */
@@ -16,4 +28,14 @@ public class AppWebMvcConfigurer implements WebMvcConfigurer {
         registry.addConverter(new AnnotationFieldEnumConverter());
         WebConversionService.addDefaultFormatters(registry);
     }
+
+    /**
+     * Answer conditional requests before the annotation is computed,
+     * and start the deadline of the other requests.
+     */
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(this.conditionalGetInterceptor);
+        registry.addInterceptor(this.requestDeadlineInterceptor);
+    }
 }
@@ -0,0 +1,15 @@
+package org.cbioportal.genome_nexus.web.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks GET endpoints whose response only depends on the request and on the annotation source versions,
+ * these responses get an ETag and Cache-Control headers, and conditional requests are answered with 304.
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface ConditionalGet {
+}
@@ -0,0 +1,163 @@
+package org.cbioportal.genome_nexus.web.config;
+
+import org.cbioportal.genome_nexus.service.SourceVersionService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Answers conditional GET requests of the {@link ConditionalGet} endpoints before the annotation is computed.
+ *
+ * The strong ETag is a digest of the source version fingerprint, the path, the query parameters and the
+ * accepted media types. The headers of full responses are added by {@link ConditionalGetResponseBodyAdvice},
+ * so that error responses are neither tagged nor cached.
+ *
+ * Requests of the annotation fields fetched live from remote services (OncoKB, MyVariantInfo) are not
+ * covered by the fingerprint, so they get neither an ETag nor caching headers.
+ */
+@Component
+public class ConditionalGetInterceptor implements HandlerInterceptor
+{
+    public static final String ETAG_ATTRIBUTE = ConditionalGetInterceptor.class.getName() + ".etag";
+
+    // annotation fields whose data can change without a change of the source versions
+    public static final List<String> LIVE_FIELDS = Arrays.asList("oncokb", "my_variant_info");
+
+    private final SourceVersionService sourceVersionService;
+    private final long maxAgeSeconds;
+
+    @Autowired
+    public ConditionalGetInterceptor(
+        SourceVersionService sourceVersionService,
+        @Value("${annotation.etag.max_age_seconds:3600}") long maxAgeSeconds
+    ) {
+        this.sourceVersionService = sourceVersionService;
+        this.maxAgeSeconds = maxAgeSeconds;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+    {
+        if (!(handler instanceof HandlerMethod) ||
+            !((HandlerMethod) handler).hasMethodAnnotation(ConditionalGet.class) ||
+            !(HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod())) ||
+            requestsLiveFields(request))
+        {
+            return true;
+        }
+
+        String etag = this.etag(request);
+
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            // a 304 response carries the same caching headers as the full response
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            response.setHeader(HttpHeaders.ETAG, etag);
+            this.cacheHeaders(request).forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+
+            return false;
+        }
+
+        request.setAttribute(ETAG_ATTRIBUTE, etag);
+
+        return true;
+    }
+
+    /**
+     * @return the Cache-Control and Vary headers of the response, responses to requests with a token are
+     *         only cached by the client
+     */
+    public HttpHeaders cacheHeaders(HttpServletRequest request)
+    {
+        CacheControl cacheControl = CacheControl.maxAge(this.maxAgeSeconds, TimeUnit.SECONDS);
+        HttpHeaders headers = new HttpHeaders();
+
+        headers.setCacheControl(request.getParameter("token") != null ?
+            cacheControl.cachePrivate() : cacheControl.cachePublic());
+        headers.setVary(Collections.singletonList(HttpHeaders.ACCEPT));
+
+        return headers;
+    }
+
+    private static boolean requestsLiveFields(HttpServletRequest request)
+    {
+        String[] fields = request.getParameterValues("fields");
+
+        if (fields != null) {
+            for (String value: fields) {
+                for (String field: value.split(",")) {
+                    if (LIVE_FIELDS.contains(field.trim())) {
+                        return true;
+                    }
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return true if the If-None-Match header of the request is the wildcard, which only matches an
+     *         existing annotation, see {@link ConditionalGetResponseBodyAdvice}
+     */
+    public static boolean matchesAny(HttpServletRequest request)
+    {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+
+        return ifNoneMatch != null && ifNoneMatch.trim().equals("*");
+    }
+
+    private String etag(HttpServletRequest request)
+    {
+        StringBuilder query = new StringBuilder(this.sourceVersionService.getFingerprint())
+            .append('\n')
+            .append(request.getRequestURI());
+
+        // parameters are sorted, the order in the query string does not change the response
+        for (Map.Entry<String, String[]> parameter: new TreeMap<>(request.getParameterMap()).entrySet()) {
+            // the request deadline does not change a complete response
+            if (parameter.getKey().equals(RequestDeadlineInterceptor.TIMEOUT_PARAM)) {
+                continue;
+            }
+
+            query.append('\n').append(parameter.getKey()).append('=').append(String.join(",", parameter.getValue()));
+        }
+
+        query.append('\n').append(request.getHeader(HttpHeaders.ACCEPT));
+
+        return "\"" + DigestUtils.md5DigestAsHex(query.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    // weak comparison, as required for If-None-Match. the wildcard is only answered once the annotation is computed
+    private static boolean matches(String ifNoneMatch, String etag)
+    {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+
+        for (String candidate: ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+
+            if (candidate.equals(etag) || candidate.equals("W/" + etag)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+}
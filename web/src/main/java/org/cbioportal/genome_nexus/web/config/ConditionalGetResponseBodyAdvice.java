@@ -0,0 +1,78 @@
+package org.cbioportal.genome_nexus.web.config;
+
+import org.cbioportal.genome_nexus.model.VariantAnnotation;
+import org.cbioportal.genome_nexus.util.RequestDeadline;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import javax.servlet.http.HttpServletRequest;
+
+/**
+ * Adds the ETag computed by {@link ConditionalGetInterceptor} and the caching headers to successful responses.
+ * Responses left incomplete by the request deadline are not cached. A conditional request with the
+ * If-None-Match wildcard is answered with 304 only when the variant was annotated.
+ */
+@ControllerAdvice("org.cbioportal.genome_nexus.web")
+public class ConditionalGetResponseBodyAdvice implements ResponseBodyAdvice<Object>
+{
+    private final ConditionalGetInterceptor conditionalGetInterceptor;
+
+    @Autowired
+    public ConditionalGetResponseBodyAdvice(ConditionalGetInterceptor conditionalGetInterceptor)
+    {
+        this.conditionalGetInterceptor = conditionalGetInterceptor;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType)
+    {
+        return returnType.hasMethodAnnotation(ConditionalGet.class);
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body,
+                                  MethodParameter returnType,
+                                  MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request,
+                                  ServerHttpResponse response)
+    {
+        if (body != null && request instanceof ServletServerHttpRequest)
+        {
+            HttpServletRequest servletRequest = ((ServletServerHttpRequest) request).getServletRequest();
+            Object etag = servletRequest.getAttribute(ConditionalGetInterceptor.ETAG_ATTRIBUTE);
+
+            if (RequestDeadline.getSkippedCount() > 0) {
+                // incomplete because of the request deadline, the next request may get the complete annotation
+                response.getHeaders().setCacheControl(CacheControl.noStore());
+            }
+            else if (etag != null) {
+                response.getHeaders().setETag(etag.toString());
+                response.getHeaders().putAll(this.conditionalGetInterceptor.cacheHeaders(servletRequest));
+
+                if (ConditionalGetInterceptor.matchesAny(servletRequest) && exists(body)) {
+                    response.setStatusCode(HttpStatus.NOT_MODIFIED);
+                    return null;
+                }
+            }
+        }
+
+        return body;
+    }
+
+    private static boolean exists(Object body)
+    {
+        // an annotation which failed, for example because the variant is invalid, is still returned
+        return !(body instanceof VariantAnnotation) ||
+            Boolean.TRUE.equals(((VariantAnnotation) body).isSuccessfullyAnnotated());
+    }
+}
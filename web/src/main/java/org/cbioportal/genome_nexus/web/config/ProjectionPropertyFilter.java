@@ -0,0 +1,53 @@
+package org.cbioportal.genome_nexus.web.config;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import org.cbioportal.genome_nexus.model.AnnotationProjection;
+
+import java.util.LinkedList;
+
+/**
+ * Serializes only the fields included in the projection. The path of a field is made of the names of
+ * the enclosing objects in the output, list elements are written under the name of their list.
+ */
+public class ProjectionPropertyFilter extends SimpleBeanPropertyFilter
+{
+    private final AnnotationProjection projection;
+
+    public ProjectionPropertyFilter(AnnotationProjection projection)
+    {
+        this.projection = projection;
+    }
+
+    @Override
+    public void serializeAsField(Object pojo,
+                                 JsonGenerator gen,
+                                 SerializerProvider provider,
+                                 PropertyWriter writer) throws Exception
+    {
+        if (this.projection.includes(path(gen.getOutputContext(), writer.getName()))) {
+            writer.serializeAsField(pojo, gen, provider);
+        }
+        else if (!gen.canOmitFields()) {
+            writer.serializeAsOmittedField(pojo, gen, provider);
+        }
+    }
+
+    private static LinkedList<String> path(JsonStreamContext context, String name)
+    {
+        LinkedList<String> path = new LinkedList<>();
+        path.add(name);
+
+        // the current context is the object being written, its parents hold the names of the enclosing fields
+        for (JsonStreamContext parent = context.getParent(); parent != null; parent = parent.getParent()) {
+            if (parent.inObject() && parent.getCurrentName() != null) {
+                path.addFirst(parent.getCurrentName());
+            }
+        }
+
+        return path;
+    }
+}
@@ -0,0 +1,56 @@
+package org.cbioportal.genome_nexus.web.config;
+
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.cbioportal.genome_nexus.model.AnnotationProjection;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJacksonValue;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.AbstractMappingJacksonResponseBodyAdvice;
+
+import java.util.Arrays;
+
+/**
+ * Applies the projection requested with the "include" parameter to the serialization of the response,
+ * for the endpoints which declare that parameter.
+ */
+@ControllerAdvice("org.cbioportal.genome_nexus.web")
+public class ProjectionResponseBodyAdvice extends AbstractMappingJacksonResponseBodyAdvice
+{
+    public static final String INCLUDE = "include";
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType)
+    {
+        return super.supports(returnType, converterType) &&
+            returnType.getMethod() != null &&
+            Arrays.stream(returnType.getMethod().getParameters())
+                .map(parameter -> parameter.getAnnotation(RequestParam.class))
+                .anyMatch(requestParam -> requestParam != null && INCLUDE.equals(requestParam.value()));
+    }
+
+    @Override
+    protected void beforeBodyWriteInternal(MappingJacksonValue bodyContainer,
+                                           MediaType contentType,
+                                           MethodParameter returnType,
+                                           ServerHttpRequest request,
+                                           ServerHttpResponse response)
+    {
+        if (!(request instanceof ServletServerHttpRequest)) {
+            return;
+        }
+
+        AnnotationProjection projection = AnnotationProjection.parse(
+            ((ServletServerHttpRequest) request).getServletRequest().getParameter(INCLUDE));
+
+        if (projection != null) {
+            bodyContainer.setFilters(new SimpleFilterProvider()
+                .addFilter(ApiObjectMapper.PROJECTION_FILTER, new ProjectionPropertyFilter(projection)));
+        }
+    }
+}
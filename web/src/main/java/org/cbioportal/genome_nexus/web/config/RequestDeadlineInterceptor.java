@@ -0,0 +1,98 @@
+package org.cbioportal.genome_nexus.web.config;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.cbioportal.genome_nexus.util.RequestDeadline;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Starts the {@link RequestDeadline} of the request thread, so that the work which cannot be completed before
+ * the client gives up is skipped. The timeout is given in seconds by the X-Request-Timeout header or the timeout
+ * parameter, and limited to the configured maximum. Requests without a timeout get the default one, if any.
+ */
+@Component
+public class RequestDeadlineInterceptor implements AsyncHandlerInterceptor
+{
+    private static final Log LOG = LogFactory.getLog(RequestDeadlineInterceptor.class);
+
+    public static final String TIMEOUT_HEADER = "X-Request-Timeout";
+    public static final String TIMEOUT_PARAM = "timeout";
+
+    private final double defaultSeconds;
+    private final double maxSeconds;
+
+    @Autowired
+    public RequestDeadlineInterceptor(
+        @Value("${annotation.deadline.default_seconds:0}") double defaultSeconds,
+        @Value("${annotation.deadline.max_seconds:0}") double maxSeconds
+    ) {
+        this.defaultSeconds = defaultSeconds;
+        this.maxSeconds = maxSeconds;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+    {
+        if (!(handler instanceof HandlerMethod)) {
+            return true;
+        }
+
+        Double seconds = parseSeconds(request.getHeader(TIMEOUT_HEADER));
+
+        if (seconds == null) {
+            seconds = parseSeconds(request.getParameter(TIMEOUT_PARAM));
+        }
+
+        if (seconds == null && this.defaultSeconds > 0) {
+            seconds = this.defaultSeconds;
+        }
+
+        if (seconds != null) {
+            if (this.maxSeconds > 0) {
+                seconds = Math.min(seconds, this.maxSeconds);
+            }
+
+            RequestDeadline.start(Math.round(seconds * 1000));
+        }
+
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex)
+    {
+        RequestDeadline.clear();
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler)
+    {
+        // the request thread is released before the response is complete
+        RequestDeadline.clear();
+    }
+
+    private static Double parseSeconds(String value)
+    {
+        if (value == null || value.trim().isEmpty()) {
+            return null;
+        }
+
+        try {
+            double seconds = Double.parseDouble(value.trim());
+
+            // NaN and non positive values are not deadlines
+            return seconds > 0 ? seconds : null;
+        }
+        catch (NumberFormatException e) {
+            LOG.debug("Ignoring invalid request timeout: " + value);
+            return null;
+        }
+    }
+}
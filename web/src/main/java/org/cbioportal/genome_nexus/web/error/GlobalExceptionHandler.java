@@ -1,6 +1,7 @@
 package org.cbioportal.genome_nexus.web.error;
 
 import org.cbioportal.genome_nexus.service.exception.*;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -68,4 +69,26 @@ public class GlobalExceptionHandler
     {
         return new ResponseEntity<>(new ErrorResponse(ex.getLocalizedMessage()), HttpStatus.NOT_FOUND);
     }
+
+    @ExceptionHandler(AnnotationJobNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleAnnotationJobNotFound(AnnotationJobNotFoundException ex)
+    {
+        return new ResponseEntity<>(new ErrorResponse(ex.getLocalizedMessage()), HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(AnnotationJobFailedException.class)
+    public ResponseEntity<ErrorResponse> handleAnnotationJobFailed(AnnotationJobFailedException ex)
+    {
+        // the results of the chunks which were not annotated will never be available
+        return new ResponseEntity<>(new ErrorResponse(ex.getLocalizedMessage()), HttpStatus.GONE);
+    }
+
+    @ExceptionHandler(AnnotationAdmissionRejectedException.class)
+    public ResponseEntity<ErrorResponse> handleAnnotationAdmissionRejected(AnnotationAdmissionRejectedException ex)
+    {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()));
+
+        return new ResponseEntity<>(new ErrorResponse(ex.getLocalizedMessage()), headers, HttpStatus.SERVICE_UNAVAILABLE);
+    }
 }
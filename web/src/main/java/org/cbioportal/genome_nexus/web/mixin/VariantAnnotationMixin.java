@@ -103,6 +103,10 @@ public class VariantAnnotationMixin {
     @ApiModelProperty(value = "MyVariantInfoClinVar", required = false)
     private ClinvarAnnotation clinvarAnnotation;
 
+    @JsonProperty(value="skipped_enrichments", required = false)
+    @ApiModelProperty(value = "Enrichments which were skipped because the request deadline was exceeded", required = false)
+    private List<String> skippedEnrichments;
+
     @JsonIgnore
     private Map<String, Object> dynamicProps;
 
@@ -0,0 +1,95 @@
+package org.cbioportal.genome_nexus.web.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.cbioportal.genome_nexus.model.IntegerRange;
+import org.cbioportal.genome_nexus.model.TranscriptConsequence;
+import org.cbioportal.genome_nexus.model.TranscriptConsequenceSummary;
+import org.cbioportal.genome_nexus.model.VariantAnnotation;
+import org.cbioportal.genome_nexus.model.VariantAnnotationSummary;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ApiObjectMapperTest
+{
+    private final ObjectMapper jsonMapper = new ApiObjectMapper();
+
+    @Test
+    public void smileUsesSameFieldNames() throws Exception
+    {
+        assertSameAsJson(new ApiObjectMapper(new SmileFactory()));
+    }
+
+    @Test
+    public void cborUsesSameFieldNames() throws Exception
+    {
+        assertSameAsJson(new ApiObjectMapper(new CBORFactory()));
+    }
+
+    private void assertSameAsJson(ObjectMapper binaryMapper) throws Exception
+    {
+        List<VariantAnnotation> annotations = new ArrayList<>();
+
+        for (int i = 0; i < 100; i++) {
+            annotations.add(annotation(140453136 + i));
+        }
+
+        byte[] json = this.jsonMapper.writeValueAsBytes(annotations);
+        byte[] binary = binaryMapper.writeValueAsBytes(annotations);
+
+        JsonNode expected = this.jsonMapper.readTree(json);
+
+        // mixins apply to the binary encodings too, the decoded documents are identical
+        assertEquals(expected, binaryMapper.readTree(binary));
+        assertEquals("7:g.140453136A>T", expected.get(0).get("variant").asText());
+        assertEquals("BRAF", expected.get(0).get("transcript_consequences").get(0).get("gene_symbol").asText());
+
+        // repeated field names are only encoded once by Smile, CBOR saves the JSON syntax
+        assertTrue(binary.length < json.length);
+    }
+
+    private static VariantAnnotation annotation(int start)
+    {
+        TranscriptConsequence transcriptConsequence = new TranscriptConsequence();
+        transcriptConsequence.setTranscriptId("ENST00000288602");
+        transcriptConsequence.setGeneSymbol("BRAF");
+        transcriptConsequence.setHgvsp("ENSP00000288602.6:p.Val600Glu");
+        transcriptConsequence.setHgvsc("ENST00000288602.6:c.1799T>A");
+        transcriptConsequence.setProteinStart(600);
+        transcriptConsequence.setProteinEnd(600);
+        transcriptConsequence.setPolyphenScore(0.971);
+        transcriptConsequence.setCanonical("1");
+
+        TranscriptConsequenceSummary transcriptConsequenceSummary = new TranscriptConsequenceSummary();
+        transcriptConsequenceSummary.setTranscriptId("ENST00000288602");
+        transcriptConsequenceSummary.setHugoGeneSymbol("BRAF");
+        transcriptConsequenceSummary.setHgvspShort("p.V600E");
+        transcriptConsequenceSummary.setProteinPosition(new IntegerRange(600, 600));
+
+        VariantAnnotationSummary summary = new VariantAnnotationSummary();
+        summary.setVariant("7:g." + start + "A>T");
+        summary.setTranscriptConsequenceSummary(transcriptConsequenceSummary);
+
+        VariantAnnotation annotation = new VariantAnnotation("7:g." + start + "A>T");
+        annotation.setAssemblyName("GRCh37");
+        annotation.setSeqRegionName("7");
+        annotation.setStart(start);
+        annotation.setEnd(start);
+        annotation.setAlleleString("A/T");
+        annotation.setStrand(1);
+        annotation.setMostSevereConsequence("missense_variant");
+        annotation.setTranscriptConsequences(Arrays.asList(transcriptConsequence, transcriptConsequence));
+        annotation.setAnnotationSummary(summary);
+        annotation.setSuccessfullyAnnotated(true);
+
+        return annotation;
+    }
+}
@@ -0,0 +1,135 @@
+package org.cbioportal.genome_nexus.web.config;
+
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ConditionalGetInterceptorTest
+{
+    private final AtomicReference<String> fingerprint = new AtomicReference<>("v1");
+    private final ConditionalGetInterceptor interceptor = new ConditionalGetInterceptor(this.fingerprint::get, 600);
+
+    @Test
+    public void notModifiedWhenEtagMatches() throws Exception
+    {
+        String etag = this.etag(request("isoformOverrideSource=uniprot&fields=hotspots"));
+
+        // the parameter order does not matter
+        MockHttpServletRequest request = request("fields=hotspots&isoformOverrideSource=uniprot");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "\"other\", " + etag);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertFalse(this.interceptor.preHandle(request, response, handler("annotate")));
+        assertEquals(304, response.getStatus());
+        assertEquals(etag, response.getHeader(HttpHeaders.ETAG));
+        assertEquals("max-age=600, public", response.getHeader(HttpHeaders.CACHE_CONTROL));
+    }
+
+    @Test
+    public void modifiedWhenSourceVersionsChange() throws Exception
+    {
+        String etag = this.etag(request(null));
+        this.fingerprint.set("v2");
+
+        MockHttpServletRequest request = request(null);
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+
+        assertTrue(this.interceptor.preHandle(request, new MockHttpServletResponse(), handler("annotate")));
+        assertNotEquals(etag, request.getAttribute(ConditionalGetInterceptor.ETAG_ATTRIBUTE));
+        assertNotEquals(etag, this.etag(request("fields=hotspots")));
+    }
+
+    @Test
+    public void privateCacheWithToken()
+    {
+        HttpHeaders headers = this.interceptor.cacheHeaders(request("token={\"oncokb\":\"secret\"}"));
+
+        assertEquals("max-age=600, private", headers.getCacheControl());
+        assertEquals(HttpHeaders.ACCEPT, headers.getVary().get(0));
+    }
+
+    @Test
+    public void noEtagForLiveFields() throws Exception
+    {
+        // OncoKB and MyVariantInfo are fetched live, their data is not covered by the fingerprint
+        for (String query: new String[] {"fields=oncokb", "fields=hotspots,my_variant_info"}) {
+            MockHttpServletRequest request = request(query);
+
+            assertTrue(this.interceptor.preHandle(request, new MockHttpServletResponse(), handler("annotate")));
+            assertNull(request.getAttribute(ConditionalGetInterceptor.ETAG_ATTRIBUTE));
+        }
+    }
+
+    @Test
+    public void wildcardIsAnsweredWithTheAnnotation() throws Exception
+    {
+        MockHttpServletRequest request = request(null);
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, "*");
+
+        // the variant may not exist, see ConditionalGetResponseBodyAdviceTest
+        assertTrue(this.interceptor.preHandle(request, new MockHttpServletResponse(), handler("annotate")));
+        assertTrue(ConditionalGetInterceptor.matchesAny(request));
+    }
+
+    @Test
+    public void ignoreOtherEndpoints() throws Exception
+    {
+        MockHttpServletRequest request = request(null);
+
+        assertTrue(this.interceptor.preHandle(request, new MockHttpServletResponse(), handler("annotateAll")));
+        assertNull(request.getAttribute(ConditionalGetInterceptor.ETAG_ATTRIBUTE));
+    }
+
+    private String etag(MockHttpServletRequest request) throws Exception
+    {
+        assertTrue(this.interceptor.preHandle(request, new MockHttpServletResponse(), handler("annotate")));
+
+        return (String) request.getAttribute(ConditionalGetInterceptor.ETAG_ATTRIBUTE);
+    }
+
+    private static MockHttpServletRequest request(String query)
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/annotation/7:g.140453136A>T");
+        request.addHeader(HttpHeaders.ACCEPT, ApiMediaTypes.JSON);
+
+        if (query != null) {
+            request.setQueryString(query);
+
+            for (String parameter: query.split("&")) {
+                String[] nameValue = parameter.split("=", 2);
+                request.addParameter(nameValue[0], nameValue[1]);
+            }
+        }
+
+        return request;
+    }
+
+    private static HandlerMethod handler(String name) throws Exception
+    {
+        return new HandlerMethod(new Controller(), Controller.class.getMethod(name));
+    }
+
+    public static class Controller
+    {
+        @ConditionalGet
+        public String annotate()
+        {
+            return "annotation";
+        }
+
+        public String annotateAll()
+        {
+            return "annotations";
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package org.cbioportal.genome_nexus.web.config;
+
+import org.cbioportal.genome_nexus.model.VariantAnnotation;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.http.server.ServletServerHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class ConditionalGetResponseBodyAdviceTest
+{
+    private final ConditionalGetResponseBodyAdvice advice = new ConditionalGetResponseBodyAdvice(
+        new ConditionalGetInterceptor(() -> "v1", 600));
+
+    @Test
+    public void wildcardMatchesAnnotatedVariant() throws IOException
+    {
+        VariantAnnotation annotation = new VariantAnnotation("7:g.140453136A>T");
+        annotation.setSuccessfullyAnnotated(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertNull(this.write(annotation, "*", response));
+        assertEquals(304, response.getStatus());
+        assertEquals("\"etag\"", response.getHeader(HttpHeaders.ETAG));
+    }
+
+    @Test
+    public void wildcardDoesNotMatchFailedAnnotation() throws IOException
+    {
+        VariantAnnotation annotation = new VariantAnnotation("7:g.1A>T");
+        annotation.setSuccessfullyAnnotated(false);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertSame(annotation, this.write(annotation, "*", response));
+        assertEquals(200, response.getStatus());
+    }
+
+    @Test
+    public void otherTagsAreAnsweredWithTheBody() throws IOException
+    {
+        VariantAnnotation annotation = new VariantAnnotation("7:g.140453136A>T");
+        annotation.setSuccessfullyAnnotated(true);
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertSame(annotation, this.write(annotation, "\"other\"", response));
+        assertEquals("\"etag\"", response.getHeader(HttpHeaders.ETAG));
+        assertEquals("max-age=600, public", response.getHeader(HttpHeaders.CACHE_CONTROL));
+    }
+
+    private Object write(Object body, String ifNoneMatch, MockHttpServletResponse servletResponse) throws IOException
+    {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/annotation/7:g.140453136A>T");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        request.setAttribute(ConditionalGetInterceptor.ETAG_ATTRIBUTE, "\"etag\"");
+
+        ServletServerHttpResponse response = new ServletServerHttpResponse(servletResponse);
+        Object written = this.advice.beforeBodyWrite(body, null, MediaType.APPLICATION_JSON, null,
+            new ServletServerHttpRequest(request), response);
+        response.flush();
+
+        return written;
+    }
+}
@@ -0,0 +1,119 @@
+package org.cbioportal.genome_nexus.web.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import org.cbioportal.genome_nexus.model.AnnotationField;
+import org.cbioportal.genome_nexus.model.AnnotationProjection;
+import org.cbioportal.genome_nexus.model.TranscriptConsequence;
+import org.cbioportal.genome_nexus.model.TranscriptConsequenceSummary;
+import org.cbioportal.genome_nexus.model.VariantAnnotation;
+import org.cbioportal.genome_nexus.model.VariantAnnotationSummary;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class ProjectionPropertyFilterTest
+{
+    private final ObjectMapper objectMapper = new ApiObjectMapper();
+
+    @Test
+    public void serializeOnlyIncludedFields() throws Exception
+    {
+        JsonNode json = this.write(annotation(),
+            "variant, transcript_consequences.gene_symbol,annotation_summary.transcriptConsequenceSummary.hugoGeneSymbol");
+
+        assertEquals(Arrays.asList("variant", "transcript_consequences", "annotation_summary"), fieldNames(json));
+        assertEquals("7:g.140453136A>T", json.get("variant").asText());
+
+        // list elements are filtered with the path of the list
+        JsonNode transcript = json.get("transcript_consequences").get(0);
+        assertEquals(Collections.singletonList("gene_symbol"), fieldNames(transcript));
+        assertEquals("BRAF", transcript.get("gene_symbol").asText());
+
+        JsonNode summary = json.get("annotation_summary");
+        assertEquals(Collections.singletonList("transcriptConsequenceSummary"), fieldNames(summary));
+        assertEquals(Collections.singletonList("hugoGeneSymbol"),
+            fieldNames(summary.get("transcriptConsequenceSummary")));
+    }
+
+    @Test
+    public void parentFieldIncludesNestedFields() throws Exception
+    {
+        JsonNode json = this.write(annotation(), "annotation_summary.transcriptConsequenceSummary.hugoGeneSymbol,annotation_summary");
+        JsonNode summary = json.get("annotation_summary");
+
+        assertEquals(Collections.singletonList("annotation_summary"), fieldNames(json));
+        assertTrue(summary.has("variant"));
+        assertEquals("p.V600E", summary.get("transcriptConsequenceSummary").get("hgvspShort").asText());
+    }
+
+    @Test
+    public void serializeAllFieldsByDefault() throws Exception
+    {
+        JsonNode json = this.objectMapper.readTree(this.objectMapper.writeValueAsBytes(annotation()));
+
+        assertTrue(json.has("variant"));
+        assertTrue(json.has("assembly_name"));
+        assertEquals(2, json.get("transcript_consequences").get(0).size());
+        assertTrue(json.get("annotation_summary").has("variant"));
+    }
+
+    @Test
+    public void restrictFields()
+    {
+        AnnotationProjection projection = AnnotationProjection.parse("variant,signalAnnotation,oncokb.oncogenic");
+
+        assertEquals(Arrays.asList(AnnotationField.ONCOKB, AnnotationField.SIGNAL),
+            projection.restrictFields(Arrays.asList(
+                AnnotationField.ANNOTATION_SUMMARY, AnnotationField.ONCOKB, AnnotationField.SIGNAL)));
+        assertFalse(projection.includes("colocatedVariants"));
+        assertNull(AnnotationProjection.parse(" , "));
+    }
+
+    private JsonNode write(VariantAnnotation annotation, String include) throws Exception
+    {
+        SimpleFilterProvider filters = new SimpleFilterProvider().addFilter(ApiObjectMapper.PROJECTION_FILTER,
+            new ProjectionPropertyFilter(AnnotationProjection.parse(include)));
+
+        return this.objectMapper.readTree(this.objectMapper.writer(filters).writeValueAsBytes(annotation));
+    }
+
+    private static List<String> fieldNames(JsonNode node)
+    {
+        List<String> names = new ArrayList<>();
+        node.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+
+    private static VariantAnnotation annotation()
+    {
+        TranscriptConsequence transcriptConsequence = new TranscriptConsequence();
+        transcriptConsequence.setTranscriptId("ENST00000288602");
+        transcriptConsequence.setGeneSymbol("BRAF");
+
+        TranscriptConsequenceSummary transcriptConsequenceSummary = new TranscriptConsequenceSummary();
+        transcriptConsequenceSummary.setTranscriptId("ENST00000288602");
+        transcriptConsequenceSummary.setHugoGeneSymbol("BRAF");
+        transcriptConsequenceSummary.setHgvspShort("p.V600E");
+
+        VariantAnnotationSummary summary = new VariantAnnotationSummary();
+        summary.setVariant("7:g.140453136A>T");
+        summary.setTranscriptConsequenceSummary(transcriptConsequenceSummary);
+
+        VariantAnnotation annotation = new VariantAnnotation("7:g.140453136A>T");
+        annotation.setAssemblyName("GRCh37");
+        annotation.setTranscriptConsequences(Collections.singletonList(transcriptConsequence));
+        annotation.setAnnotationSummary(summary);
+
+        return annotation;
+    }
+}